@@ -0,0 +1,13 @@
+package com.gesoftware.venta.actors;
+
+/**
+ * IFailedResponse interface definition (response, which fails request's promise instead of completing it)
+ **/
+public interface IFailedResponse extends IResponse {
+    /* *
+     * METHOD: Gets failure reason
+     * RETURN: Failure description
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public String getFailure();
+} /* End of 'IFailedResponse' interface */
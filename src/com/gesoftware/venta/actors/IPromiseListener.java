@@ -0,0 +1,20 @@
+package com.gesoftware.venta.actors;
+
+/**
+ * IPromiseListener interface definition
+ **/
+public interface IPromiseListener<T> {
+    /* *
+     * METHOD: Executes when promise is completed with result (in completing thread, shouldn't block)
+     *  PARAM: [IN] result - promise result
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public void onComplete(final T result);
+
+    /* *
+     * METHOD: Executes when promise is failed or cancelled (in completing thread, shouldn't block)
+     *  PARAM: [IN] failure - failure reason
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public void onFailure(final Throwable failure);
+} /* End of 'IPromiseListener' interface */
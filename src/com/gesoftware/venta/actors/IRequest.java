@@ -0,0 +1,15 @@
+package com.gesoftware.venta.actors;
+
+import java.io.Serializable;
+
+/**
+ * IRequest interface definition
+ **/
+public interface IRequest extends Serializable {
+    /* *
+     * METHOD: Gets request identifier (unique for puppeteer)
+     * RETURN: Request identifier
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public long getRequestID();
+} /* End of 'IRequest' interface */
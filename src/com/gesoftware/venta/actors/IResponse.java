@@ -0,0 +1,15 @@
+package com.gesoftware.venta.actors;
+
+import java.io.Serializable;
+
+/**
+ * IResponse interface definition
+ **/
+public interface IResponse extends Serializable {
+    /* *
+     * METHOD: Gets identifier of request this response answers
+     * RETURN: Request identifier
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public long getRequestID();
+} /* End of 'IResponse' interface */
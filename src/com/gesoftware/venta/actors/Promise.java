@@ -0,0 +1,251 @@
+package com.gesoftware.venta.actors;
+
+import com.gesoftware.venta.processing.IConverter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Promise class definition (result of request, that will be completed by response)
+ **/
+public final class Promise<T> implements Future<T> {
+    /* Completion latch */
+    private final CountDownLatch m_Done = new CountDownLatch(1);
+
+    /* Result (valid after completion) */
+    private volatile T m_Result;
+
+    /* Failure reason (valid after completion) */
+    private volatile Throwable m_Failure;
+
+    /* Cancellation flag */
+    private volatile boolean m_IsCancelled;
+
+    /* Completion flag (only first completion wins) */
+    private final AtomicBoolean m_IsCompleted = new AtomicBoolean(false);
+
+    /* Listeners, waiting for completion (guarded by list itself) */
+    private final List<IPromiseListener<? super T>> m_Listeners = new LinkedList<IPromiseListener<? super T>>();
+
+    /* *
+     * METHOD: Creates already completed promise
+     * RETURN: Completed promise
+     *  PARAM: [IN] result - promise result
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public static <T> Promise<T> completed(final T result) {
+        final Promise<T> promise = new Promise<T>();
+        promise.complete(result);
+        return promise;
+    } /* End of 'Promise::completed' method */
+
+    /* *
+     * METHOD: Creates promise, completed when all promises are completed (failed if any of them fails)
+     * RETURN: Promise of all results (in order of promises)
+     *  PARAM: [IN] promises - promises to wait for
+     * AUTHOR: Dmitry Eliseev
+     * */
+    @SuppressWarnings("unchecked")
+    public static <T> Promise<List<T>> all(final List<Promise<T>> promises) {
+        final Promise<List<T>> all = new Promise<List<T>>();
+        if (promises.isEmpty()) {
+            all.complete(new ArrayList<T>());
+            return all;
+        }
+
+        final Object[] results = new Object[promises.size()];
+        final AtomicInteger left = new AtomicInteger(promises.size());
+        for (int i = 0; i < promises.size(); i++) {
+            final int index = i;
+            promises.get(i).addListener(new IPromiseListener<T>() {
+                @Override
+                public final void onComplete(final T result) {
+                    results[index] = result;
+                    if (left.decrementAndGet() == 0)
+                        all.complete((List<T>) Arrays.asList(results));
+                }
+
+                @Override
+                public final void onFailure(final Throwable failure) {
+                    all.fail(failure);
+                }
+            });
+        }
+
+        return all;
+    } /* End of 'Promise::all' method */
+
+    /* *
+     * METHOD: Marks promise as completed
+     * RETURN: True if promise was completed by this call, False otherwise
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private boolean markCompleted() {
+        return m_IsCompleted.compareAndSet(false, true);
+    } /* End of 'Promise::markCompleted' method */
+
+    /* *
+     * METHOD: Informs listener about completion
+     *  PARAM: [IN] listener - listener to inform
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private void notifyListener(final IPromiseListener<? super T> listener) {
+        if (m_IsCancelled)
+            listener.onFailure(new CancellationException());
+        else if (m_Failure != null)
+            listener.onFailure(m_Failure);
+        else
+            listener.onComplete(m_Result);
+    } /* End of 'Promise::notifyListener' method */
+
+    /* *
+     * METHOD: Releases waiting threads and informs all listeners
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private void finish() {
+        m_Done.countDown();
+
+        final List<IPromiseListener<? super T>> listeners;
+        synchronized (m_Listeners) {
+            listeners = new LinkedList<IPromiseListener<? super T>>(m_Listeners);
+            m_Listeners.clear();
+        }
+
+        for (final IPromiseListener<? super T> listener : listeners)
+            notifyListener(listener);
+    } /* End of 'Promise::finish' method */
+
+    /* *
+     * METHOD: Adds completion listener (informed immediately if promise is already done)
+     * RETURN: This promise
+     *  PARAM: [IN] listener - listener to add
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final Promise<T> addListener(final IPromiseListener<? super T> listener) {
+        synchronized (m_Listeners) {
+            if (!isDone()) {
+                m_Listeners.add(listener);
+                return this;
+            }
+        }
+
+        notifyListener(listener);
+        return this;
+    } /* End of 'Promise::addListener' method */
+
+    /* *
+     * METHOD: Creates promise of converted result (failures are passed as is)
+     * RETURN: Promise, completed by converted result of this one
+     *  PARAM: [IN] converter - result converter
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final <R> Promise<R> then(final IConverter<? super T, ? extends R> converter) {
+        final Promise<R> promise = new Promise<R>();
+        addListener(new IPromiseListener<T>() {
+            @Override
+            public final void onComplete(final T result) {
+                try {
+                    promise.complete(converter.convert(result));
+                } catch (final RuntimeException e) {
+                    promise.fail(e);
+                }
+            }
+
+            @Override
+            public final void onFailure(final Throwable failure) {
+                promise.fail(failure);
+            }
+        });
+
+        return promise;
+    } /* End of 'Promise::then' method */
+
+    /* *
+     * METHOD: Completes promise with result
+     * RETURN: True if promise was completed by this call, False if it was already completed
+     *  PARAM: [IN] result - request result
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final boolean complete(final T result) {
+        if (!markCompleted())
+            return false;
+
+        m_Result = result;
+        finish();
+        return true;
+    } /* End of 'Promise::complete' method */
+
+    /* *
+     * METHOD: Completes promise with failure
+     * RETURN: True if promise was completed by this call, False if it was already completed
+     *  PARAM: [IN] failure - failure reason
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final boolean fail(final Throwable failure) {
+        if (!markCompleted())
+            return false;
+
+        m_Failure = failure;
+        finish();
+        return true;
+    } /* End of 'Promise::fail' method */
+
+    @Override
+    public final boolean cancel(final boolean mayInterruptIfRunning) {
+        if (!markCompleted())
+            return false;
+
+        m_IsCancelled = true;
+        finish();
+        return true;
+    } /* End of 'Promise::cancel' method */
+
+    @Override
+    public final boolean isCancelled() {
+        return m_IsCancelled;
+    } /* End of 'Promise::isCancelled' method */
+
+    @Override
+    public final boolean isDone() {
+        return m_Done.getCount() == 0;
+    } /* End of 'Promise::isDone' method */
+
+    /* *
+     * METHOD: Gets result of completed promise
+     * RETURN: Request result
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private T getResult() throws ExecutionException {
+        if (m_IsCancelled)
+            throw new CancellationException();
+
+        if (m_Failure != null)
+            throw new ExecutionException(m_Failure);
+
+        return m_Result;
+    } /* End of 'Promise::getResult' method */
+
+    @Override
+    public final T get() throws InterruptedException, ExecutionException {
+        m_Done.await();
+        return getResult();
+    } /* End of 'Promise::get' method */
+
+    @Override
+    public final T get(final long timeout, final TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        if (!m_Done.await(timeout, unit))
+            throw new TimeoutException();
+
+        return getResult();
+    } /* End of 'Promise::get' method */
+} /* End of 'Promise' class */
@@ -6,8 +6,11 @@ import com.gesoftware.venta.network.model.Message;
 import com.gesoftware.venta.network.handlers.IClientHandler;
 import com.gesoftware.venta.structures.map.SynchronizedMap;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Puppeteer class definition
@@ -19,6 +22,12 @@ public final class Puppeteer {
     /* Registered dispatchers */
     private final Map<Class, IDispatcher> m_Dispatchers = new SynchronizedMap<Class, IDispatcher>();
 
+    /* Requests, waiting for responses (by request identifier) */
+    private final Map<Long, Promise<? extends IResponse>> m_Pending = new ConcurrentHashMap<Long, Promise<? extends IResponse>>();
+
+    /* Last request identifier */
+    private final AtomicLong m_RequestID = new AtomicLong();
+
     /* *
      * METHOD: Gets dispatcher by class
      * RETURN: Dispatcher if registered, null otherwise
@@ -29,6 +38,52 @@ public final class Puppeteer {
         return m_Dispatchers.get(c);
     } /* End of 'Puppeteer::getDispatcher' method */
 
+    /* *
+     * METHOD: Completes promise by response
+     * RETURN: True if promise was completed, False otherwise
+     *  PARAM: [IN] promise  - promise of response
+     *  PARAM: [IN] response - received response
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private static <T extends IResponse> boolean complete(final Promise<T> promise, final IResponse response) {
+        /* Response type is chosen by requester (it's the only unchecked place) */
+        @SuppressWarnings("unchecked")
+        final T result = (T) response;
+
+        return promise.complete(result);
+    } /* End of 'Puppeteer::complete' method */
+
+    /* *
+     * METHOD: Completes pending request by it's response
+     * RETURN: True if response was waited for, False otherwise
+     *  PARAM: [IN] response - received response
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private boolean completeRequest(final IResponse response) {
+        final Promise<? extends IResponse> promise = m_Pending.remove(response.getRequestID());
+        if (promise == null)
+            return false;
+
+        /* Request failed on theater's side (connection stays alive) */
+        if (response instanceof IFailedResponse)
+            return promise.fail(new IllegalStateException(((IFailedResponse) response).getFailure()));
+
+        return complete(promise, response);
+    } /* End of 'Puppeteer::completeRequest' method */
+
+    /* *
+     * METHOD: Fails all pending requests
+     *  PARAM: [IN] reason - failure reason
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private void failRequests(final String reason) {
+        for (final Long requestID : m_Pending.keySet()) {
+            final Promise<? extends IResponse> promise = m_Pending.remove(requestID);
+            if (promise != null)
+                promise.fail(new IOException(reason));
+        }
+    } /* End of 'Puppeteer::failRequests' method */
+
     /**
      * ClientHandler class definition
      */
@@ -38,6 +93,9 @@ public final class Puppeteer {
         @SuppressWarnings("unchecked")
         public final void onReceive(final Message message) {
             final Object object = message.getObject();
+            if ((object instanceof IResponse) && completeRequest((IResponse) object))
+                return;
+
             final IDispatcher dispatcher  = getDispatcher(object.getClass());
 
             if (dispatcher != null) {
@@ -51,6 +109,7 @@ public final class Puppeteer {
         @Override
         public void onConnectionLost(String message) {
             LoggingUtility.core("Show finished: " + message);
+            failRequests("Connection lost: " + message);
         } /* End of 'ClientHandler::onConnectionLost' method */
     } /* End of 'Puppeteer::ClientHandler' class */
 
@@ -75,6 +134,15 @@ public final class Puppeteer {
         m_Dispatchers.put(c, dispatcher);
     } /* End of 'Puppeteer::registerDispatcher' method */
 
+    /* *
+     * METHOD: Determines if puppeteer is connected to theater
+     * RETURN: True if connection is alive, False otherwise
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final boolean isActive() {
+        return m_Connection.isConnected();
+    } /* End of 'Puppeteer::isActive' method */
+
     /* *
      * METHOD: Gives command to theater's actors
      * RETURN: True if success, False otherwise
@@ -85,11 +153,39 @@ public final class Puppeteer {
         return m_Connection.send(new Message(command));
     } /* End of 'Puppeteer::giveCommand' method */
 
+    /* *
+     * METHOD: Generates request identifier
+     * RETURN: Unique (for this puppeteer) request identifier
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final long nextRequestID() {
+        return m_RequestID.incrementAndGet();
+    } /* End of 'Puppeteer::nextRequestID' method */
+
+    /* *
+     * METHOD: Sends request to theater's actors, response will complete returned promise (requests may be pipelined)
+     * RETURN: Promise of response (failed if request can't be sent or connection is lost)
+     *  PARAM: [IN] request - request with identifier, got from nextRequestID
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final <T extends IResponse> Promise<T> request(final IRequest request) {
+        final Promise<T> promise = new Promise<T>();
+        m_Pending.put(request.getRequestID(), promise);
+
+        if (!giveCommand(request)) {
+            m_Pending.remove(request.getRequestID());
+            promise.fail(new IOException("Can't send request: " + request.getClass().getName()));
+        }
+
+        return promise;
+    } /* End of 'Puppeteer::request' method */
+
     /* *
      * METHOD: Finish puppeteer's work
      * AUTHOR: Dmitry Eliseev
      * */
     public final void finish() {
         m_Connection.disconnect();
+        failRequests("Puppeteer finished");
     } /* End of 'Puppeteer::finish' method */
 } /* End of 'Puppeteer' class */
@@ -5,8 +5,14 @@ import com.gesoftware.venta.structures.map.SynchronizedMap;
 import com.gesoftware.venta.network.model.ServerResponse;
 import com.gesoftware.venta.logging.LoggingUtility;
 import com.gesoftware.venta.network.model.Message;
+import com.gesoftware.venta.network.NioServer;
+import com.gesoftware.venta.network.IServer;
 import com.gesoftware.venta.network.Server;
+import java.io.Serializable;
 import java.net.InetAddress;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -17,7 +23,7 @@ public final class Theater implements Runnable {
     private final static ServerResponse c_EmptyResponse = new ServerResponse(null);
 
     /* Real server */
-    private final Server m_Server;
+    private final IServer m_Server;
 
     /* Registered actors */
     private final Map<Class, IActor> m_Actors = new SynchronizedMap<Class, IActor>();
@@ -68,7 +74,17 @@ public final class Theater implements Runnable {
      * AUTHOR: Dmitry Eliseev
      * */
     public Theater(final int port) {
-        m_Server = new Server(port, new ServerHandler());
+        this(port, false);
+    } /* End of 'Theater::Theater' method */
+
+    /* *
+     * METHOD: Theater class constructor
+     *  PARAM: [IN] port          - listening port
+     *  PARAM: [IN] isNonBlocking - use selector-based server instead of two threads per client
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public Theater(final int port, final boolean isNonBlocking) {
+        m_Server = isNonBlocking?new NioServer(port, new ServerHandler()):new Server(port, new ServerHandler());
     } /* End of 'Theater::Theater' method */
 
     /* *
@@ -81,6 +97,35 @@ public final class Theater implements Runnable {
         m_Actors.put(c, actor);
     } /* End of 'Theater::registerActor' method */
 
+    /* *
+     * METHOD: Sends object to puppeteer (not as an answer to it's command)
+     * RETURN: True if success, False otherwise
+     *  PARAM: [IN] clientID - puppeteer's identifier
+     *  PARAM: [IN] object   - object to send
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final boolean send(final String clientID, final Serializable object) {
+        return m_Server.send(clientID, new Message(object));
+    } /* End of 'Theater::send' method */
+
+    /* *
+     * METHOD: Sends object to several puppeteers (object is packed once)
+     * RETURN: Identifiers of puppeteers, object wasn't sent to
+     *  PARAM: [IN] clientIDs - puppeteers' identifiers
+     *  PARAM: [IN] object    - object to send
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final List<String> send(final Collection<String> clientIDs, final Serializable object) {
+        final Message message = new Message(object);
+
+        final List<String> failed = new LinkedList<String>();
+        for (final String clientID : clientIDs)
+            if (!m_Server.send(clientID, message))
+                failed.add(clientID);
+
+        return failed;
+    } /* End of 'Theater::send' method */
+
     @Override
     public final void run() {
         m_Server.run();
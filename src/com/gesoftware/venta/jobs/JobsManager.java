@@ -1,10 +1,14 @@
 package com.gesoftware.venta.jobs;
 
 import com.gesoftware.venta.logging.LoggingUtility;
+import com.gesoftware.venta.threads.PlatformThreadFactory;
 import com.gesoftware.venta.time.Timer;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * JobManager class definition
@@ -67,7 +71,7 @@ public final class JobsManager {
         private final Timer m_Timer = new Timer();
 
         /* Is worker active */
-        private boolean m_Active = true;
+        private volatile boolean m_Active = true;
 
         /* Time between sleep execution (ms) */
         private final int m_TimeBetweenSleeps;
@@ -103,10 +107,15 @@ public final class JobsManager {
          * METHOD: Run all ready jobs
          * AUTHOR: Eliseev Dmitry
          * */
-        private synchronized void doJob() {
-            for (final Job job : m_Jobs)
-                if (job.isJobTime())
-                    job.run();
+        private void doJob() {
+            m_Lock.lock();
+            try {
+                for (final Job job : m_Jobs)
+                    if (job.isJobTime())
+                        job.run();
+            } finally {
+                m_Lock.unlock();
+            }
         } /* End of 'Worker::doJob' method */
 
         @Override
@@ -133,6 +142,9 @@ public final class JobsManager {
     /* Jobs collection */
     private final Set<Job> m_Jobs = new HashSet<Job>();
 
+    /* Jobs collection lock (shared by worker and tasks adding, doesn't pin virtual threads) */
+    private final Lock m_Lock = new ReentrantLock();
+
     /* Worker */
     private final Worker m_Worker;
 
@@ -142,8 +154,7 @@ public final class JobsManager {
      * AUTHOR: Eliseev Dmitry
      * */
     public JobsManager(final int sleepDuration) {
-        m_Worker = new Worker(0, sleepDuration);
-        (new Thread(m_Worker)).start();
+        this(0, sleepDuration);
     } /* End of 'JobsManager::JobsManager' method */
 
     /* *
@@ -153,8 +164,19 @@ public final class JobsManager {
      * AUTHOR: Eliseev Dmitry
      * */
     public JobsManager(final int timeBetweenSleeps, final int sleepDuration) {
+        this(timeBetweenSleeps, sleepDuration, new PlatformThreadFactory());
+    } /* End of 'JobsManager::JobsManager' method */
+
+    /* *
+     * METHOD: Class constructor
+     *  PARAM: [IN] timeBetweenSleeps - how much time should pass before sleeps
+     *  PARAM: [IN] sleepDuration     - how long should thread sleeps
+     *  PARAM: [IN] threadFactory     - factory for worker thread (e.g. VirtualThreadFactory)
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public JobsManager(final int timeBetweenSleeps, final int sleepDuration, final ThreadFactory threadFactory) {
         m_Worker = new Worker(timeBetweenSleeps, sleepDuration);
-        (new Thread(m_Worker)).start();
+        threadFactory.newThread(m_Worker).start();
     } /* End of 'JobsManager::JobsManager' method */
 
     /* *
@@ -163,8 +185,13 @@ public final class JobsManager {
      *  PARAM: [IN] duration - time (ms) between task launches
      * AUTHOR: Eliseev Dmitry
      * */
-    public synchronized void addTask(final Runnable task, final int duration) {
-        m_Jobs.add(new Job(task, duration));
+    public void addTask(final Runnable task, final int duration) {
+        m_Lock.lock();
+        try {
+            m_Jobs.add(new Job(task, duration));
+        } finally {
+            m_Lock.unlock();
+        }
     } /* End of 'JobsManager::addTask' method */
 
     /* *
@@ -172,7 +199,7 @@ public final class JobsManager {
      *  PARAM: [IN] task - task to run
      * AUTHOR: Eliseev Dmitry
      * */
-    public synchronized void addTask(final Runnable task) {
+    public void addTask(final Runnable task) {
         addTask(task, 0);
     } /* End of 'JobsManager::addTask' method */
 
@@ -0,0 +1,90 @@
+package com.gesoftware.venta.network;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/* *
+ * Buffer pool class definition (heap buffers with power of two capacities; buffers, bigger than the largest pooled
+ * size, are not kept)
+ * */
+final class BufferPool {
+    /* The smallest pooled buffer capacity (8 KB) */
+    private final static int c_MinShift = 13;
+
+    /* The largest pooled buffer capacity (4 MB) */
+    private final static int c_MaxShift = 22;
+
+    /* Maximal number of free buffers of each capacity */
+    private final static int c_BucketCapacity = 16;
+
+    /* Free buffers by capacities and their counts */
+    private final Queue<ByteBuffer>[] m_Buckets;
+    private final AtomicIntegerArray m_Counts = new AtomicIntegerArray(c_MaxShift - c_MinShift + 1);
+
+    /* *
+     * METHOD: Buffer pool class constructor
+     * AUTHOR: Eliseev Dmitry
+     * */
+    @SuppressWarnings("unchecked")
+    public BufferPool() {
+        m_Buckets = (Queue<ByteBuffer>[]) new Queue<?>[c_MaxShift - c_MinShift + 1];
+        for (int bucket = 0; bucket < m_Buckets.length; bucket++)
+            m_Buckets[bucket] = new ConcurrentLinkedQueue<ByteBuffer>();
+    } /* End of 'BufferPool::BufferPool' method */
+
+    /* *
+     * METHOD: Gets bucket of buffers with given capacity
+     * RETURN: Bucket index, -1 if such buffers are not pooled
+     *  PARAM: [IN] capacity - buffer capacity
+     * AUTHOR: Eliseev Dmitry
+     * */
+    private static int getBucket(final int capacity) {
+        if (Integer.bitCount(capacity) != 1)
+            return -1;
+
+        final int shift = Integer.numberOfTrailingZeros(capacity);
+        return ((shift >= c_MinShift) && (shift <= c_MaxShift))?shift - c_MinShift:-1;
+    } /* End of 'BufferPool::getBucket' method */
+
+    /* *
+     * METHOD: Takes buffer from pool (allocates new one if there is no free buffer)
+     * RETURN: Cleared buffer with at least given capacity
+     *  PARAM: [IN] size - required capacity
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final ByteBuffer acquire(final int size) {
+        final int capacity = (size <= (1 << c_MinShift))?(1 << c_MinShift):Integer.highestOneBit(size - 1) << 1;
+        final int bucket = getBucket(capacity);
+
+        if (bucket >= 0) {
+            final ByteBuffer buffer = m_Buckets[bucket].poll();
+            if (buffer != null) {
+                m_Counts.decrementAndGet(bucket);
+                return buffer;
+            }
+        }
+
+        return ByteBuffer.allocate((capacity > 0)?capacity:size);
+    } /* End of 'BufferPool::acquire' method */
+
+    /* *
+     * METHOD: Returns buffer to pool (it shouldn't be used after that)
+     *  PARAM: [IN] buffer - buffer to return
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final void release(final ByteBuffer buffer) {
+        final int bucket = getBucket(buffer.capacity());
+        if (bucket < 0)
+            return;
+
+        if (m_Counts.incrementAndGet(bucket) > c_BucketCapacity) {
+            m_Counts.decrementAndGet(bucket);
+            return;
+        }
+
+        buffer.clear();
+        m_Buckets[bucket].add(buffer);
+    } /* End of 'BufferPool::release' method */
+} /* End of 'BufferPool' class */
@@ -3,11 +3,15 @@ package com.gesoftware.venta.network;
 import com.gesoftware.venta.logging.LoggingUtility;
 import com.gesoftware.venta.network.handlers.IClientHandler;
 import com.gesoftware.venta.network.model.Message;
+import com.gesoftware.venta.threads.PlatformThreadFactory;
 
 import java.io.*;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /* Connection class definition */
 public final class Connection implements IConnection {
@@ -18,7 +22,7 @@ public final class Connection implements IConnection {
     private final IClientHandler m_ClientHandler;
 
     /* Connected flag */
-    private boolean m_IsConnected;
+    private volatile boolean m_IsConnected;
 
     /* Server address */
     private final String m_Host;
@@ -29,12 +33,17 @@ public final class Connection implements IConnection {
     /* Time difference between server & client */
     private long m_TimeDifference;
 
-    /* I/O streams */
-    private ObjectInputStream m_Reader;
-    private ObjectOutputStream m_Writer;
+    /* Negotiated transport (frames or object stream) */
+    private ITransport m_Transport;
 
-    /* Synchonizer for */
-    private final Object m_Sync = new Object();
+    /* Server doesn't speak frames flag (detected during handshake) */
+    private boolean m_IsObjectStreamServer;
+
+    /* Synchronizer for connection state & sending (lock doesn't pin virtual threads on blocking writes) */
+    private final Lock m_Sync = new ReentrantLock();
+
+    /* Factory for receiver thread (platform or virtual threads) */
+    private final ThreadFactory m_ThreadFactory;
 
     /* Receiver class definition */
     private final class Receiver implements Runnable {
@@ -54,7 +63,7 @@ public final class Connection implements IConnection {
             /* While sender works */
             while (m_IsConnected) {
                 try {
-                    final Message message = (Message) m_Reader.readObject();
+                    final Message message = m_Transport.read();
                     calculateTimeDifference(message);
 
                     if (m_ClientHandler != null)
@@ -75,6 +84,24 @@ public final class Connection implements IConnection {
         } /* End of 'Receiver::run' method */
     } /* End of 'Receiver' class */
 
+    /* *
+     * METHOD: Opens socket and negotiates transport with server
+     * RETURN: Negotiated transport if success, null if server doesn't speak frames
+     *  PARAM: [IN] isFramed - try to negotiate frames
+     * AUTHOR: Eliseev Dmitry
+     * */
+    private ITransport openTransport(final boolean isFramed) throws IOException {
+        final Socket socket = new Socket();
+        socket.connect(new InetSocketAddress(m_Host, m_Port), c_NetworkTimeout);
+        socket.setTcpNoDelay(true);
+
+        final ITransport transport = Handshake.connect(socket, isFramed);
+        if (transport == null)
+            socket.close();
+
+        return transport;
+    } /* End of 'Connection::openTransport' method */
+
     /* *
      * METHOD: Connection class constructor
      *  PARAM: [IN] host          - server host
@@ -83,29 +110,45 @@ public final class Connection implements IConnection {
      * AUTHOR: Eliseev Dmitry
      * */
     public Connection(final String host, final int port, final IClientHandler clientHandler) {
+        this(host, port, clientHandler, new PlatformThreadFactory());
+    } /* End of 'Connection::Connection' method */
+
+    /* *
+     * METHOD: Connection class constructor
+     *  PARAM: [IN] host          - server host
+     *  PARAM: [IN] port          - server port
+     *  PARAM: [IN] clientHandler - server responses handler
+     *  PARAM: [IN] threadFactory - factory for receiver thread (e.g. VirtualThreadFactory)
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public Connection(final String host, final int port, final IClientHandler clientHandler, final ThreadFactory threadFactory) {
         this.m_ClientHandler = clientHandler;
+        this.m_ThreadFactory = threadFactory;
         this.m_Host          = host;
         this.m_Port          = port;
     } /* End of 'Connection::Connection' method */
 
     @Override
     public final boolean connect() {
-        synchronized (m_Sync) {
+        m_Sync.lock();
+        try {
             if (m_IsConnected)
                 return true;
 
             disconnect();
 
             try {
-                final Socket socket = new Socket();
-                socket.connect(new InetSocketAddress(m_Host, m_Port), c_NetworkTimeout);
+                m_Transport = openTransport(!m_IsObjectStreamServer);
+                if (m_Transport == null) {
+                    LoggingUtility.core("Server doesn't support frames, using object stream: " + m_Host + ":" + m_Port);
 
-                m_Reader = new ObjectInputStream(socket.getInputStream());
-                m_Writer = new ObjectOutputStream(socket.getOutputStream());
+                    m_IsObjectStreamServer = true;
+                    m_Transport = openTransport(false);
+                }
 
                 m_IsConnected = true;
 
-                final Thread receiverThread = new Thread(new Receiver());
+                final Thread receiverThread = m_ThreadFactory.newThread(new Receiver());
                 receiverThread.start();
 
                 return true;
@@ -118,21 +161,24 @@ public final class Connection implements IConnection {
             }
 
             return false;
+        } finally {
+            m_Sync.unlock();
         }
     } /* End of 'Connection::connect' method */
 
     @Override
     public final boolean send(final Message message) {
-        synchronized (m_Sync) {
+        m_Sync.lock();
+        try {
             /* If socket is opened */
-            if (m_Writer != null) {
+            if (m_Transport != null) {
                 try {
                     /* send message to socket */
                     if (message.getSize() == 0)
                         return false;
 
-                    m_Writer.writeObject(message);
-                    m_Writer.flush();
+                    m_Transport.write(message);
+                    m_Transport.flush();
 
                     /* Success */
                     return true;
@@ -141,8 +187,10 @@ public final class Connection implements IConnection {
                 }
             }
 
-        /* Failed */
+            /* Failed */
             return false;
+        } finally {
+            m_Sync.unlock();
         }
     } /* End of 'Connection::send' method */
 
@@ -153,23 +201,16 @@ public final class Connection implements IConnection {
 
     @Override
     public void disconnect() {
-        synchronized (m_Sync) {
+        m_Sync.lock();
+        try {
             m_IsConnected = false;
 
-            try {
-                if (m_Reader != null)
-                    m_Reader.close();
-            } catch (final Exception ignored) {
-            }
-
-            try {
-                if (m_Writer != null)
-                    m_Writer.close();
-            } catch (final Exception ignored) {
-            }
+            if (m_Transport != null)
+                m_Transport.close();
 
-            m_Reader = null;
-            m_Writer = null;
+            m_Transport = null;
+        } finally {
+            m_Sync.unlock();
         }
     } /* End of 'Connection::disconnect' method */
 
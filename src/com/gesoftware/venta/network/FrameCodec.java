@@ -0,0 +1,157 @@
+package com.gesoftware.venta.network;
+
+import com.gesoftware.venta.network.model.Message;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Frame codec class definition (length-prefixed binary messages)
+ **/
+public final class FrameCodec {
+    /* Frames protocol hello/acknowledge magic ("VENT") */
+    public final static int c_Magic = 0x56454E54;
+
+    /* Frames protocol version (since version 2 flags carry payload codec) */
+    public final static byte c_Version = 2;
+
+    /* The first version, which peers decode payload with codec from flags */
+    public final static byte c_CodecVersion = 2;
+
+    /* Hello/acknowledge size: magic (int) + version (byte) */
+    public final static int c_HelloSize = 5;
+
+    /* Greeting, sent by every server right after accept (ObjectOutputStream header) */
+    public final static int c_LegacyMagic = 0xACED0005;
+
+    /* Frame header size: payload length (int) + timestamp (long) + flags (byte, payload codec identifier) */
+    public final static int c_HeaderSize = 13;
+
+    /* Maximal allowed payload size (64 MB) */
+    public final static int c_MaxPayloadSize = 64 * 1024 * 1024;
+
+    /* *
+     * METHOD: Encodes message to a frame
+     * RETURN: Buffer, ready for writing
+     *  PARAM: [IN] message - message to encode
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public static ByteBuffer encode(final Message message) {
+        final int size = message.getSize();
+
+        final ByteBuffer frame = ByteBuffer.allocate(c_HeaderSize + size);
+        frame.putInt(size);
+        frame.putLong(message.getTimestamp());
+        frame.put(message.getCodec());
+        if (size > 0)
+            frame.put(message.getBuffer());
+
+        frame.flip();
+        return frame;
+    } /* End of 'FrameCodec::encode' method */
+
+    /* *
+     * METHOD: Decodes one frame from buffer (buffer should be in read mode)
+     * RETURN: Decoded message if buffer contains the whole frame, null otherwise (message data is a view of buffer,
+     *         it's valid until buffer is changed)
+     *  PARAM: [IN] buffer - buffer with received bytes
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public static Message decode(final ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < c_HeaderSize)
+            return null;
+
+        final int size = buffer.getInt(buffer.position());
+        if ((size < 0)||(size > c_MaxPayloadSize))
+            throw new IOException("Wrong frame size: " + size);
+
+        if (buffer.remaining() < c_HeaderSize + size)
+            return null;
+
+        buffer.getInt();
+        final long timestamp = buffer.getLong();
+        final byte flags = buffer.get();
+
+        final ByteBuffer data = buffer.duplicate();
+        data.limit(data.position() + size);
+        buffer.position(buffer.position() + size);
+
+        return new Message(data, timestamp, flags);
+    } /* End of 'FrameCodec::decode' method */
+
+    /* *
+     * METHOD: Determines the whole frame size by it's header
+     * RETURN: Frame size if header is available, -1 otherwise
+     *  PARAM: [IN] buffer - buffer with received bytes (read mode)
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public static int getFrameSize(final ByteBuffer buffer) {
+        if (buffer.remaining() < c_HeaderSize)
+            return -1;
+
+        return c_HeaderSize + buffer.getInt(buffer.position());
+    } /* End of 'FrameCodec::getFrameSize' method */
+
+    /* *
+     * METHOD: Creates frames protocol hello (client) or acknowledge (server)
+     * RETURN: Hello buffer, ready for writing
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public static ByteBuffer createHello() {
+        final ByteBuffer hello = ByteBuffer.allocate(c_HelloSize);
+        hello.putInt(c_Magic);
+        hello.put(c_Version);
+        hello.flip();
+
+        return hello;
+    } /* End of 'FrameCodec::createHello' method */
+
+    /* *
+     * METHOD: Creates server greeting (object stream header, so object stream clients keep working)
+     * RETURN: Greeting buffer, ready for writing
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public static ByteBuffer createGreeting() {
+        final ByteBuffer greeting = ByteBuffer.allocate(4);
+        greeting.putInt(c_LegacyMagic);
+        greeting.flip();
+
+        return greeting;
+    } /* End of 'FrameCodec::createGreeting' method */
+
+    /* *
+     * METHOD: Writes message frame to stream
+     *  PARAM: [IN] stream  - output stream
+     *  PARAM: [IN] message - message to write
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public static void write(final DataOutputStream stream, final Message message) throws IOException {
+        stream.writeInt(message.getSize());
+        stream.writeLong(message.getTimestamp());
+        stream.writeByte(message.getCodec());
+        if (message.getSize() > 0)
+            stream.write(message.getData());
+    } /* End of 'FrameCodec::write' method */
+
+    /* *
+     * METHOD: Reads message frame from stream
+     * RETURN: Read message
+     *  PARAM: [IN] stream - input stream
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public static Message read(final DataInputStream stream) throws IOException {
+        final int size = stream.readInt();
+        if ((size < 0)||(size > c_MaxPayloadSize))
+            throw new IOException("Wrong frame size: " + size);
+
+        final long timestamp = stream.readLong();
+        final byte flags = stream.readByte();
+
+        final byte[] data = new byte[size];
+        stream.readFully(data);
+
+        return new Message(data, timestamp, flags);
+    } /* End of 'FrameCodec::read' method */
+} /* End of 'FrameCodec' class */
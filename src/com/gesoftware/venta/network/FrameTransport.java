@@ -0,0 +1,77 @@
+package com.gesoftware.venta.network;
+
+import com.gesoftware.venta.network.model.Message;
+import com.gesoftware.venta.utility.CompressionUtility;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+
+/* *
+ * Frame transport class definition (length, timestamp, flags, payload)
+ * */
+final class FrameTransport implements ITransport {
+    /* Output buffer size */
+    private final static int c_BufferSize = 64 * 1024;
+
+    /* I/O streams */
+    private final DataInputStream m_Reader;
+    private final DataOutputStream m_Writer;
+
+    /* Peer decodes payload with codec from flags (otherwise messages are sent in legacy format) */
+    private final boolean m_IsCodecAware;
+
+    /* *
+     * METHOD: Frame transport class constructor
+     *  PARAM: [IN] input   - socket input stream (may contain buffered bytes)
+     *  PARAM: [IN] output  - socket output stream
+     *  PARAM: [IN] version - peer frames protocol version
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public FrameTransport(final InputStream input, final OutputStream output, final int version) {
+        m_Reader       = new DataInputStream(input);
+        m_Writer       = new DataOutputStream(new BufferedOutputStream(output, c_BufferSize));
+        m_IsCodecAware = version >= FrameCodec.c_CodecVersion;
+    } /* End of 'FrameTransport::FrameTransport' method */
+
+    @Override
+    public final Message read() throws IOException {
+        return FrameCodec.read(m_Reader);
+    } /* End of 'FrameTransport::read' method */
+
+    @Override
+    public final void write(final Message message) throws IOException {
+        FrameCodec.write(m_Writer, m_IsCodecAware?message:message.toLegacy());
+    } /* End of 'FrameTransport::write' method */
+
+    @Override
+    public final void write(final Packet packet) throws IOException {
+        if (!packet.isEncoded() || (!m_IsCodecAware && !CompressionUtility.isLegacy(packet.getMessage().getCodec()))) {
+            write(packet.getMessage());
+            return;
+        }
+
+        final ByteBuffer frame = packet.getFrame();
+        m_Writer.write(frame.array(), frame.arrayOffset() + frame.position(), frame.remaining());
+    } /* End of 'FrameTransport::write' method */
+
+    @Override
+    public final void flush() throws IOException {
+        m_Writer.flush();
+    } /* End of 'FrameTransport::flush' method */
+
+    @Override
+    public final void close() {
+        try {
+            m_Reader.close();
+        } catch (final IOException ignored) {}
+
+        try {
+            m_Writer.close();
+        } catch (final IOException ignored) {}
+    } /* End of 'FrameTransport::close' method */
+
+    @Override
+    public final boolean isFramed() {
+        return true;
+    } /* End of 'FrameTransport::isFramed' method */
+} /* End of 'FrameTransport' class */
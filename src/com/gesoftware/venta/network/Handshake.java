@@ -0,0 +1,113 @@
+package com.gesoftware.venta.network;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+
+/* *
+ * Handshake class definition
+ *
+ * Every server greets with object stream header, so object stream clients keep working.
+ * Frame-speaking client sends hello right after connection, server answers with the same hello.
+ * Object stream server can't parse hello and drops connection, then client reconnects without hello.
+ * */
+final class Handshake {
+    /* Input buffer size */
+    private final static int c_BufferSize = 64 * 1024;
+
+    /* *
+     * METHOD: Reads exactly 'size' bytes
+     * RETURN: Read bytes buffer
+     *  PARAM: [IN] input - input stream
+     *  PARAM: [IN] size  - the number of bytes to read
+     * AUTHOR: Eliseev Dmitry
+     * */
+    private static ByteBuffer read(final InputStream input, final int size) throws IOException {
+        final byte[] bytes = new byte[size];
+        new DataInputStream(input).readFully(bytes);
+
+        return ByteBuffer.wrap(bytes);
+    } /* End of 'Handshake::read' method */
+
+    /* *
+     * METHOD: Writes buffer to output stream
+     *  PARAM: [IN] output - output stream
+     *  PARAM: [IN] buffer - buffer to write
+     * AUTHOR: Eliseev Dmitry
+     * */
+    private static void write(final OutputStream output, final ByteBuffer buffer) throws IOException {
+        output.write(buffer.array(), buffer.position(), buffer.remaining());
+        output.flush();
+    } /* End of 'Handshake::write' method */
+
+    /* *
+     * METHOD: Performs server side of handshake
+     * RETURN: Negotiated transport
+     *  PARAM: [IN] socket - accepted client socket
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public static ITransport accept(final Socket socket) throws IOException {
+        final OutputStream output = socket.getOutputStream();
+        final PushbackInputStream input = new PushbackInputStream(new BufferedInputStream(socket.getInputStream(), c_BufferSize), 4);
+
+        /* Greeting (object stream header) */
+        final ObjectOutputStream writer = new ObjectOutputStream(output);
+        writer.flush();
+
+        final ByteBuffer hello = read(input, 4);
+        final int magic = hello.getInt(0);
+
+        /* Object stream client */
+        if (magic == FrameCodec.c_LegacyMagic) {
+            input.unread(hello.array());
+            return new ObjectTransport(new ObjectInputStream(input), writer);
+        }
+
+        if (magic != FrameCodec.c_Magic)
+            throw new IOException("Unknown protocol: " + Integer.toHexString(magic));
+
+        /* Version byte (payload codecs are used since version 2) */
+        final int version = input.read();
+        if (version < 0)
+            throw new EOFException();
+
+        write(output, FrameCodec.createHello());
+        return new FrameTransport(input, output, version);
+    } /* End of 'Handshake::accept' method */
+
+    /* *
+     * METHOD: Performs client side of handshake
+     * RETURN: Negotiated transport, null if server doesn't speak frames (reconnect without them)
+     *  PARAM: [IN] socket   - connected socket
+     *  PARAM: [IN] isFramed - try to negotiate frames
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public static ITransport connect(final Socket socket, final boolean isFramed) throws IOException {
+        final OutputStream output = socket.getOutputStream();
+        final PushbackInputStream input = new PushbackInputStream(new BufferedInputStream(socket.getInputStream(), c_BufferSize), 4);
+
+        if (isFramed)
+            write(output, FrameCodec.createHello());
+
+        final ByteBuffer greeting = read(input, 4);
+        if (greeting.getInt(0) != FrameCodec.c_LegacyMagic)
+            throw new IOException("Unknown server greeting: " + Integer.toHexString(greeting.getInt(0)));
+
+        if (!isFramed) {
+            input.unread(greeting.array());
+            return new ObjectTransport(new ObjectInputStream(input), new ObjectOutputStream(output));
+        }
+
+        final ByteBuffer acknowledge;
+        try {
+            acknowledge = read(input, FrameCodec.c_HelloSize);
+            if (acknowledge.getInt(0) != FrameCodec.c_Magic)
+                return null;
+        } catch (final IOException e) {
+            /* Server closed connection: it doesn't understand hello */
+            return null;
+        }
+
+        return new FrameTransport(input, output, acknowledge.get(4));
+    } /* End of 'Handshake::connect' method */
+} /* End of 'Handshake' class */
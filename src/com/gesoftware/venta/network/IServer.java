@@ -1,9 +1,27 @@
 package com.gesoftware.venta.network;
 
+import com.gesoftware.venta.network.model.Message;
+
 /* *
  * Server interface definition
  * */
 public interface IServer extends Runnable {
+    /* *
+     * METHOD: Sends a message to client
+     * RETURN: True if success, false otherwise
+     *  PARAM: [IN] clientID - client identifier
+     *  PARAM: [IN] message  - message to send
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public boolean send(final String clientID, final Message message);
+
+    /* *
+     * METHOD: Disconnects client
+     *  PARAM: [IN] clientID - client identifier
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public void disconnect(final String clientID);
+
     /* *
      * METHOD: Stops server and closes connections
      * AUTHOR: Eliseev Dmitry
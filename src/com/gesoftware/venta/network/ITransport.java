@@ -0,0 +1,50 @@
+package com.gesoftware.venta.network;
+
+import com.gesoftware.venta.network.model.Message;
+
+import java.io.IOException;
+
+/* *
+ * Transport interface definition (wire format of established connection)
+ * */
+interface ITransport {
+    /* *
+     * METHOD: Reads next message (blocks until message arrives)
+     * RETURN: Received message
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public Message read() throws IOException;
+
+    /* *
+     * METHOD: Writes message (message may stay buffered until flush)
+     *  PARAM: [IN] message - message to write
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public void write(final Message message) throws IOException;
+
+    /* *
+     * METHOD: Writes packet (encoded frame is written as is, if it's available)
+     *  PARAM: [IN] packet - packet to write
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public void write(final Packet packet) throws IOException;
+
+    /* *
+     * METHOD: Flushes written messages to socket
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public void flush() throws IOException;
+
+    /* *
+     * METHOD: Closes transport streams
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public void close();
+
+    /* *
+     * METHOD: Determines if transport uses binary frames
+     * RETURN: True if frames are used, False if object stream is used
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public boolean isFramed();
+} /* End of 'ITransport' interface */
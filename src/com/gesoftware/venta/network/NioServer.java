@@ -0,0 +1,815 @@
+package com.gesoftware.venta.network;
+
+import com.gesoftware.venta.logging.LoggingUtility;
+import com.gesoftware.venta.network.handlers.IServerHandler;
+import com.gesoftware.venta.network.model.Message;
+import com.gesoftware.venta.network.model.ServerResponse;
+import com.gesoftware.venta.processing.IWalker;
+import com.gesoftware.venta.structures.map.SynchronizedMap;
+import com.gesoftware.venta.time.Timer;
+import com.gesoftware.venta.utility.CompressionUtility;
+import com.gesoftware.venta.utility.HashUtility;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/* *
+ * Non-blocking server class definition (selector-based, small pool of I/O loops instead of two threads per client;
+ * received messages are views of pooled input buffers, so handler should detach message to keep it)
+ * */
+public final class NioServer implements IServer {
+    /* Client timeout - 1 hour (ms) */
+    private final static int c_NetworkClientTimeout = 3600 * 1000;
+
+    /* Sleep duration between observe tasks (ms) */
+    private final static int c_NetworkSleep = 10000;
+
+    /* Initial size of client's input buffer */
+    private final static int c_InputBufferSize = 8192;
+
+    /* Default writer batch budget (frames and bytes per gathering write) */
+    private final static int c_BatchMessages = 256;
+    private final static int c_BatchBytes    = 64 * 1024;
+
+    /* Clients input buffers */
+    private final BufferPool m_Buffers = new BufferPool();
+
+    /* Connected clients data structure */
+    private final SynchronizedMap<String, Client> m_Clients = new SynchronizedMap<String, Client>();
+
+    /* Server handler (business-logic) */
+    private final IServerHandler m_ServerHandler;
+
+    /* Server socket channel (binds to separate port) */
+    private ServerSocketChannel m_ServerChannel = null;
+
+    /* I/O loops (each loop owns it's own selector and thread) */
+    private final IOLoop[] m_Loops;
+
+    /* Next loop to assign accepted client to */
+    private int m_NextLoop = 0;
+
+    /* Server activity flag. While flag is enabled, server accepts clients connections and works */
+    private volatile boolean m_IsActive = true;
+
+    /* Server port (for listening) */
+    private final int m_Port;
+
+    /* Writer batch budget (frames and bytes per gathering write) */
+    private int m_BatchMessages = c_BatchMessages;
+    private int m_BatchBytes    = c_BatchBytes;
+
+    /* Client class definition */
+    private final class Client {
+        /* Unique client identifier */
+        private final String m_ID;
+
+        /* Client channel */
+        private final SocketChannel m_Channel;
+
+        /* Loop, which serves this client */
+        private final IOLoop m_Loop;
+
+        /* Last client query */
+        private final Timer m_LastQuery = new Timer();
+
+        /* Received, but not processed yet bytes (write mode) */
+        private ByteBuffer m_Input = m_Buffers.acquire(c_InputBufferSize);
+
+        /* Frames to send */
+        private final Queue<ByteBuffer> m_Output = new ConcurrentLinkedQueue<ByteBuffer>();
+
+        /* Disconnection flag (client is disconnected only once) */
+        private final AtomicBoolean m_IsClosed = new AtomicBoolean(false);
+
+        /* Selection key (registered by loop) */
+        private SelectionKey m_Key;
+
+        /* Is frames protocol negotiated */
+        private boolean m_IsHandshaken = false;
+
+        /* Client decodes payload with codec from flags (otherwise messages are sent in legacy format) */
+        private volatile boolean m_IsCodecAware = false;
+
+        /* Writer batching counters */
+        private final SenderStatistics m_Statistics = new SenderStatistics();
+
+        /* *
+         * METHOD: Client class constructor
+         *  PARAM: [IN] channel - accepted client channel
+         *  PARAM: [IN] loop    - I/O loop to serve client
+         * AUTHOR: Eliseev Dmitry
+         * */
+        public Client(final SocketChannel channel, final IOLoop loop) {
+            m_ID      = HashUtility.generateHash(channel.socket().toString());
+            m_Channel = channel;
+            m_Loop    = loop;
+        } /* End of 'Client::Client' method */
+
+        /* *
+         * METHOD: Gets client identifier
+         * RETURN: Client's identifier
+         * AUTHOR: Eliseev Dmitry
+         * */
+        public final String getID() {
+            return m_ID;
+        } /* End of 'Client::getID' method */
+
+        /* *
+         * METHOD: Gets client writer statistics
+         * RETURN: Writer batching counters
+         * AUTHOR: Eliseev Dmitry
+         * */
+        public final SenderStatistics getStatistics() {
+            return m_Statistics;
+        } /* End of 'Client::getStatistics' method */
+
+        /* *
+         * METHOD: Enqueues frame and asks loop to write it
+         * RETURN: True if success, false otherwise
+         *  PARAM: [IN] frame - frame to send
+         * AUTHOR: Eliseev Dmitry
+         * */
+        private boolean enqueue(final ByteBuffer frame) {
+            if (m_IsClosed.get())
+                return false;
+
+            m_Output.add(frame);
+            m_Loop.requestWrite(this);
+            return true;
+        } /* End of 'Client::enqueue' method */
+
+        /* *
+         * METHOD: Sends a message to client
+         * RETURN: True if success, false otherwise
+         *  PARAM: [IN] message - reference to message to send
+         * AUTHOR: Eliseev Dmitry
+         * */
+        public final boolean send(final Message message) {
+            return enqueue(FrameCodec.encode(m_IsCodecAware?message:message.toLegacy()));
+        } /* End of 'Client::send' method */
+
+        /* *
+         * METHOD: Sends a shared packet to client (frame bytes are not copied)
+         * RETURN: True if success, false otherwise
+         *  PARAM: [IN] packet - reference to packet to send
+         * AUTHOR: Eliseev Dmitry
+         * */
+        public final boolean send(final Packet packet) {
+            if (!m_IsCodecAware && !CompressionUtility.isLegacy(packet.getMessage().getCodec()))
+                return send(packet.getMessage());
+
+            return enqueue(packet.getFrame());
+        } /* End of 'Client::send' method */
+
+        /* *
+         * METHOD: Sends server greeting to client
+         * AUTHOR: Eliseev Dmitry
+         * */
+        public final void greet() {
+            enqueue(FrameCodec.createGreeting());
+        } /* End of 'Client::greet' method */
+
+        /* *
+         * METHOD: Processes client hello (object stream clients are not supported)
+         * RETURN: True if client is still alive, false otherwise
+         * AUTHOR: Eliseev Dmitry
+         * */
+        private boolean handshake() {
+            if (m_Input.remaining() < 4)
+                return true;
+
+            final int magic = m_Input.getInt(m_Input.position());
+            if (magic != FrameCodec.c_Magic) {
+                LoggingUtility.error("Client <" + m_ID + "> doesn't speak frames: " + Integer.toHexString(magic));
+                return false;
+            }
+
+            if (m_Input.remaining() < FrameCodec.c_HelloSize)
+                return true;
+
+            m_IsCodecAware = m_Input.get(m_Input.position() + 4) >= FrameCodec.c_CodecVersion;
+            m_Input.position(m_Input.position() + FrameCodec.c_HelloSize);
+            m_IsHandshaken = true;
+
+            return enqueue(FrameCodec.createHello());
+        } /* End of 'Client::handshake' method */
+
+        /* *
+         * METHOD: Reads available bytes and processes all complete frames
+         * RETURN: True if client is still alive, false otherwise
+         * AUTHOR: Eliseev Dmitry
+         * */
+        private boolean read() throws IOException {
+            if (m_Channel.read(m_Input) < 0)
+                return false;
+
+            m_Input.flip();
+
+            /* Wait for hello before any frame */
+            if (!m_IsHandshaken) {
+                if (!handshake())
+                    return false;
+
+                if (!m_IsHandshaken) {
+                    m_Input.compact();
+                    return true;
+                }
+            }
+
+            /* Messages are views of input buffer, they are released right after processing */
+            Message message;
+            while ((message = FrameCodec.decode(m_Input)) != null) {
+                m_LastQuery.measure();
+
+                final boolean isAlive = process(message);
+                message.release();
+
+                if (!isAlive)
+                    return false;
+            }
+
+            /* Incomplete frame should fit buffer, large buffer is returned to pool as soon as it isn't needed */
+            final int required = Math.max(FrameCodec.getFrameSize(m_Input), c_InputBufferSize);
+            if ((required > m_Input.capacity()) || ((required == c_InputBufferSize) && (m_Input.capacity() > c_InputBufferSize))) {
+                final ByteBuffer input = m_Buffers.acquire(required);
+                input.put(m_Input);
+                m_Buffers.release(m_Input);
+                m_Input = input;
+            } else
+                m_Input.compact();
+
+            return true;
+        } /* End of 'Client::read' method */
+
+        /* *
+         * METHOD: Executes handler for received message and processes it's response
+         * RETURN: True if client should stay connected, false otherwise
+         *  PARAM: [IN] message - received message
+         * AUTHOR: Eliseev Dmitry
+         * */
+        private boolean process(final Message message) {
+            final ServerResponse response = m_ServerHandler.onReceive(m_ID, message);
+
+            /* No response, handler wants to close connection */
+            if (response == null)
+                return false;
+
+            if (response.getMessage() != null)
+                if (!processResponse(m_ID, response))
+                    LoggingUtility.debug("Can't send response from client: " + m_ID);
+
+            return true;
+        } /* End of 'Client::process' method */
+
+        /* *
+         * METHOD: Writes enqueued frames while channel accepts them (one gathering write per batch)
+         * RETURN: True if all frames were written, false otherwise
+         *  PARAM: [IN] batch - loop's batch array
+         * AUTHOR: Eliseev Dmitry
+         * */
+        private boolean write(final ByteBuffer[] batch) throws IOException {
+            while (!m_Output.isEmpty()) {
+                final long start = System.nanoTime();
+
+                /* Collect batch from the head of queue */
+                int count = 0;
+                long bytes = 0;
+                for (final ByteBuffer frame : m_Output) {
+                    if ((count == batch.length)||(bytes >= m_BatchBytes))
+                        break;
+
+                    batch[count++] = frame;
+                    bytes += frame.remaining();
+                }
+
+                final long written = m_Channel.write(batch, 0, count);
+
+                /* Remove completely written frames */
+                int completed = 0;
+                while ((completed < count) && !batch[completed].hasRemaining()) {
+                    m_Output.poll();
+                    completed++;
+                }
+
+                for (int i = 0; i < count; i++)
+                    batch[i] = null;
+
+                m_Statistics.register(completed, written, System.nanoTime() - start);
+                if (completed < count)
+                    return false;
+            }
+
+            return true;
+        } /* End of 'Client::write' method */
+
+        /* *
+         * METHOD: Closes client channel and informs handler (loop thread only)
+         * AUTHOR: Eliseev Dmitry
+         * */
+        private void close() {
+            if (!m_IsClosed.compareAndSet(false, true))
+                return;
+
+            removeClient(m_ID);
+
+            if (m_Key != null)
+                m_Key.cancel();
+
+            try {
+                m_Channel.close();
+            } catch (final IOException ignored) {}
+
+            m_Output.clear();
+            m_Buffers.release(m_Input);
+
+            m_ServerHandler.onDisconnect(m_ID);
+            LoggingUtility.core("Client disconnected: " + m_ID);
+        } /* End of 'Client::close' method */
+
+        /* *
+         * METHOD: Disconnects client (may be called from any thread)
+         * AUTHOR: Eliseev Dmitry
+         * */
+        public final void disconnect() {
+            m_Loop.requestClose(this);
+        } /* End of 'Client::disconnect' method */
+
+        /* *
+         * METHOD: Determines if client timed out
+         * RETURN: True if client is timed out, false otherwise
+         * AUTHOR: Eliseev Dmitry
+         * */
+        public final boolean isTimeout() {
+            return m_LastQuery.getTimeSinceLastMeasure() >= c_NetworkClientTimeout;
+        } /* End of 'Client::isTimeout' method */
+    } /* End of 'Client' class */
+
+    /* I/O loop class definition */
+    private final class IOLoop implements Runnable {
+        /* Loop selector */
+        private final Selector m_Selector;
+
+        /* Clients to register */
+        private final Queue<Client> m_Registrations = new ConcurrentLinkedQueue<Client>();
+
+        /* Clients with pending output */
+        private final Queue<Client> m_Writes = new ConcurrentLinkedQueue<Client>();
+
+        /* Clients to close */
+        private final Queue<Client> m_Closes = new ConcurrentLinkedQueue<Client>();
+
+        /* Gathering write batch (loop thread only) */
+        private final ByteBuffer[] m_Batch = new ByteBuffer[m_BatchMessages];
+
+        /* *
+         * METHOD: I/O loop class constructor
+         * AUTHOR: Eliseev Dmitry
+         * */
+        public IOLoop() throws IOException {
+            m_Selector = Selector.open();
+        } /* End of 'IOLoop::IOLoop' method */
+
+        /* *
+         * METHOD: Asks loop to register client
+         *  PARAM: [IN] client - client to register
+         * AUTHOR: Eliseev Dmitry
+         * */
+        public final void register(final Client client) {
+            m_Registrations.add(client);
+            m_Selector.wakeup();
+        } /* End of 'IOLoop::register' method */
+
+        /* *
+         * METHOD: Asks loop to write client's pending frames
+         *  PARAM: [IN] client - client with pending output
+         * AUTHOR: Eliseev Dmitry
+         * */
+        public final void requestWrite(final Client client) {
+            m_Writes.add(client);
+            m_Selector.wakeup();
+        } /* End of 'IOLoop::requestWrite' method */
+
+        /* *
+         * METHOD: Asks loop to close client
+         *  PARAM: [IN] client - client to close
+         * AUTHOR: Eliseev Dmitry
+         * */
+        public final void requestClose(final Client client) {
+            m_Closes.add(client);
+            m_Selector.wakeup();
+        } /* End of 'IOLoop::requestClose' method */
+
+        /* *
+         * METHOD: Processes registration, write and close requests
+         * AUTHOR: Eliseev Dmitry
+         * */
+        private void processRequests() {
+            Client client;
+            while ((client = m_Registrations.poll()) != null) {
+                try {
+                    client.m_Key = client.m_Channel.register(m_Selector, SelectionKey.OP_READ, client);
+                } catch (final IOException e) {
+                    LoggingUtility.error("Can't register client: " + e.getMessage());
+                    client.close();
+                }
+            }
+
+            while ((client = m_Writes.poll()) != null)
+                flush(client);
+
+            while ((client = m_Closes.poll()) != null)
+                client.close();
+        } /* End of 'IOLoop::processRequests' method */
+
+        /* *
+         * METHOD: Writes client's frames, enables write interest if socket buffer is full
+         *  PARAM: [IN] client - client to flush
+         * AUTHOR: Eliseev Dmitry
+         * */
+        private void flush(final Client client) {
+            if ((client.m_Key == null)||(!client.m_Key.isValid()))
+                return;
+
+            try {
+                if (client.write(m_Batch))
+                    client.m_Key.interestOps(SelectionKey.OP_READ);
+                else
+                    client.m_Key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            } catch (final IOException e) {
+                LoggingUtility.core("Client closed connection: " + client.getID());
+                client.close();
+            }
+        } /* End of 'IOLoop::flush' method */
+
+        /* *
+         * METHOD: Processes selected key
+         *  PARAM: [IN] key - selected key
+         * AUTHOR: Eliseev Dmitry
+         * */
+        private void processKey(final SelectionKey key) {
+            final Client client = (Client) key.attachment();
+
+            try {
+                if (key.isReadable() && !client.read()) {
+                    client.close();
+                    return;
+                }
+
+                if (key.isValid() && key.isWritable())
+                    flush(client);
+            } catch (final Exception e) {
+                LoggingUtility.debug("Exception: " + e.getMessage());
+                LoggingUtility.core("Client closed connection: " + client.getID());
+                client.close();
+            }
+        } /* End of 'IOLoop::processKey' method */
+
+        @Override
+        public final void run() {
+            while (m_IsActive) {
+                try {
+                    m_Selector.select();
+                    processRequests();
+
+                    final Iterator<SelectionKey> keys = m_Selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        final SelectionKey key = keys.next();
+                        keys.remove();
+
+                        if (key.isValid())
+                            processKey(key);
+                    }
+                } catch (final Exception e) {
+                    LoggingUtility.error("I/O loop error: " + e.getMessage());
+                }
+            }
+
+            /* Close all clients of this loop */
+            for (final SelectionKey key : m_Selector.keys())
+                ((Client) key.attachment()).close();
+
+            Client client;
+            while ((client = m_Registrations.poll()) != null)
+                client.close();
+
+            try {
+                m_Selector.close();
+            } catch (final IOException ignored) {}
+        } /* End of 'IOLoop::run' method */
+
+        /* *
+         * METHOD: Wakes loop up (used for stopping)
+         * AUTHOR: Eliseev Dmitry
+         * */
+        public final void wakeup() {
+            m_Selector.wakeup();
+        } /* End of 'IOLoop::wakeup' method */
+    } /* End of 'IOLoop' class */
+
+    /* Broadcast class definition (sends shared packet to every walked client) */
+    private final static class Broadcast implements IWalker<Client> {
+        private final Packet m_Packet;
+
+        /* All clients received packet flag */
+        private boolean m_IsSent = true;
+
+        /* *
+         * METHOD: Class constructor
+         *  PARAM: [IN] packet - packet to broadcast
+         * AUTHOR: Eliseev Dmitry
+         * */
+        public Broadcast(final Packet packet) {
+            m_Packet = packet;
+        } /* End of 'Broadcast::Broadcast' method */
+
+        @Override
+        public final void walk(final Client client) {
+            m_IsSent &= client.send(m_Packet);
+        } /* End of 'Broadcast::walk' method */
+
+        /* *
+         * METHOD: Determines if all clients received packet
+         * RETURN: True if packet was sent to all clients, False otherwise
+         * AUTHOR: Eliseev Dmitry
+         * */
+        public final boolean isSent() {
+            return m_IsSent;
+        } /* End of 'Broadcast::isSent' method */
+    } /* End of 'Broadcast' class */
+
+    /* Observer class definition */
+    private final class Observer implements Runnable, IWalker<Client> {
+        /* *
+         * METHOD: Pauses worker thread
+         * AUTHOR: Eliseev Dmitry
+         * */
+        private void sleep() {
+            try {
+                Thread.sleep(c_NetworkSleep);
+            } catch (final InterruptedException e) {
+                LoggingUtility.error("Worker thread can't sleep: " + e.getMessage());
+            }
+        } /* End of 'Observer::sleep' method */
+
+        /* *
+         * METHOD: Checks if client's time is out, then disconnect it
+         *  PARAM: [IN] client - client to check & disconnect
+         * AUTHOR: Eliseev Dmitry
+         * */
+        @Override
+        public final void walk(final Client client) {
+            if (client.isTimeout()) {
+                LoggingUtility.core("Time is out for <" + client.getID() + "> client");
+                client.disconnect();
+            }
+        } /* End of 'Observer::walk' method */
+
+        @Override
+        public final void run() {
+            /* Clients are walked without copying */
+            while (m_IsActive) {
+                m_Clients.foreachValue(this);
+                sleep();
+            }
+        } /* End of 'Observer::run' method */
+    } /* End of 'Observer' class' */
+
+    /* *
+     * METHOD: Server class constructor (one I/O loop per available processor)
+     *  PARAM: [IN] port    - port for listening
+     *  PARAM: [IN] handler - reference to clients handler
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public NioServer(final int port, final IServerHandler handler) {
+        this(port, Runtime.getRuntime().availableProcessors(), handler);
+    } /* End of 'NioServer::NioServer' method */
+
+    /* *
+     * METHOD: Server class constructor
+     *  PARAM: [IN] port       - port for listening
+     *  PARAM: [IN] loopsCount - the number of I/O loops (threads)
+     *  PARAM: [IN] handler    - reference to clients handler
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public NioServer(final int port, final int loopsCount, final IServerHandler handler) {
+        m_ServerHandler = handler;
+        m_Port          = port;
+        m_Loops         = new IOLoop[Math.max(1, loopsCount)];
+    } /* End of 'NioServer::NioServer' method */
+
+    /* *
+     * METHOD: Sends a message to client
+     * RETURN: True if success, false otherwise
+     *  PARAM: [IN] clientID - client identifier
+     *  PARAM: [IN] message  - message to send
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final boolean send(final String clientID, final Message message) {
+        LoggingUtility.debug("Sending " + message.getSize() + " bytes to client...");
+
+        final Client client = m_Clients.get(clientID);
+        return client != null && client.send(message);
+    } /* End of 'NioServer::send' method */
+
+    /* *
+     * METHOD: Sets writer batch budget (should be called before server starts)
+     *  PARAM: [IN] messages - maximal number of frames per gathering write
+     *  PARAM: [IN] bytes    - maximal number of bytes per gathering write (batch is closed after exceeding)
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final void setBatchLimits(final int messages, final int bytes) {
+        m_BatchMessages = Math.max(1, messages);
+        m_BatchBytes    = Math.max(1, bytes);
+    } /* End of 'NioServer::setBatchLimits' method */
+
+    /* *
+     * METHOD: Gets client writer statistics
+     * RETURN: Writer batching counters if client is connected, null otherwise
+     *  PARAM: [IN] clientID - client identifier
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final SenderStatistics getStatistics(final String clientID) {
+        final Client client = m_Clients.get(clientID);
+        return (client != null)?client.getStatistics():null;
+    } /* End of 'NioServer::getStatistics' method */
+
+    /* *
+     * METHOD: Disconnects client by it's hash
+     *  PARAM: [IN] clientID - client identifier
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final void disconnect(final String clientID) {
+        final Client client = m_Clients.get(clientID);
+        if (client != null)
+            client.disconnect();
+    } /* End of 'NioServer::disconnect' method */
+
+    /* *
+     * METHOD: Processes server handler response
+     *  PARAM: [IN] clientID - client identifier
+     *  PARAM: [IN] response - handler response
+     * AUTHOR: Eliseev Dmitry
+     * */
+    private boolean processResponse(final String clientID, final ServerResponse response) {
+        /* Is it a self-response */
+        if ((response.getClientID() == null)&&(!response.isBroadcast()))
+            return send(clientID, response.getMessage());
+
+        /* Is it a message for someone */
+        if (response.getClientID() != null)
+            return send(response.getClientID(), response.getMessage());
+
+        /* Is it a broadcast message (frame is encoded once and shared by all recipients) */
+        final Packet packet = new Packet(response.getMessage(), true);
+
+        final Broadcast broadcast = new Broadcast(packet);
+        m_Clients.foreachValue(broadcast);
+
+        /* That's it */
+        return broadcast.isSent();
+    } /* End of 'NioServer::processResponse' method */
+
+    /* *
+     * METHOD: Removes client from internal data structure by it's identifier
+     *  PARAM: [IN] clientID - reference to client ID to remove
+     * AUTHOR: Eliseev Dmitry
+     * */
+    private void removeClient(final String clientID) {
+        m_Clients.remove(clientID);
+    } /* End of 'NioServer::removeClient' method */
+
+    /* *
+     * METHOD: Opens server channel and starts I/O loops
+     * RETURN: True if success, false otherwise
+     * AUTHOR: Eliseev Dmitry
+     * */
+    private boolean open() {
+        try {
+            m_ServerChannel = ServerSocketChannel.open();
+            m_ServerChannel.socket().bind(new InetSocketAddress(m_Port));
+
+            for (int i = 0; i < m_Loops.length; i++) {
+                m_Loops[i] = new IOLoop();
+                new Thread(m_Loops[i], "NioServer-" + m_Port + "-" + i).start();
+            }
+
+            LoggingUtility.core("Non-blocking server started using port: " + m_Port + " (" + m_Loops.length + " loops)");
+            return true;
+        } catch (final IOException e) {
+            LoggingUtility.error("Can't listen using port: " + m_Port);
+            LoggingUtility.debug("Exception: " + e.getMessage());
+        }
+
+        return false;
+    } /* End of 'NioServer::open' method */
+
+    /* *
+     * METHOD: Accepts incoming client connection
+     * RETURN: Client channel if success, null otherwise
+     * AUTHOR: Eliseev Dmitry
+     * */
+    private SocketChannel acceptConnection() {
+        try {
+            return m_ServerChannel.accept();
+        } catch (final IOException e) {
+            if (m_IsActive) {
+                LoggingUtility.error("Can't accept client connection");
+                LoggingUtility.debug("Exception " + e.getMessage());
+            }
+        }
+
+        return null;
+    } /* End of 'NioServer::acceptConnection' method */
+
+    /* *
+     * METHOD: Closes client channel
+     *  PARAM: [IN] channel - reference to client channel to close
+     * AUTHOR: Eliseev Dmitry
+     * */
+    private void closeConnection(final SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (final IOException ignored) {}
+    } /* End of 'NioServer::closeConnection' method */
+
+    /* *
+     * METHOD: Chooses I/O loop for new client (round robin)
+     * RETURN: I/O loop
+     * AUTHOR: Eliseev Dmitry
+     * */
+    private IOLoop nextLoop() {
+        final IOLoop loop = m_Loops[m_NextLoop];
+        m_NextLoop = (m_NextLoop + 1) % m_Loops.length;
+        return loop;
+    } /* End of 'NioServer::nextLoop' method */
+
+    @Override
+    public final void run() {
+        /* Trying to open server channel and start listening */
+        if (!open())
+            return;
+
+        /* Starting observer thread */
+        new Thread(new Observer()).start();
+
+        /* While server is in active state */
+        while (m_IsActive) {
+            /* Try to accept client connection */
+            final SocketChannel channel = acceptConnection();
+            if (channel == null)
+                continue;
+
+            try {
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+            } catch (final IOException e) {
+                LoggingUtility.error("Can't configure client channel: " + e.getMessage());
+                closeConnection(channel);
+                continue;
+            }
+
+            /* Create client instance */
+            final Client client = new Client(channel, nextLoop());
+            LoggingUtility.core("Client connected from: " + channel.socket().getInetAddress().getHostAddress());
+
+            /* Execute server handler and if client was accepted by handler  */
+            if (m_ServerHandler.onConnect(client.getID(), channel.socket().getInetAddress())) {
+                LoggingUtility.core("Client approved with ID: " + client.getID());
+
+                /* Store client into internal data structure and start serving it */
+                m_Clients.put(client.getID(), client);
+                client.greet();
+                client.m_Loop.register(client);
+            } else
+                closeConnection(channel);
+        }
+    } /* End of 'NioServer::run' method */
+
+    @Override
+    public final void stop() {
+        /* Change server activity state */
+        m_IsActive = false;
+
+        try {
+            if (m_ServerChannel != null)
+                m_ServerChannel.close();
+        } catch (final IOException e) {
+            LoggingUtility.error("Can't stop server properly");
+            LoggingUtility.debug("Exception: " + e.getMessage());
+        }
+
+        for (final IOLoop loop : m_Loops)
+            if (loop != null)
+                loop.wakeup();
+    } /* End of 'NioServer::stop' method */
+} /* End of 'NioServer' class */
@@ -0,0 +1,69 @@
+package com.gesoftware.venta.network;
+
+import com.gesoftware.venta.network.model.Message;
+
+import java.io.*;
+
+/* *
+ * Object stream transport class definition (peers, which don't speak frames)
+ * */
+final class ObjectTransport implements ITransport {
+    /* I/O streams */
+    private final ObjectInputStream m_Reader;
+    private final ObjectOutputStream m_Writer;
+
+    /* *
+     * METHOD: Object transport class constructor
+     *  PARAM: [IN] reader - object input stream
+     *  PARAM: [IN] writer - object output stream
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public ObjectTransport(final ObjectInputStream reader, final ObjectOutputStream writer) {
+        m_Reader = reader;
+        m_Writer = writer;
+    } /* End of 'ObjectTransport::ObjectTransport' method */
+
+    @Override
+    public final Message read() throws IOException {
+        try {
+            return (Message) m_Reader.readObject();
+        } catch (final ClassNotFoundException e) {
+            throw new IOException("Unknown object: " + e.getMessage());
+        }
+    } /* End of 'ObjectTransport::read' method */
+
+    @Override
+    public final void write(final Message message) throws IOException {
+        /* Object stream peers may be legacy ones */
+        m_Writer.writeObject(message.toLegacy());
+
+        /* Don't keep back-references to every sent message */
+        m_Writer.reset();
+    } /* End of 'ObjectTransport::write' method */
+
+    @Override
+    public final void write(final Packet packet) throws IOException {
+        write(packet.getMessage());
+    } /* End of 'ObjectTransport::write' method */
+
+    @Override
+    public final void flush() throws IOException {
+        m_Writer.flush();
+    } /* End of 'ObjectTransport::flush' method */
+
+    @Override
+    public final void close() {
+        try {
+            m_Reader.close();
+        } catch (final IOException ignored) {}
+
+        try {
+            m_Writer.close();
+        } catch (final IOException ignored) {}
+    } /* End of 'ObjectTransport::close' method */
+
+    @Override
+    public final boolean isFramed() {
+        return false;
+    } /* End of 'ObjectTransport::isFramed' method */
+} /* End of 'ObjectTransport' class */
@@ -0,0 +1,66 @@
+package com.gesoftware.venta.network;
+
+import com.gesoftware.venta.network.model.Message;
+
+import java.nio.ByteBuffer;
+
+/* *
+ * Packet class definition (outgoing message with it's frame, encoded at most once and shared between recipients)
+ * */
+final class Packet {
+    /* Message to send */
+    private final Message m_Message;
+
+    /* Encoded frame (never modified after encoding, recipients use duplicates) */
+    private volatile ByteBuffer m_Frame;
+
+    /* *
+     * METHOD: Packet class constructor
+     *  PARAM: [IN] message  - message to send
+     *  PARAM: [IN] isShared - encode frame right now (packet will be sent to many recipients)
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public Packet(final Message message, final boolean isShared) {
+        m_Message = message;
+
+        if (isShared)
+            m_Frame = FrameCodec.encode(message);
+    } /* End of 'Packet::Packet' method */
+
+    /* *
+     * METHOD: Gets message
+     * RETURN: Message to send
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final Message getMessage() {
+        return m_Message;
+    } /* End of 'Packet::getMessage' method */
+
+    /* *
+     * METHOD: Determines if frame is already encoded
+     * RETURN: True if frame is encoded, False otherwise
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final boolean isEncoded() {
+        return m_Frame != null;
+    } /* End of 'Packet::isEncoded' method */
+
+    /* *
+     * METHOD: Gets encoded frame (encodes it once if it's needed)
+     * RETURN: Own view of shared frame (position and limit are independent, bytes are not copied)
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final ByteBuffer getFrame() {
+        ByteBuffer frame = m_Frame;
+        if (frame == null) {
+            synchronized (this) {
+                if (m_Frame == null)
+                    m_Frame = FrameCodec.encode(m_Message);
+
+                frame = m_Frame;
+            }
+        }
+
+        return frame.duplicate();
+    } /* End of 'Packet::getFrame' method */
+} /* End of 'Packet' class */
@@ -3,16 +3,21 @@ package com.gesoftware.venta.network;
 import com.gesoftware.venta.network.handlers.IClientHandler;
 import com.gesoftware.venta.network.model.EncryptionKey;
 import com.gesoftware.venta.network.model.SafeMessage;
+import com.gesoftware.venta.network.model.SealedMessage;
+import com.gesoftware.venta.network.model.SessionKey;
 import com.gesoftware.venta.logging.LoggingUtility;
 import com.gesoftware.venta.security.model.KeyPair;
 import com.gesoftware.venta.network.model.Message;
+import com.gesoftware.venta.utility.CompressionUtility;
 import com.gesoftware.venta.security.RSA;
+import com.gesoftware.venta.security.AES;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 /**
- * Safe connection class definition
+ * Safe connection class definition (public keys are used to agree on session key, then messages are encrypted with
+ * it; messages are encrypted by blocks with server's public key until server acknowledges session key)
  **/
 public final class SafeConnection implements IConnection {
     /* Real connection */
@@ -25,6 +30,13 @@ public final class SafeConnection implements IConnection {
     /* Server's encryption key */
     private EncryptionKey m_ServerKey;
 
+    /* Session key size (bits) */
+    private final static int c_SessionKeySize = 128;
+
+    /* Session key and flag, if it was acknowledged by server */
+    private volatile byte[] m_SessionKey;
+    private volatile boolean m_IsSessionAccepted;
+
     /* User-defined handler */
     private final IClientHandler m_ClientHandler;
 
@@ -95,23 +107,43 @@ public final class SafeConnection implements IConnection {
         } /* End of 'SafeClientHandler::decodeQueue' method */
 
         /* *
-         * METHOD: Decrypts message using self private key and executes client's handler
+         * METHOD: Decrypts message using session key
+         * RETURN: Decrypted message if success, null otherwise
          *  PARAM: [IN] message - encrypted message
          * AUTHOR: Eliseev Dmitry
          * */
-        private void processEncryptedMessage(final SafeMessage message) {
-            if (m_ClientHandler != null)
-                m_ClientHandler.onReceive(new Message(decodeMessage(message.getBlocks())));
-        } /* End of 'SafeClientHandler::processEncryptedMessage' method */
+        private Message decodeMessage(final SealedMessage message) {
+            final byte[] sessionKey = m_SessionKey;
+            if (sessionKey == null)
+                return null;
+
+            final byte[] data = AES.decrypt(sessionKey, message.getData(), new byte[] {message.getCodec()});
+            return (data != null)?new Message(data, System.currentTimeMillis(), message.getCodec()):null;
+        } /* End of 'SafeClientHandler::decodeMessage' method */
+
+        /* *
+         * METHOD: Executes client's handler for decrypted message
+         *  PARAM: [IN] message - decrypted message (null if it can't be decrypted)
+         * AUTHOR: Eliseev Dmitry
+         * */
+        private void processDecryptedMessage(final Message message) {
+            if ((m_ClientHandler != null) && (message != null))
+                m_ClientHandler.onReceive(message);
+        } /* End of 'SafeClientHandler::processDecryptedMessage' method */
 
         @Override
         public final void onReceive(final Message message) {
             final Object object = message.getObject();
 
-            if (object instanceof EncryptionKey)
+            if (object instanceof EncryptionKey) {
                 m_ServerKey = ((EncryptionKey) object);
+                sendSessionKey();
+            } else if (object instanceof SessionKey)
+                m_IsSessionAccepted = ((SessionKey) object).isAcknowledgement() && (m_SessionKey != null);
+            else if (object instanceof SealedMessage)
+                processDecryptedMessage(decodeMessage((SealedMessage) object));
             else if (object instanceof SafeMessage)
-                processEncryptedMessage((SafeMessage) object);
+                processDecryptedMessage(new Message(decodeMessage(((SafeMessage) object).getBlocks())));
             else
                 LoggingUtility.warning("Unknown message type: " + object.getClass().getName());
         } /* End of 'SafeClientHandler::onReceive' method */
@@ -150,6 +182,31 @@ public final class SafeConnection implements IConnection {
         }
     } /* End of 'SafeConnection::sendPublicKey' method */
 
+    /* *
+     * METHOD: Generates session key and sends it to server, encrypted with server's public key
+     * RETURN: True if success, False otherwise
+     * AUTHOR: Eliseev Dmitry
+     * */
+    private boolean sendSessionKey() {
+        synchronized (m_Sync) {
+            /* Messages are still encrypted by blocks, if session can't be started */
+            m_IsSessionAccepted = false;
+            m_SessionKey = null;
+            if (!AES.isAvailable()) {
+                LoggingUtility.error("AES/GCM isn't available (JDK 8 is required), messages are encrypted by blocks");
+                return false;
+            }
+
+            final byte[] sessionKey = AES.generateKey(c_SessionKeySize);
+            final byte[] encryptedKey = (sessionKey != null)?RSA.encryptKey(m_ServerKey.getKey(), sessionKey):null;
+            if ((encryptedKey == null) || (m_Connection == null))
+                return false;
+
+            m_SessionKey = sessionKey;
+            return m_Connection.send(new Message(new SessionKey(encryptedKey)));
+        }
+    } /* End of 'SafeConnection::sendSessionKey' method */
+
     @Override
     public final boolean connect() {
         synchronized (m_Sync) {
@@ -158,19 +215,39 @@ public final class SafeConnection implements IConnection {
     } /* End of 'SafeConnection::connect' method */
 
     /* *
-     * METHOD: Encodes message using server's public key
-     * RETURN: True if success, False otherwise
-     *  PARAM: [IN] message - message to send
+     * METHOD: Encrypts message data by blocks using server's public key
+     * RETURN: Encrypted message
+     *  PARAM: [IN] message - message to encrypt
      * AUTHOR: Eliseev Dmitry
      * */
-    private Message encodeMessage(final Message message) {
-        final List<byte[]> messageBlocks = splitByteArray(message.getData());
+    private Message encodeBlocks(final Message message) {
+        /* Decrypted bytes are decoded by receiver with default codec */
+        final List<byte[]> messageBlocks = splitByteArray(message.toLegacy().getData());
         final List<byte[]> encryptedBlocks = new ArrayList<byte[]>(messageBlocks.size());
 
         for (final byte[] messageBlock : messageBlocks)
             encryptedBlocks.add(RSA.encrypt(m_ServerKey.getKey(), messageBlock));
 
         return new Message(new SafeMessage(encryptedBlocks));
+    } /* End of 'SafeConnection::encodeBlocks' method */
+
+    /* *
+     * METHOD: Encodes message using session key (or server's public key, if session isn't acknowledged yet)
+     * RETURN: Encrypted message
+     *  PARAM: [IN] message - message to send
+     * AUTHOR: Eliseev Dmitry
+     * */
+    private Message encodeMessage(final Message message) {
+        final byte[] sessionKey = m_SessionKey;
+        if (!m_IsSessionAccepted || (sessionKey == null))
+            return encodeBlocks(message);
+
+        /* Whole data is encrypted at once, cipher text isn't compressible */
+        final byte[] data = AES.encrypt(sessionKey, message.getBuffer(), new byte[] {message.getCodec()});
+        if (data == null)
+            return encodeBlocks(message);
+
+        return new Message(new SealedMessage(data, message.getCodec()), CompressionUtility.c_CodecRaw);
     } /* End of 'SafeConnection::encodeMessage' method */
 
     @Override
@@ -194,6 +271,8 @@ public final class SafeConnection implements IConnection {
             /* Reset variables */
             m_Connection = null;
             m_ServerKey  = null;
+            m_SessionKey = null;
+            m_IsSessionAccepted = false;
         }
     } /* End of 'SafeConnection::disconnect' method */
 } /* End of 'SafeConnection' class */
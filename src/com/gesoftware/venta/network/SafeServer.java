@@ -4,14 +4,20 @@ import com.gesoftware.venta.network.handlers.IServerHandler;
 import com.gesoftware.venta.network.model.ServerResponse;
 import com.gesoftware.venta.network.model.EncryptionKey;
 import com.gesoftware.venta.network.model.SafeMessage;
+import com.gesoftware.venta.network.model.SealedMessage;
+import com.gesoftware.venta.network.model.SessionKey;
 import com.gesoftware.venta.logging.LoggingUtility;
 import com.gesoftware.venta.security.model.KeyPair;
 import com.gesoftware.venta.network.model.Message;
+import com.gesoftware.venta.utility.CompressionUtility;
 import com.gesoftware.venta.security.RSA;
+import com.gesoftware.venta.security.AES;
 import java.net.InetAddress;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public final class SafeServer implements IServer {
     /* Real server */
@@ -21,12 +27,21 @@ public final class SafeServer implements IServer {
     private final KeyPair m_ServerKey;
     private final int m_BlockSize;
 
-    /* Client's encryption key */
-    private EncryptionKey m_ClientKey;
+    /* Clients' encryption keys by client identifiers */
+    private final Map<String, EncryptionKey> m_ClientKeys = new ConcurrentHashMap<String, EncryptionKey>();
+
+    /* Size of session key, generated for implicit rejection (bits) */
+    private final static int c_SessionKeySize = 128;
+
+    /* Session keys, agreed with clients (there is no key if client encrypts messages by blocks) */
+    private final Map<String, byte[]> m_SessionKeys = new ConcurrentHashMap<String, byte[]>();
 
     /* User-defined handler */
     private final IServerHandler m_ServerHandler;
 
+    /* Encrypting handler of real server */
+    private final ServerHandler m_Handler = new ServerHandler();
+
     /* *
      * METHOD: Concatenates list of byte arrays
      * RETURN: Concatenated buffer
@@ -56,15 +71,16 @@ public final class SafeServer implements IServer {
      * METHOD: Splits byte array using encryption block size
      * RETURN: List of blocks
      *  PARAM: [IN] byteArray - byte array to split
+     *  PARAM: [IN] clientKey - client's encryption key
      * AUTHOR: Eliseev Dmitry
      * */
-    private List<byte[]> splitByteArray(final byte[] byteArray) {
-        final List<byte[]> byteArrays = new ArrayList<byte[]>(byteArray.length / m_ClientKey.getBlockSize() + 1);
+    private List<byte[]> splitByteArray(final byte[] byteArray, final EncryptionKey clientKey) {
+        final List<byte[]> byteArrays = new ArrayList<byte[]>(byteArray.length / clientKey.getBlockSize() + 1);
 
         int position = 0;
         while (position < byteArray.length) {
-            byteArrays.add(Arrays.copyOfRange(byteArray, position, java.lang.Math.min(position + m_ClientKey.getBlockSize(), byteArray.length)));
-            position += m_ClientKey.getBlockSize();
+            byteArrays.add(Arrays.copyOfRange(byteArray, position, java.lang.Math.min(position + clientKey.getBlockSize(), byteArray.length)));
+            position += clientKey.getBlockSize();
         }
 
         return byteArrays;
@@ -96,33 +112,96 @@ public final class SafeServer implements IServer {
         } /* End of 'ServerHandler::decodeQueue' method */
 
         /* *
-         * METHOD: Encodes message using server's public key
-         * RETURN: True if success, False otherwise
-         *  PARAM: [IN] message - message to send
+         * METHOD: Encrypts message data by blocks using client's public key
+         * RETURN: Encrypted message
+         *  PARAM: [IN] message   - message to encrypt
+         *  PARAM: [IN] clientKey - client's encryption key
          * AUTHOR: Eliseev Dmitry
          * */
-        private Message encodeMessage(final Message message) {
-            final List<byte[]> messageBlocks = splitByteArray(message.getData());
+        private Message encodeBlocks(final Message message, final EncryptionKey clientKey) {
+            /* Decrypted bytes are decoded by receiver with default codec */
+            final List<byte[]> messageBlocks = splitByteArray(message.toLegacy().getData(), clientKey);
             final List<byte[]> encryptedBlocks = new ArrayList<byte[]>(messageBlocks.size());
 
             for (final byte[] messageBlock : messageBlocks)
-                encryptedBlocks.add(RSA.encrypt(m_ClientKey.getKey(), messageBlock));
+                encryptedBlocks.add(RSA.encrypt(clientKey.getKey(), messageBlock));
 
             return new Message(new SafeMessage(encryptedBlocks));
+        } /* End of 'ServerHandler::encodeBlocks' method */
+
+        /* *
+         * METHOD: Encodes message using session key (or client's public key, if there is no session key)
+         * RETURN: Encrypted message if success, null if client hasn't sent it's key
+         *  PARAM: [IN] clientID - client identifier
+         *  PARAM: [IN] message  - message to send
+         * AUTHOR: Eliseev Dmitry
+         * */
+        private Message encodeMessage(final String clientID, final Message message) {
+            final EncryptionKey clientKey = m_ClientKeys.get(clientID);
+            if (clientKey == null)
+                return null;
+
+            final byte[] sessionKey = m_SessionKeys.get(clientID);
+            if (sessionKey == null)
+                return encodeBlocks(message, clientKey);
+
+            /* Whole data is encrypted at once, cipher text isn't compressible */
+            final byte[] data = AES.encrypt(sessionKey, message.getBuffer(), new byte[] {message.getCodec()});
+            if (data == null)
+                return encodeBlocks(message, clientKey);
+
+            return new Message(new SealedMessage(data, message.getCodec()), CompressionUtility.c_CodecRaw);
         } /* End of 'ServerHandler::encodeMessage' method */
 
         /* *
-         * METHOD: Decrypts message using self private key and executes client's handler
+         * METHOD: Decrypts message using session key
+         * RETURN: Decrypted message if success, null otherwise
+         *  PARAM: [IN] clientID - client identifier
+         *  PARAM: [IN] message  - encrypted message
+         * AUTHOR: Eliseev Dmitry
+         * */
+        private Message decodeMessage(final String clientID, final SealedMessage message) {
+            final byte[] sessionKey = m_SessionKeys.get(clientID);
+            if (sessionKey == null)
+                return null;
+
+            final byte[] data = AES.decrypt(sessionKey, message.getData(), new byte[] {message.getCodec()});
+            return (data != null)?new Message(data, System.currentTimeMillis(), message.getCodec()):null;
+        } /* End of 'ServerHandler::decodeMessage' method */
+
+        /* *
+         * METHOD: Decrypts session key using self private key and acknowledges it
+         * RETURN: Acknowledgement if AES is available, nothing otherwise
+         *  PARAM: [IN] clientID - client identifier
+         *  PARAM: [IN] key      - encrypted session key
+         * AUTHOR: Eliseev Dmitry
+         * */
+        private ServerResponse acceptSessionKey(final String clientID, final SessionKey key) {
+            if (!AES.isAvailable()) {
+                LoggingUtility.error("AES/GCM isn't available (JDK 8 is required), messages of client " + clientID + " are encrypted by blocks");
+                return ServerResponse.NOTHING;
+            }
+
+            /* Key, which can't be decrypted, is replaced with random one and acknowledged as well (implicit
+             * rejection), so answer doesn't reveal anything about decryption */
+            final byte[] sessionKey = (key.getKey() != null)?RSA.decryptKey(m_ServerKey.getPrivate(), key.getKey()):null;
+            m_SessionKeys.put(clientID, AES.isValidKey(sessionKey)?sessionKey:AES.generateKey(c_SessionKeySize));
+            return new ServerResponse(new Message(new SessionKey(null)));
+        } /* End of 'ServerHandler::acceptSessionKey' method */
+
+        /* *
+         * METHOD: Executes client's handler for decrypted message
          * RETURN: Some server response
-         *  PARAM: [IN] message - encrypted message
+         *  PARAM: [IN] clientID - client identifier
+         *  PARAM: [IN] message  - decrypted message (null if it can't be decrypted)
          * AUTHOR: Eliseev Dmitry
          * */
-        private ServerResponse processEncryptedMessage(final String clientID, final SafeMessage message) {
-            if ((m_ServerHandler == null)||(m_ClientKey == null))
+        private ServerResponse processDecryptedMessage(final String clientID, final Message message) {
+            if ((m_ServerHandler == null)||(!m_ClientKeys.containsKey(clientID))||(message == null))
                 return ServerResponse.NOTHING;
 
             /* Get response */
-            final ServerResponse response = m_ServerHandler.onReceive(clientID, new Message(decodeMessage(message.getBlocks())));
+            final ServerResponse response = m_ServerHandler.onReceive(clientID, message);
 
             /* No response, handler wants to close connection */
             if (response == null)
@@ -132,20 +211,30 @@ public final class SafeServer implements IServer {
             if (response.getMessage() == null)
                 return response;
 
+            /* Broadcast answer is encrypted with each client's key */
+            if (response.isBroadcast()) {
+                broadcast(response.getMessage());
+                return ServerResponse.NOTHING;
+            }
+
             /* Prepare final answer */
-            final Message encodedMessage = encodeMessage(response.getMessage());
-            return (response.isBroadcast())?new ServerResponse(encodedMessage, true):new ServerResponse(encodedMessage, clientID);
-        } /* End of 'SafeClientHandler::processEncryptedMessage' method */
+            return new ServerResponse(encodeMessage(clientID, response.getMessage()), clientID);
+        } /* End of 'ServerHandler::processDecryptedMessage' method */
 
         @Override
         public ServerResponse onReceive(final String clientID, final Message message) {
             final Object object = message.getObject();
 
             if (object instanceof EncryptionKey) {
-                m_ClientKey = ((EncryptionKey) object);
+                m_ClientKeys.put(clientID, (EncryptionKey) object);
+                m_SessionKeys.remove(clientID);
                 return new ServerResponse(new Message(new EncryptionKey(m_ServerKey.getPublic(), m_BlockSize)));
-            } else if (object instanceof SafeMessage)
-                return processEncryptedMessage(clientID, (SafeMessage) object);
+            } else if (object instanceof SessionKey)
+                return acceptSessionKey(clientID, (SessionKey) object);
+            else if (object instanceof SealedMessage)
+                return processDecryptedMessage(clientID, decodeMessage(clientID, (SealedMessage) object));
+            else if (object instanceof SafeMessage)
+                return processDecryptedMessage(clientID, new Message(decodeMessage(((SafeMessage) object).getBlocks())));
             else
                 LoggingUtility.warning("Unknown message type: " + object.getClass().getName());
 
@@ -154,6 +243,9 @@ public final class SafeServer implements IServer {
 
         @Override
         public void onDisconnect(final String clientID) {
+            m_ClientKeys.remove(clientID);
+            m_SessionKeys.remove(clientID);
+
             if (m_ServerHandler != null)
                 m_ServerHandler.onDisconnect(clientID);
         } /* End of 'ServerHandler::onDisconnect' method */
@@ -171,9 +263,40 @@ public final class SafeServer implements IServer {
         m_BlockSize = (keySize / 8) - 11;
 
         m_ServerHandler = handler;
-        m_Server = new Server(port, new ServerHandler());
+        m_Server = new Server(port, m_Handler);
     } /* End of 'SafeServer::SafeServer' method */
 
+    /* *
+     * METHOD: Sends an encrypted message to client
+     * RETURN: True if success, false otherwise
+     *  PARAM: [IN] clientID - client identifier
+     *  PARAM: [IN] message  - message to send
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final boolean send(final String clientID, final Message message) {
+        final Message encodedMessage = m_Handler.encodeMessage(clientID, message);
+        return (encodedMessage != null) && m_Server.send(clientID, encodedMessage);
+    } /* End of 'SafeServer::send' method */
+
+    /* *
+     * METHOD: Sends an encrypted message to all clients, which have sent their keys
+     *  PARAM: [IN] message - message to send
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final void broadcast(final Message message) {
+        for (final String clientID : m_ClientKeys.keySet())
+            send(clientID, message);
+    } /* End of 'SafeServer::broadcast' method */
+
+    /* *
+     * METHOD: Disconnects client by it's hash
+     *  PARAM: [IN] clientID - client identifier
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final void disconnect(final String clientID) {
+        m_Server.disconnect(clientID);
+    } /* End of 'SafeServer::disconnect' method */
+
     @Override
     public synchronized void stop() {
         if (m_Server != null)
@@ -0,0 +1,205 @@
+package com.gesoftware.venta.network;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/* *
+ * Sender statistics class definition (per-client batching counters, updated by sender only; backpressure
+ * counters, updated by producers)
+ * */
+public final class SenderStatistics {
+    /* The number of written batches (flushes) */
+    private volatile long m_Batches;
+
+    /* The number of written messages */
+    private volatile long m_Messages;
+
+    /* The number of written bytes */
+    private volatile long m_Bytes;
+
+    /* The biggest batch (messages) */
+    private volatile int m_MaxBatchSize;
+
+    /* Total batches writing time (ns) */
+    private volatile long m_FlushTime;
+
+    /* The longest batch writing time (ns) */
+    private volatile long m_MaxFlushTime;
+
+    /* The number of dropped messages and their bytes (sending queue was full) */
+    private final AtomicLong m_Dropped      = new AtomicLong();
+    private final AtomicLong m_DroppedBytes = new AtomicLong();
+
+    /* The number of sends, which waited for free place in sending queue, and their total waiting time (ns) */
+    private final AtomicLong m_Blocked   = new AtomicLong();
+    private final AtomicLong m_BlockTime = new AtomicLong();
+
+    /* The number of disconnections because of full sending queue */
+    private final AtomicLong m_Overflows = new AtomicLong();
+
+    /* *
+     * METHOD: Registers written batch
+     *  PARAM: [IN] messages - the number of messages in batch
+     *  PARAM: [IN] bytes    - the number of bytes in batch
+     *  PARAM: [IN] time     - batch writing time (ns)
+     * AUTHOR: Eliseev Dmitry
+     * */
+    final void register(final int messages, final long bytes, final long time) {
+        m_Batches++;
+        m_Messages  += messages;
+        m_Bytes     += bytes;
+        m_FlushTime += time;
+
+        if (messages > m_MaxBatchSize)
+            m_MaxBatchSize = messages;
+
+        if (time > m_MaxFlushTime)
+            m_MaxFlushTime = time;
+    } /* End of 'SenderStatistics::register' method */
+
+    /* *
+     * METHOD: Registers dropped message
+     *  PARAM: [IN] bytes - dropped message size (bytes)
+     * AUTHOR: Eliseev Dmitry
+     * */
+    final void registerDrop(final long bytes) {
+        m_Dropped.incrementAndGet();
+        m_DroppedBytes.addAndGet(bytes);
+    } /* End of 'SenderStatistics::registerDrop' method */
+
+    /* *
+     * METHOD: Registers send, which waited for free place in sending queue
+     *  PARAM: [IN] time - waiting time (ns)
+     * AUTHOR: Eliseev Dmitry
+     * */
+    final void registerBlock(final long time) {
+        m_Blocked.incrementAndGet();
+        m_BlockTime.addAndGet(time);
+    } /* End of 'SenderStatistics::registerBlock' method */
+
+    /* *
+     * METHOD: Registers disconnection because of full sending queue
+     * AUTHOR: Eliseev Dmitry
+     * */
+    final void registerOverflow() {
+        m_Overflows.incrementAndGet();
+    } /* End of 'SenderStatistics::registerOverflow' method */
+
+    /* *
+     * METHOD: Gets the number of written batches
+     * RETURN: The number of batches (flushes)
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final long getBatchesCount() {
+        return m_Batches;
+    } /* End of 'SenderStatistics::getBatchesCount' method */
+
+    /* *
+     * METHOD: Gets the number of written messages
+     * RETURN: The number of messages
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final long getMessagesCount() {
+        return m_Messages;
+    } /* End of 'SenderStatistics::getMessagesCount' method */
+
+    /* *
+     * METHOD: Gets the number of written bytes
+     * RETURN: The number of bytes
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final long getBytesCount() {
+        return m_Bytes;
+    } /* End of 'SenderStatistics::getBytesCount' method */
+
+    /* *
+     * METHOD: Gets average batch size
+     * RETURN: Average number of messages per batch
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final double getAverageBatchSize() {
+        final long batches = m_Batches;
+        return (batches == 0)?0:(double) m_Messages / batches;
+    } /* End of 'SenderStatistics::getAverageBatchSize' method */
+
+    /* *
+     * METHOD: Gets the biggest batch size
+     * RETURN: Maximal number of messages per batch
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final int getMaxBatchSize() {
+        return m_MaxBatchSize;
+    } /* End of 'SenderStatistics::getMaxBatchSize' method */
+
+    /* *
+     * METHOD: Gets average batch writing time
+     * RETURN: Average flush latency (ns)
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final long getAverageFlushLatency() {
+        final long batches = m_Batches;
+        return (batches == 0)?0:m_FlushTime / batches;
+    } /* End of 'SenderStatistics::getAverageFlushLatency' method */
+
+    /* *
+     * METHOD: Gets the longest batch writing time
+     * RETURN: Maximal flush latency (ns)
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final long getMaxFlushLatency() {
+        return m_MaxFlushTime;
+    } /* End of 'SenderStatistics::getMaxFlushLatency' method */
+
+    /* *
+     * METHOD: Gets the number of dropped messages
+     * RETURN: The number of messages, dropped because of full sending queue
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final long getDroppedCount() {
+        return m_Dropped.get();
+    } /* End of 'SenderStatistics::getDroppedCount' method */
+
+    /* *
+     * METHOD: Gets the number of dropped bytes
+     * RETURN: Total size of dropped messages
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final long getDroppedBytesCount() {
+        return m_DroppedBytes.get();
+    } /* End of 'SenderStatistics::getDroppedBytesCount' method */
+
+    /* *
+     * METHOD: Gets the number of blocked sends
+     * RETURN: The number of sends, which waited for free place in sending queue
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final long getBlockedCount() {
+        return m_Blocked.get();
+    } /* End of 'SenderStatistics::getBlockedCount' method */
+
+    /* *
+     * METHOD: Gets total waiting time of blocked sends
+     * RETURN: Waiting time (ns)
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final long getBlockTime() {
+        return m_BlockTime.get();
+    } /* End of 'SenderStatistics::getBlockTime' method */
+
+    /* *
+     * METHOD: Gets the number of disconnections because of full sending queue
+     * RETURN: The number of overflows
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final long getOverflowsCount() {
+        return m_Overflows.get();
+    } /* End of 'SenderStatistics::getOverflowsCount' method */
+
+    @Override
+    public final String toString() {
+        return "batches: " + getBatchesCount() + ", messages: " + getMessagesCount() + ", bytes: " + getBytesCount() +
+               ", avg batch: " + String.format("%.2f", getAverageBatchSize()) + ", max batch: " + getMaxBatchSize() +
+               ", avg flush: " + getAverageFlushLatency() / 1000 + " us, max flush: " + getMaxFlushLatency() / 1000 + " us" +
+               ", dropped: " + getDroppedCount() + " (" + getDroppedBytesCount() + " bytes), blocked: " + getBlockedCount() +
+               " (" + getBlockTime() / 1000000 + " ms), overflows: " + getOverflowsCount();
+    } /* End of 'SenderStatistics::toString' method */
+} /* End of 'SenderStatistics' class */
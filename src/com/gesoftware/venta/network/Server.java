@@ -4,17 +4,20 @@ import com.gesoftware.venta.logging.LoggingUtility;
 import com.gesoftware.venta.network.handlers.IServerHandler;
 import com.gesoftware.venta.network.model.Message;
 import com.gesoftware.venta.network.model.ServerResponse;
+import com.gesoftware.venta.processing.IWalker;
 import com.gesoftware.venta.structures.map.SynchronizedMap;
+import com.gesoftware.venta.structures.queue.MpscQueue;
+import com.gesoftware.venta.threads.PlatformThreadFactory;
 import com.gesoftware.venta.time.Timer;
 import com.gesoftware.venta.utility.HashUtility;
 
 import java.io.*;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.util.Collection;
-import java.util.Map;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
 
 /* Server class definition */
 public final class Server implements IServer {
@@ -24,8 +27,29 @@ public final class Server implements IServer {
     /* Sleep duration between observe tasks (ms) */
     private final static int c_NetworkSleep = 10000;
 
+    /* Handshake timeout (ms) */
+    private final static int c_HandshakeTimeout = 5000;
+
+    /* Default sender batch budget (messages and bytes per flush) */
+    private final static int c_BatchMessages = 256;
+    private final static int c_BatchBytes    = 64 * 1024;
+
+    /* Default client sending queue limits (messages and bytes) */
+    private final static int  c_QueueMessages = 64 * 1024;
+    private final static long c_QueueBytes    = 64 * 1024 * 1024;
+
+    /* Default client sending ring capacity (slots are allocated at client creation, so ring is small; queue is also
+     * full when ring is full, whatever messages limit is) */
+    private final static int c_QueueCapacity = 1024;
+
+    /* Waiting time for free place in full sending queue, after which client activity is checked (ms) */
+    private final static int c_QueueWait = 100;
+
+    /* Default maximal waiting time for free place in full sending queue, after which fallback policy is applied (ms) */
+    private final static int c_BlockTimeout = 5000;
+
     /* Connected clients data structure */
-    private final Map<String, Client> m_Clients = new SynchronizedMap<String, Client>();
+    private final SynchronizedMap<String, Client> m_Clients = new SynchronizedMap<String, Client>();
 
     /* Server handler (business-logic). Each listener, used separate port, should have it's own instance of handler */
     private IServerHandler m_ServerHandler = null;
@@ -39,10 +63,46 @@ public final class Server implements IServer {
     /* Server port (for listening) */
     private final int m_Port;
 
+    /* Sender batch budget (messages and bytes per flush) */
+    private int m_BatchMessages = c_BatchMessages;
+    private int m_BatchBytes    = c_BatchBytes;
+
+    /* Client sending queue limits (messages and bytes) and policy for messages, which don't fit */
+    private int  m_QueueMessages = c_QueueMessages;
+    private long m_QueueBytes    = c_QueueBytes;
+    private BackpressurePolicy m_Policy = BackpressurePolicy.BLOCK;
+
+    /* Client sending ring capacity (slots) */
+    private int m_QueueCapacity = c_QueueCapacity;
+
+    /* Maximal waiting time of blocked sender (ms) and policy, applied after it elapses (blocked sender may be a
+     * receiver of another client, which broadcasts, or a map node, which pushes invalidations) */
+    private long m_BlockTimeout = c_BlockTimeout;
+    private BackpressurePolicy m_BlockFallback = BackpressurePolicy.DISCONNECT;
+
+    /* Backpressure policy enumeration (what to do with message for client, whose sending queue is full) */
+    public static enum BackpressurePolicy {
+        /* Sender waits for free place while client is active, but not longer than block timeout (then fallback policy
+         * is applied) */
+        BLOCK,
+
+        /* The oldest queued messages are dropped to free place */
+        DROP_OLDEST,
+
+        /* New message is dropped */
+        DROP_NEWEST,
+
+        /* Slow client is disconnected */
+        DISCONNECT
+    } /* End of 'BackpressurePolicy' enum class */
+
+    /* Factory for clients and observer threads (platform or virtual threads) */
+    private final ThreadFactory m_ThreadFactory;
+
     /* Client class definition */
     private final class Client {
         /* Client processing activity flag. While flag is enabled, client sends and receives data) */
-        private boolean m_IsClientActive = true;
+        private volatile boolean m_IsClientActive = true;
 
         /* Last client query */
         private final Timer m_LastQuery;
@@ -53,14 +113,21 @@ public final class Server implements IServer {
         /* Client socket. Single client socket (transferring socket) */
         private final Socket m_Socket;
 
+        /* Negotiated transport (frames or object stream) */
+        private ITransport m_Transport;
+
         /* Client thread for messages receiving */
         private Thread m_ThreadReceiver;
 
         /* Client thread for messages sending */
         private Thread m_ThreadSender;
 
-        /* Messages to send (each client has it's own sending queue). Server adds message to send to this queue */
-        private final BlockingQueue<Message> m_Messages = new LinkedBlockingQueue<Message>();
+        /* Messages to send (each client has it's own sending queue). Server adds message to send to this queue,
+         * sender thread is the only consumer and parks while queue is empty */
+        private final MpscQueue<Packet> m_Messages = new MpscQueue<Packet>(Math.min(m_QueueCapacity, m_QueueMessages));
+
+        /* Size of queued messages (bytes), which are not taken by sender yet */
+        private final AtomicLong m_QueuedBytes = new AtomicLong();
 
         /* Sender class instance */
         private ClientSender m_Sender;
@@ -68,29 +135,14 @@ public final class Server implements IServer {
         /* Receiver class instance */
         private ClientReceiver m_Receiver;
 
-        /* Synchronization object (we need it for wait-notify sending queue architecture) */
-        private final Object m_SenderMonitor = new Object();
+        /* Sender batching counters */
+        private final SenderStatistics m_Statistics = new SenderStatistics();
 
         /* Client messages receiver class definition */
         private class ClientReceiver implements Runnable {
-            /* Client input stream  */
-            private ObjectInputStream m_Reader = null;
-
-            /* *
-             * METHOD: Client receiver class constructor
-             * AUTHOR: Eliseev Dmitry
-             * */
-            public ClientReceiver() {
-                try {
-                    m_Reader = new ObjectInputStream(m_Socket.getInputStream());
-                } catch (final IOException e) {
-                    LoggingUtility.error("Can't open input stream: " + e.getMessage());
-                }
-            } /* End of 'ClientReceiver::ClientReceiver' method */
-
             private Message readMessage() {
                 try {
-                    return (Message) m_Reader.readObject();
+                    return m_Transport.read();
                 } catch(final Exception ignored) {}
 
                 return null;
@@ -136,18 +188,27 @@ public final class Server implements IServer {
             public final void run() {
                 LoggingUtility.core("Receiver thread started for client: " + m_ID);
 
+                /* Transport is negotiated here, so slow client doesn't stop accepting of other connections */
+                if (!handshake()) {
+                    closeConnection(m_Socket);
+                    m_ServerHandler.onDisconnect(m_ID);
+
+                    LoggingUtility.core("Receiver thread closed for client: " + m_ID);
+                    return;
+                }
+
+                /* Store client into internal data structure before it's sender starts (first responses must find it) */
+                addClient(Client.this);
+                startSender();
+
                 try {
                     loop();
                 } catch (final Exception e) {
                     LoggingUtility.debug("Error during client loop: " + e.getMessage());
                 }
 
-                /* Closing input stream */
-                try {
-                    m_Reader.close();
-                } catch (final Exception e) {
-                    LoggingUtility.error("Can't close input stream: " + e.getMessage());
-                }
+                /* Closing transport streams */
+                m_Transport.close();
 
                 /* Disconnect client from server */
                 disconnectClient();
@@ -162,44 +223,75 @@ public final class Server implements IServer {
              * AUTHOR: Eliseev Dmitry
              * */
             public final void stop() {
-                try {
-                    m_Reader.close();
-                } catch (final Exception e) {
-                    LoggingUtility.error("Can't close input stream: " + e.getMessage());
-                }
+                m_Transport.close();
             } /* End of 'ClientReceiver::stop' method */
         } /* End of 'ClientReceiver' class */
 
         /* Client messages sender class definition */
         private final class ClientSender implements Runnable {
-            /* Client output stream */
-            private ObjectOutputStream m_Writer = null;
+            /* Drained packets (reused between batches) */
+            private final List<Packet> m_Batch = new ArrayList<Packet>();
 
             /* *
-             * METHOD: Client sender class constructor
+             * METHOD: Blocks running and wait for notification from server
              * AUTHOR: Eliseev Dmitry
              * */
-            public ClientSender() {
+            private void waitForMessages() {
                 try {
-                    m_Writer = new ObjectOutputStream(m_Socket.getOutputStream());
-                } catch(final Exception e) {
-                    LoggingUtility.error("Can't open output stream: " + e.getMessage());
+                    /* Messages may arrive right before waiting */
+                    while (m_IsClientActive && m_Messages.isEmpty())
+                        m_Messages.await();
+                } catch (final InterruptedException e) {
+                    LoggingUtility.debug("Exception: " + e.getMessage());
                 }
-            } /* End of 'ClientSender::ClientSender' method */
+            } /* End of 'ClientSender::waitForMessages' method */
 
             /* *
-             * METHOD: Blocks running and wait for notification from server
+             * METHOD: Drains queued messages up to batch budget and writes them (flush is done after bytes budget is
+             *         exceeded and after the last message)
              * AUTHOR: Eliseev Dmitry
              * */
-            private void waitForMessages() {
-                synchronized (m_SenderMonitor) {
-                    try {
-                        m_SenderMonitor.wait();
-                    } catch (final InterruptedException e) {
-                        LoggingUtility.debug("Exception: " + e.getMessage());
+            private void sendBatch() throws IOException {
+                long start = System.nanoTime();
+
+                int messages = 0;
+                long bytes = 0;
+
+                m_Messages.drain(m_Batch, m_BatchMessages);
+
+                /* Drained messages don't count against queue limit (producers, waiting for it, are woken up) */
+                long drained = 0;
+                for (final Packet packet : m_Batch)
+                    drained += getSize(packet);
+
+                m_QueuedBytes.addAndGet(-drained);
+                m_Messages.signalProducers();
+
+                try {
+                    for (final Packet packet : m_Batch) {
+                        m_Transport.write(packet);
+
+                        messages++;
+                        bytes += getSize(packet);
+
+                        if (bytes >= m_BatchBytes) {
+                            m_Transport.flush();
+                            m_Statistics.register(messages, bytes, System.nanoTime() - start);
+
+                            start    = System.nanoTime();
+                            messages = 0;
+                            bytes    = 0;
+                        }
                     }
+                } finally {
+                    m_Batch.clear();
                 }
-            } /* End of 'ClientSender::waitForMessages' method */
+
+                if (messages > 0) {
+                    m_Transport.flush();
+                    m_Statistics.register(messages, bytes, System.nanoTime() - start);
+                }
+            } /* End of 'ClientSender::sendBatch' method */
 
             @Override
             public final void run() {
@@ -211,12 +303,10 @@ public final class Server implements IServer {
                         /* Waiting for messages at queue */
                         waitForMessages();
 
-                        /* Sending all of them */
+                        /* Sending all of them (batch by batch) */
                         while (!m_Messages.isEmpty()) {
                             LoggingUtility.debug("Sending (" + m_Messages.size() + ") messages for client: " + m_ID);
-
-                            m_Writer.writeObject(m_Messages.poll());
-                            m_Writer.flush();
+                            sendBatch();
                         }
                     } catch(final Exception e) {
                         LoggingUtility.error("Client closed connection: " + m_ID);
@@ -224,11 +314,6 @@ public final class Server implements IServer {
                     }
                 }
 
-                /* Closing output stream */
-                try {
-                    m_Writer.close();
-                } catch (final IOException ignored) {}
-
                 /* Disconnect client from server */
                 disconnectClient();
 
@@ -249,17 +334,13 @@ public final class Server implements IServer {
             m_IsClientActive = false;
 
             /* Notify sender thread */
-            synchronized (m_SenderMonitor) {
-                m_SenderMonitor.notify();
-            }
+            m_Messages.signal();
 
-            /* Closing socket */
+            /* Closing socket (socket closing is thread safe) */
             if (m_Socket != null)
-                synchronized (m_Socket) {
-                    try {
-                        m_Socket.close();
-                    } catch (final IOException ignored) {}
-                }
+                try {
+                    m_Socket.close();
+                } catch (final IOException ignored) {}
         } /* End of 'Client::disconnectClient' method */
 
         /* *
@@ -274,18 +355,43 @@ public final class Server implements IServer {
         } /* End of 'Client::Client' method */
 
         /* *
-         * METHOD: Starts client processing thread
+         * METHOD: Negotiates transport with client
+         * RETURN: True if success, false otherwise
          * AUTHOR: Eliseev Dmitry
          * */
-        public final void start() {
-            /* Creation and starting sender thread */
+        private boolean handshake() {
+            try {
+                m_Socket.setSoTimeout(c_HandshakeTimeout);
+                m_Socket.setTcpNoDelay(true);
+                m_Transport = Handshake.accept(m_Socket);
+                m_Socket.setSoTimeout(0);
+
+                LoggingUtility.core("Client <" + m_ID + "> uses " + (m_Transport.isFramed()?"frames":"object stream"));
+                return true;
+            } catch (final IOException e) {
+                LoggingUtility.error("Handshake failed for client <" + m_ID + ">: " + e.getMessage());
+            }
+
+            return false;
+        } /* End of 'Client::handshake' method */
+
+        /* *
+         * METHOD: Starts client sender thread (client should be handshaken)
+         * AUTHOR: Eliseev Dmitry
+         * */
+        private void startSender() {
             m_Sender       = new ClientSender();
-            m_ThreadSender = new Thread(m_Sender);
+            m_ThreadSender = m_ThreadFactory.newThread(m_Sender);
             m_ThreadSender.start();
+        } /* End of 'Client::startSender' method */
 
-            /* Creation and starting receiver thread */
+        /* *
+         * METHOD: Starts client receiver thread (it negotiates transport, registers client and starts sender)
+         * AUTHOR: Eliseev Dmitry
+         * */
+        public final void start() {
             m_Receiver       = new ClientReceiver();
-            m_ThreadReceiver = new Thread(m_Receiver);
+            m_ThreadReceiver = m_ThreadFactory.newThread(m_Receiver);
             m_ThreadReceiver.start();
         } /* End of 'Client::start' method */
 
@@ -294,32 +400,138 @@ public final class Server implements IServer {
          * AUTHOR: Eliseev Dmitry
          * */
         public final void disconnect() {
-            m_Receiver.stop();
+            /* Closing transport stops receiver (client is registered after handshake, so transport exists) */
+            m_Transport.close();
         } /* End of 'Client::disconnect' method */
 
         /* *
-         * METHOD: Sends a message to client
-         * RETURN: True if success, false otherwise
-         *  PARAM: [IN] message - reference to message to send
+         * METHOD: Enqueues a packet if it fits queue limits (single message, bigger than bytes limit, fits empty queue;
+         *         limits may be exceeded by the number of concurrent senders)
+         * RETURN: True if packet was enqueued, false otherwise
+         *  PARAM: [IN] packet - reference to packet to send
+         *  PARAM: [IN] size   - packet size (bytes)
+         * AUTHOR: Eliseev Dmitry
+         * */
+        private boolean enqueue(final Packet packet, final long size) {
+            final long queued = m_QueuedBytes.get();
+            if ((m_Messages.size() >= m_QueueMessages) || ((queued > 0) && (queued + size > m_QueueBytes)))
+                return false;
+
+            m_QueuedBytes.addAndGet(size);
+            if (m_Messages.offer(packet))
+                return true;
+
+            m_QueuedBytes.addAndGet(-size);
+            return false;
+        } /* End of 'Client::enqueue' method */
+
+        /* *
+         * METHOD: Waits for free place in sending queue and enqueues a packet
+         * RETURN: True if success, false if block timeout elapsed or client was disconnected
+         *  PARAM: [IN] packet - reference to packet to send
+         *  PARAM: [IN] size   - packet size (bytes)
          * AUTHOR: Eliseev Dmitry
          * */
-        public final synchronized boolean send(final Message message) {
+        private boolean block(final Packet packet, final long size) throws InterruptedException {
+            final long start = System.nanoTime();
+            final long deadline = start + m_BlockTimeout * 1000000L;
+
             try {
-                m_Messages.put(message);
+                /* Producer is unparked by sender after it drains queue */
+                while (!enqueue(packet, size)) {
+                    final long remaining = deadline - System.nanoTime();
+                    if (!m_IsClientActive || (remaining <= 0))
+                        return false;
 
-                /* Inform sender thread about new messages */
-                synchronized (m_SenderMonitor) {
-                    m_SenderMonitor.notify();
+                    m_Messages.awaitSpace(Math.min(c_QueueWait, remaining / 1000000L + 1));
                 }
+            } finally {
+                m_Statistics.registerBlock(System.nanoTime() - start);
+            }
 
-                /* That's it (send successfully) */
-                return true;
-            } catch (final InterruptedException e) {
-                LoggingUtility.error("Exception: " + e.getMessage());
+            return true;
+        } /* End of 'Client::block' method */
+
+        /* *
+         * METHOD: Drops the oldest queued packets until a packet fits sending queue
+         * RETURN: True if packet was enqueued, false if client was disconnected
+         *  PARAM: [IN] packet - reference to packet to send
+         *  PARAM: [IN] size   - packet size (bytes)
+         * AUTHOR: Eliseev Dmitry
+         * */
+        private boolean dropOldest(final Packet packet, final long size) {
+            while (!enqueue(packet, size)) {
+                final Packet oldest = m_Messages.poll();
+                if (oldest == null) {
+                    /* Queue was drained by sender or other producers, which haven't released it's bytes yet */
+                    if (!m_IsClientActive)
+                        return false;
+
+                    Thread.yield();
+                    continue;
+                }
+
+                final long dropped = getSize(oldest);
+                m_QueuedBytes.addAndGet(-dropped);
+                m_Statistics.registerDrop(dropped);
             }
 
-            /* That's it (send failed) */
-            return false;
+            return true;
+        } /* End of 'Client::dropOldest' method */
+
+        /* *
+         * METHOD: Applies backpressure policy to a packet, which doesn't fit sending queue
+         * RETURN: True if packet was enqueued, false if it was dropped or client was disconnected
+         *  PARAM: [IN] policy - backpressure policy
+         *  PARAM: [IN] packet - reference to packet to send
+         *  PARAM: [IN] size   - packet size (bytes)
+         * AUTHOR: Eliseev Dmitry
+         * */
+        private boolean apply(final BackpressurePolicy policy, final Packet packet, final long size) {
+            switch (policy) {
+                case BLOCK:
+                    try {
+                        if (block(packet, size))
+                            return true;
+                    } catch (final InterruptedException e) {
+                        LoggingUtility.error("Exception: " + e.getMessage());
+                        return false;
+                    }
+
+                    /* Client is still too slow after block timeout */
+                    return m_IsClientActive && apply(m_BlockFallback, packet, size);
+                case DROP_OLDEST:
+                    return dropOldest(packet, size);
+                case DROP_NEWEST:
+                    m_Statistics.registerDrop(size);
+                    return false;
+                default:
+                    LoggingUtility.core("Sending queue is full, disconnecting client: " + m_ID);
+                    m_Statistics.registerOverflow();
+
+                    /* Next messages are rejected at once, without waiting for receiver to stop */
+                    m_IsClientActive = false;
+                    disconnect();
+                    return false;
+            }
+        } /* End of 'Client::apply' method */
+
+        /* *
+         * METHOD: Sends a packet to client (backpressure policy is applied if sending queue is full)
+         * RETURN: True if packet was enqueued, false if it was dropped or client was disconnected
+         *  PARAM: [IN] packet - reference to packet to send
+         * AUTHOR: Eliseev Dmitry
+         * */
+        public final boolean send(final Packet packet) {
+            if (!m_IsClientActive)
+                return false;
+
+            final long size = getSize(packet);
+            if (enqueue(packet, size))
+                return true;
+
+            /* Sending queue is full */
+            return apply(m_Policy, packet, size);
         } /* End of 'Client::send' method */
 
         /* *
@@ -331,6 +543,15 @@ public final class Server implements IServer {
             return m_ID;
         } /* End of 'Client::getID' method */
 
+        /* *
+         * METHOD: Gets client sender statistics
+         * RETURN: Sender batching counters
+         * AUTHOR: Eliseev Dmitry
+         * */
+        public final SenderStatistics getStatistics() {
+            return m_Statistics;
+        } /* End of 'Client::getStatistics' method */
+
         @Override
         public final boolean equals(final Object o) {
             return o instanceof Client && ((Client) o).getID().equals(m_ID);
@@ -351,8 +572,39 @@ public final class Server implements IServer {
         } /* End of 'Client::isTimeout' method */
     } /* End of 'Client' class */
 
+    /* Broadcast class definition (sends shared packet to every walked client) */
+    private final static class Broadcast implements IWalker<Client> {
+        private final Packet m_Packet;
+
+        /* All clients received packet flag */
+        private boolean m_IsSent = true;
+
+        /* *
+         * METHOD: Class constructor
+         *  PARAM: [IN] packet - packet to broadcast
+         * AUTHOR: Eliseev Dmitry
+         * */
+        public Broadcast(final Packet packet) {
+            m_Packet = packet;
+        } /* End of 'Broadcast::Broadcast' method */
+
+        @Override
+        public final void walk(final Client client) {
+            m_IsSent &= client.send(m_Packet);
+        } /* End of 'Broadcast::walk' method */
+
+        /* *
+         * METHOD: Determines if all clients received packet
+         * RETURN: True if packet was sent to all clients, False otherwise
+         * AUTHOR: Eliseev Dmitry
+         * */
+        public final boolean isSent() {
+            return m_IsSent;
+        } /* End of 'Broadcast::isSent' method */
+    } /* End of 'Broadcast' class */
+
     /* Observer class definition */
-    private final class Observer implements Runnable {
+    private final class Observer implements Runnable, IWalker<Client> {
         /* *
          * METHOD: Pauses worker thread
          * AUTHOR: Eliseev Dmitry
@@ -370,27 +622,19 @@ public final class Server implements IServer {
          *  PARAM: [IN] client - client to check & disconnect
          * AUTHOR: Eliseev Dmitry
          * */
-        private void processClient(final Client client) {
+        @Override
+        public final void walk(final Client client) {
             if (client.isTimeout()) {
                 LoggingUtility.core("Time is out for <" + client.getID() + "> client");
                 client.disconnect();
             }
-        } /* End of 'Observer::processClient' method */
-
-        /* *
-         * METHOD: Processes all connected clients and check them for time outs
-         *  PARAM: [IN] clients - all connected clients
-         * AUTHOR: Eliseev Dmitry
-         * */
-        private void processClients(final Collection<Client> clients) {
-            for (final Client client : clients)
-                processClient(client);
-        } /* End of 'Observer::processClients' method */
+        } /* End of 'Observer::walk' method */
 
         @Override
         public final void run() {
+            /* Clients are walked without copying */
             while (m_IsActive) {
-                processClients(m_Clients.values());
+                m_Clients.foreachValue(this);
                 sleep();
             }
         } /* End of 'Observer::run' method */
@@ -403,13 +647,26 @@ public final class Server implements IServer {
      * AUTHOR: Eliseev Dmitry
      * */
     public Server(final int port, final IServerHandler handler) {
+        this(port, handler, new PlatformThreadFactory());
+    } /* End of 'Server::Server' method */
+
+    /* *
+     * METHOD: Server class constructor
+     *  PARAM: [IN] port          - port for listening
+     *  PARAM: [IN] handler       - reference to clients handler
+     *  PARAM: [IN] threadFactory - factory for clients threads (e.g. VirtualThreadFactory)
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public Server(final int port, final IServerHandler handler, final ThreadFactory threadFactory) {
         m_ServerHandler = handler;
+        m_ThreadFactory = threadFactory;
         m_Port = port;
     } /* End of 'Server::Server' method */
 
     /* *
      * METHOD: Sends a message to client
-     * RETURN: True if success, false otherwise
+     * RETURN: True if message was enqueued, false if client isn't connected or message was rejected by backpressure
+     *         policy (see client sender statistics)
      *  PARAM: [IN] clientID - client identifier
      *  PARAM: [IN] message  - message to send
      * AUTHOR: Eliseev Dmitry
@@ -418,9 +675,66 @@ public final class Server implements IServer {
         LoggingUtility.debug("Sending " + message.getSize() + " bytes to client...");
 
         final Client client = m_Clients.get(clientID);
-        return client != null && client.send(message);
+        return client != null && client.send(new Packet(message, false));
     } /* End of 'Server::send' method */
 
+    /* *
+     * METHOD: Sets sender batch budget (should be called before server starts)
+     *  PARAM: [IN] messages - maximal number of messages per flush
+     *  PARAM: [IN] bytes    - maximal number of bytes per flush (batch is closed after exceeding)
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final void setBatchLimits(final int messages, final int bytes) {
+        m_BatchMessages = Math.max(1, messages);
+        m_BatchBytes    = Math.max(1, bytes);
+    } /* End of 'Server::setBatchLimits' method */
+
+    /* *
+     * METHOD: Sets client sending queue limits and backpressure policy (should be called before server starts)
+     *  PARAM: [IN] messages - maximal number of queued messages per client
+     *  PARAM: [IN] bytes    - maximal size of queued messages per client (bytes)
+     *  PARAM: [IN] policy   - what to do with message, which doesn't fit the queue
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final void setSendLimits(final int messages, final long bytes, final BackpressurePolicy policy) {
+        m_QueueMessages = Math.max(1, messages);
+        m_QueueBytes    = Math.max(1, bytes);
+        m_Policy        = policy;
+    } /* End of 'Server::setSendLimits' method */
+
+    /* *
+     * METHOD: Sets maximal waiting time of blocked sender (BLOCK policy) and policy, applied after it elapses (should
+     *         be called before server starts)
+     *  PARAM: [IN] timeout  - maximal waiting time (ms)
+     *  PARAM: [IN] fallback - DROP_OLDEST, DROP_NEWEST or DISCONNECT (BLOCK is treated as DISCONNECT)
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final void setBlockTimeout(final long timeout, final BackpressurePolicy fallback) {
+        m_BlockTimeout  = Math.max(1, timeout);
+        m_BlockFallback = (fallback == BackpressurePolicy.BLOCK)?BackpressurePolicy.DISCONNECT:fallback;
+    } /* End of 'Server::setBlockTimeout' method */
+
+    /* *
+     * METHOD: Sets client sending ring capacity (should be called before server starts; messages limit, which is
+     *         bigger than ring capacity, is never reached)
+     *  PARAM: [IN] slots - number of ring slots, allocated for every client (rounded up to power of two)
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final void setQueueCapacity(final int slots) {
+        m_QueueCapacity = Math.max(1, slots);
+    } /* End of 'Server::setQueueCapacity' method */
+
+    /* *
+     * METHOD: Gets client sender statistics
+     * RETURN: Sender batching counters if client is connected, null otherwise
+     *  PARAM: [IN] clientID - client identifier
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final SenderStatistics getStatistics(final String clientID) {
+        final Client client = m_Clients.get(clientID);
+        return (client != null)?client.getStatistics():null;
+    } /* End of 'Server::getStatistics' method */
+
     /* *
      * METHOD: Disconnects client by it's hash
      *  PARAM: [IN] clientID - client identifier
@@ -432,6 +746,16 @@ public final class Server implements IServer {
             client.disconnect();
     } /* End of 'Server::disconnect' method */
 
+    /* *
+     * METHOD: Gets packet size in sending queue
+     * RETURN: Frame size (bytes)
+     *  PARAM: [IN] packet - packet to measure
+     * AUTHOR: Eliseev Dmitry
+     * */
+    private static long getSize(final Packet packet) {
+        return FrameCodec.c_HeaderSize + packet.getMessage().getSize();
+    } /* End of 'Server::getSize' method */
+
     /* *
      * METHOD: Processes server handler response
      *  PARAM: [IN] clientID - client identifier
@@ -447,13 +771,14 @@ public final class Server implements IServer {
         if (response.getClientID() != null)
             return send(response.getClientID(), response.getMessage());
 
-        /* Is it a broadcast message */
-        boolean isSent = true;
-        for (final String recipientID : m_Clients.keySet())
-            isSent &= send(recipientID, response.getMessage());
+        /* Is it a broadcast message (frame is encoded once and shared by all recipients) */
+        final Packet packet = new Packet(response.getMessage(), true);
+
+        final Broadcast broadcast = new Broadcast(packet);
+        m_Clients.foreachValue(broadcast);
 
         /* That's it */
-        return isSent;
+        return broadcast.isSent();
     } /* End of 'Server::processResponse' method */
 
     /* *
@@ -527,7 +852,7 @@ public final class Server implements IServer {
             return;
 
         /* Starting observer thread */
-        new Thread(new Observer()).start();
+        m_ThreadFactory.newThread(new Observer()).start();
 
         /* While server is in active state */
         while (m_IsActive) {
@@ -544,11 +869,8 @@ public final class Server implements IServer {
                 if (m_ServerHandler.onConnect(client.getID(), clientSocket.getInetAddress())) {
                     LoggingUtility.core("Client approved with ID: " + client.getID());
 
-                    /* Starting client processing thread */
+                    /* Client is registered by it's receiver thread after handshake */
                     client.start();
-
-                    /* Store client into internal data structure */
-                    addClient(client);
                 } else
                     closeConnection(clientSocket);
             }
@@ -561,7 +883,8 @@ public final class Server implements IServer {
         m_IsActive = false;
 
         try {
-            m_ServerSocket.close();
+            if (m_ServerSocket != null)
+                m_ServerSocket.close();
         } catch (final IOException e) {
             LoggingUtility.error("Can't stop server properly");
             LoggingUtility.debug("Exception: " + e.getMessage());
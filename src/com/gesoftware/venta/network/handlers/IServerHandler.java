@@ -17,7 +17,9 @@ public interface IServerHandler {
     public abstract boolean onConnect(final String clientID, final InetAddress clientAddress);
 
     /* *
-     * METHOD: Will be called right after server accept message from any connected client
+     * METHOD: Will be called right after server accept message from any connected client (message may be a view of
+     *         server's network buffer, which is reused after this call; call message.detach() to keep message or pass
+     *         it to other thread, otherwise it's data access after this call throws IllegalStateException)
      * RETURN: Response (see ServerResponse class), or null if you want to disconnect client
      *  PARAM: [IN] clientID - sender identifier
      *  PARAM: [IN] message  - received message
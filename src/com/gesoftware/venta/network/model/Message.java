@@ -1,19 +1,32 @@
 package com.gesoftware.venta.network.model;
 
 import com.gesoftware.venta.utility.CompressionUtility;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.io.Serializable;
-import java.util.Arrays;
 
 /* *
- * Message class definition
+ * Message class definition (data is kept in own array, or in a view of network buffer, which is valid only while
+ * message is being received; such message should be detached to be kept, it's data can't be accessed after release)
  * */
 public final class Message implements Serializable {
+    /* Serialization version (keeps compatibility with object stream peers) */
+    private static final long serialVersionUID = 2891224138971210607L;
+
     /* Time */
     private final long m_Timestamp;
 
-    /* Message data */
-    private final byte[] m_Data;
+    /* Message data (copied from view on demand) */
+    private byte[] m_Data;
+
+    /* Message data view (null if data is kept in own array) */
+    private transient volatile ByteBuffer m_View;
+
+    /* Released view flag (message wasn't detached before network buffer was reused) */
+    private transient volatile boolean m_IsReleased;
+
+    /* Data codec identifier (messages of legacy peers are deserialized with default codec) */
+    private final byte m_Codec;
 
     /* *
      * METHOD: Message class constructor
@@ -21,8 +34,43 @@ public final class Message implements Serializable {
      * AUTHOR: Eliseev Dmitry
      * */
     public Message(final byte data[]) {
-        m_Timestamp = System.currentTimeMillis();
+        this(data, System.currentTimeMillis());
+    } /* End of 'Message::Message' method */
+
+    /* *
+     * METHOD: Message class constructor
+     *  PARAM: [IN] data      - bytes array data
+     *  PARAM: [IN] timestamp - message sending time
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public Message(final byte data[], final long timestamp) {
+        this(data, timestamp, CompressionUtility.c_CodecBest);
+    } /* End of 'Message::Message' method */
+
+    /* *
+     * METHOD: Message class constructor
+     *  PARAM: [IN] data      - bytes array data
+     *  PARAM: [IN] timestamp - message sending time
+     *  PARAM: [IN] codec     - data codec identifier
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public Message(final byte data[], final long timestamp, final byte codec) {
+        m_Timestamp = timestamp;
         m_Data      = data;
+        m_Codec     = codec;
+    } /* End of 'Message::Message' method */
+
+    /* *
+     * METHOD: Message class constructor (data isn't copied, buffer content shouldn't be changed while message is used)
+     *  PARAM: [IN] buffer    - buffer, which remaining bytes are message data
+     *  PARAM: [IN] timestamp - message sending time
+     *  PARAM: [IN] codec     - data codec identifier
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public Message(final ByteBuffer buffer, final long timestamp, final byte codec) {
+        m_Timestamp = timestamp;
+        m_View      = buffer.slice();
+        m_Codec     = codec;
     } /* End of 'Message::Message' method */
 
     /* *
@@ -40,70 +88,167 @@ public final class Message implements Serializable {
      * AUTHOR: Eliseev Dmitry
      * */
     public Message(final Object object) {
-        this(CompressionUtility.compress(object));
+        this(object, CompressionUtility.selectCodec(object));
     } /* End of 'Message::Message' method */
 
+    /* *
+     * METHOD: Message class constructor
+     *  PARAM: [IN] object - some serializable object
+     *  PARAM: [IN] codec  - codec identifier (default codec is used if object can't be encoded)
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public Message(final Object object, final byte codec) {
+        final byte[] data = CompressionUtility.encode(object, codec);
+
+        m_Timestamp = System.currentTimeMillis();
+        if ((data == null) && (codec != CompressionUtility.c_CodecBest)) {
+            m_Data  = CompressionUtility.compress(object);
+            m_Codec = CompressionUtility.c_CodecBest;
+        } else {
+            m_Data  = data;
+            m_Codec = codec;
+        }
+    } /* End of 'Message::Message' method */
+
+    /* *
+     * METHOD: Checks if message data is still accessible
+     * AUTHOR: Eliseev Dmitry
+     * */
+    private void checkReleased() {
+        if (m_IsReleased)
+            throw new IllegalStateException("Message was released before it was detached");
+    } /* End of 'Message::checkReleased' method */
+
     /* *
      * METHOD: Bytes data representation getter
      * RETURN: Data bytes representation
      * AUTHOR: Eliseev Dmitry
      * */
     public final byte[] getData() {
+        checkReleased();
+
+        /* View is copied once */
+        final ByteBuffer view = m_View;
+        if ((m_Data == null) && (view != null)) {
+            final byte[] data = new byte[view.remaining()];
+            view.duplicate().get(data);
+
+            m_Data = data;
+            m_View = null;
+        }
+
         return m_Data;
     } /* End of 'Message::getData' method */
 
+    /* *
+     * METHOD: Gets data without copying
+     * RETURN: Read-only buffer with data as remaining bytes, null if there is no data
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final ByteBuffer getBuffer() {
+        final ByteBuffer data = getView();
+        return (data != null)?data.asReadOnlyBuffer():null;
+    } /* End of 'Message::getBuffer' method */
+
+    /* *
+     * METHOD: Gets data view (it's array is accessible, if data is kept in heap)
+     * RETURN: Buffer with data as remaining bytes, null if there is no data
+     * AUTHOR: Eliseev Dmitry
+     * */
+    private ByteBuffer getView() {
+        checkReleased();
+
+        final ByteBuffer view = m_View;
+        if (view != null)
+            return view.duplicate();
+
+        return (m_Data != null)?ByteBuffer.wrap(m_Data):null;
+    } /* End of 'Message::getView' method */
+
+    /* *
+     * METHOD: Copies viewed data to own array, so message may be kept after receiving
+     * RETURN: This message
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final Message detach() {
+        getData();
+        return this;
+    } /* End of 'Message::detach' method */
+
+    /* *
+     * METHOD: Drops view of network buffer, which is going to be reused (data of not detached message is lost, any
+     *         access to it throws IllegalStateException)
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final void release() {
+        if (m_View == null)
+            return;
+
+        m_IsReleased = true;
+        m_View       = null;
+    } /* End of 'Message::release' method */
+
     /* *
      * METHOD: Gets message size
      * RETURN: Data size in bytes
      * AUTHOR: Eliseev Dmitry
      * */
     public final int getSize() {
+        checkReleased();
+
+        final ByteBuffer view = m_View;
+        if (view != null)
+            return view.remaining();
+
         return (m_Data != null)?m_Data.length:0;
     } /* End of 'Message::getSize' method */
 
     @Override
     public final String toString() {
-        return (m_Data != null)?new String(m_Data, Charset.forName("UTF-8")):null;
+        final ByteBuffer buffer = getBuffer();
+        return (buffer != null)?Charset.forName("UTF-8").decode(buffer).toString():null;
     } /* End of 'Message::toString' method */
 
     /* *
-     * METHOD: Compares two messages sizes
-     * RETURN: TRUE if messages has same sizes, FALSE otherwise
-     *  PARAM: [IN] message - message to compare with this one
+     * METHOD: Replaces message with serializable one (view is copied to own array)
+     * RETURN: Message to serialize
      * AUTHOR: Eliseev Dmitry
      * */
-    private boolean messagesHasSameSizes(final Message message) {
-        return m_Data != null && m_Data.length == message.m_Data.length;
-    } /* End of 'Message::messagesHasSameSize' method */
+    private Object writeReplace() {
+        return detach();
+    } /* End of 'Message::writeReplace' method */
 
     /* *
-     * METHOD: Compares two messages by their values
-     * RETURN: TRUE if messages has same sizes, FALSE otherwise
-     *  PARAM: [IN] message - message to compare with this one
+     * METHOD: Tries to restore object, that may be packed in message
+     * RETURN: Restored object if success, null otherwise
      * AUTHOR: Eliseev Dmitry
      * */
-    private boolean messagesAreEqual(final Message message) {
-        /* Messages has different sizes */
-        if (!messagesHasSameSizes(message))
-            return false;
-
-        /* At least one of characters is not equal to same at another message */
-        for (int i = 0; i < message.m_Data.length; i++)
-            if (m_Data[i] != message.m_Data[i])
-                return false;
+    public final Object getObject() {
+        final ByteBuffer data = getView();
+        return (data != null)?CompressionUtility.decode(data, m_Codec):null;
+    } /* End of 'Message::getObject' method */
 
-        /* Messages are equal */
-        return true;
-    } /* End of 'Message::messagesAreEqual' method */
+    /* *
+     * METHOD: Gets data codec identifier
+     * RETURN: Codec identifier
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final byte getCodec() {
+        return m_Codec;
+    } /* End of 'Message::getCodec' method */
 
     /* *
-     * METHOD: Tries to restore object, that may be packed in message
-     * RETURN: Restored object if success, null otherwise
+     * METHOD: Gets message, which may be decoded by legacy peers (data is re-encoded with default codec if it's
+     *         necessary)
+     * RETURN: Message in legacy format
      * AUTHOR: Eliseev Dmitry
      * */
-    public final Object getObject() {
-        return CompressionUtility.decompress(m_Data);
-    } /* End of 'Message::getObject' method */
+    public final Message toLegacy() {
+        if (CompressionUtility.isLegacy(m_Codec))
+            return this;
+
+        return new Message(CompressionUtility.compress(getObject()), m_Timestamp);
+    } /* End of 'Message::toLegacy' method */
 
     /* *
      * METHOD: Gets message sending time (in server time)
@@ -116,11 +261,24 @@ public final class Message implements Serializable {
 
     @Override
     public final boolean equals(final Object obj) {
-        return obj instanceof Message && messagesAreEqual((Message) obj);
+        if (!(obj instanceof Message))
+            return false;
+
+        final ByteBuffer buffer = getBuffer();
+        return (buffer != null) && buffer.equals(((Message) obj).getBuffer());
     } /* End of 'Message::equals' method */
 
     @Override
     public final int hashCode() {
-        return Arrays.hashCode(m_Data);
+        final ByteBuffer buffer = getBuffer();
+        if (buffer == null)
+            return 0;
+
+        /* The same hash as array's one */
+        int hash = 1;
+        while (buffer.hasRemaining())
+            hash = 31 * hash + buffer.get();
+
+        return hash;
     } /* End of 'Message::hashCode' method */
 } /* End of 'Message' class */
@@ -0,0 +1,43 @@
+package com.gesoftware.venta.network.model;
+
+import java.io.Serializable;
+
+/* *
+ * Sealed message class definition (message data, encrypted with session key)
+ * */
+public final class SealedMessage implements Serializable {
+    /* Encrypted message data */
+    private final byte[] m_Data;
+
+    /* Message data codec identifier */
+    private final byte m_Codec;
+
+    /* *
+     * METHOD: Sealed message class constructor
+     *  PARAM: [IN] data  - encrypted message data
+     *  PARAM: [IN] codec - message data codec identifier
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public SealedMessage(final byte data[], final byte codec) {
+        m_Data  = data;
+        m_Codec = codec;
+    } /* End of 'SealedMessage::SealedMessage' method */
+
+    /* *
+     * METHOD: Gets encrypted message data
+     * RETURN: Encrypted message data
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final byte[] getData() {
+        return m_Data;
+    } /* End of 'SealedMessage::getData' method */
+
+    /* *
+     * METHOD: Gets message data codec identifier
+     * RETURN: Codec identifier
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final byte getCodec() {
+        return m_Codec;
+    } /* End of 'SealedMessage::getCodec' method */
+} /* End of 'SealedMessage' class */
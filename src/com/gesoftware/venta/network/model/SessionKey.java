@@ -0,0 +1,39 @@
+package com.gesoftware.venta.network.model;
+
+import java.io.Serializable;
+
+/* *
+ * Session key class definition (secret key, encrypted with receiver's public key using OAEP padding; key-less
+ * instance acknowledges received session key)
+ * */
+public final class SessionKey implements Serializable {
+    /* Encrypted secret key */
+    private final byte[] m_Key;
+
+    /* *
+     * METHOD: Session key class constructor
+     *  PARAM: [IN] key - encrypted secret key (null for acknowledgement)
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public SessionKey(final byte key[]) {
+        m_Key = key;
+    } /* End of 'SessionKey::SessionKey' method */
+
+    /* *
+     * METHOD: Gets encrypted secret key
+     * RETURN: Encrypted secret key, null for acknowledgement
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final byte[] getKey() {
+        return m_Key;
+    } /* End of 'SessionKey::getKey' method */
+
+    /* *
+     * METHOD: Checks if session key is acknowledgement
+     * RETURN: True if it is acknowledgement, False otherwise
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public final boolean isAcknowledgement() {
+        return m_Key == null;
+    } /* End of 'SessionKey::isAcknowledgement' method */
+} /* End of 'SessionKey' class */
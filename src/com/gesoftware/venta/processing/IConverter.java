@@ -0,0 +1,15 @@
+package com.gesoftware.venta.processing;
+
+
+/**
+ * Converter interface definition
+ **/
+public interface IConverter<S, T> {
+    /* *
+     * METHOD: Converts item
+     * RETURN: Converted item
+     *  PARAM: [IN] item - item to convert
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public T convert(final S item);
+} /* End of 'IConverter' interface */
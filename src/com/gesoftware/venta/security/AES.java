@@ -0,0 +1,180 @@
+package com.gesoftware.venta.security;
+
+import com.gesoftware.venta.logging.LoggingUtility;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+/**
+ * AES class definition (authenticated encryption in GCM mode, encrypted data is IV followed by cipher text and tag;
+ * GCM mode is provided by JDK 8 and later, so availability should be checked before use)
+ */
+public final class AES {
+    /* Cipher transformation */
+    private final static String c_Transformation = "AES/GCM/NoPadding";
+
+    /* Initialization vector size (bytes) */
+    public final static int c_IVSize = 12;
+
+    /* Authentication tag size (bits) */
+    private final static int c_TagSize = 128;
+
+    /* Allowed key sizes (bytes) */
+    private final static int c_KeySizes[] = {16, 24, 32};
+
+    /* Random generator for initialization vectors */
+    private final static SecureRandom c_Random = new SecureRandom();
+
+    /* Cipher (one per thread, cipher isn't thread-safe) */
+    private final static ThreadLocal<Cipher> m_Cipher = new ThreadLocal<Cipher>() {
+        @Override
+        protected Cipher initialValue() {
+            try {
+                return Cipher.getInstance(c_Transformation);
+            } catch (Exception e) {
+                LoggingUtility.core("AES cipher initialization failed: " + e.getMessage());
+            }
+
+            return null;
+        }
+    };
+
+    /* Keys generator (shared, used under lock) */
+    private static KeyGenerator m_Generator;
+
+    /* Static members initialization */
+    static {
+        try {
+            m_Generator = KeyGenerator.getInstance("AES");
+        } catch (Exception e) {
+            m_Generator = null;
+
+            LoggingUtility.core("AES initialization failed: " + e.getMessage());
+        }
+    } /* End of 'AES::static' method */
+
+    /* *
+     * METHOD: Checks if AES in GCM mode is provided by current JDK
+     * RETURN: True if it could be used, False otherwise
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public static boolean isAvailable() {
+        return (m_Generator != null) && (m_Cipher.get() != null);
+    } /* End of 'AES::isAvailable' method */
+
+    /* *
+     * METHOD: Checks if key has allowed size
+     * RETURN: True if key could be used, False otherwise
+     *  PARAM: [IN] key - key bytes
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public static boolean isValidKey(final byte key[]) {
+        if (key == null)
+            return false;
+
+        for (final int size : c_KeySizes)
+            if (key.length == size)
+                return true;
+
+        return false;
+    } /* End of 'AES::isValidKey' method */
+
+    /* *
+     * METHOD: Encrypts data in one pass using new random initialization vector
+     * RETURN: Initialization vector, cipher text and tag if success, null otherwise
+     *  PARAM: [IN] key        - secret key
+     *  PARAM: [IN] data       - buffer, which remaining bytes are data to encrypt (position is moved to it's limit)
+     *  PARAM: [IN] associated - data, authenticated, but not encrypted (null if there is no such data)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public static byte[] encrypt(final byte key[], final ByteBuffer data, final byte associated[]) {
+        try {
+            final byte[] iv = new byte[c_IVSize];
+            c_Random.nextBytes(iv);
+
+            final Cipher cipher = m_Cipher.get();
+            cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"), new GCMParameterSpec(c_TagSize, iv));
+            if (associated != null)
+                cipher.updateAAD(associated);
+
+            /* Cipher text is written right after initialization vector */
+            final byte[] result = new byte[c_IVSize + cipher.getOutputSize(data.remaining())];
+            System.arraycopy(iv, 0, result, 0, c_IVSize);
+
+            final int length = c_IVSize + cipher.doFinal(data, ByteBuffer.wrap(result, c_IVSize, result.length - c_IVSize));
+            return (length == result.length)?result:Arrays.copyOf(result, length);
+        } catch (Exception e) {
+            LoggingUtility.core("Error during encryption: " + e.getMessage());
+        }
+
+        return null;
+    } /* End of 'AES::encrypt' method */
+
+    /* *
+     * METHOD: Encrypts data array in one pass using new random initialization vector
+     * RETURN: Initialization vector, cipher text and tag if success, null otherwise
+     *  PARAM: [IN] key  - secret key
+     *  PARAM: [IN] data - data array to encrypt
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public static byte[] encrypt(final byte key[], final byte data[]) {
+        return encrypt(key, ByteBuffer.wrap(data), null);
+    } /* End of 'AES::encrypt' method */
+
+    /* *
+     * METHOD: Decrypts data array and checks it's authentication tag
+     * RETURN: Decrypted data array if success, null otherwise (also if data or associated data were modified)
+     *  PARAM: [IN] key        - secret key
+     *  PARAM: [IN] data       - initialization vector, cipher text and tag
+     *  PARAM: [IN] associated - data, authenticated with encrypted data (null if there is no such data)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public static byte[] decrypt(final byte key[], final byte data[], final byte associated[]) {
+        if ((data == null) || (data.length < c_IVSize))
+            return null;
+
+        try {
+            final Cipher cipher = m_Cipher.get();
+            cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(key, "AES"), new GCMParameterSpec(c_TagSize, data, 0, c_IVSize));
+            if (associated != null)
+                cipher.updateAAD(associated);
+            return cipher.doFinal(data, c_IVSize, data.length - c_IVSize);
+        } catch (Exception e) {
+            LoggingUtility.core("Error during decryption: " + e.getMessage());
+        }
+
+        return null;
+    } /* End of 'AES::decrypt' method */
+
+    /* *
+     * METHOD: Decrypts data array and checks it's authentication tag
+     * RETURN: Decrypted data array if success, null otherwise (also if data was modified)
+     *  PARAM: [IN] key  - secret key
+     *  PARAM: [IN] data - initialization vector, cipher text and tag
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public static byte[] decrypt(final byte key[], final byte data[]) {
+        return decrypt(key, data, null);
+    } /* End of 'AES::decrypt' method */
+
+    /* *
+     * METHOD: Generates secret key
+     * RETURN: Generated key bytes if success, null otherwise
+     *  PARAM: [IN] bits - key size (128, 192 or 256 bits)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public static byte[] generateKey(final int bits) {
+        if (m_Generator == null)
+            return null;
+
+        synchronized (m_Generator) {
+            m_Generator.init(bits, c_Random);
+            return m_Generator.generateKey().getEncoded();
+        }
+    } /* End of 'AES::generateKey' method */
+} /* End of 'AES' class */
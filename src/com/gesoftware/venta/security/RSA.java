@@ -13,24 +13,57 @@ import java.security.spec.RSAPublicKeySpec;
  * RSA class definition
  */
 public final class RSA {
-    /* Keys generator */
+    /* Keys generator (shared, used under lock) */
     private static KeyPairGenerator m_Generator;
 
-    /* Keys factory */
-    private static KeyFactory m_KeyFactory;
+    /* Keys factory (one per thread) */
+    private final static ThreadLocal<KeyFactory> m_KeyFactory = new ThreadLocal<KeyFactory>() {
+        @Override
+        protected KeyFactory initialValue() {
+            try {
+                return KeyFactory.getInstance("RSA");
+            } catch (Exception e) {
+                LoggingUtility.core("RSA key factory initialization failed: " + e.getMessage());
+            }
 
-    /* Cipher */
-    private static Cipher m_Cipher;
+            return null;
+        }
+    };
+
+    /* Cipher (one per thread, cipher isn't thread-safe) */
+    private final static ThreadLocal<Cipher> m_Cipher = new ThreadLocal<Cipher>() {
+        @Override
+        protected Cipher initialValue() {
+            try {
+                return Cipher.getInstance("RSA");
+            } catch (Exception e) {
+                LoggingUtility.core("RSA cipher initialization failed: " + e.getMessage());
+            }
+
+            return null;
+        }
+    };
+
+    /* Cipher for secret keys (one per thread, OAEP padding doesn't reveal padding errors like PKCS #1 v1.5 one) */
+    private final static ThreadLocal<Cipher> m_KeyCipher = new ThreadLocal<Cipher>() {
+        @Override
+        protected Cipher initialValue() {
+            try {
+                return Cipher.getInstance("RSA/ECB/OAEPWithSHA-256AndMGF1Padding");
+            } catch (Exception e) {
+                LoggingUtility.core("RSA OAEP cipher initialization failed: " + e.getMessage());
+            }
+
+            return null;
+        }
+    };
 
     /* Static members initialization (using RSA algorithm) */
     static {
         try {
-            m_Generator  = KeyPairGenerator.getInstance("RSA");
-            m_KeyFactory = KeyFactory.getInstance("RSA");
-            m_Cipher     = Cipher.getInstance("RSA");
+            m_Generator = KeyPairGenerator.getInstance("RSA");
         } catch (Exception e) {
-            m_KeyFactory = null;
-            m_Cipher = null;
+            m_Generator = null;
 
             LoggingUtility.core("RSA initialization failed: " + e.getMessage());
         }
@@ -43,12 +76,13 @@ public final class RSA {
      * AUTHOR: Dmitry Eliseev
      * */
     private static PublicKey createPublicKey(final com.gesoftware.venta.security.model.Key key) {
-        if (m_KeyFactory == null)
+        final KeyFactory keyFactory = m_KeyFactory.get();
+        if (keyFactory == null)
             return null;
 
         try {
             RSAPublicKeySpec keySpec = new RSAPublicKeySpec(key.getModulus(), key.getExponent());
-            return m_KeyFactory.generatePublic(keySpec);
+            return keyFactory.generatePublic(keySpec);
         } catch (Exception e) {
             throw new RuntimeException("Spurious serialisation error", e);
         }
@@ -61,12 +95,13 @@ public final class RSA {
      * AUTHOR: Dmitry Eliseev
      * */
     private static PrivateKey createPrivateKey(final com.gesoftware.venta.security.model.Key key) {
-        if (m_KeyFactory == null)
+        final KeyFactory keyFactory = m_KeyFactory.get();
+        if (keyFactory == null)
             return null;
 
         try {
             RSAPrivateKeySpec keySpec = new RSAPrivateKeySpec(key.getModulus(), key.getExponent());
-            return m_KeyFactory.generatePrivate(keySpec);
+            return keyFactory.generatePrivate(keySpec);
         } catch (Exception e) {
             throw new RuntimeException("Spurious serialisation error", e);
         }
@@ -81,9 +116,10 @@ public final class RSA {
      * */
     public static byte[] encrypt(final com.gesoftware.venta.security.model.Key publicKey, final byte data[]) {
         try {
+            final Cipher cipher = m_Cipher.get();
             PublicKey key = createPublicKey(publicKey);
-            m_Cipher.init(Cipher.ENCRYPT_MODE, key);
-            return m_Cipher.doFinal(data);
+            cipher.init(Cipher.ENCRYPT_MODE, key);
+            return cipher.doFinal(data);
         } catch (Exception e) {
             LoggingUtility.core("Error during encryption: " + e.getMessage());
         }
@@ -100,9 +136,10 @@ public final class RSA {
      * */
     public static byte[] decrypt(final com.gesoftware.venta.security.model.Key privateKey, final byte data[]) {
         try {
+            final Cipher cipher = m_Cipher.get();
             PrivateKey key = createPrivateKey(privateKey);
-            m_Cipher.init(Cipher.DECRYPT_MODE, key);
-            return m_Cipher.doFinal(data);
+            cipher.init(Cipher.DECRYPT_MODE, key);
+            return cipher.doFinal(data);
         } catch (Exception e) {
             LoggingUtility.core("Error during decryption: " + e.getMessage());
         }
@@ -110,6 +147,42 @@ public final class RSA {
         return null;
     } /* End of 'RSA::decrypt' method */
 
+    /* *
+     * METHOD: Encrypts secret key using public key (OAEP padding)
+     * RETURN: Encrypted key if success, null otherwise
+     *  PARAM: [IN] publicKey - public key for encryption
+     *  PARAM: [IN] secretKey - secret key to encrypt (secretKey.length <= publicKey.size / 8 - 66)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public static byte[] encryptKey(final com.gesoftware.venta.security.model.Key publicKey, final byte secretKey[]) {
+        try {
+            final Cipher cipher = m_KeyCipher.get();
+            cipher.init(Cipher.ENCRYPT_MODE, createPublicKey(publicKey));
+            return cipher.doFinal(secretKey);
+        } catch (Exception e) {
+            LoggingUtility.core("Error during key encryption: " + e.getMessage());
+        }
+
+        return null;
+    } /* End of 'RSA::encryptKey' method */
+
+    /* *
+     * METHOD: Decrypts secret key using private key (OAEP padding)
+     * RETURN: Decrypted key if success, null otherwise (failure reason isn't reported)
+     *  PARAM: [IN] privateKey - private key for decryption
+     *  PARAM: [IN] data       - encrypted secret key
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public static byte[] decryptKey(final com.gesoftware.venta.security.model.Key privateKey, final byte data[]) {
+        try {
+            final Cipher cipher = m_KeyCipher.get();
+            cipher.init(Cipher.DECRYPT_MODE, createPrivateKey(privateKey));
+            return cipher.doFinal(data);
+        } catch (Exception ignored) {}
+
+        return null;
+    } /* End of 'RSA::decryptKey' method */
+
     /* *
      * METHOD: Generates public-private key pair
      * RETURN: Generated pair if success, null otherwise
@@ -120,15 +193,19 @@ public final class RSA {
         if (m_Generator == null)
             return null;
 
-        m_Generator.initialize(bits);
-        KeyPair keyPair = m_Generator.genKeyPair();
+        KeyPair keyPair;
+        synchronized (m_Generator) {
+            m_Generator.initialize(bits);
+            keyPair = m_Generator.genKeyPair();
+        }
 
         RSAPrivateKeySpec privateKey;
         RSAPublicKeySpec publicKey;
 
         try {
-            publicKey = m_KeyFactory.getKeySpec(keyPair.getPublic(), RSAPublicKeySpec.class);
-            privateKey = m_KeyFactory.getKeySpec(keyPair.getPrivate(), RSAPrivateKeySpec.class);
+            final KeyFactory keyFactory = m_KeyFactory.get();
+            publicKey = keyFactory.getKeySpec(keyPair.getPublic(), RSAPublicKeySpec.class);
+            privateKey = keyFactory.getKeySpec(keyPair.getPrivate(), RSAPrivateKeySpec.class);
         } catch (InvalidKeySpecException e) {
             LoggingUtility.core("Can't generate private - public keys pair: " + e.getMessage());
             return null;
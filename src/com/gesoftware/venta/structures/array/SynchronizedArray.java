@@ -1,5 +1,7 @@
 package com.gesoftware.venta.structures.array;
 
+import com.gesoftware.venta.processing.IWalker;
+
 import java.util.Collection;
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -64,6 +66,18 @@ public final class SynchronizedArray<T> implements Collection<T> {
         }
     } /* End of 'SynchronizedArray::iterator' method */
 
+    /* *
+     * METHOD: Walks by all items under lock, without copying (walker shouldn't change array)
+     *  PARAM: [IN] walker - items walker
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final void foreach(final IWalker<T> walker) {
+        synchronized (m_Items) {
+            for (int index = 0; index < m_Items.size(); index++)
+                walker.walk(m_Items.get(index));
+        }
+    } /* End of 'SynchronizedArray::foreach' method */
+
     @Override
     public final Object[] toArray() {
         synchronized (m_Items) {
@@ -1,47 +1,705 @@
 package com.gesoftware.venta.structures.cache;
 
-import com.gesoftware.venta.structures.map.SynchronizedMap;
+import com.gesoftware.venta.logging.LoggingUtility;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Cache class definition
+ * Cache class definition (lock-free hits; concurrent misses of the same key run one loading, other keys are not
+ * blocked; optional weight bound with LRU eviction, expiration after write or access and asynchronous refresh;
+ * items, evicted from heap, may be kept as bytes in off-heap tier; null keys are not allowed, cache content is not
+ * serialized)
  **/
 public abstract class Cache<K, V> implements Serializable {
-    private final SynchronizedMap<K, V> m_Items = new SynchronizedMap<K, V>();
+    /* Maximal total weight of items (0 - unbounded) */
+    private final long m_MaximalWeight;
+
+    /* Items lifetime after write and after last access (ms, 0 - items don't expire) */
+    private final long m_ExpireAfterWrite;
+    private final long m_ExpireAfterAccess;
+
+    /* Item age, after which it's reloaded in background on access (ms, 0 - items aren't refreshed) */
+    private final long m_RefreshAfterWrite;
+
+    /* Off-heap tier capacity (bytes, 0 - disabled) and values codec (codec is serialized only if it's serializable) */
+    private final long m_OffHeapCapacity;
+    private transient IValueCodec<V> m_Codec;
+
+    /* Cached items */
+    private transient ConcurrentMap<K, Item<K, V>> m_Items;
+
+    /* Loadings in progress */
+    private transient ConcurrentMap<K, FutureTask<V>> m_Loads;
+
+    /* Recency list (least recently used item is the head) and total weight, guarded by lock */
+    private transient ReentrantLock m_Lock;
+    private transient Item<K, V> m_Head;
+    private transient Item<K, V> m_Tail;
+    private transient long m_Weight;
+
+    /* Background refresher (null if refresh is disabled) */
+    private transient ExecutorService m_Refresher;
+
+    /* Off-heap tier (null if disabled) and evicted items, which are being moved to it (guarded by lock) */
+    private transient OffHeapStore<K> m_OffHeap;
+    private transient Map<K, Item<K, V>> m_Demoting;
+
+    private transient CacheStatistics m_Statistics;
+
+    /**
+     * Cached item class definition
+     **/
+    private final static class Item<K, V> {
+        private final K m_Key;
+
+        private volatile V m_Value;
+        private volatile long m_Weight;
+
+        /* Last write and access time (ms) */
+        private volatile long m_WriteTime;
+        private volatile long m_AccessTime;
+
+        /* Background refresh flag */
+        private final AtomicBoolean m_IsRefreshing = new AtomicBoolean();
+
+        /* Recency list links (guarded by cache lock) */
+        private Item<K, V> m_Previous;
+        private Item<K, V> m_Next;
+        private boolean m_IsLinked;
+
+        /* *
+         * METHOD: Class constructor
+         *  PARAM: [IN] key    - item key
+         *  PARAM: [IN] value  - item value
+         *  PARAM: [IN] weight - item weight
+         *  PARAM: [IN] time   - creation time (ms)
+         * AUTHOR: Dmitry Eliseev
+         * */
+        public Item(final K key, final V value, final long weight, final long time) {
+            m_Key        = key;
+            m_Value      = value;
+            m_Weight     = weight;
+            m_WriteTime  = time;
+            m_AccessTime = time;
+        } /* End of 'Item::Item' method */
+    } /* End of 'Cache::Item' class */
+
+    /* *
+     * METHOD: Class constructor (unbounded cache, items don't expire)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public Cache() {
+        this(0);
+    } /* End of 'Cache::Cache' method */
+
+    /* *
+     * METHOD: Class constructor (items don't expire)
+     *  PARAM: [IN] maximalWeight - maximal total weight of items (0 - unbounded)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public Cache(final long maximalWeight) {
+        this(maximalWeight, 0, 0, 0);
+    } /* End of 'Cache::Cache' method */
+
+    /* *
+     * METHOD: Class constructor
+     *  PARAM: [IN] maximalWeight     - maximal total weight of items (0 - unbounded)
+     *  PARAM: [IN] expireAfterWrite  - item lifetime after it's loaded (ms, 0 - not limited)
+     *  PARAM: [IN] expireAfterAccess - item lifetime after last access (ms, 0 - not limited)
+     *  PARAM: [IN] refreshAfterWrite - item age, after which it's reloaded in background on access (ms, 0 - disabled)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public Cache(final long maximalWeight, final long expireAfterWrite, final long expireAfterAccess, final long refreshAfterWrite) {
+        this(maximalWeight, expireAfterWrite, expireAfterAccess, refreshAfterWrite, 0, null);
+    } /* End of 'Cache::Cache' method */
+
+    /* *
+     * METHOD: Class constructor (heap tier is bounded, evicted items are kept off-heap, items don't expire)
+     *  PARAM: [IN] maximalWeight   - maximal total weight of heap tier items
+     *  PARAM: [IN] offHeapCapacity - off-heap tier capacity (bytes)
+     *  PARAM: [IN] codec           - values codec (null for serialization)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public Cache(final long maximalWeight, final long offHeapCapacity, final IValueCodec<V> codec) {
+        this(maximalWeight, 0, 0, 0, offHeapCapacity, codec);
+    } /* End of 'Cache::Cache' method */
+
+    /* *
+     * METHOD: Class constructor
+     *  PARAM: [IN] maximalWeight     - maximal total weight of heap tier items (0 - unbounded)
+     *  PARAM: [IN] expireAfterWrite  - item lifetime after it's loaded (ms, 0 - not limited)
+     *  PARAM: [IN] expireAfterAccess - item lifetime after last access (ms, 0 - not limited)
+     *  PARAM: [IN] refreshAfterWrite - item age, after which it's reloaded in background on access (ms, 0 - disabled)
+     *  PARAM: [IN] offHeapCapacity   - off-heap tier capacity (bytes, 0 - disabled)
+     *  PARAM: [IN] codec             - off-heap values codec (null for serialization)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public Cache(final long maximalWeight, final long expireAfterWrite, final long expireAfterAccess, final long refreshAfterWrite,
+                 final long offHeapCapacity, final IValueCodec<V> codec) {
+        m_MaximalWeight     = maximalWeight;
+        m_ExpireAfterWrite  = expireAfterWrite;
+        m_ExpireAfterAccess = expireAfterAccess;
+        m_RefreshAfterWrite = refreshAfterWrite;
+        m_OffHeapCapacity   = offHeapCapacity;
+        m_Codec             = (codec != null)?codec:new SerializationCodec<V>();
+
+        initialize();
+    } /* End of 'Cache::Cache' method */
+
+    /* *
+     * METHOD: Creates cache structures
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private void initialize() {
+        m_Items      = new ConcurrentHashMap<K, Item<K, V>>();
+        m_Loads      = new ConcurrentHashMap<K, FutureTask<V>>();
+        m_Lock       = new ReentrantLock();
+        m_Demoting   = new HashMap<K, Item<K, V>>();
+        m_Statistics = new CacheStatistics();
+
+        if (m_OffHeapCapacity > 0)
+            m_OffHeap = new OffHeapStore<K>(m_OffHeapCapacity, m_Statistics);
+
+        if (m_RefreshAfterWrite > 0)
+            m_Refresher = Executors.newCachedThreadPool(new ThreadFactory() {
+                @Override
+                public final Thread newThread(final Runnable task) {
+                    final Thread thread = new Thread(task);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+    } /* End of 'Cache::initialize' method */
+
+    /* *
+     * METHOD: Saves cache settings (content is not saved)
+     *  PARAM: [IN] stream - object stream
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private void writeObject(final ObjectOutputStream stream) throws IOException {
+        stream.defaultWriteObject();
+        stream.writeObject((m_Codec instanceof Serializable)?m_Codec:null);
+    } /* End of 'Cache::writeObject' method */
+
+    /* *
+     * METHOD: Restores cache (deserialized cache is empty)
+     *  PARAM: [IN] stream - object stream
+     * AUTHOR: Dmitry Eliseev
+     * */
+    @SuppressWarnings("unchecked")
+    private void readObject(final ObjectInputStream stream) throws IOException, ClassNotFoundException {
+        stream.defaultReadObject();
+
+        m_Codec = (IValueCodec<V>) stream.readObject();
+        if (m_Codec == null) {
+            LoggingUtility.warning("Cache values codec isn't serializable, serialization codec is used");
+            m_Codec = new SerializationCodec<V>();
+        }
+
+        initialize();
+    } /* End of 'Cache::readObject' method */
+
+    /* *
+     * METHOD: Determines if item is expired
+     * RETURN: True if item is expired, False otherwise
+     *  PARAM: [IN] item - item to check
+     *  PARAM: [IN] time - current time (ms)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private boolean isExpired(final Item<K, V> item, final long time) {
+        return isExpired(item.m_WriteTime, item.m_AccessTime, time);
+    } /* End of 'Cache::isExpired' method */
+
+    /* *
+     * METHOD: Determines if item is expired
+     * RETURN: True if item is expired, False otherwise
+     *  PARAM: [IN] writeTime  - item write time (ms)
+     *  PARAM: [IN] accessTime - item last access time (ms)
+     *  PARAM: [IN] time       - current time (ms)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private boolean isExpired(final long writeTime, final long accessTime, final long time) {
+        return ((m_ExpireAfterWrite  > 0) && (time - writeTime  >= m_ExpireAfterWrite)) ||
+               ((m_ExpireAfterAccess > 0) && (time - accessTime >= m_ExpireAfterAccess));
+    } /* End of 'Cache::isExpired' method */
+
+    /* *
+     * METHOD: Appends item to recency list tail (should be called under lock)
+     *  PARAM: [IN] item - item to append
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private void link(final Item<K, V> item) {
+        item.m_Previous = m_Tail;
+        item.m_Next     = null;
+        item.m_IsLinked = true;
+
+        if (m_Tail != null)
+            m_Tail.m_Next = item;
+        else
+            m_Head = item;
+
+        m_Tail = item;
+        m_Weight += item.m_Weight;
+    } /* End of 'Cache::link' method */
+
+    /* *
+     * METHOD: Removes item from recency list (should be called under lock)
+     *  PARAM: [IN] item - item to remove
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private void unlink(final Item<K, V> item) {
+        if (!item.m_IsLinked)
+            return;
+
+        if (item.m_Previous != null)
+            item.m_Previous.m_Next = item.m_Next;
+        else
+            m_Head = item.m_Next;
+
+        if (item.m_Next != null)
+            item.m_Next.m_Previous = item.m_Previous;
+        else
+            m_Tail = item.m_Previous;
+
+        item.m_Previous = null;
+        item.m_Next     = null;
+        item.m_IsLinked = false;
+        m_Weight -= item.m_Weight;
+    } /* End of 'Cache::unlink' method */
+
+    /* *
+     * METHOD: Evicts least recently used items until weight bound is satisfied (should be called under lock)
+     * RETURN: Evicted items, which should be demoted to off-heap tier (null if there are no such items)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private List<Item<K, V>> evict() {
+        List<Item<K, V>> evicted = null;
+        while ((m_MaximalWeight > 0) && (m_Weight > m_MaximalWeight) && (m_Head != null)) {
+            final Item<K, V> item = m_Head;
+            unlink(item);
+
+            if (!m_Items.remove(item.m_Key, item))
+                continue;
+
+            if ((m_OffHeap == null) || (item.m_Value == null)) {
+                m_Statistics.registerEviction();
+                continue;
+            }
+
+            if (evicted == null)
+                evicted = new ArrayList<Item<K, V>>();
+
+            evicted.add(item);
+            m_Demoting.put(item.m_Key, item);
+        }
+
+        return evicted;
+    } /* End of 'Cache::evict' method */
+
+    /* *
+     * METHOD: Moves evicted items to off-heap tier (items are encoded out of lock; items, invalidated or replaced while
+     *         they were encoded, are dropped)
+     *  PARAM: [IN] evicted - evicted items (null if there are no such items)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private void demote(final List<Item<K, V>> evicted) {
+        if (evicted == null)
+            return;
+
+        for (final Item<K, V> item : evicted) {
+            final byte[] data = m_Codec.encode(item.m_Value);
+
+            m_Lock.lock();
+            try {
+                if (m_Demoting.get(item.m_Key) != item)
+                    continue;
+
+                m_Demoting.remove(item.m_Key);
+
+                if ((data == null) || !m_OffHeap.put(item.m_Key, data, item.m_WriteTime, item.m_AccessTime))
+                    m_Statistics.registerEviction();
+            } finally {
+                m_Lock.unlock();
+            }
+        }
+    } /* End of 'Cache::demote' method */
+
+    /* *
+     * METHOD: Moves item from off-heap tier back to heap
+     * RETURN: Item value, null if item isn't stored off-heap (or expired)
+     *  PARAM: [IN] key - item key
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private V promote(final K key) {
+        final OffHeapStore.Entry entry = (m_OffHeap != null)?m_OffHeap.remove(key):null;
+        if (entry == null)
+            return null;
+
+        final long time = System.currentTimeMillis();
+        if (isExpired(entry.m_WriteTime, entry.m_AccessTime, time))
+            return null;
+
+        final V value = m_Codec.decode(entry.m_Data);
+        if (value == null)
+            return null;
+
+        m_Statistics.registerOffHeapHit();
+        store(key, value, entry.m_WriteTime);
+        return value;
+    } /* End of 'Cache::promote' method */
+
+    /* *
+     * METHOD: Marks item as recently used (skipped if lock is busy, recency order is approximate)
+     *  PARAM: [IN] item - used item
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private void touch(final Item<K, V> item) {
+        if ((m_MaximalWeight == 0) || !m_Lock.tryLock())
+            return;
+
+        try {
+            if (item.m_IsLinked && (item != m_Tail)) {
+                unlink(item);
+                link(item);
+            }
+        } finally {
+            m_Lock.unlock();
+        }
+    } /* End of 'Cache::touch' method */
+
+    /* *
+     * METHOD: Stores item to heap tier
+     *  PARAM: [IN] key       - item key
+     *  PARAM: [IN] value     - item value
+     *  PARAM: [IN] writeTime - item write time (ms)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private void store(final K key, final V value, final long writeTime) {
+        final Item<K, V> item = new Item<K, V>(key, value, weigh(key, value), writeTime);
+        item.m_AccessTime = System.currentTimeMillis();
+
+        final List<Item<K, V>> evicted;
+
+        m_Lock.lock();
+        try {
+            final Item<K, V> previous = m_Items.put(key, item);
+            if (previous != null)
+                unlink(previous);
+
+            m_Demoting.remove(key);
+
+            link(item);
+            evicted = evict();
+        } finally {
+            m_Lock.unlock();
+        }
+
+        demote(evicted);
+    } /* End of 'Cache::store' method */
+
+    /* *
+     * METHOD: Replaces value of cached item (refreshed value)
+     *  PARAM: [IN] item  - cached item
+     *  PARAM: [IN] value - new value
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private void update(final Item<K, V> item, final V value) {
+        final long weight = weigh(item.m_Key, value);
+        final List<Item<K, V>> evicted;
+
+        m_Lock.lock();
+        try {
+            if (!item.m_IsLinked)
+                return;
+
+            m_Weight += weight - item.m_Weight;
+            item.m_Weight    = weight;
+            item.m_Value     = value;
+            item.m_WriteTime = System.currentTimeMillis();
+            evicted = evict();
+        } finally {
+            m_Lock.unlock();
+        }
+
+        demote(evicted);
+    } /* End of 'Cache::update' method */
+
+    /* *
+     * METHOD: Removes item from cache
+     *  PARAM: [IN] item - item to remove
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private void remove(final Item<K, V> item) {
+        m_Lock.lock();
+        try {
+            if (m_Items.remove(item.m_Key, item))
+                unlink(item);
+        } finally {
+            m_Lock.unlock();
+        }
+    } /* End of 'Cache::remove' method */
+
+    /* *
+     * METHOD: Loads item and registers loading
+     * RETURN: Loaded item
+     *  PARAM: [IN] key - item key
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private V load(final K key) {
+        final long start = System.nanoTime();
+
+        boolean isLoaded = false;
+        try {
+            final V value = cacheItem(key);
+            isLoaded = true;
+            return value;
+        } finally {
+            m_Statistics.registerLoad(isLoaded, System.nanoTime() - start);
+        }
+    } /* End of 'Cache::load' method */
+
+    /* *
+     * METHOD: Loads item to cache (concurrent callers with the same key wait for one loading, loader exception is
+     *         rethrown to all of them)
+     * RETURN: Loaded item, null if waiting was interrupted
+     *  PARAM: [IN] key - item key
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private V loadOnce(final K key) {
+        final FutureTask<V> task = new FutureTask<V>(new Callable<V>() {
+            @Override
+            public final V call() {
+                /* Item could be stored while task was registered */
+                final Item<K, V> item = m_Items.get(key);
+                if ((item != null) && !isExpired(item, System.currentTimeMillis()))
+                    return item.m_Value;
+
+                final V promoted = promote(key);
+                if (promoted != null)
+                    return promoted;
+
+                final V value = load(key);
+                store(key, value, System.currentTimeMillis());
+                return value;
+            }
+        });
+
+        FutureTask<V> loading = m_Loads.putIfAbsent(key, task);
+        if (loading == null) {
+            loading = task;
+            try {
+                task.run();
+            } finally {
+                m_Loads.remove(key, task);
+            }
+        }
+
+        try {
+            return loading.get();
+        } catch (final InterruptedException e) {
+            LoggingUtility.error("Can't wait for item loading: " + e.getMessage());
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+
+            if (cause instanceof Error)
+                throw (Error) cause;
+
+            throw new IllegalStateException("Can't load item <" + key + ">", cause);
+        }
+
+        return null;
+    } /* End of 'Cache::loadOnce' method */
 
     /* *
-     * METHOD: Gets item from cache if cached, load to cache otherwise
+     * METHOD: Reloads item in background (cached value is used until reloading is finished)
+     *  PARAM: [IN] item - item to reload
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private void refresh(final Item<K, V> item) {
+        if (!item.m_IsRefreshing.compareAndSet(false, true))
+            return;
+
+        try {
+            m_Refresher.execute(new Runnable() {
+                @Override
+                public final void run() {
+                    try {
+                        update(item, load(item.m_Key));
+                    } catch (final RuntimeException e) {
+                        LoggingUtility.error("Can't refresh item <" + item.m_Key + ">: " + e);
+                    } finally {
+                        item.m_IsRefreshing.set(false);
+                    }
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            item.m_IsRefreshing.set(false);
+        }
+    } /* End of 'Cache::refresh' method */
+
+    /* *
+     * METHOD: Gets item from cache if cached, load to cache otherwise (loader exception is rethrown)
      * RETURN: Requested item
      *  PARAM: [IN] key - item key
      * AUTHOR: Dmitry Eliseev
      * */
     public final V get(final K key) {
-        synchronized (m_Items) {
-            if (!m_Items.containsKey(key))
-                m_Items.put(key, cacheItem(key));
+        final long time = System.currentTimeMillis();
+
+        final Item<K, V> item = m_Items.get(key);
+        if ((item != null) && !isExpired(item, time)) {
+            m_Statistics.registerHit();
+
+            item.m_AccessTime = time;
+            touch(item);
+
+            if ((m_Refresher != null) && (time - item.m_WriteTime >= m_RefreshAfterWrite))
+                refresh(item);
+
+            return item.m_Value;
         }
 
-        return m_Items.get(key);
+        if (item != null)
+            remove(item);
+
+        m_Statistics.registerMiss();
+        return loadOnce(key);
     } /* End of 'Cache::get' method */
 
+    /* *
+     * METHOD: Gets item from cache without loading (off-heap item is moved back to heap)
+     * RETURN: Cached item, null if item is not cached or expired
+     *  PARAM: [IN] key - item key
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final V getIfPresent(final K key) {
+        final Item<K, V> item = m_Items.get(key);
+        if ((item == null) || isExpired(item, System.currentTimeMillis()))
+            return promote(key);
+
+        return item.m_Value;
+    } /* End of 'Cache::getIfPresent' method */
+
+    /* *
+     * METHOD: Removes item from cache
+     *  PARAM: [IN] key - item key
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final void invalidate(final K key) {
+        m_Lock.lock();
+        try {
+            final Item<K, V> item = m_Items.remove(key);
+            if (item != null)
+                unlink(item);
+
+            /* Item, which is being demoted, isn't moved off-heap */
+            m_Demoting.remove(key);
+            if (m_OffHeap != null)
+                m_OffHeap.remove(key);
+        } finally {
+            m_Lock.unlock();
+        }
+    } /* End of 'Cache::invalidate' method */
+
+    /* *
+     * METHOD: Removes all expired items (expired items are also removed on access)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final void cleanUp() {
+        final long time = System.currentTimeMillis();
+        for (final Item<K, V> item : m_Items.values())
+            if (isExpired(item, time))
+                remove(item);
+    } /* End of 'Cache::cleanUp' method */
+
     /* *
      * METHOD: Gets cache size
-     * RETURN: The number of cached items
+     * RETURN: The number of cached items (in both tiers)
      * AUTHOR: Dmitry Eliseev
      * */
     public final int size() {
-        return m_Items.size();
+        return m_Items.size() + getOffHeapSize();
     } /* End of 'Cache::size' method */
 
+    /* *
+     * METHOD: Gets off-heap tier size
+     * RETURN: The number of items, kept off-heap
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final int getOffHeapSize() {
+        return (m_OffHeap != null)?m_OffHeap.size():0;
+    } /* End of 'Cache::getOffHeapSize' method */
+
+    /* *
+     * METHOD: Gets total weight of heap tier items
+     * RETURN: Heap tier weight
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final long getWeight() {
+        m_Lock.lock();
+        try {
+            return m_Weight;
+        } finally {
+            m_Lock.unlock();
+        }
+    } /* End of 'Cache::getWeight' method */
+
+    /* *
+     * METHOD: Gets cache statistics
+     * RETURN: Cache statistics
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final CacheStatistics getStatistics() {
+        return m_Statistics;
+    } /* End of 'Cache::getStatistics' method */
+
     /* *
      * METHOD: Clears cache
      * AUTHOR: Dmitry Eliseev
      * */
     public final void clear() {
-        m_Items.clear();
+        m_Lock.lock();
+        try {
+            m_Items.clear();
+            for (Item<K, V> item = m_Head; item != null; item = item.m_Next)
+                item.m_IsLinked = false;
+
+            m_Head   = null;
+            m_Tail   = null;
+            m_Weight = 0;
+            m_Demoting.clear();
+        } finally {
+            m_Lock.unlock();
+        }
+
+        if (m_OffHeap != null)
+            m_OffHeap.clear();
     } /* End of 'Cache::clear' method */
 
+    /* *
+     * METHOD: Calculates item weight (every item weighs 1 by default, so weight bound is a size bound)
+     * RETURN: Item weight
+     *  PARAM: [IN] key   - item key
+     *  PARAM: [IN] value - item value
+     * AUTHOR: Dmitry Eliseev
+     * */
+    protected long weigh(final K key, final V value) {
+        return 1;
+    } /* End of 'Cache::weigh' method */
+
     /* *
      * METHOD: Loads item from external structure
      * RETURN: Loaded item
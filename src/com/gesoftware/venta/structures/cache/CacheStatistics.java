@@ -0,0 +1,157 @@
+package com.gesoftware.venta.structures.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache statistics class definition (hits, misses, loads and evictions counters)
+ **/
+public final class CacheStatistics {
+    /* The number of requests, answered by cached items */
+    private final AtomicLong m_Hits = new AtomicLong();
+
+    /* The number of requests, answered by items, moved back from off-heap tier (they are also counted as misses) */
+    private final AtomicLong m_OffHeapHits = new AtomicLong();
+
+    /* The number of requests of not cached (or expired) heap tier items */
+    private final AtomicLong m_Misses = new AtomicLong();
+
+    /* The number of successful and failed loads (refreshes included) */
+    private final AtomicLong m_Loads        = new AtomicLong();
+    private final AtomicLong m_LoadFailures = new AtomicLong();
+
+    /* Total loading time (ns) */
+    private final AtomicLong m_LoadTime = new AtomicLong();
+
+    /* The number of items, evicted by weight bound */
+    private final AtomicLong m_Evictions = new AtomicLong();
+
+    /* *
+     * METHOD: Registers cache hit
+     * AUTHOR: Dmitry Eliseev
+     * */
+    final void registerHit() {
+        m_Hits.incrementAndGet();
+    } /* End of 'CacheStatistics::registerHit' method */
+
+    /* *
+     * METHOD: Registers off-heap tier hit
+     * AUTHOR: Dmitry Eliseev
+     * */
+    final void registerOffHeapHit() {
+        m_OffHeapHits.incrementAndGet();
+    } /* End of 'CacheStatistics::registerOffHeapHit' method */
+
+    /* *
+     * METHOD: Registers cache miss
+     * AUTHOR: Dmitry Eliseev
+     * */
+    final void registerMiss() {
+        m_Misses.incrementAndGet();
+    } /* End of 'CacheStatistics::registerMiss' method */
+
+    /* *
+     * METHOD: Registers item loading
+     *  PARAM: [IN] isSuccess - successful loading flag
+     *  PARAM: [IN] time      - loading time (ns)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    final void registerLoad(final boolean isSuccess, final long time) {
+        if (isSuccess)
+            m_Loads.incrementAndGet();
+        else
+            m_LoadFailures.incrementAndGet();
+
+        m_LoadTime.addAndGet(time);
+    } /* End of 'CacheStatistics::registerLoad' method */
+
+    /* *
+     * METHOD: Registers item eviction
+     * AUTHOR: Dmitry Eliseev
+     * */
+    final void registerEviction() {
+        m_Evictions.incrementAndGet();
+    } /* End of 'CacheStatistics::registerEviction' method */
+
+    /* *
+     * METHOD: Gets the number of hits
+     * RETURN: The number of requests, answered by cached items
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final long getHitsCount() {
+        return m_Hits.get();
+    } /* End of 'CacheStatistics::getHitsCount' method */
+
+    /* *
+     * METHOD: Gets the number of off-heap tier hits
+     * RETURN: The number of requests, answered by off-heap items
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final long getOffHeapHitsCount() {
+        return m_OffHeapHits.get();
+    } /* End of 'CacheStatistics::getOffHeapHitsCount' method */
+
+    /* *
+     * METHOD: Gets the number of misses
+     * RETURN: The number of requests of not cached heap tier items
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final long getMissesCount() {
+        return m_Misses.get();
+    } /* End of 'CacheStatistics::getMissesCount' method */
+
+    /* *
+     * METHOD: Gets hit rate
+     * RETURN: Part of requests, answered by cached items of any tier (1 if there were no requests)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final double getHitRate() {
+        final long requests = getHitsCount() + getMissesCount();
+        final long hits     = getHitsCount() + getOffHeapHitsCount();
+
+        return (requests == 0)?1:(double) hits / requests;
+    } /* End of 'CacheStatistics::getHitRate' method */
+
+    /* *
+     * METHOD: Gets the number of successful loads
+     * RETURN: The number of loads
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final long getLoadsCount() {
+        return m_Loads.get();
+    } /* End of 'CacheStatistics::getLoadsCount' method */
+
+    /* *
+     * METHOD: Gets the number of failed loads
+     * RETURN: The number of load failures
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final long getLoadFailuresCount() {
+        return m_LoadFailures.get();
+    } /* End of 'CacheStatistics::getLoadFailuresCount' method */
+
+    /* *
+     * METHOD: Gets average loading time
+     * RETURN: Average load latency (ns)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final long getAverageLoadTime() {
+        final long loads = getLoadsCount() + getLoadFailuresCount();
+        return (loads == 0)?0:m_LoadTime.get() / loads;
+    } /* End of 'CacheStatistics::getAverageLoadTime' method */
+
+    /* *
+     * METHOD: Gets the number of evictions
+     * RETURN: The number of evicted items
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final long getEvictionsCount() {
+        return m_Evictions.get();
+    } /* End of 'CacheStatistics::getEvictionsCount' method */
+
+    @Override
+    public final String toString() {
+        return "hits: " + getHitsCount() + ", off-heap hits: " + getOffHeapHitsCount() + ", misses: " + getMissesCount() + ", hit rate: " + String.format("%.3f", getHitRate()) +
+               ", loads: " + getLoadsCount() + ", load failures: " + getLoadFailuresCount() +
+               ", avg load: " + getAverageLoadTime() / 1000 + " us, evictions: " + getEvictionsCount();
+    } /* End of 'CacheStatistics::toString' method */
+} /* End of 'CacheStatistics' class */
@@ -0,0 +1,22 @@
+package com.gesoftware.venta.structures.cache;
+
+/**
+ * Value codec interface definition (converts cached values to bytes for off-heap tier)
+ **/
+public interface IValueCodec<V> {
+    /* *
+     * METHOD: Encodes value
+     * RETURN: Value bytes, null if value can't be encoded
+     *  PARAM: [IN] value - value to encode
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public byte[] encode(final V value);
+
+    /* *
+     * METHOD: Decodes value
+     * RETURN: Decoded value, null if bytes can't be decoded
+     *  PARAM: [IN] data - value bytes
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public V decode(final byte[] data);
+} /* End of 'IValueCodec' interface */
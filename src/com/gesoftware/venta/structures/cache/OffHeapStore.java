@@ -0,0 +1,229 @@
+package com.gesoftware.venta.structures.cache;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Off-heap store class definition (values bytes are appended to direct buffer slabs, when all slabs are full the
+ * oldest slab is recycled with all its entries; only keys and small locations stay on heap)
+ **/
+final class OffHeapStore<K> {
+    /* Maximal slab size (bytes) */
+    private final static int c_MaxSlabSize = 4 * 1024 * 1024;
+
+    /* Slab size (bytes) */
+    private final int m_SlabSize;
+
+    /* Slabs (allocated on first use) and entries, stored in each slab */
+    private final ByteBuffer[] m_Slabs;
+    private final List<Location<K>>[] m_Entries;
+
+    /* Slabs generations (changed when slab is recycled, guarded by lock) */
+    private final int[] m_Generations;
+
+    /* Entries locations by keys */
+    private final ConcurrentMap<K, Location<K>> m_Index = new ConcurrentHashMap<K, Location<K>>();
+
+    /* Writing lock, current slab and position in it */
+    private final ReentrantLock m_Lock = new ReentrantLock();
+    private int m_Slab;
+    private int m_Position;
+
+    private final CacheStatistics m_Statistics;
+
+    /**
+     * Entry location class definition
+     **/
+    private final static class Location<K> {
+        private final K m_Key;
+
+        /* Slab, it's generation, offset in slab and data length */
+        private final int m_Slab;
+        private final int m_Generation;
+        private final int m_Offset;
+        private final int m_Length;
+
+        /* Entry write and last access time (ms) */
+        private final long m_WriteTime;
+        private final long m_AccessTime;
+
+        /* *
+         * METHOD: Class constructor
+         *  PARAM: [IN] key        - entry key
+         *  PARAM: [IN] slab       - slab index
+         *  PARAM: [IN] generation - slab generation
+         *  PARAM: [IN] offset     - data offset in slab
+         *  PARAM: [IN] length     - data length
+         *  PARAM: [IN] writeTime  - entry write time (ms)
+         *  PARAM: [IN] accessTime - entry last access time (ms)
+         * AUTHOR: Dmitry Eliseev
+         * */
+        public Location(final K key, final int slab, final int generation, final int offset, final int length,
+                        final long writeTime, final long accessTime) {
+            m_Key        = key;
+            m_Slab       = slab;
+            m_Generation = generation;
+            m_Offset     = offset;
+            m_Length     = length;
+            m_WriteTime  = writeTime;
+            m_AccessTime = accessTime;
+        } /* End of 'Location::Location' method */
+    } /* End of 'OffHeapStore::Location' class */
+
+    /**
+     * Stored entry class definition
+     **/
+    final static class Entry {
+        /* Entry data */
+        final byte[] m_Data;
+
+        /* Entry write and last access time (ms) */
+        final long m_WriteTime;
+        final long m_AccessTime;
+
+        /* *
+         * METHOD: Class constructor
+         *  PARAM: [IN] data       - entry data
+         *  PARAM: [IN] writeTime  - entry write time (ms)
+         *  PARAM: [IN] accessTime - entry last access time (ms)
+         * AUTHOR: Dmitry Eliseev
+         * */
+        Entry(final byte[] data, final long writeTime, final long accessTime) {
+            m_Data       = data;
+            m_WriteTime  = writeTime;
+            m_AccessTime = accessTime;
+        } /* End of 'Entry::Entry' method */
+    } /* End of 'OffHeapStore::Entry' class */
+
+    /* *
+     * METHOD: Class constructor
+     *  PARAM: [IN] capacity   - total slabs capacity (bytes)
+     *  PARAM: [IN] statistics - cache statistics (for evictions)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    @SuppressWarnings("unchecked")
+    OffHeapStore(final long capacity, final CacheStatistics statistics) {
+        m_SlabSize   = (int) Math.max(1, Math.min(capacity, c_MaxSlabSize));
+        m_Statistics = statistics;
+
+        final int slabs = (int) Math.max(2, (capacity + m_SlabSize - 1) / m_SlabSize);
+        m_Slabs       = new ByteBuffer[slabs];
+        m_Entries     = (List<Location<K>>[]) new List<?>[slabs];
+        m_Generations = new int[slabs];
+        for (int slab = 0; slab < slabs; slab++)
+            m_Entries[slab] = new ArrayList<Location<K>>();
+    } /* End of 'OffHeapStore::OffHeapStore' method */
+
+    /* *
+     * METHOD: Recycles next slab (should be called under lock)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private void nextSlab() {
+        m_Slab     = (m_Slab + 1) % m_Slabs.length;
+        m_Position = 0;
+
+        m_Generations[m_Slab]++;
+        for (final Location<K> location : m_Entries[m_Slab])
+            if (m_Index.remove(location.m_Key, location))
+                m_Statistics.registerEviction();
+
+        m_Entries[m_Slab].clear();
+    } /* End of 'OffHeapStore::nextSlab' method */
+
+    /* *
+     * METHOD: Stores entry (previous entry of the same key is replaced)
+     * RETURN: True if success, False if entry is bigger than slab
+     *  PARAM: [IN] key        - entry key
+     *  PARAM: [IN] data       - entry data
+     *  PARAM: [IN] writeTime  - entry write time (ms)
+     *  PARAM: [IN] accessTime - entry last access time (ms)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    final boolean put(final K key, final byte[] data, final long writeTime, final long accessTime) {
+        if (data.length > m_SlabSize)
+            return false;
+
+        m_Lock.lock();
+        try {
+            if (m_Position + data.length > m_SlabSize)
+                nextSlab();
+
+            if (m_Slabs[m_Slab] == null)
+                m_Slabs[m_Slab] = ByteBuffer.allocateDirect(m_SlabSize);
+
+            final ByteBuffer slab = m_Slabs[m_Slab].duplicate();
+            slab.position(m_Position);
+            slab.put(data);
+
+            final Location<K> location = new Location<K>(key, m_Slab, m_Generations[m_Slab], m_Position, data.length, writeTime, accessTime);
+            m_Position += data.length;
+
+            m_Entries[m_Slab].add(location);
+            m_Index.put(key, location);
+            return true;
+        } finally {
+            m_Lock.unlock();
+        }
+    } /* End of 'OffHeapStore::put' method */
+
+    /* *
+     * METHOD: Removes entry
+     * RETURN: Removed entry, null if entry isn't stored
+     *  PARAM: [IN] key - entry key
+     * AUTHOR: Dmitry Eliseev
+     * */
+    final Entry remove(final Object key) {
+        final Location<K> location = m_Index.remove(key);
+        if (location == null)
+            return null;
+
+        /* Data is copied under lock, so slab can't be recycled while it's copied */
+        final byte[] data = new byte[location.m_Length];
+
+        m_Lock.lock();
+        try {
+            if (m_Generations[location.m_Slab] != location.m_Generation)
+                return null;
+
+            final ByteBuffer slab = m_Slabs[location.m_Slab].duplicate();
+            slab.position(location.m_Offset);
+            slab.get(data);
+        } finally {
+            m_Lock.unlock();
+        }
+
+        return new Entry(data, location.m_WriteTime, location.m_AccessTime);
+    } /* End of 'OffHeapStore::remove' method */
+
+    /* *
+     * METHOD: Gets the number of stored entries
+     * RETURN: Entries count
+     * AUTHOR: Dmitry Eliseev
+     * */
+    final int size() {
+        return m_Index.size();
+    } /* End of 'OffHeapStore::size' method */
+
+    /* *
+     * METHOD: Removes all entries (slabs stay allocated)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    final void clear() {
+        m_Lock.lock();
+        try {
+            m_Index.clear();
+            for (int slab = 0; slab < m_Slabs.length; slab++) {
+                m_Generations[slab]++;
+                m_Entries[slab].clear();
+            }
+
+            m_Position = 0;
+        } finally {
+            m_Lock.unlock();
+        }
+    } /* End of 'OffHeapStore::clear' method */
+} /* End of 'OffHeapStore' class */
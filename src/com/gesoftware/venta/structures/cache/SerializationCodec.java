@@ -0,0 +1,21 @@
+package com.gesoftware.venta.structures.cache;
+
+import com.gesoftware.venta.utility.SerializationUtility;
+
+import java.io.Serializable;
+
+/**
+ * Serialization codec class definition (default off-heap tier codec, values should be serializable)
+ **/
+public final class SerializationCodec<V> implements IValueCodec<V>, Serializable {
+    @Override
+    public final byte[] encode(final V value) {
+        return SerializationUtility.pack(value);
+    } /* End of 'SerializationCodec::encode' method */
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public final V decode(final byte[] data) {
+        return (V) SerializationUtility.unpack(data);
+    } /* End of 'SerializationCodec::decode' method */
+} /* End of 'SerializationCodec' class */
@@ -0,0 +1,158 @@
+package com.gesoftware.venta.structures.map;
+
+import com.gesoftware.venta.logging.LoggingUtility;
+import com.gesoftware.venta.utility.SerializationUtility;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Consistent hash ring class definition (each node owns several virtual points on the ring, key belongs to the
+ * first node point clockwise from key hash; strings and boxed primitives are hashed by their hash codes, other keys
+ * by MD5 of serialized key, so enums and keys without value based hash codes are placed same in every JVM)
+ **/
+public final class ConsistentHashRing<N> {
+    /* Default number of virtual points per node */
+    public final static int c_VirtualNodes = 160;
+
+    /* Key digest (one per thread, digest isn't thread-safe) */
+    private final static ThreadLocal<MessageDigest> c_Digest = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            return createDigest();
+        }
+    };
+
+    /* Ring points */
+    private final TreeMap<Long, N> m_Ring = new TreeMap<Long, N>();
+
+    /* Nodes by names */
+    private final Map<String, N> m_Nodes;
+
+    /* *
+     * METHOD: Class constructor
+     *  PARAM: [IN] nodes        - nodes by names (names should be same for all clients, e.g. "host:port")
+     *  PARAM: [IN] virtualNodes - number of virtual points per node
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public ConsistentHashRing(final Map<String, N> nodes, final int virtualNodes) {
+        m_Nodes = nodes;
+
+        final MessageDigest digest = c_Digest.get();
+        for (final Map.Entry<String, N> node : nodes.entrySet())
+            for (int point = 0; point < virtualNodes; point++)
+                m_Ring.put(hashPoint(digest, (node.getKey() + "#" + point).getBytes(Charset.forName("UTF-8"))), node.getValue());
+    } /* End of 'ConsistentHashRing::ConsistentHashRing' method */
+
+    /* *
+     * METHOD: Class constructor
+     *  PARAM: [IN] nodes - nodes by names (names should be same for all clients, e.g. "host:port")
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public ConsistentHashRing(final Map<String, N> nodes) {
+        this(nodes, c_VirtualNodes);
+    } /* End of 'ConsistentHashRing::ConsistentHashRing' method */
+
+    /* *
+     * METHOD: Creates digest for ring points
+     * RETURN: MD5 digest if available, null otherwise
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (final NoSuchAlgorithmException e) {
+            LoggingUtility.exception(e);
+        }
+
+        return null;
+    } /* End of 'ConsistentHashRing::createDigest' method */
+
+    /* *
+     * METHOD: Calculates point of virtual node or key
+     * RETURN: Point on ring
+     *  PARAM: [IN] digest - MD5 digest (null if it's unavailable)
+     *  PARAM: [IN] bytes  - virtual node name or serialized key
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private static long hashPoint(final MessageDigest digest, final byte[] bytes) {
+        if (digest == null)
+            return mix(Arrays.hashCode(bytes));
+
+        final byte[] hash = digest.digest(bytes);
+
+        long point = 0;
+        for (int i = 0; i < 8; i++)
+            point = (point << 8) | (hash[i] & 0xFF);
+
+        return point;
+    } /* End of 'ConsistentHashRing::hashPoint' method */
+
+    /* *
+     * METHOD: Spreads hash code over whole ring (MurmurHash3 finalizer)
+     * RETURN: Point on ring
+     *  PARAM: [IN] hash - hash code
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private static long mix(final long hash) {
+        long point = hash;
+        point ^= point >>> 33;
+        point *= 0xFF51AFD7ED558CCDL;
+        point ^= point >>> 33;
+        point *= 0xC4CEB9FE1A85EC53L;
+        point ^= point >>> 33;
+
+        return point;
+    } /* End of 'ConsistentHashRing::mix' method */
+
+    /* *
+     * METHOD: Calculates key point (hash codes of strings and boxed primitives are specified by Java, other keys are
+     *         serialized, as their hash codes may differ between JVMs)
+     * RETURN: Point on ring
+     *  PARAM: [IN] key - key to locate
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private static long hashKey(final Object key) {
+        if (key == null)
+            return mix(0);
+
+        if ((key instanceof String) || (key instanceof Integer) || (key instanceof Long) || (key instanceof Short) ||
+            (key instanceof Byte) || (key instanceof Character) || (key instanceof Boolean))
+            return mix(key.hashCode());
+
+        final byte[] bytes = SerializationUtility.pack(key);
+        if (bytes == null)
+            throw new IllegalArgumentException("Key can't be placed on ring: it can't be serialized");
+
+        return hashPoint(c_Digest.get(), bytes);
+    } /* End of 'ConsistentHashRing::hashKey' method */
+
+    /* *
+     * METHOD: Gets node, owning key
+     * RETURN: Owner node, null if ring is empty
+     *  PARAM: [IN] key - key to locate
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final N get(final Object key) {
+        if (m_Ring.isEmpty())
+            return null;
+
+        final SortedMap<Long, N> tail = m_Ring.tailMap(hashKey(key));
+        return tail.isEmpty()?m_Ring.firstEntry().getValue():tail.get(tail.firstKey());
+    } /* End of 'ConsistentHashRing::get' method */
+
+    /* *
+     * METHOD: Gets all nodes
+     * RETURN: Ring nodes
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final Collection<N> getNodes() {
+        return m_Nodes.values();
+    } /* End of 'ConsistentHashRing::getNodes' method */
+} /* End of 'ConsistentHashRing' class */
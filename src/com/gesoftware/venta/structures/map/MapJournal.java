@@ -0,0 +1,787 @@
+package com.gesoftware.venta.structures.map;
+
+import com.gesoftware.venta.logging.LoggingUtility;
+import com.gesoftware.venta.time.Timer;
+import com.gesoftware.venta.utility.SerializationUtility;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Map journal class definition (append-only log of map changes; concurrent changes are written and synced by one
+ * group commit, journal is periodically compacted to a snapshot; recovery maps snapshot and replays journals tail).
+ * If group commit can't be written, it's changes stay in map, but waiting callers get IllegalStateException; change,
+ * which record can't be encoded, isn't applied and also throws IllegalStateException
+ **/
+@SuppressWarnings("unchecked")
+final class MapJournal<K extends Serializable, V extends Serializable> {
+    /* Files names */
+    private final static String c_SnapshotFile     = "snapshot.dat";
+    private final static String c_SnapshotTempFile = "snapshot.tmp";
+    private final static String c_JournalPrefix    = "journal.";
+    private final static String c_JournalSuffix    = ".log";
+
+    /* Snapshot file magic ("VSNP") */
+    private final static int c_SnapshotMagic = 0x56534E50;
+
+    /* Snapshot header size: magic (int) + generation (long) */
+    private final static int c_SnapshotHeaderSize = 12;
+
+    /* Record header size: payload length (int) + checksum (int) + type (byte) */
+    private final static int c_RecordHeaderSize = 9;
+
+    /* Default number of journal records, after which journal is compacted to a snapshot */
+    private final static int c_CompactionThreshold = 100000;
+
+    /* Records types */
+    private final static byte c_RecordPut       = 1;
+    private final static byte c_RecordRemove    = 2;
+    private final static byte c_RecordClear     = 3;
+    private final static byte c_RecordPutAll    = 4;
+    private final static byte c_RecordRemoveAll = 5;
+
+    /* Journal directory */
+    private final File m_Directory;
+
+    /* Journaled map */
+    private final Map<K, V> m_Map;
+
+    /* The number of journal records, after which journal is compacted to a snapshot */
+    private final long m_CompactionThreshold;
+
+    /* *
+     * Group commit class definition (records, written and synced together)
+     * */
+    private final static class Commit {
+        /* Commit state (guarded by journal lock) */
+        private boolean m_IsDone;
+        private boolean m_IsFailed;
+    } /* End of 'MapJournal::Commit' class */
+
+    /* Changes order lock (map changes and their records are made in the same order) */
+    private final ReentrantLock m_OrderLock = new ReentrantLock();
+
+    /* Not written records */
+    private final ReentrantLock m_Lock = new ReentrantLock();
+    private final Condition m_RecordsArrived = m_Lock.newCondition();
+    private final Condition m_RecordsSynced  = m_Lock.newCondition();
+    private List<ByteBuffer> m_Records = new ArrayList<ByteBuffer>();
+
+    /* Commit of not written records and the last commit, taken for writing */
+    private Commit m_Commit  = new Commit();
+    private Commit m_Written = new Commit();
+
+    /* Current journal (used by writer thread only) */
+    private FileChannel m_Channel;
+    private long m_Generation;
+
+    /* The number of records since last snapshot */
+    private long m_Uncompacted;
+
+    /* Snapshot writing flag */
+    private final AtomicBoolean m_IsCompacting = new AtomicBoolean();
+    private volatile Thread m_Compactor;
+
+    private volatile boolean m_IsActive = true;
+    private final Thread m_Writer;
+
+    /* *
+     * METHOD: Class constructor (recovers map from directory and opens new journal)
+     *  PARAM: [IN] directory - journal directory
+     *  PARAM: [IN] map       - map to recover and journal
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public MapJournal(final File directory, final Map<K, V> map) {
+        this(directory, map, c_CompactionThreshold);
+    } /* End of 'MapJournal::MapJournal' method */
+
+    /* *
+     * METHOD: Class constructor (recovers map from directory and opens new journal)
+     *  PARAM: [IN] directory           - journal directory
+     *  PARAM: [IN] map                 - map to recover and journal
+     *  PARAM: [IN] compactionThreshold - the number of records, after which journal is compacted
+     * AUTHOR: Dmitry Eliseev
+     * */
+    MapJournal(final File directory, final Map<K, V> map, final long compactionThreshold) {
+        m_Directory           = directory;
+        m_Map                 = map;
+        m_CompactionThreshold = compactionThreshold;
+        m_Written.m_IsDone    = true;
+
+        if (!m_Directory.isDirectory() && !m_Directory.mkdirs())
+            LoggingUtility.error("Can't create journal directory: " + m_Directory);
+
+        /* If journal can't be opened, it's reopened by writer, waiting changes fail until that */
+        recover();
+        openJournal(m_Generation);
+
+        m_Writer = new Thread(new Runnable() {
+            @Override
+            public final void run() {
+                while (flush(true))
+                    if ((m_Uncompacted >= m_CompactionThreshold) && m_IsCompacting.compareAndSet(false, true))
+                        compact();
+
+                closeJournal();
+            }
+        });
+        m_Writer.setDaemon(true);
+        m_Writer.start();
+    } /* End of 'MapJournal::MapJournal' method */
+
+    /* *
+     * METHOD: Encodes record
+     * RETURN: Record buffer (ready for writing), null if payload can't be serialized
+     *  PARAM: [IN] type    - record type
+     *  PARAM: [IN] payload - record payload (null if record has no payload)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private static ByteBuffer encode(final byte type, final Serializable payload) {
+        final byte[] data = (payload != null)?SerializationUtility.pack(payload):new byte[0];
+        if (data == null)
+            return null;
+
+        final CRC32 checksum = new CRC32();
+        checksum.update(type);
+        checksum.update(data);
+
+        final ByteBuffer record = ByteBuffer.allocate(c_RecordHeaderSize + data.length);
+        record.putInt(data.length);
+        record.putInt((int) checksum.getValue());
+        record.put(type);
+        record.put(data);
+        record.flip();
+
+        return record;
+    } /* End of 'MapJournal::encode' method */
+
+    /* *
+     * METHOD: Encodes change record (change, which can't be journaled, isn't applied)
+     * RETURN: Record buffer
+     *  PARAM: [IN] type    - record type
+     *  PARAM: [IN] payload - record payload (null if there is no payload)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private static ByteBuffer encodeChange(final byte type, final Serializable payload) {
+        final ByteBuffer record = encode(type, payload);
+        if (record == null)
+            throw new IllegalStateException("Map change is not durable: record can't be encoded");
+
+        return record;
+    } /* End of 'MapJournal::encodeChange' method */
+
+    /* *
+     * METHOD: Applies records to map (stops at first broken record)
+     * RETURN: The number of applied records
+     *  PARAM: [IN] buffer - records buffer (position is left after the last applied record)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private long apply(final ByteBuffer buffer) {
+        long applied = 0;
+        while (buffer.remaining() >= c_RecordHeaderSize) {
+            final int position = buffer.position();
+
+            final int  size     = buffer.getInt();
+            final int  checksum = buffer.getInt();
+            final byte type     = buffer.get();
+            if ((size < 0)||(size > buffer.remaining())) {
+                buffer.position(position);
+                break;
+            }
+
+            final byte[] data = new byte[size];
+            buffer.get(data);
+
+            final CRC32 crc = new CRC32();
+            crc.update(type);
+            crc.update(data);
+            if (((int) crc.getValue() != checksum)||!apply(type, data)) {
+                buffer.position(position);
+                break;
+            }
+
+            applied++;
+        }
+
+        return applied;
+    } /* End of 'MapJournal::apply' method */
+
+    /* *
+     * METHOD: Applies one record to map
+     * RETURN: True if success, False if record is broken
+     *  PARAM: [IN] type - record type
+     *  PARAM: [IN] data - serialized record payload
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private boolean apply(final byte type, final byte[] data) {
+        if (type == c_RecordClear) {
+            m_Map.clear();
+            return true;
+        }
+
+        final Object payload = SerializationUtility.unpack(data);
+        if (payload == null)
+            return false;
+
+        switch (type) {
+            case c_RecordPut:
+                final Serializable[] entry = (Serializable[]) payload;
+                m_Map.put((K) entry[0], (V) entry[1]);
+                return true;
+            case c_RecordRemove:
+                m_Map.remove(payload);
+                return true;
+            case c_RecordPutAll:
+                m_Map.putAll((Map<K, V>) payload);
+                return true;
+            case c_RecordRemoveAll:
+                for (final Object key : (Collection<?>) payload)
+                    m_Map.remove(key);
+                return true;
+        }
+
+        return false;
+    } /* End of 'MapJournal::apply' method */
+
+    /* *
+     * METHOD: Maps file to memory
+     * RETURN: Mapped file content, null if file can't be read
+     *  PARAM: [IN] file - file to map
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private static MappedByteBuffer map(final File file) {
+        RandomAccessFile input = null;
+        try {
+            input = new RandomAccessFile(file, "r");
+            return input.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, input.length());
+        } catch (final IOException e) {
+            LoggingUtility.error("Can't read " + file + ": " + e.getMessage());
+        } finally {
+            try {
+                if (input != null)
+                    input.close();
+            } catch (final IOException ignored) {}
+        }
+
+        return null;
+    } /* End of 'MapJournal::map' method */
+
+    /* *
+     * METHOD: Truncates file (drops partially written records)
+     *  PARAM: [IN] file   - file to truncate
+     *  PARAM: [IN] length - new file length
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private static void truncate(final File file, final long length) {
+        RandomAccessFile output = null;
+        try {
+            output = new RandomAccessFile(file, "rw");
+            output.setLength(length);
+        } catch (final IOException e) {
+            LoggingUtility.error("Can't truncate " + file + ": " + e.getMessage());
+        } finally {
+            try {
+                if (output != null)
+                    output.close();
+            } catch (final IOException ignored) {}
+        }
+    } /* End of 'MapJournal::truncate' method */
+
+    /* *
+     * METHOD: Gets journal file
+     * RETURN: Journal file of generation
+     *  PARAM: [IN] generation - journal generation
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private File getJournalFile(final long generation) {
+        return new File(m_Directory, c_JournalPrefix + generation + c_JournalSuffix);
+    } /* End of 'MapJournal::getJournalFile' method */
+
+    /* *
+     * METHOD: Lists journals generations
+     * RETURN: Sorted generations of existing journals
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private List<Long> getJournals() {
+        final List<Long> generations = new ArrayList<Long>();
+
+        final String[] names = m_Directory.list();
+        if (names == null)
+            return generations;
+
+        for (final String name : names) {
+            if (!name.startsWith(c_JournalPrefix) || !name.endsWith(c_JournalSuffix))
+                continue;
+
+            try {
+                generations.add(Long.parseLong(name.substring(c_JournalPrefix.length(), name.length() - c_JournalSuffix.length())));
+            } catch (final NumberFormatException ignored) {}
+        }
+
+        Collections.sort(generations);
+        return generations;
+    } /* End of 'MapJournal::getJournals' method */
+
+    /* *
+     * METHOD: Recovers map from snapshot and journals, written after it
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private void recover() {
+        final Timer timer = new Timer();
+
+        /* Snapshot contains all changes of journals before snapshot generation */
+        final File snapshotFile = new File(m_Directory, c_SnapshotFile);
+        final MappedByteBuffer snapshot = snapshotFile.isFile()?map(snapshotFile):null;
+        if (snapshot != null) {
+            if ((snapshot.remaining() >= c_SnapshotHeaderSize) && (snapshot.getInt() == c_SnapshotMagic)) {
+                m_Generation = snapshot.getLong();
+                apply(snapshot);
+            } else
+                LoggingUtility.error("Wrong snapshot file: " + snapshotFile);
+        }
+
+        long replayed = 0;
+        for (final Long generation : getJournals()) {
+            final File journalFile = getJournalFile(generation);
+            if (generation < m_Generation) {
+                if (!journalFile.delete())
+                    LoggingUtility.error("Can't delete compacted journal: " + journalFile);
+                continue;
+            }
+
+            final MappedByteBuffer journal = map(journalFile);
+            if (journal == null)
+                continue;
+
+            replayed += apply(journal);
+            if (journal.hasRemaining()) {
+                LoggingUtility.error("Journal " + journalFile + " is broken at " + journal.position() + ", the rest is dropped");
+                truncate(journalFile, journal.position());
+            }
+
+            m_Generation = generation + 1;
+        }
+
+        m_Uncompacted = replayed;
+        LoggingUtility.core("Map recovered: " + m_Map.size() + " entries, " + replayed + " journal records, " + timer.getTimeSinceLastMeasure() + " ms");
+    } /* End of 'MapJournal::recover' method */
+
+    /* *
+     * METHOD: Opens journal for writing (current journal is closed)
+     * RETURN: True if success, False otherwise
+     *  PARAM: [IN] generation - journal generation
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private boolean openJournal(final long generation) {
+        try {
+            final FileChannel channel = new FileOutputStream(getJournalFile(generation), true).getChannel();
+
+            closeJournal();
+            m_Channel    = channel;
+            m_Generation = generation;
+            return true;
+        } catch (final IOException e) {
+            LoggingUtility.error("Can't open journal: " + e.getMessage());
+        }
+
+        return false;
+    } /* End of 'MapJournal::openJournal' method */
+
+    /* *
+     * METHOD: Closes current journal
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private void closeJournal() {
+        try {
+            if (m_Channel != null)
+                m_Channel.close();
+        } catch (final IOException e) {
+            LoggingUtility.error("Can't close journal: " + e.getMessage());
+        }
+
+        m_Channel = null;
+    } /* End of 'MapJournal::closeJournal' method */
+
+    /* *
+     * METHOD: Drops partially written records (journal is truncated to the last good position, or new journal is
+     *         started, if it can't be truncated)
+     *  PARAM: [IN] position - the last good position (-1 if it's unknown)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private void rollback(final long position) {
+        try {
+            if (position >= 0) {
+                m_Channel.truncate(position);
+                m_Channel.force(false);
+                return;
+            }
+        } catch (final IOException e) {
+            LoggingUtility.error("Can't truncate journal: " + e.getMessage());
+        }
+
+        /* Recovery stops at broken record only in it's own journal */
+        if (!openJournal(m_Generation + 1))
+            closeJournal();
+    } /* End of 'MapJournal::rollback' method */
+
+    /* *
+     * METHOD: Writes and syncs records (journal is reopened, if it wasn't opened)
+     * RETURN: True if records are durable, False otherwise
+     *  PARAM: [IN] records - records to write
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private boolean write(final List<ByteBuffer> records) {
+        if ((m_Channel == null) && !openJournal(m_Generation + 1))
+            return false;
+
+        long position = -1;
+        try {
+            position = m_Channel.size();
+            final ByteBuffer[] buffers = records.toArray(new ByteBuffer[records.size()]);
+
+            long left = 0;
+            for (final ByteBuffer buffer : buffers)
+                left += buffer.remaining();
+
+            while (left > 0)
+                left -= m_Channel.write(buffers);
+
+            m_Channel.force(false);
+            return true;
+        } catch (final IOException e) {
+            LoggingUtility.error("Can't write journal: " + e.getMessage());
+        }
+
+        rollback(position);
+        return false;
+    } /* End of 'MapJournal::write' method */
+
+    /* *
+     * METHOD: Writes all appended records by one write and sync (group commit)
+     * RETURN: True if records were written (or failed), False if there are no records
+     *  PARAM: [IN] isWaiting - wait for records flag (waits until journal is closed)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private boolean flush(final boolean isWaiting) {
+        final List<ByteBuffer> records;
+        final Commit commit;
+
+        m_Lock.lock();
+        try {
+            while (isWaiting && m_IsActive && m_Records.isEmpty())
+                m_RecordsArrived.awaitUninterruptibly();
+
+            if (m_Records.isEmpty())
+                return false;
+
+            records   = m_Records;
+            commit    = m_Commit;
+            m_Written = commit;
+            m_Records = new ArrayList<ByteBuffer>();
+            m_Commit  = new Commit();
+        } finally {
+            m_Lock.unlock();
+        }
+
+        final boolean isWritten = write(records);
+        if (isWritten)
+            m_Uncompacted += records.size();
+
+        m_Lock.lock();
+        try {
+            commit.m_IsDone   = true;
+            commit.m_IsFailed = !isWritten;
+            m_RecordsSynced.signalAll();
+        } finally {
+            m_Lock.unlock();
+        }
+
+        return true;
+    } /* End of 'MapJournal::flush' method */
+
+    /* *
+     * METHOD: Starts new journal and writes snapshot of map state (state is copied while changes are paused)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private void compact() {
+        final Map<K, V> state;
+        final long generation;
+
+        m_OrderLock.lock();
+        try {
+            flush(false);
+            if (!openJournal(m_Generation + 1)) {
+                m_IsCompacting.set(false);
+                return;
+            }
+
+            state         = new HashMap<K, V>(m_Map);
+            generation    = m_Generation;
+            m_Uncompacted = 0;
+        } finally {
+            m_OrderLock.unlock();
+        }
+
+        m_Compactor = new Thread(new Runnable() {
+            @Override
+            public final void run() {
+                writeSnapshot(state, generation);
+                m_IsCompacting.set(false);
+            }
+        });
+        m_Compactor.start();
+    } /* End of 'MapJournal::compact' method */
+
+    /* *
+     * METHOD: Writes snapshot (snapshot replaces previous one only when it's completely written)
+     *  PARAM: [IN] state      - map state
+     *  PARAM: [IN] generation - first journal generation, not included in snapshot
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private void writeSnapshot(final Map<K, V> state, final long generation) {
+        final Timer timer = new Timer();
+        final File tempFile = new File(m_Directory, c_SnapshotTempFile);
+
+        FileOutputStream file = null;
+        try {
+            file = new FileOutputStream(tempFile);
+
+            final DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(file, 64 * 1024));
+            stream.writeInt(c_SnapshotMagic);
+            stream.writeLong(generation);
+            for (final Map.Entry<K, V> entry : state.entrySet()) {
+                final ByteBuffer record = encode(c_RecordPut, new Serializable[] {entry.getKey(), entry.getValue()});
+                if (record != null)
+                    stream.write(record.array(), 0, record.limit());
+            }
+
+            stream.flush();
+            file.getFD().sync();
+        } catch (final IOException e) {
+            LoggingUtility.error("Can't write snapshot: " + e.getMessage());
+            return;
+        } finally {
+            try {
+                if (file != null)
+                    file.close();
+            } catch (final IOException ignored) {}
+        }
+
+        final File snapshotFile = new File(m_Directory, c_SnapshotFile);
+        if (!tempFile.renameTo(snapshotFile) && !(snapshotFile.delete() && tempFile.renameTo(snapshotFile))) {
+            LoggingUtility.error("Can't replace snapshot: " + snapshotFile);
+            return;
+        }
+
+        for (final Long journal : getJournals())
+            if ((journal < generation) && !getJournalFile(journal).delete())
+                LoggingUtility.error("Can't delete compacted journal: " + getJournalFile(journal));
+
+        LoggingUtility.core("Map snapshot written: " + state.size() + " entries, " + timer.getTimeSinceLastMeasure() + " ms");
+    } /* End of 'MapJournal::writeSnapshot' method */
+
+    /* *
+     * METHOD: Appends record (should be called under order lock, right after map change)
+     * RETURN: Commit to wait for (if there is no record - commit of previous records)
+     *  PARAM: [IN] record - record to append (null if nothing should be appended)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private Commit append(final ByteBuffer record) {
+        m_Lock.lock();
+        try {
+            if (record != null) {
+                m_Records.add(record);
+                m_RecordsArrived.signal();
+            }
+
+            return m_Records.isEmpty()?m_Written:m_Commit;
+        } finally {
+            m_Lock.unlock();
+        }
+    } /* End of 'MapJournal::append' method */
+
+    /* *
+     * METHOD: Waits until commit is synced to disk (changes, made after closing, are not journaled)
+     *  PARAM: [IN] commit - commit to wait for
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private void sync(final Commit commit) {
+        m_Lock.lock();
+        try {
+            while (!commit.m_IsDone && m_Writer.isAlive())
+                m_RecordsSynced.awaitUninterruptibly();
+
+            if (commit.m_IsFailed)
+                throw new IllegalStateException("Map change is not durable: journal can't be written");
+        } finally {
+            m_Lock.unlock();
+        }
+    } /* End of 'MapJournal::sync' method */
+
+    /* *
+     * METHOD: Puts value and waits until change is durable
+     * RETURN: Previous value
+     *  PARAM: [IN] key   - key to put
+     *  PARAM: [IN] value - value to put
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final V put(final K key, final V value) {
+        final ByteBuffer record = encodeChange(c_RecordPut, new Serializable[] {key, value});
+
+        final V previous;
+        final Commit commit;
+
+        m_OrderLock.lock();
+        try {
+            previous = m_Map.put(key, value);
+            commit   = append(record);
+        } finally {
+            m_OrderLock.unlock();
+        }
+
+        sync(commit);
+        return previous;
+    } /* End of 'MapJournal::put' method */
+
+    /* *
+     * METHOD: Removes value and waits until change is durable
+     * RETURN: Removed value
+     *  PARAM: [IN] key - key to remove
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final V remove(final Object key) {
+        if (!(key instanceof Serializable))
+            return m_Map.remove(key);
+
+        final ByteBuffer record = encodeChange(c_RecordRemove, (Serializable) key);
+        final V previous;
+        final Commit commit;
+
+        m_OrderLock.lock();
+        try {
+            previous = m_Map.remove(key);
+            commit   = append((previous != null)?record:null);
+        } finally {
+            m_OrderLock.unlock();
+        }
+
+        sync(commit);
+        return previous;
+    } /* End of 'MapJournal::remove' method */
+
+    /* *
+     * METHOD: Puts all values and waits until change is durable (all values are journaled by one record)
+     * RETURN: Previous values of replaced keys
+     *  PARAM: [IN] m - map to put
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final HashMap<K, V> putAll(final Map<? extends K, ? extends V> m) {
+        final ByteBuffer record = encodeChange(c_RecordPutAll, new HashMap<K, V>(m));
+
+        final HashMap<K, V> previous = new HashMap<K, V>();
+        final Commit commit;
+
+        m_OrderLock.lock();
+        try {
+            for (final Map.Entry<? extends K, ? extends V> entry : m.entrySet()) {
+                final V value = m_Map.put(entry.getKey(), entry.getValue());
+                if (value != null)
+                    previous.put(entry.getKey(), value);
+            }
+
+            commit = append(record);
+        } finally {
+            m_OrderLock.unlock();
+        }
+
+        sync(commit);
+        return previous;
+    } /* End of 'MapJournal::putAll' method */
+
+    /* *
+     * METHOD: Removes values and waits until change is durable (all keys are journaled by one record)
+     * RETURN: Removed values
+     *  PARAM: [IN] keys - keys to remove
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final HashMap<K, V> removeAll(final Collection<? extends Serializable> keys) {
+        final ByteBuffer record = encodeChange(c_RecordRemoveAll, new ArrayList<Serializable>(keys));
+        final HashMap<K, V> removed = new HashMap<K, V>();
+        final Commit commit;
+
+        m_OrderLock.lock();
+        try {
+            for (final Serializable key : keys) {
+                final V value = m_Map.remove(key);
+                if (value != null)
+                    removed.put((K) key, value);
+            }
+
+            commit = append(removed.isEmpty()?null:record);
+        } finally {
+            m_OrderLock.unlock();
+        }
+
+        sync(commit);
+        return removed;
+    } /* End of 'MapJournal::removeAll' method */
+
+    /* *
+     * METHOD: Clears map and waits until change is durable
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final void clear() {
+        final ByteBuffer record = encodeChange(c_RecordClear, null);
+        final Commit commit;
+
+        m_OrderLock.lock();
+        try {
+            m_Map.clear();
+            commit = append(record);
+        } finally {
+            m_OrderLock.unlock();
+        }
+
+        sync(commit);
+    } /* End of 'MapJournal::clear' method */
+
+    /* *
+     * METHOD: Closes journal (appended records are written)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final void close() {
+        m_Lock.lock();
+        try {
+            m_IsActive = false;
+            m_RecordsArrived.signal();
+        } finally {
+            m_Lock.unlock();
+        }
+
+        try {
+            m_Writer.join();
+
+            /* Snapshot is completed before directory could be reused */
+            final Thread compactor = m_Compactor;
+            if (compactor != null)
+                compactor.join();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        /* Changes, made after closing, are not journaled */
+        m_Lock.lock();
+        try {
+            m_RecordsSynced.signalAll();
+        } finally {
+            m_Lock.unlock();
+        }
+    } /* End of 'MapJournal::close' method */
+} /* End of 'MapJournal' class */
@@ -0,0 +1,219 @@
+package com.gesoftware.venta.structures.map;
+
+import com.gesoftware.venta.structures.option.Option;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Near cache class definition (bounded cache of remote values, invalidated by theater; reads don't block, recency
+ * order is approximate)
+ **/
+final class NearCache<K, V> {
+    /* Maximal number of cached keys */
+    private final int m_Capacity;
+
+    /* Cached values (absent keys are cached as empty options) */
+    private final ConcurrentMap<K, Entry<K, V>> m_Entries = new ConcurrentHashMap<K, Entry<K, V>>();
+
+    /* Recency list (least recently used entry is the head) and it's size, guarded by lock */
+    private final ReentrantLock m_Lock = new ReentrantLock();
+    private Entry<K, V> m_Head;
+    private Entry<K, V> m_Tail;
+    private int m_Size;
+
+    /* Invalidations counter (values, requested before invalidation, aren't cached) */
+    private final AtomicLong m_Epoch = new AtomicLong();
+
+    /**
+     * Cached entry class definition
+     **/
+    private final static class Entry<K, V> {
+        private final K m_Key;
+        private final Option<V> m_Value;
+
+        /* Recency list links (guarded by cache lock) */
+        private Entry<K, V> m_Previous;
+        private Entry<K, V> m_Next;
+        private boolean m_IsLinked;
+
+        /* *
+         * METHOD: Class constructor
+         *  PARAM: [IN] key   - entry key
+         *  PARAM: [IN] value - entry value option
+         * AUTHOR: Dmitry Eliseev
+         * */
+        public Entry(final K key, final Option<V> value) {
+            m_Key   = key;
+            m_Value = value;
+        } /* End of 'Entry::Entry' method */
+    } /* End of 'NearCache::Entry' class */
+
+    /* *
+     * METHOD: Class constructor
+     *  PARAM: [IN] capacity - maximal number of cached keys
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public NearCache(final int capacity) {
+        m_Capacity = Math.max(1, capacity);
+    } /* End of 'NearCache::NearCache' method */
+
+    /* *
+     * METHOD: Adds entry to the tail of recency list (lock should be held)
+     *  PARAM: [IN] entry - entry to add
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private void link(final Entry<K, V> entry) {
+        entry.m_Previous = m_Tail;
+        entry.m_Next     = null;
+        entry.m_IsLinked = true;
+
+        if (m_Tail != null)
+            m_Tail.m_Next = entry;
+        else
+            m_Head = entry;
+
+        m_Tail = entry;
+        m_Size++;
+    } /* End of 'NearCache::link' method */
+
+    /* *
+     * METHOD: Removes entry from recency list (lock should be held)
+     *  PARAM: [IN] entry - entry to remove
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private void unlink(final Entry<K, V> entry) {
+        if (!entry.m_IsLinked)
+            return;
+
+        if (entry.m_Previous != null)
+            entry.m_Previous.m_Next = entry.m_Next;
+        else
+            m_Head = entry.m_Next;
+
+        if (entry.m_Next != null)
+            entry.m_Next.m_Previous = entry.m_Previous;
+        else
+            m_Tail = entry.m_Previous;
+
+        entry.m_Previous = null;
+        entry.m_Next     = null;
+        entry.m_IsLinked = false;
+        m_Size--;
+    } /* End of 'NearCache::unlink' method */
+
+    /* *
+     * METHOD: Marks entry as recently used (skipped if lock is busy)
+     *  PARAM: [IN] entry - used entry
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private void touch(final Entry<K, V> entry) {
+        if (!m_Lock.tryLock())
+            return;
+
+        try {
+            if (entry.m_IsLinked && (entry != m_Tail)) {
+                unlink(entry);
+                link(entry);
+            }
+        } finally {
+            m_Lock.unlock();
+        }
+    } /* End of 'NearCache::touch' method */
+
+    /* *
+     * METHOD: Gets cached value
+     * RETURN: Cached value option if key is cached, null otherwise
+     *  PARAM: [IN] key - key to get value
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final Option<V> get(final Object key) {
+        final Entry<K, V> entry = m_Entries.get(key);
+        if (entry == null)
+            return null;
+
+        touch(entry);
+        return entry.m_Value;
+    } /* End of 'NearCache::get' method */
+
+    /* *
+     * METHOD: Gets current epoch (should be taken before value is requested)
+     * RETURN: Current epoch
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final long getEpoch() {
+        return m_Epoch.get();
+    } /* End of 'NearCache::getEpoch' method */
+
+    /* *
+     * METHOD: Caches value if there were no invalidations since it was requested
+     *  PARAM: [IN] key   - key to cache
+     *  PARAM: [IN] value - value to cache (null for absent key)
+     *  PARAM: [IN] epoch - epoch, taken before value was requested
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final void put(final K key, final V value, final long epoch) {
+        final Entry<K, V> entry = new Entry<K, V>(key, new Option<V>(value));
+
+        m_Lock.lock();
+        try {
+            /* Invalidation removes keys under lock, so it can't be missed after this check */
+            if (m_Epoch.get() != epoch)
+                return;
+
+            final Entry<K, V> previous = m_Entries.put(key, entry);
+            if (previous != null)
+                unlink(previous);
+
+            link(entry);
+
+            while (m_Size > m_Capacity) {
+                final Entry<K, V> eldest = m_Head;
+                m_Entries.remove(eldest.m_Key, eldest);
+                unlink(eldest);
+            }
+        } finally {
+            m_Lock.unlock();
+        }
+    } /* End of 'NearCache::put' method */
+
+    /* *
+     * METHOD: Invalidates keys
+     *  PARAM: [IN] keys - changed keys
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final void invalidate(final Collection<?> keys) {
+        m_Epoch.incrementAndGet();
+
+        m_Lock.lock();
+        try {
+            for (final Object key : keys) {
+                final Entry<K, V> entry = m_Entries.remove(key);
+                if (entry != null)
+                    unlink(entry);
+            }
+        } finally {
+            m_Lock.unlock();
+        }
+    } /* End of 'NearCache::invalidate' method */
+
+    /* *
+     * METHOD: Invalidates all keys
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final void clear() {
+        m_Epoch.incrementAndGet();
+
+        m_Lock.lock();
+        try {
+            m_Entries.clear();
+            while (m_Head != null)
+                unlink(m_Head);
+        } finally {
+            m_Lock.unlock();
+        }
+    } /* End of 'NearCache::clear' method */
+} /* End of 'NearCache' class */
@@ -1,57 +1,179 @@
 package com.gesoftware.venta.structures.map;
 
 import com.gesoftware.venta.actors.IDispatcher;
+import com.gesoftware.venta.actors.Promise;
 import com.gesoftware.venta.actors.Puppeteer;
 import com.gesoftware.venta.logging.LoggingUtility;
+import com.gesoftware.venta.processing.IConverter;
 import com.gesoftware.venta.structures.map.protocol.clear.QueryClear;
+import com.gesoftware.venta.structures.map.protocol.common.ProtocolCodec;
+import com.gesoftware.venta.structures.map.protocol.common.Query;
+import com.gesoftware.venta.structures.map.protocol.common.Response;
+import com.gesoftware.venta.structures.map.protocol.common.ResponseOK;
 import com.gesoftware.venta.structures.map.protocol.containskey.QueryContainsKey;
 import com.gesoftware.venta.structures.map.protocol.containskey.ResponseContainsKey;
 import com.gesoftware.venta.structures.map.protocol.containsvalue.QueryContainsValue;
 import com.gesoftware.venta.structures.map.protocol.containsvalue.ResponseContainsValue;
-import com.gesoftware.venta.structures.map.protocol.entryset.QueryEntrySet;
-import com.gesoftware.venta.structures.map.protocol.entryset.ResponseEntrySet;
 import com.gesoftware.venta.structures.map.protocol.get.QueryGet;
 import com.gesoftware.venta.structures.map.protocol.get.ResponseGet;
+import com.gesoftware.venta.structures.map.protocol.getall.QueryGetAll;
+import com.gesoftware.venta.structures.map.protocol.getall.ResponseGetAll;
+import com.gesoftware.venta.structures.map.protocol.invalidation.Invalidation;
 import com.gesoftware.venta.structures.map.protocol.isempty.QueryIsEmpty;
 import com.gesoftware.venta.structures.map.protocol.isempty.ResponseIsEmpty;
-import com.gesoftware.venta.structures.map.protocol.keyset.QueryKeySet;
-import com.gesoftware.venta.structures.map.protocol.keyset.ResponseKeySet;
 import com.gesoftware.venta.structures.map.protocol.put.QueryPut;
 import com.gesoftware.venta.structures.map.protocol.put.ResponsePut;
 import com.gesoftware.venta.structures.map.protocol.putall.QueryPutAll;
+import com.gesoftware.venta.structures.map.protocol.putall.ResponsePutAll;
 import com.gesoftware.venta.structures.map.protocol.remove.QueryRemove;
 import com.gesoftware.venta.structures.map.protocol.remove.ResponseRemove;
+import com.gesoftware.venta.structures.map.protocol.removeall.QueryRemoveAll;
+import com.gesoftware.venta.structures.map.protocol.removeall.ResponseRemoveAll;
+import com.gesoftware.venta.structures.map.protocol.scan.QueryScan;
+import com.gesoftware.venta.structures.map.protocol.scan.ResponseScan;
 import com.gesoftware.venta.structures.map.protocol.size.QuerySize;
 import com.gesoftware.venta.structures.map.protocol.size.ResponseSize;
-import com.gesoftware.venta.structures.map.protocol.values.QueryValues;
-import com.gesoftware.venta.structures.map.protocol.values.ResponseValues;
+import com.gesoftware.venta.structures.map.protocol.subscribe.QuerySubscribe;
 import com.gesoftware.venta.structures.option.Option;
+import com.gesoftware.venta.utility.CompressionUtility;
 
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Remote map class definition
  **/
 @SuppressWarnings("unchecked")
 public final class RemoteMap<K extends Serializable, V extends Serializable> implements Map<K, V>, Serializable {
-    private final Puppeteer m_Puppeteer;
-
-    private Option<Integer> m_Size;
-    private Boolean m_IsEmpty;
-
-    private Boolean m_ContainsKey;
-    private Boolean m_ContainsValue;
+    /* Scan chunk size (entries per round-trip) */
+    private final static int c_ScanChunk = 1000;
 
-    private Option<Object> m_Get;
-    private Option<Object> m_Put;
+    /* Protocol messages are sent with compact codec */
+    static {
+        CompressionUtility.register(new ProtocolCodec());
+    }
 
-    private Option<Object> m_Remove;
-
-    private Set<? extends Serializable> m_KeySet;
-    private Collection<? extends Serializable> m_Values;
+    private final Puppeteer m_Puppeteer;
 
-    private Set<Entry<? extends Serializable, ? extends Serializable>> m_EntrySet;
+    /* Near cache (null if disabled) */
+    private final NearCache<K, V> m_NearCache;
+
+    /* Near cache subscription flag (cache is used only if theater sends invalidations) */
+    private final boolean m_IsSubscribed;
+
+    /**
+     * Scan iterator class definition (fetches map entries by chunks, next chunk is requested in advance; if chunk
+     * can't be fetched, iterator throws IllegalStateException instead of reporting the end of map)
+     **/
+    private final class ScanIterator<T> implements Iterator<T> {
+        /* Fetch keys without values flag */
+        private final boolean m_IsKeysOnly;
+
+        /* Entry to item converter */
+        private final IConverter<Entry<K, V>, T> m_Converter;
+
+        /* Current chunk */
+        private List<? extends Serializable> m_Keys   = new ArrayList<K>();
+        private List<? extends Serializable> m_Values = null;
+
+        /* Next item index in current chunk */
+        private int m_Index;
+
+        /* Requested next chunk (null if scan is finished) */
+        private Promise<ResponseScan> m_Next;
+
+        /* Last returned key (for removing) */
+        private K m_LastKey;
+
+        /* Last returned key validity flag */
+        private boolean m_CanRemove;
+
+        /* Scan interruption reason (null if scan isn't interrupted) */
+        private String m_Interruption;
+
+        /* *
+         * METHOD: Class constructor
+         *  PARAM: [IN] isKeysOnly - fetch keys without values
+         *  PARAM: [IN] converter  - entry to item converter
+         * AUTHOR: Dmitry Eliseev
+         * */
+        public ScanIterator(final boolean isKeysOnly, final IConverter<Entry<K, V>, T> converter) {
+            m_IsKeysOnly = isKeysOnly;
+            m_Converter  = converter;
+            m_Next       = requestChunk(QueryScan.c_CursorStart);
+        } /* End of 'ScanIterator::ScanIterator' method */
+
+        /* *
+         * METHOD: Requests scan chunk
+         * RETURN: Promise of chunk
+         *  PARAM: [IN] cursor - chunk cursor
+         * AUTHOR: Dmitry Eliseev
+         * */
+        private Promise<ResponseScan> requestChunk(final long cursor) {
+            return request(new QueryScan(nextRequestID(), cursor, c_ScanChunk, m_IsKeysOnly));
+        } /* End of 'ScanIterator::requestChunk' method */
+
+        /* *
+         * METHOD: Waits for next chunk if current one is over
+         * AUTHOR: Dmitry Eliseev
+         * */
+        private void fetch() {
+            if (m_Interruption != null)
+                throw new IllegalStateException(m_Interruption);
+
+            while ((m_Index >= m_Keys.size()) && (m_Next != null)) {
+                final ResponseScan response = await(m_Next, null);
+                m_Next = null;
+
+                if (response == null)
+                    m_Interruption = "Scan is interrupted: chunk can't be fetched";
+                else if (response.m_Cursor == QueryScan.c_CursorExpired)
+                    m_Interruption = "Scan is interrupted: cursor expired";
+
+                if (m_Interruption != null) {
+                    LoggingUtility.error(m_Interruption);
+                    throw new IllegalStateException(m_Interruption);
+                }
+
+                m_Keys   = response.m_Keys;
+                m_Values = response.m_Values;
+                m_Index  = 0;
+
+                if (response.m_Cursor != QueryScan.c_CursorStart)
+                    m_Next = requestChunk(response.m_Cursor);
+            }
+        } /* End of 'ScanIterator::fetch' method */
+
+        @Override
+        public final boolean hasNext() {
+            fetch();
+            return m_Index < m_Keys.size();
+        } /* End of 'ScanIterator::hasNext' method */
+
+        @Override
+        public final T next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            final K key   = (K) m_Keys.get(m_Index);
+            final V value = m_IsKeysOnly?null:(V) m_Values.get(m_Index);
+            m_Index++;
+
+            m_LastKey   = key;
+            m_CanRemove = true;
+            return m_Converter.convert(new AbstractMap.SimpleImmutableEntry<K, V>(key, value));
+        } /* End of 'ScanIterator::next' method */
+
+        @Override
+        public final void remove() {
+            if (!m_CanRemove)
+                throw new IllegalStateException();
+
+            RemoteMap.this.remove(m_LastKey);
+            m_CanRemove = false;
+        } /* End of 'ScanIterator::remove' method */
+    } /* End of 'RemoteMap::ScanIterator' class */
 
     /* *
      * METHOD: Class constructor
@@ -60,372 +182,486 @@ public final class RemoteMap<K extends Serializable, V extends Serializable> imp
      * AUTHOR: Dmitry Eliseev
      * */
     public RemoteMap(final String host, final int port) {
+        this(host, port, 0);
+    } /* End of 'RemoteMap::RemoteMap' method */
+
+    /* *
+     * METHOD: Class constructor
+     *  PARAM: [IN] host              - host to connect
+     *  PARAM: [IN] port              - connection port
+     *  PARAM: [IN] nearCacheCapacity - maximal number of locally cached keys (0 disables near cache)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public RemoteMap(final String host, final int port, final int nearCacheCapacity) {
         m_Puppeteer = new Puppeteer(host, port);
+        m_NearCache = (nearCacheCapacity > 0)?new NearCache<K, V>(nearCacheCapacity):null;
 
-        registerDispatchers();
+        m_IsSubscribed = (m_NearCache != null) && subscribe();
     } /* End of 'RemoteMap::RemoteMap' method */
 
     /* *
-     * METHOD: Notifies all listeners
+     * METHOD: Subscribes near cache to theater's invalidations
+     * RETURN: True if success, False otherwise
      * AUTHOR: Dmitry Eliseev
      * */
-    private void notifyEveryOne() {
-        synchronized (this) {
-            notifyAll();
+    private boolean subscribe() {
+        m_Puppeteer.registerDispatcher(Invalidation.class, new IDispatcher<Invalidation>() {
+            @Override
+            public final Serializable dispatch(final Invalidation object) {
+                if (object.m_Keys != null)
+                    m_NearCache.invalidate(object.m_Keys);
+                else
+                    m_NearCache.clear();
+
+                return null;
+            }
+        });
+
+        if (await(this.<ResponseOK>request(new QuerySubscribe(nextRequestID())), null) != null)
+            return true;
+
+        LoggingUtility.error("Can't subscribe to invalidations, near cache is disabled");
+        return false;
+    } /* End of 'RemoteMap::subscribe' method */
+
+    /* *
+     * METHOD: Gets near cache, if it can be used
+     * RETURN: Near cache if it's enabled and connection is alive, null otherwise
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private NearCache<K, V> getNearCache() {
+        return (m_IsSubscribed && m_Puppeteer.isActive())?m_NearCache:null;
+    } /* End of 'RemoteMap::getNearCache' method */
+
+    /* *
+     * METHOD: Drops locally cached keys before they are changed
+     *  PARAM: [IN] keys - keys to change (null for all keys)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private void invalidate(final Collection<?> keys) {
+        if (m_NearCache == null)
+            return;
+
+        if (keys != null)
+            m_NearCache.invalidate(keys);
+        else
+            m_NearCache.clear();
+    } /* End of 'RemoteMap::invalidate' method */
+
+    /* *
+     * METHOD: Generates identifier for next query
+     * RETURN: Unique query identifier
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private long nextRequestID() {
+        return m_Puppeteer.nextRequestID();
+    } /* End of 'RemoteMap::nextRequestID' method */
+
+    /* *
+     * METHOD: Sends query, response will complete returned promise (other queries may be in flight)
+     * RETURN: Promise of response
+     *  PARAM: [IN] query - query to send
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private <T extends Response> Promise<T> request(final Query query) {
+        return m_Puppeteer.request(query);
+    } /* End of 'RemoteMap::request' method */
+
+    /* *
+     * METHOD: Waits for promise completion
+     * RETURN: Promise result if success, failure value otherwise
+     *  PARAM: [IN] promise - promise to wait for
+     *  PARAM: [IN] failure - value to return if promise fails
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private <T> T await(final Promise<T> promise, final T failure) {
+        try {
+            return promise.get();
+        } catch (final InterruptedException e) {
+            LoggingUtility.error("Can't wait: " + e.getMessage());
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException e) {
+            LoggingUtility.error("Query failed: " + e.getCause().getMessage());
         }
-    } /* End of 'RemoteMap::notifyEveryOne' method */
+
+        return failure;
+    } /* End of 'RemoteMap::await' method */
 
     /* *
-     * METHOD: Registers dispatchers
+     * METHOD: Queries map size without blocking
+     * RETURN: Promise of map size
      * AUTHOR: Dmitry Eliseev
      * */
-    private void registerDispatchers() {
-        /* Size dispatcher */
-        m_Puppeteer.registerDispatcher(ResponseSize.class, new IDispatcher<ResponseSize>() {
+    public final Promise<Integer> sizeAsync() {
+        return this.<ResponseSize>request(new QuerySize(nextRequestID())).then(new IConverter<ResponseSize, Integer>() {
             @Override
-            public final Serializable dispatch(final ResponseSize object) {
-                m_Size = new Option<Integer>(object.m_Size);
-                notifyEveryOne();
-                return null;
+            public final Integer convert(final ResponseSize response) {
+                return response.m_Size;
             }
         });
+    } /* End of 'RemoteMap::sizeAsync' method */
 
-        /* Is empty dispatcher */
-        m_Puppeteer.registerDispatcher(ResponseIsEmpty.class, new IDispatcher<ResponseIsEmpty>() {
+    /* *
+     * METHOD: Queries map emptiness without blocking
+     * RETURN: Promise of emptiness flag
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final Promise<Boolean> isEmptyAsync() {
+        return this.<ResponseIsEmpty>request(new QueryIsEmpty(nextRequestID())).then(new IConverter<ResponseIsEmpty, Boolean>() {
             @Override
-            public final Serializable dispatch(final ResponseIsEmpty object) {
-                m_IsEmpty = object.m_IsEmpty;
-                notifyEveryOne();
-                return null;
+            public final Boolean convert(final ResponseIsEmpty response) {
+                return response.m_IsEmpty;
             }
         });
+    } /* End of 'RemoteMap::isEmptyAsync' method */
 
-        /* Contains key dispatcher */
-        m_Puppeteer.registerDispatcher(ResponseContainsKey.class, new IDispatcher<ResponseContainsKey>() {
+    /* *
+     * METHOD: Queries key presence without blocking
+     * RETURN: Promise of key presence flag
+     *  PARAM: [IN] key - key to check
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final Promise<Boolean> containsKeyAsync(final K key) {
+        return this.<ResponseContainsKey>request(new QueryContainsKey(nextRequestID(), key)).then(new IConverter<ResponseContainsKey, Boolean>() {
             @Override
-            public final Serializable dispatch(final ResponseContainsKey object) {
-                m_ContainsKey = object.m_ContainsKey;
-                notifyEveryOne();
-                return null;
+            public final Boolean convert(final ResponseContainsKey response) {
+                return response.m_ContainsKey;
             }
         });
+    } /* End of 'RemoteMap::containsKeyAsync' method */
 
-        /* Contains value dispatcher */
-        m_Puppeteer.registerDispatcher(ResponseContainsValue.class, new IDispatcher<ResponseContainsValue>() {
+    /* *
+     * METHOD: Queries value presence without blocking
+     * RETURN: Promise of value presence flag
+     *  PARAM: [IN] value - value to check
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final Promise<Boolean> containsValueAsync(final V value) {
+        return this.<ResponseContainsValue>request(new QueryContainsValue(nextRequestID(), value)).then(new IConverter<ResponseContainsValue, Boolean>() {
             @Override
-            public final Serializable dispatch(final ResponseContainsValue object) {
-                m_ContainsValue = object.m_ContainsValue;
-                notifyEveryOne();
-                return null;
+            public final Boolean convert(final ResponseContainsValue response) {
+                return response.m_ContainsValue;
             }
         });
+    } /* End of 'RemoteMap::containsValueAsync' method */
 
-        /* Get dispatcher */
-        m_Puppeteer.registerDispatcher(ResponseGet.class, new IDispatcher<ResponseGet>() {
+    /* *
+     * METHOD: Queries value by key without blocking
+     * RETURN: Promise of value (null if there is no such key)
+     *  PARAM: [IN] key - key to get value
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final Promise<V> getAsync(final K key) {
+        final NearCache<K, V> cache = getNearCache();
+        if (cache != null) {
+            final Option<V> cached = cache.get(key);
+            if (cached != null)
+                return Promise.completed(cached.get());
+        }
+
+        /* Epoch is taken before request, so invalidations during request prevent caching */
+        final long epoch = (cache != null)?cache.getEpoch():0;
+        return this.<ResponseGet>request(new QueryGet(nextRequestID(), key)).then(new IConverter<ResponseGet, V>() {
             @Override
-            public final Serializable dispatch(final ResponseGet object) {
-                m_Get = new Option<Object>(object.m_Value);
-                notifyEveryOne();
-                return null;
+            public final V convert(final ResponseGet response) {
+                if (cache != null)
+                    cache.put(key, (V) response.m_Value, epoch);
+
+                return (V) response.m_Value;
             }
         });
+    } /* End of 'RemoteMap::getAsync' method */
 
-        /* Put dispatcher */
-        m_Puppeteer.registerDispatcher(ResponsePut.class, new IDispatcher<ResponsePut>() {
+    /* *
+     * METHOD: Puts value without blocking
+     * RETURN: Promise of previous value
+     *  PARAM: [IN] key   - key to put
+     *  PARAM: [IN] value - value to put
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final Promise<V> putAsync(final K key, final V value) {
+        invalidate(Collections.singletonList(key));
+        return this.<ResponsePut>request(new QueryPut(nextRequestID(), key, value)).then(new IConverter<ResponsePut, V>() {
             @Override
-            public final Serializable dispatch(final ResponsePut object) {
-                m_Put = new Option<Object>(object.m_Value);
-                notifyEveryOne();
-                return null;
+            public final V convert(final ResponsePut response) {
+                return (V) response.m_Value;
             }
         });
+    } /* End of 'RemoteMap::putAsync' method */
 
-        /* Remove dispatcher */
-        m_Puppeteer.registerDispatcher(ResponseRemove.class, new IDispatcher<ResponseRemove>() {
+    /* *
+     * METHOD: Removes value without blocking
+     * RETURN: Promise of removed value
+     *  PARAM: [IN] key - key to remove
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final Promise<V> removeAsync(final K key) {
+        invalidate(Collections.singletonList(key));
+        return this.<ResponseRemove>request(new QueryRemove(nextRequestID(), key)).then(new IConverter<ResponseRemove, V>() {
             @Override
-            public final Serializable dispatch(final ResponseRemove object) {
-                m_Remove = new Option<Object>(object.m_Value);
-                notifyEveryOne();
-                return null;
+            public final V convert(final ResponseRemove response) {
+                return (V) response.m_Value;
             }
         });
+    } /* End of 'RemoteMap::removeAsync' method */
 
-        /* Key set dispatcher */
-        m_Puppeteer.registerDispatcher(ResponseKeySet.class, new IDispatcher<ResponseKeySet>() {
+    /* *
+     * METHOD: Puts all values without blocking (single round-trip)
+     * RETURN: Promise of previous values of replaced keys
+     *  PARAM: [IN] m - map to put
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final Promise<Map<K, V>> putAllAsync(final Map<? extends K, ? extends V> m) {
+        final Map<? extends K, ? extends V> map = (m instanceof Serializable)?m:new HashMap<K, V>(m);
+        invalidate(map.keySet());
+
+        return this.<ResponsePutAll>request(new QueryPutAll(nextRequestID(), map)).then(new IConverter<ResponsePutAll, Map<K, V>>() {
             @Override
-            public final Serializable dispatch(final ResponseKeySet object) {
-                m_KeySet = object.m_Keys;
-                notifyEveryOne();
-                return null;
+            public final Map<K, V> convert(final ResponsePutAll response) {
+                return (Map<K, V>) response.m_Previous;
             }
         });
+    } /* End of 'RemoteMap::putAllAsync' method */
+
+    /* *
+     * METHOD: Queries values by keys without blocking (single round-trip)
+     * RETURN: Promise of values of existing keys
+     *  PARAM: [IN] keys - keys to get values
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final Promise<Map<K, V>> getAllAsync(final Collection<? extends K> keys) {
+        final NearCache<K, V> cache = getNearCache();
+
+        /* Only not cached keys are requested */
+        final Map<K, V> cached = new HashMap<K, V>();
+        final List<K> missed = new ArrayList<K>(keys.size());
+        for (final K key : keys) {
+            final Option<V> value = (cache != null)?cache.get(key):null;
+            if (value == null)
+                missed.add(key);
+            else if (value.get() != null)
+                cached.put(key, value.get());
+        }
+
+        if (missed.isEmpty())
+            return Promise.completed(cached);
 
-        /* Values dispatcher */
-        m_Puppeteer.registerDispatcher(ResponseValues.class, new IDispatcher<ResponseValues>() {
+        /* Epoch is taken before request, so invalidations during request prevent caching */
+        final long epoch = (cache != null)?cache.getEpoch():0;
+        return this.<ResponseGetAll>request(new QueryGetAll(nextRequestID(), missed)).then(new IConverter<ResponseGetAll, Map<K, V>>() {
             @Override
-            public final Serializable dispatch(final ResponseValues object) {
-                m_Values = object.m_Values;
-                notifyEveryOne();
-                return null;
+            public final Map<K, V> convert(final ResponseGetAll response) {
+                final Map<K, V> values = (Map<K, V>) response.m_Values;
+                if (cache == null)
+                    return values;
+
+                for (final K key : missed)
+                    cache.put(key, values.get(key), epoch);
+
+                values.putAll(cached);
+                return values;
             }
         });
+    } /* End of 'RemoteMap::getAllAsync' method */
 
-        /* Entry set dispatcher */
-        m_Puppeteer.registerDispatcher(ResponseEntrySet.class, new IDispatcher<ResponseEntrySet>() {
+    /* *
+     * METHOD: Removes values by keys without blocking (single round-trip)
+     * RETURN: Promise of removed values
+     *  PARAM: [IN] keys - keys to remove
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final Promise<Map<K, V>> removeAllAsync(final Collection<? extends K> keys) {
+        invalidate(keys);
+        return this.<ResponseRemoveAll>request(new QueryRemoveAll(nextRequestID(), new ArrayList<K>(keys))).then(new IConverter<ResponseRemoveAll, Map<K, V>>() {
             @Override
-            public final Serializable dispatch(final ResponseEntrySet object) {
-                m_EntrySet = object.m_EntrySet;
-                notifyEveryOne();
-                return null;
+            public final Map<K, V> convert(final ResponseRemoveAll response) {
+                return (Map<K, V>) response.m_Removed;
             }
         });
-    } /* End of 'RemoteMap::registerDispatchers' method */
+    } /* End of 'RemoteMap::removeAllAsync' method */
+
+    /* *
+     * METHOD: Clears map without blocking
+     * RETURN: Promise of acknowledgement
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final Promise<ResponseOK> clearAsync() {
+        invalidate(null);
+        return request(new QueryClear(nextRequestID()));
+    } /* End of 'RemoteMap::clearAsync' method */
 
     @Override
     public final int size() {
-        m_Puppeteer.giveCommand(new QuerySize());
-
-        synchronized (this) {
-            try {
-                while (m_Size == null)
-                    wait();
-            } catch (final InterruptedException e) {
-                LoggingUtility.error("Can't wait: " + e.getMessage());
-            }
-        }
-
-        if (m_Size == null)
-            return 0;
-
-        final int size = m_Size.get();
-        m_Size = null;
-        return size;
+        return await(sizeAsync(), 0);
     } /* End of 'RemoteMap::size' method */
 
     @Override
     public boolean isEmpty() {
-        m_Puppeteer.giveCommand(new QueryIsEmpty());
-
-        synchronized (this) {
-            try {
-                while (m_IsEmpty == null)
-                    wait();
-            } catch (final InterruptedException e) {
-                LoggingUtility.error("Can't wait: " + e.getMessage());
-            }
-        }
-
-        if (m_IsEmpty == null)
-            return true;
-
-        final boolean isEmpty = m_IsEmpty;
-        m_IsEmpty = null;
-        return isEmpty;
+        return await(isEmptyAsync(), true);
     } /* End of 'RemoteMap::isEmpty' method */
 
     @Override
     public final boolean containsKey(final Object key) {
-        if (!(key instanceof Serializable))
-            return false;
-
-        m_Puppeteer.giveCommand(new QueryContainsKey((Serializable) key));
-
-        synchronized (this) {
-            try {
-                while (m_ContainsKey == null)
-                    wait();
-            } catch (final InterruptedException e) {
-                LoggingUtility.error("Can't wait: " + e.getMessage());
-            }
-        }
-
-        if (m_ContainsKey == null)
-            return true;
-
-        final boolean containsKey = m_ContainsKey;
-        m_ContainsKey = null;
-        return containsKey;
+        return (key instanceof Serializable) && await(containsKeyAsync((K) key), false);
     } /* End of 'RemoteMap::containsKey' method */
 
     @Override
     public final boolean containsValue(final Object value) {
-        if (!(value instanceof Serializable))
-            return false;
-
-        m_Puppeteer.giveCommand(new QueryContainsValue((Serializable) value));
-
-        synchronized (this) {
-            try {
-                while (m_ContainsValue == null)
-                    wait();
-            } catch (final InterruptedException e) {
-                LoggingUtility.error("Can't wait: " + e.getMessage());
-            }
-        }
-
-        if (m_ContainsValue == null)
-            return true;
-
-        final boolean containsValue = m_ContainsValue;
-        m_ContainsValue = null;
-        return containsValue;
+        return (value instanceof Serializable) && await(containsValueAsync((V) value), false);
     } /* End of 'RemoteMap::containsValue' method */
 
     @Override
     public final V get(final Object key) {
-        if (!(key instanceof Serializable))
-            return null;
-
-        m_Puppeteer.giveCommand(new QueryGet((Serializable) key));
-
-        synchronized (this) {
-            try {
-                while (m_Get == null)
-                    wait();
-            } catch (final InterruptedException e) {
-                LoggingUtility.error("Can't wait: " + e.getMessage());
-            }
-        }
-
-        if (m_Get == null)
-            return null;
-
-        final Object get = m_Get.get();
-        m_Get = null;
-
-        return (V) get;
+        return (key instanceof Serializable)?await(getAsync((K) key), null):null;
     } /* End of 'RemoteMap::get' method */
 
     @Override
     public final V put(final K key, final V value) {
-        m_Puppeteer.giveCommand(new QueryPut(key, value));
-
-        synchronized (this) {
-            try {
-                while (m_Put == null)
-                    wait();
-            } catch (final InterruptedException e) {
-                LoggingUtility.error("Can't wait: " + e.getMessage());
-            }
-        }
-
-        if (m_Put == null)
-            return null;
-
-        final Object put = m_Put.get();
-        m_Put = null;
-
-        return (V) put;
+        return await(putAsync(key, value), null);
     } /* End of 'RemoteMap::put' method */
 
     @Override
     public final V remove(final Object key) {
-        if (!(key instanceof Serializable))
-            return null;
-
-        m_Puppeteer.giveCommand(new QueryRemove((Serializable) key));
-
-        synchronized (this) {
-            try {
-                while (m_Remove == null)
-                    wait();
-            } catch (final InterruptedException e) {
-                LoggingUtility.error("Can't wait: " + e.getMessage());
-            }
-        }
-
-        if (m_Remove == null)
-            return null;
-
-        final Object remove = m_Remove.get();
-        m_Remove = null;
-
-        return (V) remove;
+        return (key instanceof Serializable)?await(removeAsync((K) key), null):null;
     } /* End of 'RemoteMap::remove' method */
 
     @Override
     public final void putAll(final Map<? extends K, ? extends V> m) {
-        if (!(m instanceof Serializable))
-            return;
-
-        m_Puppeteer.giveCommand(new QueryPutAll(m));
+        await(putAllAsync(m), null);
     } /* End of 'RemoteMap::putAll' method */
 
+    /* *
+     * METHOD: Puts all values (single round-trip)
+     * RETURN: Previous values of replaced keys
+     *  PARAM: [IN] m - map to put
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final Map<K, V> putAllWithPrevious(final Map<? extends K, ? extends V> m) {
+        return await(putAllAsync(m), new HashMap<K, V>());
+    } /* End of 'RemoteMap::putAllWithPrevious' method */
+
+    /* *
+     * METHOD: Gets values by keys (single round-trip)
+     * RETURN: Values of existing keys
+     *  PARAM: [IN] keys - keys to get values
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final Map<K, V> getAll(final Collection<? extends K> keys) {
+        return await(getAllAsync(keys), new HashMap<K, V>());
+    } /* End of 'RemoteMap::getAll' method */
+
+    /* *
+     * METHOD: Removes values by keys (single round-trip)
+     * RETURN: Removed values
+     *  PARAM: [IN] keys - keys to remove
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final Map<K, V> removeAll(final Collection<? extends K> keys) {
+        return await(removeAllAsync(keys), new HashMap<K, V>());
+    } /* End of 'RemoteMap::removeAll' method */
+
     @Override
     public final void clear() {
-        m_Puppeteer.giveCommand(new QueryClear());
+        await(clearAsync(), null);
     } /* End of 'RemoteMap::clear' method */
 
     @Override
     public final Set<K> keySet() {
-        m_Puppeteer.giveCommand(new QueryKeySet());
-
-        synchronized (this) {
-            try {
-                while (m_KeySet == null)
-                    wait();
-            } catch (final InterruptedException e) {
-                LoggingUtility.error("Can't wait: " + e.getMessage());
+        return new AbstractSet<K>() {
+            @Override
+            public final Iterator<K> iterator() {
+                return new ScanIterator<K>(true, new IConverter<Entry<K, V>, K>() {
+                    @Override
+                    public final K convert(final Entry<K, V> entry) {
+                        return entry.getKey();
+                    }
+                });
             }
-        }
 
-        if (m_KeySet == null)
-            return new HashSet<K>();
+            @Override
+            public final int size() {
+                return RemoteMap.this.size();
+            }
 
-        final Object keySet = m_KeySet;
-        m_KeySet = null;
+            @Override
+            public final boolean contains(final Object o) {
+                return containsKey(o);
+            }
+
+            @Override
+            public final boolean remove(final Object o) {
+                return RemoteMap.this.remove(o) != null;
+            }
 
-        return (Set<K>) keySet;
+            @Override
+            public final void clear() {
+                RemoteMap.this.clear();
+            }
+        };
     } /* End of 'RemoteMap::keySet' method */
 
     @Override
     public final Collection<V> values() {
-        m_Puppeteer.giveCommand(new QueryValues());
-
-        synchronized (this) {
-            try {
-                while (m_Values == null)
-                    wait();
-            } catch (final InterruptedException e) {
-                LoggingUtility.error("Can't wait: " + e.getMessage());
+        return new AbstractCollection<V>() {
+            @Override
+            public final Iterator<V> iterator() {
+                return new ScanIterator<V>(false, new IConverter<Entry<K, V>, V>() {
+                    @Override
+                    public final V convert(final Entry<K, V> entry) {
+                        return entry.getValue();
+                    }
+                });
             }
-        }
-
-        if (m_Values == null)
-            return new LinkedList<V>();
 
-        final Object values = m_Values;
-        m_Values = null;
+            @Override
+            public final int size() {
+                return RemoteMap.this.size();
+            }
 
-        return (Collection<V>) values;
+            @Override
+            public final void clear() {
+                RemoteMap.this.clear();
+            }
+        };
     } /* End of 'RemoteMap::values' method */
 
     @Override
     public final Set<Entry<K, V>> entrySet() {
-        m_Puppeteer.giveCommand(new QueryEntrySet());
-
-        synchronized (this) {
-            try {
-                while (m_EntrySet == null)
-                    wait();
-            } catch (final InterruptedException e) {
-                LoggingUtility.error("Can't wait: " + e.getMessage());
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            public final Iterator<Entry<K, V>> iterator() {
+                return new ScanIterator<Entry<K, V>>(false, new IConverter<Entry<K, V>, Entry<K, V>>() {
+                    @Override
+                    public final Entry<K, V> convert(final Entry<K, V> entry) {
+                        return entry;
+                    }
+                });
             }
-        }
 
-        if (m_EntrySet == null)
-            return new HashSet<Entry<K, V>>();
-
-        final Object entrySet = m_EntrySet;
-        m_EntrySet = null;
+            @Override
+            public final int size() {
+                return RemoteMap.this.size();
+            }
 
-        return (HashSet<Entry<K, V>>) entrySet;
+            @Override
+            public final void clear() {
+                RemoteMap.this.clear();
+            }
+        };
     } /* End of 'RemoteMap::entrySet' method */
 
+    /* *
+     * METHOD: Disconnects from shared map (pending queries fail)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final void close() {
+        m_Puppeteer.finish();
+    } /* End of 'RemoteMap::close' method */
+
     @Override
     protected void finalize() throws Throwable {
         LoggingUtility.core("Remote map removed");
-        m_Puppeteer.finish();
+        close();
 
         super.finalize();
     } /* End of 'RemoteMap::finalize' method */
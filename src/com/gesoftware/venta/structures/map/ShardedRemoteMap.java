@@ -0,0 +1,542 @@
+package com.gesoftware.venta.structures.map;
+
+import com.gesoftware.venta.actors.Promise;
+import com.gesoftware.venta.logging.LoggingUtility;
+import com.gesoftware.venta.processing.IConverter;
+import com.gesoftware.venta.structures.map.protocol.common.ResponseOK;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Sharded remote map class definition (keys are partitioned between several shared maps by consistent hashing,
+ * every shared map is a separate theater node; all clients should use the same nodes list)
+ **/
+@SuppressWarnings("unchecked")
+public final class ShardedRemoteMap<K extends Serializable, V extends Serializable> implements Map<K, V> {
+    /* Shards by addresses */
+    private final Map<String, RemoteMap<K, V>> m_Shards = new LinkedHashMap<String, RemoteMap<K, V>>();
+
+    /* Keys to shards distribution */
+    private final ConsistentHashRing<RemoteMap<K, V>> m_Ring;
+
+    /**
+     * Chained iterator class definition (iterates shards one by one; shard iterator is created only when previous
+     * one is over, so shard scan isn't started long before it's read and it's cursor doesn't expire)
+     **/
+    private final static class ChainedIterator<S, T> implements Iterator<T> {
+        /* Shards */
+        private final Iterator<S> m_Shards;
+
+        /* Shard to iterator converter */
+        private final IConverter<S, Iterator<T>> m_Converter;
+
+        /* Current shard iterator */
+        private Iterator<T> m_Current;
+
+        /* Iterator, which returned last item (for removing) */
+        private Iterator<T> m_Last;
+
+        /* *
+         * METHOD: Class constructor
+         *  PARAM: [IN] shards    - shards to iterate
+         *  PARAM: [IN] converter - shard to iterator converter
+         * AUTHOR: Dmitry Eliseev
+         * */
+        public ChainedIterator(final Collection<S> shards, final IConverter<S, Iterator<T>> converter) {
+            m_Shards    = shards.iterator();
+            m_Converter = converter;
+            m_Current   = Collections.<T>emptyList().iterator();
+        } /* End of 'ChainedIterator::ChainedIterator' method */
+
+        @Override
+        public final boolean hasNext() {
+            while (!m_Current.hasNext() && m_Shards.hasNext())
+                m_Current = m_Converter.convert(m_Shards.next());
+
+            return m_Current.hasNext();
+        } /* End of 'ChainedIterator::hasNext' method */
+
+        @Override
+        public final T next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            m_Last = m_Current;
+            return m_Current.next();
+        } /* End of 'ChainedIterator::next' method */
+
+        @Override
+        public final void remove() {
+            if (m_Last == null)
+                throw new IllegalStateException();
+
+            m_Last.remove();
+        } /* End of 'ChainedIterator::remove' method */
+    } /* End of 'ShardedRemoteMap::ChainedIterator' class */
+
+    /* *
+     * METHOD: Class constructor
+     *  PARAM: [IN] nodes - shared maps addresses ("host:port")
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public ShardedRemoteMap(final Collection<String> nodes) {
+        this(nodes, 0);
+    } /* End of 'ShardedRemoteMap::ShardedRemoteMap' method */
+
+    /* *
+     * METHOD: Class constructor
+     *  PARAM: [IN] nodes             - shared maps addresses ("host:port")
+     *  PARAM: [IN] nearCacheCapacity - maximal number of locally cached keys per shard (0 disables near cache)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public ShardedRemoteMap(final Collection<String> nodes, final int nearCacheCapacity) {
+        for (final String node : nodes) {
+            final int separator = node.lastIndexOf(':');
+            if (separator < 0)
+                throw new IllegalArgumentException("Wrong node address: " + node);
+
+            final String host = node.substring(0, separator);
+            final int    port = Integer.parseInt(node.substring(separator + 1));
+            m_Shards.put(node, new RemoteMap<K, V>(host, port, nearCacheCapacity));
+        }
+
+        m_Ring = new ConsistentHashRing<RemoteMap<K, V>>(m_Shards);
+        LoggingUtility.core("Sharded map created (" + m_Shards.size() + " shards)");
+    } /* End of 'ShardedRemoteMap::ShardedRemoteMap' method */
+
+    /* *
+     * METHOD: Class constructor (all shards are on the same host)
+     *  PARAM: [IN] host  - host to connect
+     *  PARAM: [IN] ports - shared maps ports
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public ShardedRemoteMap(final String host, final int... ports) {
+        this(toAddresses(host, ports));
+    } /* End of 'ShardedRemoteMap::ShardedRemoteMap' method */
+
+    /* *
+     * METHOD: Builds nodes addresses
+     * RETURN: Addresses list ("host:port")
+     *  PARAM: [IN] host  - nodes host
+     *  PARAM: [IN] ports - nodes ports
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private static List<String> toAddresses(final String host, final int... ports) {
+        final List<String> addresses = new ArrayList<String>(ports.length);
+        for (final int port : ports)
+            addresses.add(host + ":" + port);
+
+        return addresses;
+    } /* End of 'ShardedRemoteMap::toAddresses' method */
+
+    /* *
+     * METHOD: Gets shard, owning key
+     * RETURN: Shard remote map
+     *  PARAM: [IN] key - key to locate
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private RemoteMap<K, V> getShard(final Object key) {
+        return m_Ring.get(key);
+    } /* End of 'ShardedRemoteMap::getShard' method */
+
+    /* *
+     * METHOD: Gets shards
+     * RETURN: Shards by addresses
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final Map<String, RemoteMap<K, V>> getShards() {
+        return Collections.unmodifiableMap(m_Shards);
+    } /* End of 'ShardedRemoteMap::getShards' method */
+
+    /* *
+     * METHOD: Splits keys by owning shards
+     * RETURN: Keys per shard
+     *  PARAM: [IN] keys - keys to split
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private Map<RemoteMap<K, V>, List<K>> split(final Collection<? extends K> keys) {
+        final Map<RemoteMap<K, V>, List<K>> parts = new IdentityHashMap<RemoteMap<K, V>, List<K>>();
+        for (final K key : keys) {
+            final RemoteMap<K, V> shard = getShard(key);
+
+            List<K> part = parts.get(shard);
+            if (part == null)
+                parts.put(shard, part = new ArrayList<K>());
+
+            part.add(key);
+        }
+
+        return parts;
+    } /* End of 'ShardedRemoteMap::split' method */
+
+    /* *
+     * METHOD: Merges shards results
+     * RETURN: Promise of merged result
+     *  PARAM: [IN] promises - shards promises
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private static <K, V> Promise<Map<K, V>> merge(final List<Promise<Map<K, V>>> promises) {
+        return Promise.all(promises).then(new IConverter<List<Map<K, V>>, Map<K, V>>() {
+            @Override
+            public final Map<K, V> convert(final List<Map<K, V>> parts) {
+                final Map<K, V> result = new HashMap<K, V>();
+                for (final Map<K, V> part : parts)
+                    result.putAll(part);
+
+                return result;
+            }
+        });
+    } /* End of 'ShardedRemoteMap::merge' method */
+
+    /* *
+     * METHOD: Waits for promise completion
+     * RETURN: Promise result if success, failure value otherwise
+     *  PARAM: [IN] promise - promise to wait for
+     *  PARAM: [IN] failure - value to return if promise fails
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private <T> T await(final Promise<T> promise, final T failure) {
+        try {
+            return promise.get();
+        } catch (final InterruptedException e) {
+            LoggingUtility.error("Can't wait: " + e.getMessage());
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException e) {
+            LoggingUtility.error("Query failed: " + e.getCause().getMessage());
+        }
+
+        return failure;
+    } /* End of 'ShardedRemoteMap::await' method */
+
+    /* *
+     * METHOD: Queries map size without blocking (all shards are queried in parallel)
+     * RETURN: Promise of map size
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final Promise<Integer> sizeAsync() {
+        final List<Promise<Integer>> promises = new ArrayList<Promise<Integer>>(m_Shards.size());
+        for (final RemoteMap<K, V> shard : m_Shards.values())
+            promises.add(shard.sizeAsync());
+
+        return Promise.all(promises).then(new IConverter<List<Integer>, Integer>() {
+            @Override
+            public final Integer convert(final List<Integer> sizes) {
+                int size = 0;
+                for (final Integer shardSize : sizes)
+                    size += shardSize;
+
+                return size;
+            }
+        });
+    } /* End of 'ShardedRemoteMap::sizeAsync' method */
+
+    /* *
+     * METHOD: Checks map emptiness without blocking (all shards are queried in parallel)
+     * RETURN: Promise of emptiness flag
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final Promise<Boolean> isEmptyAsync() {
+        final List<Promise<Boolean>> promises = new ArrayList<Promise<Boolean>>(m_Shards.size());
+        for (final RemoteMap<K, V> shard : m_Shards.values())
+            promises.add(shard.isEmptyAsync());
+
+        return Promise.all(promises).then(new IConverter<List<Boolean>, Boolean>() {
+            @Override
+            public final Boolean convert(final List<Boolean> flags) {
+                return !flags.contains(Boolean.FALSE);
+            }
+        });
+    } /* End of 'ShardedRemoteMap::isEmptyAsync' method */
+
+    /* *
+     * METHOD: Checks key existence without blocking
+     * RETURN: Promise of existence flag
+     *  PARAM: [IN] key - key to check
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final Promise<Boolean> containsKeyAsync(final K key) {
+        return getShard(key).containsKeyAsync(key);
+    } /* End of 'ShardedRemoteMap::containsKeyAsync' method */
+
+    /* *
+     * METHOD: Checks value existence without blocking (all shards are queried in parallel)
+     * RETURN: Promise of existence flag
+     *  PARAM: [IN] value - value to check
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final Promise<Boolean> containsValueAsync(final V value) {
+        final List<Promise<Boolean>> promises = new ArrayList<Promise<Boolean>>(m_Shards.size());
+        for (final RemoteMap<K, V> shard : m_Shards.values())
+            promises.add(shard.containsValueAsync(value));
+
+        return Promise.all(promises).then(new IConverter<List<Boolean>, Boolean>() {
+            @Override
+            public final Boolean convert(final List<Boolean> flags) {
+                return flags.contains(Boolean.TRUE);
+            }
+        });
+    } /* End of 'ShardedRemoteMap::containsValueAsync' method */
+
+    /* *
+     * METHOD: Queries value without blocking
+     * RETURN: Promise of value
+     *  PARAM: [IN] key - key to get value
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final Promise<V> getAsync(final K key) {
+        return getShard(key).getAsync(key);
+    } /* End of 'ShardedRemoteMap::getAsync' method */
+
+    /* *
+     * METHOD: Puts value without blocking
+     * RETURN: Promise of previous value
+     *  PARAM: [IN] key   - key to put
+     *  PARAM: [IN] value - value to put
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final Promise<V> putAsync(final K key, final V value) {
+        return getShard(key).putAsync(key, value);
+    } /* End of 'ShardedRemoteMap::putAsync' method */
+
+    /* *
+     * METHOD: Removes value without blocking
+     * RETURN: Promise of removed value
+     *  PARAM: [IN] key - key to remove
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final Promise<V> removeAsync(final K key) {
+        return getShard(key).removeAsync(key);
+    } /* End of 'ShardedRemoteMap::removeAsync' method */
+
+    /* *
+     * METHOD: Puts all values without blocking (one round-trip per shard, shards are queried in parallel)
+     * RETURN: Promise of previous values of replaced keys
+     *  PARAM: [IN] m - map to put
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final Promise<Map<K, V>> putAllAsync(final Map<? extends K, ? extends V> m) {
+        final Map<RemoteMap<K, V>, Map<K, V>> parts = new IdentityHashMap<RemoteMap<K, V>, Map<K, V>>();
+        for (final Entry<? extends K, ? extends V> entry : m.entrySet()) {
+            final RemoteMap<K, V> shard = getShard(entry.getKey());
+
+            Map<K, V> part = parts.get(shard);
+            if (part == null)
+                parts.put(shard, part = new HashMap<K, V>());
+
+            part.put(entry.getKey(), entry.getValue());
+        }
+
+        final List<Promise<Map<K, V>>> promises = new ArrayList<Promise<Map<K, V>>>(parts.size());
+        for (final Entry<RemoteMap<K, V>, Map<K, V>> part : parts.entrySet())
+            promises.add(part.getKey().putAllAsync(part.getValue()));
+
+        return merge(promises);
+    } /* End of 'ShardedRemoteMap::putAllAsync' method */
+
+    /* *
+     * METHOD: Queries values by keys without blocking (one round-trip per shard, shards are queried in parallel)
+     * RETURN: Promise of values of existing keys
+     *  PARAM: [IN] keys - keys to get values
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final Promise<Map<K, V>> getAllAsync(final Collection<? extends K> keys) {
+        final Map<RemoteMap<K, V>, List<K>> parts = split(keys);
+
+        final List<Promise<Map<K, V>>> promises = new ArrayList<Promise<Map<K, V>>>(parts.size());
+        for (final Entry<RemoteMap<K, V>, List<K>> part : parts.entrySet())
+            promises.add(part.getKey().getAllAsync(part.getValue()));
+
+        return merge(promises);
+    } /* End of 'ShardedRemoteMap::getAllAsync' method */
+
+    /* *
+     * METHOD: Removes values by keys without blocking (one round-trip per shard, shards are queried in parallel)
+     * RETURN: Promise of removed values
+     *  PARAM: [IN] keys - keys to remove
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final Promise<Map<K, V>> removeAllAsync(final Collection<? extends K> keys) {
+        final Map<RemoteMap<K, V>, List<K>> parts = split(keys);
+
+        final List<Promise<Map<K, V>>> promises = new ArrayList<Promise<Map<K, V>>>(parts.size());
+        for (final Entry<RemoteMap<K, V>, List<K>> part : parts.entrySet())
+            promises.add(part.getKey().removeAllAsync(part.getValue()));
+
+        return merge(promises);
+    } /* End of 'ShardedRemoteMap::removeAllAsync' method */
+
+    /* *
+     * METHOD: Clears all shards without blocking
+     * RETURN: Promise of shards acknowledgements
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final Promise<List<ResponseOK>> clearAsync() {
+        final List<Promise<ResponseOK>> promises = new ArrayList<Promise<ResponseOK>>(m_Shards.size());
+        for (final RemoteMap<K, V> shard : m_Shards.values())
+            promises.add(shard.clearAsync());
+
+        return Promise.all(promises);
+    } /* End of 'ShardedRemoteMap::clearAsync' method */
+
+    @Override
+    public final int size() {
+        return await(sizeAsync(), 0);
+    } /* End of 'ShardedRemoteMap::size' method */
+
+    @Override
+    public final boolean isEmpty() {
+        return await(isEmptyAsync(), true);
+    } /* End of 'ShardedRemoteMap::isEmpty' method */
+
+    @Override
+    public final boolean containsKey(final Object key) {
+        return getShard(key).containsKey(key);
+    } /* End of 'ShardedRemoteMap::containsKey' method */
+
+    @Override
+    public final boolean containsValue(final Object value) {
+        return (value instanceof Serializable) && await(containsValueAsync((V) value), false);
+    } /* End of 'ShardedRemoteMap::containsValue' method */
+
+    @Override
+    public final V get(final Object key) {
+        return getShard(key).get(key);
+    } /* End of 'ShardedRemoteMap::get' method */
+
+    @Override
+    public final V put(final K key, final V value) {
+        return getShard(key).put(key, value);
+    } /* End of 'ShardedRemoteMap::put' method */
+
+    @Override
+    public final V remove(final Object key) {
+        return getShard(key).remove(key);
+    } /* End of 'ShardedRemoteMap::remove' method */
+
+    @Override
+    public final void putAll(final Map<? extends K, ? extends V> m) {
+        await(putAllAsync(m), null);
+    } /* End of 'ShardedRemoteMap::putAll' method */
+
+    /* *
+     * METHOD: Puts all values (one round-trip per shard)
+     * RETURN: Previous values of replaced keys
+     *  PARAM: [IN] m - map to put
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final Map<K, V> putAllWithPrevious(final Map<? extends K, ? extends V> m) {
+        return await(putAllAsync(m), new HashMap<K, V>());
+    } /* End of 'ShardedRemoteMap::putAllWithPrevious' method */
+
+    /* *
+     * METHOD: Gets values by keys (one round-trip per shard)
+     * RETURN: Values of existing keys
+     *  PARAM: [IN] keys - keys to get values
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final Map<K, V> getAll(final Collection<? extends K> keys) {
+        return await(getAllAsync(keys), new HashMap<K, V>());
+    } /* End of 'ShardedRemoteMap::getAll' method */
+
+    /* *
+     * METHOD: Removes values by keys (one round-trip per shard)
+     * RETURN: Removed values
+     *  PARAM: [IN] keys - keys to remove
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final Map<K, V> removeAll(final Collection<? extends K> keys) {
+        return await(removeAllAsync(keys), new HashMap<K, V>());
+    } /* End of 'ShardedRemoteMap::removeAll' method */
+
+    @Override
+    public final void clear() {
+        await(clearAsync(), null);
+    } /* End of 'ShardedRemoteMap::clear' method */
+
+    @Override
+    public final Set<K> keySet() {
+        return new AbstractSet<K>() {
+            @Override
+            public final Iterator<K> iterator() {
+                return new ChainedIterator<RemoteMap<K, V>, K>(m_Shards.values(), new IConverter<RemoteMap<K, V>, Iterator<K>>() {
+                    @Override
+                    public final Iterator<K> convert(final RemoteMap<K, V> shard) {
+                        return shard.keySet().iterator();
+                    }
+                });
+            }
+
+            @Override
+            public final int size() {
+                return ShardedRemoteMap.this.size();
+            }
+
+            @Override
+            public final boolean contains(final Object o) {
+                return containsKey(o);
+            }
+
+            @Override
+            public final boolean remove(final Object o) {
+                return ShardedRemoteMap.this.remove(o) != null;
+            }
+
+            @Override
+            public final void clear() {
+                ShardedRemoteMap.this.clear();
+            }
+        };
+    } /* End of 'ShardedRemoteMap::keySet' method */
+
+    @Override
+    public final Collection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override
+            public final Iterator<V> iterator() {
+                return new ChainedIterator<RemoteMap<K, V>, V>(m_Shards.values(), new IConverter<RemoteMap<K, V>, Iterator<V>>() {
+                    @Override
+                    public final Iterator<V> convert(final RemoteMap<K, V> shard) {
+                        return shard.values().iterator();
+                    }
+                });
+            }
+
+            @Override
+            public final int size() {
+                return ShardedRemoteMap.this.size();
+            }
+
+            @Override
+            public final void clear() {
+                ShardedRemoteMap.this.clear();
+            }
+        };
+    } /* End of 'ShardedRemoteMap::values' method */
+
+    @Override
+    public final Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            public final Iterator<Entry<K, V>> iterator() {
+                return new ChainedIterator<RemoteMap<K, V>, Entry<K, V>>(m_Shards.values(), new IConverter<RemoteMap<K, V>, Iterator<Entry<K, V>>>() {
+                    @Override
+                    public final Iterator<Entry<K, V>> convert(final RemoteMap<K, V> shard) {
+                        return shard.entrySet().iterator();
+                    }
+                });
+            }
+
+            @Override
+            public final int size() {
+                return ShardedRemoteMap.this.size();
+            }
+
+            @Override
+            public final void clear() {
+                ShardedRemoteMap.this.clear();
+            }
+        };
+    } /* End of 'ShardedRemoteMap::entrySet' method */
+} /* End of 'ShardedRemoteMap' class */
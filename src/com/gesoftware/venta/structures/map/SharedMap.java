@@ -3,14 +3,23 @@ package com.gesoftware.venta.structures.map;
 import com.gesoftware.venta.actors.IActor;
 import com.gesoftware.venta.actors.Theater;
 import com.gesoftware.venta.logging.LoggingUtility;
+import com.gesoftware.venta.time.Timer;
 import com.gesoftware.venta.structures.map.protocol.clear.QueryClear;
+import com.gesoftware.venta.structures.map.protocol.common.ProtocolCodec;
+import com.gesoftware.venta.structures.map.protocol.common.Response;
+import com.gesoftware.venta.structures.map.protocol.common.ResponseFailed;
 import com.gesoftware.venta.structures.map.protocol.common.ResponseOK;
 import com.gesoftware.venta.structures.map.protocol.containskey.QueryContainsKey;
 import com.gesoftware.venta.structures.map.protocol.containskey.ResponseContainsKey;
 import com.gesoftware.venta.structures.map.protocol.containsvalue.QueryContainsValue;
 import com.gesoftware.venta.structures.map.protocol.containsvalue.ResponseContainsValue;
+import com.gesoftware.venta.structures.map.protocol.entryset.QueryEntrySet;
+import com.gesoftware.venta.structures.map.protocol.entryset.ResponseEntrySet;
 import com.gesoftware.venta.structures.map.protocol.get.QueryGet;
 import com.gesoftware.venta.structures.map.protocol.get.ResponseGet;
+import com.gesoftware.venta.structures.map.protocol.getall.QueryGetAll;
+import com.gesoftware.venta.structures.map.protocol.getall.ResponseGetAll;
+import com.gesoftware.venta.structures.map.protocol.invalidation.Invalidation;
 import com.gesoftware.venta.structures.map.protocol.isempty.QueryIsEmpty;
 import com.gesoftware.venta.structures.map.protocol.isempty.ResponseIsEmpty;
 import com.gesoftware.venta.structures.map.protocol.keyset.QueryKeySet;
@@ -18,39 +27,261 @@ import com.gesoftware.venta.structures.map.protocol.keyset.ResponseKeySet;
 import com.gesoftware.venta.structures.map.protocol.put.QueryPut;
 import com.gesoftware.venta.structures.map.protocol.put.ResponsePut;
 import com.gesoftware.venta.structures.map.protocol.putall.QueryPutAll;
+import com.gesoftware.venta.structures.map.protocol.putall.ResponsePutAll;
 import com.gesoftware.venta.structures.map.protocol.remove.QueryRemove;
 import com.gesoftware.venta.structures.map.protocol.remove.ResponseRemove;
+import com.gesoftware.venta.structures.map.protocol.removeall.QueryRemoveAll;
+import com.gesoftware.venta.structures.map.protocol.removeall.ResponseRemoveAll;
+import com.gesoftware.venta.structures.map.protocol.scan.QueryScan;
+import com.gesoftware.venta.structures.map.protocol.scan.ResponseScan;
 import com.gesoftware.venta.structures.map.protocol.size.QuerySize;
 import com.gesoftware.venta.structures.map.protocol.size.ResponseSize;
+import com.gesoftware.venta.structures.map.protocol.subscribe.QuerySubscribe;
 import com.gesoftware.venta.structures.map.protocol.values.QueryValues;
 import com.gesoftware.venta.structures.map.protocol.values.ResponseValues;
+import com.gesoftware.venta.utility.CompressionUtility;
 
+import java.io.File;
 import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Shared map class definition
  **/
 @SuppressWarnings("unchecked")
 public final class SharedMap<K extends Serializable, V extends Serializable> implements Map<K, V>, Serializable {
+    /* Idle scan session lifetime (ms) */
+    private final static int c_ScanTimeout = 60 * 1000;
+
+    /* Maximal number of entries per scan chunk */
+    private final static int c_ScanMaxLimit = 10000;
+
+    /* Protocol messages are sent with compact codec */
+    static {
+        CompressionUtility.register(new ProtocolCodec());
+    }
+
     private final Map<K, V> m_Map;
     private Theater m_Theater;
 
+    /* Changes journal (null if map is not durable) */
+    private final MapJournal<K, V> m_Journal;
+
+    /* Opened scan sessions (by cursor) */
+    private final Map<Long, ScanSession> m_Scans = new ConcurrentHashMap<Long, ScanSession>();
+
+    /* Last scan cursor */
+    private final AtomicLong m_ScanCursor = new AtomicLong();
+
+    /* Puppeteers, subscribed to invalidations (near caches) */
+    private final Set<String> m_Subscribers = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /**
+     * Scan session class definition (server side cursor over map keys)
+     **/
+    private final class ScanSession {
+        /* Not scanned keys (weakly consistent: scan goes over live map without copying it) */
+        private final Iterator<K> m_Keys = m_Map.keySet().iterator();
+
+        /* Last session access time */
+        private final Timer m_LastAccess = new Timer();
+
+        /* *
+         * METHOD: Determines if session wasn't used for too long
+         * RETURN: True if session is expired, False otherwise
+         * AUTHOR: Dmitry Eliseev
+         * */
+        public final boolean isExpired() {
+            return m_LastAccess.getTimeSinceLastMeasure() > c_ScanTimeout;
+        } /* End of 'ScanSession::isExpired' method */
+
+        /* *
+         * METHOD: Reads next chunk of entries (keys, removed during scan, are skipped)
+         * RETURN: True if there are more entries, False if scan is finished
+         *  PARAM: [OUT] keys   - chunk keys
+         *  PARAM: [OUT] values - chunk values (null if only keys are needed)
+         *  PARAM: [IN]  limit  - maximal chunk size
+         * AUTHOR: Dmitry Eliseev
+         * */
+        public final synchronized boolean next(final List<K> keys, final List<V> values, final int limit) {
+            m_LastAccess.measure();
+
+            while ((keys.size() < limit) && m_Keys.hasNext()) {
+                final K key = m_Keys.next();
+                if (values == null) {
+                    keys.add(key);
+                    continue;
+                }
+
+                final V value = m_Map.get(key);
+                if ((value != null) || m_Map.containsKey(key)) {
+                    keys.add(key);
+                    values.add(value);
+                }
+            }
+
+            return m_Keys.hasNext();
+        } /* End of 'ScanSession::next' method */
+    } /* End of 'SharedMap::ScanSession' class */
+
     /* *
      * METHOD: Class constructor
      *  PARAM: [IN] port - port to listen incoming connections
      * AUTHOR: Dmitry Eliseev
      * */
     public SharedMap(final int port) {
-        m_Map     = new SynchronizedMap<K, V>();
+        this(port, null);
+    } /* End of 'SharedMap::SharedMap' method */
+
+    /* *
+     * METHOD: Class constructor (durable map: changes are journaled, map is recovered from directory; changes made
+     *         through key set, values and entry set views are not journaled)
+     *  PARAM: [IN] port      - port to listen incoming connections
+     *  PARAM: [IN] directory - journal directory (null for in-memory map)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public SharedMap(final int port, final String directory) {
+        this(port, directory, 0);
+    } /* End of 'SharedMap::SharedMap' method */
+
+    /* *
+     * METHOD: Class constructor (durable map with given journal compaction threshold)
+     *  PARAM: [IN] port                - port to listen incoming connections
+     *  PARAM: [IN] directory           - journal directory (null for in-memory map)
+     *  PARAM: [IN] compactionThreshold - the number of journal records, after which journal is compacted (0 - default)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    SharedMap(final int port, final String directory, final long compactionThreshold) {
+        m_Map = new SynchronizedMap<K, V>();
+        if (directory == null)
+            m_Journal = null;
+        else if (compactionThreshold > 0)
+            m_Journal = new MapJournal<K, V>(new File(directory), m_Map, compactionThreshold);
+        else
+            m_Journal = new MapJournal<K, V>(new File(directory), m_Map);
 
         m_Theater = new Theater(port);
         new Thread(m_Theater).start();
         registerActors();
     } /* End of 'SharedMap::SharedMap' method */
 
+    /* *
+     * METHOD: Informs subscribers about changed keys (unreachable subscribers are forgotten)
+     *  PARAM: [IN] keys - changed keys (null if whole map is changed)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private void invalidate(final Collection<? extends Serializable> keys) {
+        if (m_Subscribers.isEmpty())
+            return;
+
+        m_Subscribers.removeAll(m_Theater.send(m_Subscribers, new Invalidation(keys)));
+    } /* End of 'SharedMap::invalidate' method */
+
+    /* *
+     * METHOD: Puts all values
+     * RETURN: Previous values of replaced keys
+     *  PARAM: [IN] m - map to put
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private HashMap<K, V> putAllWithPrevious(final Map<K, V> m) {
+        if (m_Journal != null)
+            return m_Journal.putAll(m);
+
+        final HashMap<K, V> previous = new HashMap<K, V>();
+        for (final Entry<K, V> entry : m.entrySet()) {
+            final V value = m_Map.put(entry.getKey(), entry.getValue());
+            if (value != null)
+                previous.put(entry.getKey(), value);
+        }
+
+        return previous;
+    } /* End of 'SharedMap::putAllWithPrevious' method */
+
+    /* *
+     * METHOD: Removes values by keys
+     * RETURN: Removed values
+     *  PARAM: [IN] keys - keys to remove
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private HashMap<K, V> removeAll(final Collection<? extends Serializable> keys) {
+        if (m_Journal != null)
+            return m_Journal.removeAll(keys);
+
+        final HashMap<K, V> removed = new HashMap<K, V>();
+        for (final Serializable key : keys) {
+            final V value = m_Map.remove(key);
+            if (value != null)
+                removed.put((K) key, value);
+        }
+
+        return removed;
+    } /* End of 'SharedMap::removeAll' method */
+
+    /* *
+     * METHOD: Closes scan sessions, that weren't used for too long
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private void expireScans() {
+        for (final Map.Entry<Long, ScanSession> scan : m_Scans.entrySet())
+            if (scan.getValue().isExpired())
+                m_Scans.remove(scan.getKey());
+    } /* End of 'SharedMap::expireScans' method */
+
+    /* *
+     * METHOD: Reads next scan chunk (opens new scan session for start cursor)
+     * RETURN: Scan response with cursor of next chunk (finished scan has start cursor)
+     *  PARAM: [IN] query - scan query
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private ResponseScan scan(final QueryScan query) {
+        expireScans();
+
+        long cursor = query.m_Cursor;
+        final ScanSession session;
+        if (cursor == QueryScan.c_CursorStart) {
+            cursor  = m_ScanCursor.incrementAndGet();
+            session = new ScanSession();
+            m_Scans.put(cursor, session);
+        } else {
+            session = m_Scans.get(cursor);
+            if (session == null)
+                return new ResponseScan(query.m_RequestID, QueryScan.c_CursorExpired, null, null);
+        }
+
+        final List<K> keys   = new ArrayList<K>();
+        final List<V> values = query.m_IsKeysOnly?null:new ArrayList<V>();
+        if (!session.next(keys, values, Math.max(1, Math.min(query.m_Limit, c_ScanMaxLimit)))) {
+            m_Scans.remove(cursor);
+            cursor = QueryScan.c_CursorStart;
+        }
+
+        return new ResponseScan(query.m_RequestID, cursor, keys, values);
+    } /* End of 'SharedMap::scan' method */
+
+    /* *
+     * METHOD: Answers query, which change can't be made durable (only this query fails, client stays connected)
+     * RETURN: Failed response
+     *  PARAM: [IN] clientID  - client identifier
+     *  PARAM: [IN] requestID - query identifier
+     *  PARAM: [IN] failure   - change failure
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private static Response fail(final String clientID, final long requestID, final IllegalStateException failure) {
+        LoggingUtility.error("Query of user <" + clientID + "> failed: " + failure.getMessage());
+        return new ResponseFailed(requestID, failure.getMessage());
+    } /* End of 'SharedMap::fail' method */
+
     /* *
      * METHOD: Registers actors for incoming commands
      * AUTHOR: Dmitry Eliseev
@@ -61,7 +292,7 @@ public final class SharedMap<K extends Serializable, V extends Serializable> imp
             @Override
             public final Serializable react(final String clientID, final QuerySize object) {
                 LoggingUtility.core("User <" + clientID + "> queried map size");
-                return new ResponseSize(size());
+                return new ResponseSize(object.m_RequestID, size());
             }
         });
 
@@ -70,7 +301,7 @@ public final class SharedMap<K extends Serializable, V extends Serializable> imp
             @Override
             public final Serializable react(final String clientID, final QueryIsEmpty object) {
                 LoggingUtility.core("User <" + clientID + "> queried map emptiness");
-                return new ResponseIsEmpty(isEmpty());
+                return new ResponseIsEmpty(object.m_RequestID, isEmpty());
             }
         });
 
@@ -79,7 +310,7 @@ public final class SharedMap<K extends Serializable, V extends Serializable> imp
             @Override
             public final Serializable react(final String clientID, final QueryContainsKey object) {
                 LoggingUtility.core("User <" + clientID + "> queried key contains: " + object.m_Key);
-                return new ResponseContainsKey(containsKey(object.m_Key));
+                return new ResponseContainsKey(object.m_RequestID, containsKey(object.m_Key));
             }
         });
 
@@ -88,7 +319,7 @@ public final class SharedMap<K extends Serializable, V extends Serializable> imp
             @Override
             public final Serializable react(final String clientID, final QueryContainsValue object) {
                 LoggingUtility.core("User <" + clientID + "> queried value contains: " + object.m_Value);
-                return new ResponseContainsValue(containsValue(object.m_Value));
+                return new ResponseContainsValue(object.m_RequestID, containsValue(object.m_Value));
             }
         });
 
@@ -97,7 +328,7 @@ public final class SharedMap<K extends Serializable, V extends Serializable> imp
             @Override
             public final Serializable react(final String clientID, final QueryGet object) {
                 LoggingUtility.core("User <" + clientID + "> queried value: " + object.m_Key);
-                return new ResponseGet(get(object.m_Key));
+                return new ResponseGet(object.m_RequestID, get(object.m_Key));
             }
         });
 
@@ -106,7 +337,11 @@ public final class SharedMap<K extends Serializable, V extends Serializable> imp
             @Override
             public final Serializable react(final String clientID, final QueryPut object) {
                 LoggingUtility.core("User <" + clientID + "> put: " + object.m_Key + " -> " + object.m_Value);
-                return new ResponsePut(put((K) object.m_Key, (V) object.m_Value));
+                try {
+                    return new ResponsePut(object.m_RequestID, put((K) object.m_Key, (V) object.m_Value));
+                } catch (final IllegalStateException e) {
+                    return fail(clientID, object.m_RequestID, e);
+                }
             }
         });
 
@@ -115,26 +350,74 @@ public final class SharedMap<K extends Serializable, V extends Serializable> imp
             @Override
             public final Serializable react(final String clientID, final QueryRemove object) {
                 LoggingUtility.core("User <" + clientID + "> removed: " + object.m_Key);
-                return new ResponseRemove(remove(object.m_Key));
+                try {
+                    return new ResponseRemove(object.m_RequestID, remove(object.m_Key));
+                } catch (final IllegalStateException e) {
+                    return fail(clientID, object.m_RequestID, e);
+                }
             }
         });
 
-        /* Put all query */
+        /* Put all query (answers with previous values of replaced keys) */
         m_Theater.registerActor(QueryPutAll.class, new IActor<QueryPutAll>() {
             @Override
             public final Serializable react(final String clientID, final QueryPutAll object) {
-                putAll((Map<? extends K, ? extends V>) object.m_Map);
-                LoggingUtility.core("User <" + clientID + "> put all: " + object.m_Map);
-                return new ResponseOK();
+                final HashMap<K, V> previous;
+                try {
+                    previous = putAllWithPrevious((Map<K, V>) object.m_Map);
+                } catch (final IllegalStateException e) {
+                    return fail(clientID, object.m_RequestID, e);
+                } finally {
+                    invalidate(new ArrayList<Serializable>(object.m_Map.keySet()));
+                }
+
+                LoggingUtility.core("User <" + clientID + "> put all: " + object.m_Map.size() + " keys");
+                return new ResponsePutAll(object.m_RequestID, previous);
+            }
+        });
+
+        /* Get all query (answers with values of existing keys) */
+        m_Theater.registerActor(QueryGetAll.class, new IActor<QueryGetAll>() {
+            @Override
+            public final Serializable react(final String clientID, final QueryGetAll object) {
+                final HashMap<K, V> values = new HashMap<K, V>();
+                for (final Serializable key : object.m_Keys) {
+                    final V value = get(key);
+                    if (value != null)
+                        values.put((K) key, value);
+                }
+
+                LoggingUtility.core("User <" + clientID + "> queried values: " + object.m_Keys.size() + " keys");
+                return new ResponseGetAll(object.m_RequestID, values);
             }
         });
 
-        /* Key set query */
+        /* Remove all query (answers with removed values) */
+        m_Theater.registerActor(QueryRemoveAll.class, new IActor<QueryRemoveAll>() {
+            @Override
+            public final Serializable react(final String clientID, final QueryRemoveAll object) {
+                final HashMap<K, V> removed;
+                try {
+                    removed = removeAll(object.m_Keys);
+                } catch (final IllegalStateException e) {
+                    invalidate(new ArrayList<Serializable>(object.m_Keys));
+                    return fail(clientID, object.m_RequestID, e);
+                }
+
+                if (!removed.isEmpty())
+                    invalidate(new ArrayList<K>(removed.keySet()));
+
+                LoggingUtility.core("User <" + clientID + "> removed: " + object.m_Keys.size() + " keys");
+                return new ResponseRemoveAll(object.m_RequestID, removed);
+            }
+        });
+
+        /* Key set query (keys are copied, map's own key set is a view) */
         m_Theater.registerActor(QueryKeySet.class, new IActor<QueryKeySet>() {
             @Override
             public final Serializable react(final String clientID, final QueryKeySet object) {
                 LoggingUtility.core("User <" + clientID + "> queried key set");
-                return new ResponseKeySet(keySet());
+                return new ResponseKeySet(object.m_RequestID, new HashSet<K>(keySet()));
             }
         });
 
@@ -142,18 +425,56 @@ public final class SharedMap<K extends Serializable, V extends Serializable> imp
         m_Theater.registerActor(QueryClear.class, new IActor<QueryClear>() {
             @Override
             public final Serializable react(final String clientID, final QueryClear object) {
-                clear();
+                try {
+                    clear();
+                } catch (final IllegalStateException e) {
+                    return fail(clientID, object.m_RequestID, e);
+                }
+
                 LoggingUtility.core("User <" + clientID + "> cleared map");
-                return new ResponseOK();
+                return new ResponseOK(object.m_RequestID);
+            }
+        });
+
+        /* Scan query (streams entries by bounded chunks) */
+        m_Theater.registerActor(QueryScan.class, new IActor<QueryScan>() {
+            @Override
+            public final Serializable react(final String clientID, final QueryScan object) {
+                LoggingUtility.debug("User <" + clientID + "> scanned map, cursor: " + object.m_Cursor);
+                return scan(object);
             }
         });
 
-        /* Values query */
+        /* Subscribe query (puppeteer's near cache waits for invalidations) */
+        m_Theater.registerActor(QuerySubscribe.class, new IActor<QuerySubscribe>() {
+            @Override
+            public final Serializable react(final String clientID, final QuerySubscribe object) {
+                m_Subscribers.add(clientID);
+                LoggingUtility.core("User <" + clientID + "> subscribed to invalidations");
+                return new ResponseOK(object.m_RequestID);
+            }
+        });
+
+        /* Values query (values are copied, map's own values collection is a view) */
         m_Theater.registerActor(QueryValues.class, new IActor<QueryValues>() {
             @Override
             public final Serializable react(final String clientID, final QueryValues object) {
                 LoggingUtility.core("User <" + clientID + "> queried values");
-                return new ResponseValues(values());
+                return new ResponseValues(object.m_RequestID, new ArrayList<V>(values()));
+            }
+        });
+
+        /* Entry set query (entries are copied, map's own entries may be not serializable) */
+        m_Theater.registerActor(QueryEntrySet.class, new IActor<QueryEntrySet>() {
+            @Override
+            public final Serializable react(final String clientID, final QueryEntrySet object) {
+                LoggingUtility.core("User <" + clientID + "> queried entry set");
+
+                final Set<Entry<? extends Serializable, ? extends Serializable>> entries = new HashSet<Entry<? extends Serializable, ? extends Serializable>>();
+                for (final Entry<K, V> entry : entrySet())
+                    entries.add(new AbstractMap.SimpleEntry<K, V>(entry));
+
+                return new ResponseEntrySet(object.m_RequestID, entries);
             }
         });
     }  /* End of 'SharedMap::registerActors' method */
@@ -185,22 +506,49 @@ public final class SharedMap<K extends Serializable, V extends Serializable> imp
 
     @Override
     public final V put(final K key, final V value) {
-        return m_Map.put(key, value);
+        /* Change is kept in map even if it can't be journaled, so subscribers are always informed */
+        try {
+            return (m_Journal != null)?m_Journal.put(key, value):m_Map.put(key, value);
+        } finally {
+            invalidate(Collections.singletonList(key));
+        }
     } /* End of 'SharedMap::put' method */
 
     @Override
     public final V remove(final Object key) {
-        return m_Map.remove(key);
+        boolean isChanged = true;
+        try {
+            final V previous = (m_Journal != null)?m_Journal.remove(key):m_Map.remove(key);
+            isChanged = (previous != null);
+            return previous;
+        } finally {
+            if (isChanged)
+                invalidate(Collections.singletonList((Serializable) key));
+        }
     } /* End of 'SharedMap::remove' method */
 
     @Override
     public final void putAll(final Map<? extends K, ? extends V> m) {
-        m_Map.putAll(m);
+        try {
+            if (m_Journal != null)
+                m_Journal.putAll(m);
+            else
+                m_Map.putAll(m);
+        } finally {
+            invalidate(new ArrayList<K>(m.keySet()));
+        }
     } /* End of 'SharedMap::putAll' method */
 
     @Override
     public final void clear() {
-        m_Map.clear();
+        try {
+            if (m_Journal != null)
+                m_Journal.clear();
+            else
+                m_Map.clear();
+        } finally {
+            invalidate(null);
+        }
     } /* End of 'SharedMap::clear' method */
 
     @Override
@@ -218,9 +566,19 @@ public final class SharedMap<K extends Serializable, V extends Serializable> imp
         return m_Map.entrySet();
     } /* End of 'SharedMap::entrySet' method */
 
+    /* *
+     * METHOD: Stops theater and closes journal (all acknowledged changes are durable)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final void close() {
+        m_Theater.finish();
+        if (m_Journal != null)
+            m_Journal.close();
+    } /* End of 'SharedMap::close' method */
+
     @Override
     protected final void finalize() throws Throwable {
-        m_Theater.finish();
+        close();
 
         super.finalize();
     } /* End of 'SharedMap::finalize' method */
@@ -1,124 +1,301 @@
 package com.gesoftware.venta.structures.map;
 
+import com.gesoftware.venta.processing.IWalker;
+
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
- * Synchronized map class definition
+ * Synchronized map class definition (lock-free reads, striped writes; null keys and values are allowed,
+ * key set, values and entry set are weakly consistent views: they never throw ConcurrentModificationException)
  **/
+@SuppressWarnings("unchecked")
 public final class SynchronizedMap<K, V> implements Map<K, V>, Serializable {
-    private final HashMap<K, V> m_Map;
+    private final ConcurrentMap<Object, Object> m_Map;
+
+    /**
+     * Null mask class definition (concurrent map doesn't allow nulls, enum keeps identity after deserialization)
+     **/
+    private static enum Null {
+        VALUE
+    } /* End of 'SynchronizedMap::Null' class */
+
+    /**
+     * Map entry class definition (changed value is written to map)
+     **/
+    private final class MapEntry extends AbstractMap.SimpleEntry<K, V> {
+        /* *
+         * METHOD: Class constructor
+         *  PARAM: [IN] entry - masked map entry
+         * AUTHOR: Dmitry Eliseev
+         * */
+        public MapEntry(final Entry<Object, Object> entry) {
+            super((K) unmask(entry.getKey()), (V) unmask(entry.getValue()));
+        } /* End of 'MapEntry::MapEntry' method */
+
+        @Override
+        public final V setValue(final V value) {
+            super.setValue(value);
+            return (V) unmask(m_Map.put(mask(getKey()), mask(value)));
+        } /* End of 'MapEntry::setValue' method */
+    } /* End of 'SynchronizedMap::MapEntry' class */
+
+    /**
+     * Unmasking iterator class definition
+     **/
+    private abstract static class UnmaskingIterator<S, T> implements Iterator<T> {
+        private final Iterator<S> m_Iterator;
+
+        /* *
+         * METHOD: Class constructor
+         *  PARAM: [IN] iterator - iterator over masked items
+         * AUTHOR: Dmitry Eliseev
+         * */
+        public UnmaskingIterator(final Iterator<S> iterator) {
+            m_Iterator = iterator;
+        } /* End of 'UnmaskingIterator::UnmaskingIterator' method */
+
+        /* *
+         * METHOD: Unmasks item
+         * RETURN: Unmasked item
+         *  PARAM: [IN] item - masked item
+         * AUTHOR: Dmitry Eliseev
+         * */
+        protected abstract T convert(final S item);
+
+        @Override
+        public final boolean hasNext() {
+            return m_Iterator.hasNext();
+        } /* End of 'UnmaskingIterator::hasNext' method */
+
+        @Override
+        public final T next() {
+            return convert(m_Iterator.next());
+        } /* End of 'UnmaskingIterator::next' method */
+
+        @Override
+        public final void remove() {
+            m_Iterator.remove();
+        } /* End of 'UnmaskingIterator::remove' method */
+    } /* End of 'SynchronizedMap::UnmaskingIterator' class */
 
     /* *
      * METHOD: Class constructor
      * AUTHOR: Dmitry Eliseev
      * */
     public SynchronizedMap() {
-        m_Map = new HashMap<K, V>();
+        m_Map = new ConcurrentHashMap<Object, Object>();
     } /* End of 'SynchronizedMap::SynchronizedMap' method */
 
+    /* *
+     * METHOD: Replaces null with mask
+     * RETURN: Object or mask
+     *  PARAM: [IN] object - object to mask
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private static Object mask(final Object object) {
+        return (object != null)?object:Null.VALUE;
+    } /* End of 'SynchronizedMap::mask' method */
+
+    /* *
+     * METHOD: Replaces mask with null
+     * RETURN: Object or null
+     *  PARAM: [IN] object - masked object
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private static Object unmask(final Object object) {
+        return (object != Null.VALUE)?object:null;
+    } /* End of 'SynchronizedMap::unmask' method */
+
     @Override
     public final int size() {
-        synchronized (m_Map) {
-            return m_Map.size();
-        }
+        return m_Map.size();
     } /* End of 'SynchronizedMap::size' method */
 
     @Override
     public final boolean isEmpty() {
-        synchronized (m_Map) {
-            return m_Map.isEmpty();
-        }
+        return m_Map.isEmpty();
     } /* End of 'SynchronizedMap::isEmpty' method */
 
     @Override
     public final boolean containsKey(final Object key) {
-        synchronized (m_Map) {
-            return m_Map.containsKey(key);
-        }
+        return m_Map.containsKey(mask(key));
     } /* End of 'SynchronizedMap::containsKey' method */
 
     @Override
     public final boolean containsValue(final Object value) {
-        synchronized (m_Map) {
-            return m_Map.containsValue(value);
-        }
+        return m_Map.containsValue(mask(value));
     } /* End of 'SynchronizedMap::containsValue' method */
 
     @Override
     public final V get(final Object key) {
-        synchronized (m_Map) {
-            return m_Map.get(key);
-        }
+        return (V) unmask(m_Map.get(mask(key)));
     } /* End of 'SynchronizedMap::get' method */
 
     @Override
     public final V put(final K key, final V value) {
-        synchronized (m_Map) {
-            return m_Map.put(key, value);
-        }
+        return (V) unmask(m_Map.put(mask(key), mask(value)));
     } /* End of 'SynchronizedMap::put' method */
 
     @Override
     public final V remove(final Object key) {
-        synchronized (m_Map) {
-            return m_Map.remove(key);
-        }
+        return (V) unmask(m_Map.remove(mask(key)));
     } /* End of 'SynchronizedMap::remove' method */
 
     @Override
     public final void putAll(final Map<? extends K, ? extends V> m) {
-        synchronized (m_Map) {
-            m_Map.putAll(m);
-        }
+        for (final Entry<? extends K, ? extends V> entry : m.entrySet())
+            m_Map.put(mask(entry.getKey()), mask(entry.getValue()));
     } /* End of 'SynchronizedMap::putAll' method */
 
     @Override
     public final void clear() {
-        synchronized (m_Map) {
-            m_Map.clear();
-        }
+        m_Map.clear();
     } /* End of 'SynchronizedMap::clear' method */
 
+    /* *
+     * METHOD: Walks by all keys without locking and copying (weakly consistent, walker may change map)
+     *  PARAM: [IN] walker - keys walker
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final void foreachKey(final IWalker<K> walker) {
+        for (final Object key : m_Map.keySet())
+            walker.walk((K) unmask(key));
+    } /* End of 'SynchronizedMap::foreachKey' method */
+
+    /* *
+     * METHOD: Walks by all values without locking and copying (weakly consistent, walker may change map)
+     *  PARAM: [IN] walker - values walker
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final void foreachValue(final IWalker<V> walker) {
+        for (final Object value : m_Map.values())
+            walker.walk((V) unmask(value));
+    } /* End of 'SynchronizedMap::foreachValue' method */
+
     @Override
     public final Set<K> keySet() {
-        synchronized (m_Map) {
-            return new HashSet<K>(m_Map.keySet());
-        }
+        return new AbstractSet<K>() {
+            @Override
+            public final Iterator<K> iterator() {
+                return new UnmaskingIterator<Object, K>(m_Map.keySet().iterator()) {
+                    @Override
+                    protected final K convert(final Object key) {
+                        return (K) unmask(key);
+                    }
+                };
+            }
+
+            @Override
+            public final int size() {
+                return m_Map.size();
+            }
+
+            @Override
+            public final boolean contains(final Object o) {
+                return m_Map.containsKey(mask(o));
+            }
+
+            @Override
+            public final boolean remove(final Object o) {
+                return m_Map.remove(mask(o)) != null;
+            }
+
+            @Override
+            public final void clear() {
+                m_Map.clear();
+            }
+        };
     } /* End of 'SynchronizedMap::keySet' method */
 
     @Override
     public final Collection<V> values() {
-        synchronized (m_Map) {
-            return new ArrayList<V>(m_Map.values());
-        }
+        return new AbstractCollection<V>() {
+            @Override
+            public final Iterator<V> iterator() {
+                return new UnmaskingIterator<Object, V>(m_Map.values().iterator()) {
+                    @Override
+                    protected final V convert(final Object value) {
+                        return (V) unmask(value);
+                    }
+                };
+            }
+
+            @Override
+            public final int size() {
+                return m_Map.size();
+            }
+
+            @Override
+            public final boolean contains(final Object o) {
+                return m_Map.containsValue(mask(o));
+            }
+
+            @Override
+            public final void clear() {
+                m_Map.clear();
+            }
+        };
     } /* End of 'SynchronizedMap::values' method */
 
     @Override
     public final Set<Entry<K, V>> entrySet() {
-        synchronized (m_Map) {
-            return new HashSet<Entry<K, V>>(m_Map.entrySet());
-        }
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            public final Iterator<Entry<K, V>> iterator() {
+                return new UnmaskingIterator<Entry<Object, Object>, Entry<K, V>>(m_Map.entrySet().iterator()) {
+                    @Override
+                    protected final Entry<K, V> convert(final Entry<Object, Object> entry) {
+                        return new MapEntry(entry);
+                    }
+                };
+            }
+
+            @Override
+            public final int size() {
+                return m_Map.size();
+            }
+
+            @Override
+            public final boolean contains(final Object o) {
+                if (!(o instanceof Entry))
+                    return false;
+
+                final Entry<?, ?> entry = (Entry<?, ?>) o;
+                final Object value = m_Map.get(mask(entry.getKey()));
+                return (value != null) && value.equals(mask(entry.getValue()));
+            }
+
+            @Override
+            public final boolean remove(final Object o) {
+                if (!(o instanceof Entry))
+                    return false;
+
+                final Entry<?, ?> entry = (Entry<?, ?>) o;
+                return m_Map.remove(mask(entry.getKey()), mask(entry.getValue()));
+            }
+
+            @Override
+            public final void clear() {
+                m_Map.clear();
+            }
+        };
     } /* End of 'SynchronizedMap::entrySet' method */
 
     @Override
     public final int hashCode() {
-        synchronized (m_Map) {
-            return m_Map.hashCode();
-        }
+        return entrySet().hashCode();
     } /* End of 'SynchronizedMap::hashCode' method */
 
     @Override
     public final boolean equals(final Object obj) {
-        synchronized (m_Map) {
-            return obj instanceof SynchronizedMap && m_Map.equals(obj);
-        }
+        return obj instanceof SynchronizedMap && m_Map.equals(((SynchronizedMap) obj).m_Map);
     } /* End of 'SynchronizedMap::equals' method */
 
     @Override
     public final String toString() {
-        synchronized (m_Map) {
-            return m_Map.toString();
-        }
+        return new HashMap<K, V>(this).toString();
     } /* End of 'SynchronizedMap::toString' method */
 } /* End of 'SynchronizedMap' class */
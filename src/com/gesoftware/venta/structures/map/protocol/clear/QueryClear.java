@@ -1,6 +1,9 @@
 package com.gesoftware.venta.structures.map.protocol.clear;
 
-import java.io.Serializable;
+import com.gesoftware.venta.structures.map.protocol.common.Query;
 
-public final class QueryClear implements Serializable {
+public final class QueryClear extends Query {
+    public QueryClear(final long requestID) {
+        super(requestID);
+    }
 }
@@ -0,0 +1,466 @@
+package com.gesoftware.venta.structures.map.protocol.common;
+
+import com.gesoftware.venta.structures.map.protocol.clear.QueryClear;
+import com.gesoftware.venta.structures.map.protocol.containskey.QueryContainsKey;
+import com.gesoftware.venta.structures.map.protocol.containskey.ResponseContainsKey;
+import com.gesoftware.venta.structures.map.protocol.containsvalue.QueryContainsValue;
+import com.gesoftware.venta.structures.map.protocol.containsvalue.ResponseContainsValue;
+import com.gesoftware.venta.structures.map.protocol.entryset.QueryEntrySet;
+import com.gesoftware.venta.structures.map.protocol.entryset.ResponseEntrySet;
+import com.gesoftware.venta.structures.map.protocol.get.QueryGet;
+import com.gesoftware.venta.structures.map.protocol.get.ResponseGet;
+import com.gesoftware.venta.structures.map.protocol.getall.QueryGetAll;
+import com.gesoftware.venta.structures.map.protocol.getall.ResponseGetAll;
+import com.gesoftware.venta.structures.map.protocol.invalidation.Invalidation;
+import com.gesoftware.venta.structures.map.protocol.isempty.QueryIsEmpty;
+import com.gesoftware.venta.structures.map.protocol.isempty.ResponseIsEmpty;
+import com.gesoftware.venta.structures.map.protocol.keyset.QueryKeySet;
+import com.gesoftware.venta.structures.map.protocol.keyset.ResponseKeySet;
+import com.gesoftware.venta.structures.map.protocol.put.QueryPut;
+import com.gesoftware.venta.structures.map.protocol.put.ResponsePut;
+import com.gesoftware.venta.structures.map.protocol.putall.QueryPutAll;
+import com.gesoftware.venta.structures.map.protocol.putall.ResponsePutAll;
+import com.gesoftware.venta.structures.map.protocol.remove.QueryRemove;
+import com.gesoftware.venta.structures.map.protocol.remove.ResponseRemove;
+import com.gesoftware.venta.structures.map.protocol.removeall.QueryRemoveAll;
+import com.gesoftware.venta.structures.map.protocol.removeall.ResponseRemoveAll;
+import com.gesoftware.venta.structures.map.protocol.scan.QueryScan;
+import com.gesoftware.venta.structures.map.protocol.scan.ResponseScan;
+import com.gesoftware.venta.structures.map.protocol.size.QuerySize;
+import com.gesoftware.venta.structures.map.protocol.size.ResponseSize;
+import com.gesoftware.venta.structures.map.protocol.subscribe.QuerySubscribe;
+import com.gesoftware.venta.structures.map.protocol.values.QueryValues;
+import com.gesoftware.venta.structures.map.protocol.values.ResponseValues;
+import com.gesoftware.venta.utility.CompressionUtility;
+import com.gesoftware.venta.utility.ICodec;
+import com.gesoftware.venta.utility.SerializationUtility;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.zip.Deflater;
+
+/* Compact map protocol codec: [deflated flag][type][request id][fields], values are tagged, unknown values are
+ * serialized; messages above compression threshold are deflated with the fastest level */
+@SuppressWarnings("unchecked")
+public final class ProtocolCodec implements ICodec {
+    private final static Charset c_Charset = Charset.forName("UTF-8");
+
+    /* The first byte: is the rest deflated */
+    private final static byte c_Plain    = 0;
+    private final static byte c_Deflated = 1;
+
+    /* Message types */
+    private final static byte c_Invalidation          = 1;
+    private final static byte c_ResponseOK            = 2;
+    private final static byte c_QueryClear            = 3;
+    private final static byte c_QueryContainsKey      = 4;
+    private final static byte c_ResponseContainsKey   = 5;
+    private final static byte c_QueryContainsValue    = 6;
+    private final static byte c_ResponseContainsValue = 7;
+    private final static byte c_QueryEntrySet         = 8;
+    private final static byte c_ResponseEntrySet      = 9;
+    private final static byte c_QueryGet              = 10;
+    private final static byte c_ResponseGet           = 11;
+    private final static byte c_QueryGetAll           = 12;
+    private final static byte c_ResponseGetAll        = 13;
+    private final static byte c_QueryIsEmpty          = 14;
+    private final static byte c_ResponseIsEmpty       = 15;
+    private final static byte c_QueryKeySet           = 16;
+    private final static byte c_ResponseKeySet        = 17;
+    private final static byte c_QueryPut              = 18;
+    private final static byte c_ResponsePut           = 19;
+    private final static byte c_QueryPutAll           = 20;
+    private final static byte c_ResponsePutAll        = 21;
+    private final static byte c_QueryRemove           = 22;
+    private final static byte c_ResponseRemove        = 23;
+    private final static byte c_QueryRemoveAll        = 24;
+    private final static byte c_ResponseRemoveAll     = 25;
+    private final static byte c_QueryScan             = 26;
+    private final static byte c_ResponseScan          = 27;
+    private final static byte c_QuerySize             = 28;
+    private final static byte c_ResponseSize          = 29;
+    private final static byte c_QuerySubscribe        = 30;
+    private final static byte c_QueryValues           = 31;
+    private final static byte c_ResponseValues        = 32;
+    private final static byte c_ResponseFailed        = 33;
+
+    /* Value tags */
+    private final static byte c_TagNull         = 0;
+    private final static byte c_TagString       = 1;
+    private final static byte c_TagInteger      = 2;
+    private final static byte c_TagLong         = 3;
+    private final static byte c_TagBoolean      = 4;
+    private final static byte c_TagDouble       = 5;
+    private final static byte c_TagBytes        = 6;
+    private final static byte c_TagSerializable = 7;
+
+    @Override
+    public final byte getID() {
+        return CompressionUtility.c_CodecCompact;
+    }
+
+    @Override
+    public final boolean isApplicable(final Object object) {
+        return (object instanceof Query) || (object instanceof Response) || (object instanceof Invalidation);
+    }
+
+    @Override
+    public final byte[] encode(final Object object) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            final DataOutputStream output = new DataOutputStream(bytes);
+            output.writeByte(c_Plain);
+            if (!write(output, object))
+                return null;
+
+            output.flush();
+        } catch (final IOException e) {
+            return null;
+        }
+
+        if (bytes.size() <= CompressionUtility.c_CompressionThreshold)
+            return bytes.toByteArray();
+
+        final byte[] plain = bytes.toByteArray();
+        final byte[] deflated = CompressionUtility.compressByteArray(plain, 1, plain.length - 1, Deflater.BEST_SPEED);
+
+        final byte[] data = new byte[deflated.length + 1];
+        data[0] = c_Deflated;
+        System.arraycopy(deflated, 0, data, 1, deflated.length);
+        return data;
+    }
+
+    @Override
+    public final Object decode(final byte[] data, final int offset, final int length) {
+        try {
+            if ((length > 0) && (data[offset] == c_Deflated)) {
+                final byte[] inflated = CompressionUtility.decompressByteArray(data, offset + 1, length - 1);
+                return (inflated != null)?read(new DataInputStream(new ByteArrayInputStream(inflated))):null;
+            }
+
+            return read(new DataInputStream(new ByteArrayInputStream(data, offset + 1, length - 1)));
+        } catch (final IOException e) {
+            return null;
+        }
+    }
+
+    private static void writeHeader(final DataOutputStream output, final byte type, final long requestID) throws IOException {
+        output.writeByte(type);
+        output.writeLong(requestID);
+    }
+
+    /* False if object isn't known protocol message */
+    private static boolean write(final DataOutputStream output, final Object object) throws IOException {
+        if (object instanceof Invalidation) {
+            output.writeByte(c_Invalidation);
+            writeCollection(output, ((Invalidation) object).m_Keys);
+        } else if (object instanceof Query)
+            return writeQuery(output, (Query) object);
+        else if (object instanceof Response)
+            return writeResponse(output, (Response) object);
+        else
+            return false;
+
+        return true;
+    }
+
+    private static boolean writeQuery(final DataOutputStream output, final Query query) throws IOException {
+        final long id = query.m_RequestID;
+
+        if (query instanceof QueryClear)
+            writeHeader(output, c_QueryClear, id);
+        else if (query instanceof QueryContainsKey) {
+            writeHeader(output, c_QueryContainsKey, id);
+            writeValue(output, ((QueryContainsKey) query).m_Key);
+        } else if (query instanceof QueryContainsValue) {
+            writeHeader(output, c_QueryContainsValue, id);
+            writeValue(output, ((QueryContainsValue) query).m_Value);
+        } else if (query instanceof QueryEntrySet)
+            writeHeader(output, c_QueryEntrySet, id);
+        else if (query instanceof QueryGet) {
+            writeHeader(output, c_QueryGet, id);
+            writeValue(output, ((QueryGet) query).m_Key);
+        } else if (query instanceof QueryGetAll) {
+            writeHeader(output, c_QueryGetAll, id);
+            writeCollection(output, ((QueryGetAll) query).m_Keys);
+        } else if (query instanceof QueryIsEmpty)
+            writeHeader(output, c_QueryIsEmpty, id);
+        else if (query instanceof QueryKeySet)
+            writeHeader(output, c_QueryKeySet, id);
+        else if (query instanceof QueryPut) {
+            writeHeader(output, c_QueryPut, id);
+            writeValue(output, ((QueryPut) query).m_Key);
+            writeValue(output, ((QueryPut) query).m_Value);
+        } else if (query instanceof QueryPutAll) {
+            writeHeader(output, c_QueryPutAll, id);
+            writeMap(output, ((QueryPutAll) query).m_Map);
+        } else if (query instanceof QueryRemove) {
+            writeHeader(output, c_QueryRemove, id);
+            writeValue(output, ((QueryRemove) query).m_Key);
+        } else if (query instanceof QueryRemoveAll) {
+            writeHeader(output, c_QueryRemoveAll, id);
+            writeCollection(output, ((QueryRemoveAll) query).m_Keys);
+        } else if (query instanceof QueryScan) {
+            final QueryScan scan = (QueryScan) query;
+
+            writeHeader(output, c_QueryScan, id);
+            output.writeLong(scan.m_Cursor);
+            output.writeInt(scan.m_Limit);
+            output.writeBoolean(scan.m_IsKeysOnly);
+        } else if (query instanceof QuerySize)
+            writeHeader(output, c_QuerySize, id);
+        else if (query instanceof QuerySubscribe)
+            writeHeader(output, c_QuerySubscribe, id);
+        else if (query instanceof QueryValues)
+            writeHeader(output, c_QueryValues, id);
+        else
+            return false;
+
+        return true;
+    }
+
+    private static boolean writeResponse(final DataOutputStream output, final Response response) throws IOException {
+        final long id = response.m_RequestID;
+
+        if (response instanceof ResponseOK)
+            writeHeader(output, c_ResponseOK, id);
+        else if (response instanceof ResponseFailed) {
+            writeHeader(output, c_ResponseFailed, id);
+            writeValue(output, ((ResponseFailed) response).m_Failure);
+        } else if (response instanceof ResponseContainsKey) {
+            writeHeader(output, c_ResponseContainsKey, id);
+            output.writeBoolean(((ResponseContainsKey) response).m_ContainsKey);
+        } else if (response instanceof ResponseContainsValue) {
+            writeHeader(output, c_ResponseContainsValue, id);
+            output.writeBoolean(((ResponseContainsValue) response).m_ContainsValue);
+        } else if (response instanceof ResponseEntrySet) {
+            final Set<Map.Entry<? extends Serializable, ? extends Serializable>> entries = ((ResponseEntrySet) response).m_EntrySet;
+
+            writeHeader(output, c_ResponseEntrySet, id);
+            output.writeInt((entries != null)?entries.size():-1);
+            if (entries != null)
+                for (final Map.Entry<? extends Serializable, ? extends Serializable> entry : entries) {
+                    writeValue(output, entry.getKey());
+                    writeValue(output, entry.getValue());
+                }
+        } else if (response instanceof ResponseGet) {
+            writeHeader(output, c_ResponseGet, id);
+            writeValue(output, ((ResponseGet) response).m_Value);
+        } else if (response instanceof ResponseGetAll) {
+            writeHeader(output, c_ResponseGetAll, id);
+            writeMap(output, ((ResponseGetAll) response).m_Values);
+        } else if (response instanceof ResponseIsEmpty) {
+            writeHeader(output, c_ResponseIsEmpty, id);
+            output.writeBoolean(((ResponseIsEmpty) response).m_IsEmpty);
+        } else if (response instanceof ResponseKeySet) {
+            writeHeader(output, c_ResponseKeySet, id);
+            writeCollection(output, ((ResponseKeySet) response).m_Keys);
+        } else if (response instanceof ResponsePut) {
+            writeHeader(output, c_ResponsePut, id);
+            writeValue(output, ((ResponsePut) response).m_Value);
+        } else if (response instanceof ResponsePutAll) {
+            writeHeader(output, c_ResponsePutAll, id);
+            writeMap(output, ((ResponsePutAll) response).m_Previous);
+        } else if (response instanceof ResponseRemove) {
+            writeHeader(output, c_ResponseRemove, id);
+            writeValue(output, ((ResponseRemove) response).m_Value);
+        } else if (response instanceof ResponseRemoveAll) {
+            writeHeader(output, c_ResponseRemoveAll, id);
+            writeMap(output, ((ResponseRemoveAll) response).m_Removed);
+        } else if (response instanceof ResponseScan) {
+            final ResponseScan scan = (ResponseScan) response;
+
+            writeHeader(output, c_ResponseScan, id);
+            output.writeLong(scan.m_Cursor);
+            writeCollection(output, scan.m_Keys);
+            writeCollection(output, scan.m_Values);
+        } else if (response instanceof ResponseSize) {
+            writeHeader(output, c_ResponseSize, id);
+            output.writeInt(((ResponseSize) response).m_Size);
+        } else if (response instanceof ResponseValues) {
+            writeHeader(output, c_ResponseValues, id);
+            writeCollection(output, ((ResponseValues) response).m_Values);
+        } else
+            return false;
+
+        return true;
+    }
+
+    private static Object read(final DataInputStream input) throws IOException {
+        final byte type = input.readByte();
+        if (type == c_Invalidation)
+            return new Invalidation(readList(input));
+
+        final long id = input.readLong();
+        switch (type) {
+            case c_ResponseOK:            return new ResponseOK(id);
+            case c_QueryClear:            return new QueryClear(id);
+            case c_QueryContainsKey:      return new QueryContainsKey(id, readValue(input));
+            case c_ResponseContainsKey:   return new ResponseContainsKey(id, input.readBoolean());
+            case c_QueryContainsValue:    return new QueryContainsValue(id, readValue(input));
+            case c_ResponseContainsValue: return new ResponseContainsValue(id, input.readBoolean());
+            case c_QueryEntrySet:         return new QueryEntrySet(id);
+            case c_ResponseEntrySet:      return new ResponseEntrySet(id, readEntries(input));
+            case c_QueryGet:              return new QueryGet(id, readValue(input));
+            case c_ResponseGet:           return new ResponseGet(id, readValue(input));
+            case c_QueryGetAll:           return new QueryGetAll(id, readList(input));
+            case c_ResponseGetAll:        return new ResponseGetAll(id, readMap(input));
+            case c_QueryIsEmpty:          return new QueryIsEmpty(id);
+            case c_ResponseIsEmpty:       return new ResponseIsEmpty(id, input.readBoolean());
+            case c_QueryKeySet:           return new QueryKeySet(id);
+            case c_ResponseKeySet:        return new ResponseKeySet(id, readSet(input));
+            case c_QueryPut:              return new QueryPut(id, readValue(input), readValue(input));
+            case c_ResponsePut:           return new ResponsePut(id, readValue(input));
+            case c_QueryPutAll:           return new QueryPutAll(id, readMap(input));
+            case c_ResponsePutAll:        return new ResponsePutAll(id, readMap(input));
+            case c_QueryRemove:           return new QueryRemove(id, readValue(input));
+            case c_ResponseRemove:        return new ResponseRemove(id, readValue(input));
+            case c_QueryRemoveAll:        return new QueryRemoveAll(id, readList(input));
+            case c_ResponseRemoveAll:     return new ResponseRemoveAll(id, readMap(input));
+            case c_QueryScan:             return new QueryScan(id, input.readLong(), input.readInt(), input.readBoolean());
+            case c_ResponseScan:          return new ResponseScan(id, input.readLong(), readList(input), readList(input));
+            case c_QuerySize:             return new QuerySize(id);
+            case c_ResponseSize:          return new ResponseSize(id, input.readInt());
+            case c_QuerySubscribe:        return new QuerySubscribe(id);
+            case c_QueryValues:           return new QueryValues(id);
+            case c_ResponseValues:        return new ResponseValues(id, readList(input));
+            case c_ResponseFailed:        return new ResponseFailed(id, (String) readValue(input));
+            default:
+                throw new IOException("Unknown message type: " + type);
+        }
+    }
+
+    /* Collections are written as count (-1 for null) and values */
+    private static void writeCollection(final DataOutputStream output, final Collection<? extends Serializable> values) throws IOException {
+        output.writeInt((values != null)?values.size():-1);
+        if (values != null)
+            for (final Serializable value : values)
+                writeValue(output, value);
+    }
+
+    private static void writeMap(final DataOutputStream output, final Map<? extends Serializable, ? extends Serializable> map) throws IOException {
+        output.writeInt((map != null)?map.size():-1);
+        if (map != null)
+            for (final Map.Entry<? extends Serializable, ? extends Serializable> entry : map.entrySet()) {
+                writeValue(output, entry.getKey());
+                writeValue(output, entry.getValue());
+            }
+    }
+
+    /* Every value takes at least one byte (it's tag), so count, which doesn't fit in the rest of data, is wrong */
+    private static int readCount(final DataInputStream input, final int values) throws IOException {
+        final int count = input.readInt();
+        if (count > input.available() / values)
+            throw new IOException("Wrong collection size: " + count);
+
+        return count;
+    }
+
+    private static List<Serializable> readList(final DataInputStream input) throws IOException {
+        final int count = readCount(input, 1);
+        if (count < 0)
+            return null;
+
+        final List<Serializable> values = new ArrayList<Serializable>(count);
+        for (int index = 0; index < count; index++)
+            values.add(readValue(input));
+
+        return values;
+    }
+
+    private static Set<Serializable> readSet(final DataInputStream input) throws IOException {
+        final List<Serializable> values = readList(input);
+        return (values != null)?new LinkedHashSet<Serializable>(values):null;
+    }
+
+    private static Map<Serializable, Serializable> readMap(final DataInputStream input) throws IOException {
+        final int count = readCount(input, 2);
+        if (count < 0)
+            return null;
+
+        final Map<Serializable, Serializable> map = new LinkedHashMap<Serializable, Serializable>(count + count / 3 + 1);
+        for (int index = 0; index < count; index++) {
+            final Serializable key = readValue(input);
+            map.put(key, readValue(input));
+        }
+
+        return map;
+    }
+
+    private static Set<Map.Entry<? extends Serializable, ? extends Serializable>> readEntries(final DataInputStream input) throws IOException {
+        final int count = readCount(input, 2);
+        if (count < 0)
+            return null;
+
+        final Set<Map.Entry<? extends Serializable, ? extends Serializable>> entries = new LinkedHashSet<Map.Entry<? extends Serializable, ? extends Serializable>>(count + count / 3 + 1);
+        for (int index = 0; index < count; index++) {
+            final Serializable key = readValue(input);
+            entries.add(new AbstractMap.SimpleEntry<Serializable, Serializable>(key, readValue(input)));
+        }
+
+        return entries;
+    }
+
+    private static void writeBytes(final DataOutputStream output, final byte[] bytes) throws IOException {
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static byte[] readBytes(final DataInputStream input) throws IOException {
+        final int size = input.readInt();
+        if ((size < 0) || (size > input.available()))
+            throw new IOException("Wrong value size: " + size);
+
+        final byte[] bytes = new byte[size];
+        input.readFully(bytes);
+        return bytes;
+    }
+
+    private static void writeValue(final DataOutputStream output, final Object value) throws IOException {
+        if (value == null)
+            output.writeByte(c_TagNull);
+        else if (value instanceof String) {
+            output.writeByte(c_TagString);
+            writeBytes(output, ((String) value).getBytes(c_Charset));
+        } else if (value instanceof Integer) {
+            output.writeByte(c_TagInteger);
+            output.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            output.writeByte(c_TagLong);
+            output.writeLong((Long) value);
+        } else if (value instanceof Boolean) {
+            output.writeByte(c_TagBoolean);
+            output.writeBoolean((Boolean) value);
+        } else if (value instanceof Double) {
+            output.writeByte(c_TagDouble);
+            output.writeDouble((Double) value);
+        } else if (value instanceof byte[]) {
+            output.writeByte(c_TagBytes);
+            writeBytes(output, (byte[]) value);
+        } else {
+            final byte[] bytes = SerializationUtility.pack(value);
+            if (bytes == null)
+                throw new NotSerializableException(value.getClass().getName());
+
+            output.writeByte(c_TagSerializable);
+            writeBytes(output, bytes);
+        }
+    }
+
+    private static Serializable readValue(final DataInputStream input) throws IOException {
+        final byte tag = input.readByte();
+        switch (tag) {
+            case c_TagNull:         return null;
+            case c_TagString:       return new String(readBytes(input), c_Charset);
+            case c_TagInteger:      return input.readInt();
+            case c_TagLong:         return input.readLong();
+            case c_TagBoolean:      return input.readBoolean();
+            case c_TagDouble:       return input.readDouble();
+            case c_TagBytes:        return readBytes(input);
+            case c_TagSerializable: return (Serializable) SerializationUtility.unpack(readBytes(input));
+            default:
+                throw new IOException("Unknown value tag: " + tag);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.gesoftware.venta.structures.map.protocol.common;
+
+import com.gesoftware.venta.actors.IRequest;
+
+public abstract class Query implements IRequest {
+    public final long m_RequestID;
+
+    protected Query(final long requestID) {
+        m_RequestID = requestID;
+    }
+
+    @Override
+    public final long getRequestID() {
+        return m_RequestID;
+    }
+}
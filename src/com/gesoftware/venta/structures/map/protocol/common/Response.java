@@ -0,0 +1,16 @@
+package com.gesoftware.venta.structures.map.protocol.common;
+
+import com.gesoftware.venta.actors.IResponse;
+
+public abstract class Response implements IResponse {
+    public final long m_RequestID;
+
+    protected Response(final long requestID) {
+        m_RequestID = requestID;
+    }
+
+    @Override
+    public final long getRequestID() {
+        return m_RequestID;
+    }
+}
@@ -0,0 +1,17 @@
+package com.gesoftware.venta.structures.map.protocol.common;
+
+import com.gesoftware.venta.actors.IFailedResponse;
+
+public final class ResponseFailed extends Response implements IFailedResponse {
+    public final String m_Failure;
+
+    public ResponseFailed(final long requestID, final String failure) {
+        super(requestID);
+        m_Failure = failure;
+    }
+
+    @Override
+    public final String getFailure() {
+        return m_Failure;
+    }
+}
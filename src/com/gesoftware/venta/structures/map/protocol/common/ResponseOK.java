@@ -1,6 +1,7 @@
 package com.gesoftware.venta.structures.map.protocol.common;
 
-import java.io.Serializable;
-
-public final class ResponseOK implements Serializable {
+public final class ResponseOK extends Response {
+    public ResponseOK(final long requestID) {
+        super(requestID);
+    }
 }
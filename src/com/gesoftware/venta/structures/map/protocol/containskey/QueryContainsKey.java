@@ -1,11 +1,14 @@
 package com.gesoftware.venta.structures.map.protocol.containskey;
 
+import com.gesoftware.venta.structures.map.protocol.common.Query;
+
 import java.io.Serializable;
 
-public final class QueryContainsKey implements Serializable {
+public final class QueryContainsKey extends Query {
     public final Serializable m_Key;
 
-    public QueryContainsKey(final Serializable key) {
+    public QueryContainsKey(final long requestID, final Serializable key) {
+        super(requestID);
         m_Key = key;
     }
 }
@@ -1,11 +1,12 @@
 package com.gesoftware.venta.structures.map.protocol.containskey;
 
-import java.io.Serializable;
+import com.gesoftware.venta.structures.map.protocol.common.Response;
 
-public final class ResponseContainsKey implements Serializable {
+public final class ResponseContainsKey extends Response {
     public final boolean m_ContainsKey;
 
-    public ResponseContainsKey(final boolean containsKey) {
+    public ResponseContainsKey(final long requestID, final boolean containsKey) {
+        super(requestID);
         m_ContainsKey = containsKey;
     }
 }
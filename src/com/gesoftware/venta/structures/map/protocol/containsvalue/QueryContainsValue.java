@@ -1,11 +1,14 @@
 package com.gesoftware.venta.structures.map.protocol.containsvalue;
 
+import com.gesoftware.venta.structures.map.protocol.common.Query;
+
 import java.io.Serializable;
 
-public final class QueryContainsValue implements Serializable {
+public final class QueryContainsValue extends Query {
     public final Serializable m_Value;
 
-    public QueryContainsValue(final Serializable value) {
+    public QueryContainsValue(final long requestID, final Serializable value) {
+        super(requestID);
         m_Value = value;
     }
 }
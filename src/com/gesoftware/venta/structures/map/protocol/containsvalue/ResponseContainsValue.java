@@ -1,11 +1,12 @@
 package com.gesoftware.venta.structures.map.protocol.containsvalue;
 
-import java.io.Serializable;
+import com.gesoftware.venta.structures.map.protocol.common.Response;
 
-public final class ResponseContainsValue implements Serializable {
+public final class ResponseContainsValue extends Response {
     public final boolean m_ContainsValue;
 
-    public ResponseContainsValue(final boolean containsValue) {
+    public ResponseContainsValue(final long requestID, final boolean containsValue) {
+        super(requestID);
         m_ContainsValue = containsValue;
     }
 }
\ No newline at end of file
@@ -1,6 +1,9 @@
 package com.gesoftware.venta.structures.map.protocol.entryset;
 
-import java.io.Serializable;
+import com.gesoftware.venta.structures.map.protocol.common.Query;
 
-public final class QueryEntrySet implements Serializable {
+public final class QueryEntrySet extends Query {
+    public QueryEntrySet(final long requestID) {
+        super(requestID);
+    }
 }
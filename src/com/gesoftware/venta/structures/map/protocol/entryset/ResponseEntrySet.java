@@ -1,13 +1,16 @@
 package com.gesoftware.venta.structures.map.protocol.entryset;
 
+import com.gesoftware.venta.structures.map.protocol.common.Response;
+
 import java.io.Serializable;
 import java.util.Map;
 import java.util.Set;
 
-public final class ResponseEntrySet implements Serializable {
+public final class ResponseEntrySet extends Response {
     public final Set<Map.Entry<? extends Serializable, ? extends Serializable>> m_EntrySet;
 
-    public ResponseEntrySet(final Set<Map.Entry<? extends Serializable, ? extends Serializable>> entrySet) {
+    public ResponseEntrySet(final long requestID, final Set<Map.Entry<? extends Serializable, ? extends Serializable>> entrySet) {
+        super(requestID);
         m_EntrySet = entrySet;
     }
 }
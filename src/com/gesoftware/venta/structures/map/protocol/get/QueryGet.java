@@ -1,11 +1,14 @@
 package com.gesoftware.venta.structures.map.protocol.get;
 
+import com.gesoftware.venta.structures.map.protocol.common.Query;
+
 import java.io.Serializable;
 
-public final class QueryGet implements Serializable {
+public final class QueryGet extends Query {
     public final Serializable m_Key;
 
-    public QueryGet(final Serializable key) {
+    public QueryGet(final long requestID, final Serializable key) {
+        super(requestID);
         m_Key = key;
     }
 }
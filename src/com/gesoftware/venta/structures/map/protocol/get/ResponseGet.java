@@ -1,11 +1,14 @@
 package com.gesoftware.venta.structures.map.protocol.get;
 
+import com.gesoftware.venta.structures.map.protocol.common.Response;
+
 import java.io.Serializable;
 
-public final class ResponseGet implements Serializable {
+public final class ResponseGet extends Response {
     public final Serializable m_Value;
 
-    public ResponseGet(final Serializable value) {
+    public ResponseGet(final long requestID, final Serializable value) {
+        super(requestID);
         m_Value = value;
     }
 }
@@ -0,0 +1,15 @@
+package com.gesoftware.venta.structures.map.protocol.getall;
+
+import com.gesoftware.venta.structures.map.protocol.common.Response;
+
+import java.io.Serializable;
+import java.util.Map;
+
+public final class ResponseGetAll extends Response {
+    public final Map<? extends Serializable, ? extends Serializable> m_Values;
+
+    public ResponseGetAll(final long requestID, final Map<? extends Serializable, ? extends Serializable> values) {
+        super(requestID);
+        m_Values = values;
+    }
+}
@@ -0,0 +1,12 @@
+package com.gesoftware.venta.structures.map.protocol.invalidation;
+
+import java.io.Serializable;
+import java.util.Collection;
+
+public final class Invalidation implements Serializable {
+    public final Collection<? extends Serializable> m_Keys;
+
+    public Invalidation(final Collection<? extends Serializable> keys) {
+        m_Keys = keys;
+    }
+}
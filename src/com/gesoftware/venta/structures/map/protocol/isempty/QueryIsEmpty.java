@@ -1,6 +1,9 @@
 package com.gesoftware.venta.structures.map.protocol.isempty;
 
-import java.io.Serializable;
+import com.gesoftware.venta.structures.map.protocol.common.Query;
 
-public final class QueryIsEmpty implements Serializable {
+public final class QueryIsEmpty extends Query {
+    public QueryIsEmpty(final long requestID) {
+        super(requestID);
+    }
 }
@@ -1,11 +1,12 @@
 package com.gesoftware.venta.structures.map.protocol.isempty;
 
-import java.io.Serializable;
+import com.gesoftware.venta.structures.map.protocol.common.Response;
 
-public final class ResponseIsEmpty implements Serializable {
+public final class ResponseIsEmpty extends Response {
     public final boolean m_IsEmpty;
 
-    public ResponseIsEmpty(final boolean isEmpty) {
+    public ResponseIsEmpty(final long requestID, final boolean isEmpty) {
+        super(requestID);
         m_IsEmpty = isEmpty;
     }
 }
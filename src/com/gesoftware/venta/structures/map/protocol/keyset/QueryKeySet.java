@@ -1,6 +1,9 @@
 package com.gesoftware.venta.structures.map.protocol.keyset;
 
-import java.io.Serializable;
+import com.gesoftware.venta.structures.map.protocol.common.Query;
 
-public final class QueryKeySet implements Serializable {
+public final class QueryKeySet extends Query {
+    public QueryKeySet(final long requestID) {
+        super(requestID);
+    }
 }
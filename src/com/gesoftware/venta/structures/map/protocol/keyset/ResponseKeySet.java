@@ -1,12 +1,15 @@
 package com.gesoftware.venta.structures.map.protocol.keyset;
 
+import com.gesoftware.venta.structures.map.protocol.common.Response;
+
 import java.io.Serializable;
 import java.util.Set;
 
-public final class ResponseKeySet implements Serializable {
+public final class ResponseKeySet extends Response {
     public final Set<? extends Serializable> m_Keys;
 
-    public ResponseKeySet(final Set<? extends Serializable> keys) {
+    public ResponseKeySet(final long requestID, final Set<? extends Serializable> keys) {
+        super(requestID);
         m_Keys = keys;
     }
 }
@@ -1,12 +1,15 @@
 package com.gesoftware.venta.structures.map.protocol.put;
 
+import com.gesoftware.venta.structures.map.protocol.common.Query;
+
 import java.io.Serializable;
 
-public final class QueryPut implements Serializable {
+public final class QueryPut extends Query {
     public final Serializable m_Key;
     public final Serializable m_Value;
 
-    public QueryPut(final Serializable key, final Serializable value) {
+    public QueryPut(final long requestID, final Serializable key, final Serializable value) {
+        super(requestID);
         m_Value = value;
         m_Key   = key;
     }
@@ -1,11 +1,14 @@
 package com.gesoftware.venta.structures.map.protocol.put;
 
+import com.gesoftware.venta.structures.map.protocol.common.Response;
+
 import java.io.Serializable;
 
-public final class ResponsePut implements Serializable {
+public final class ResponsePut extends Response {
     public final Serializable m_Value;
 
-    public ResponsePut(final Serializable value) {
+    public ResponsePut(final long requestID, final Serializable value) {
+        super(requestID);
         m_Value = value;
     }
 }
@@ -1,12 +1,15 @@
 package com.gesoftware.venta.structures.map.protocol.putall;
 
+import com.gesoftware.venta.structures.map.protocol.common.Query;
+
 import java.io.Serializable;
 import java.util.Map;
 
-public final class QueryPutAll implements Serializable {
+public final class QueryPutAll extends Query {
     public final Map<? extends Serializable, ? extends Serializable> m_Map;
 
-    public QueryPutAll(final Map<? extends Serializable, ? extends Serializable> map) {
+    public QueryPutAll(final long requestID, final Map<? extends Serializable, ? extends Serializable> map) {
+        super(requestID);
         m_Map = map;
    }
 }
@@ -0,0 +1,15 @@
+package com.gesoftware.venta.structures.map.protocol.putall;
+
+import com.gesoftware.venta.structures.map.protocol.common.Response;
+
+import java.io.Serializable;
+import java.util.Map;
+
+public final class ResponsePutAll extends Response {
+    public final Map<? extends Serializable, ? extends Serializable> m_Previous;
+
+    public ResponsePutAll(final long requestID, final Map<? extends Serializable, ? extends Serializable> previous) {
+        super(requestID);
+        m_Previous = previous;
+    }
+}
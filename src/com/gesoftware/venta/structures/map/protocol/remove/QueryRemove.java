@@ -1,11 +1,14 @@
 package com.gesoftware.venta.structures.map.protocol.remove;
 
+import com.gesoftware.venta.structures.map.protocol.common.Query;
+
 import java.io.Serializable;
 
-public final class QueryRemove implements Serializable {
+public final class QueryRemove extends Query {
     public final Serializable m_Key;
 
-    public QueryRemove(final Serializable key) {
+    public QueryRemove(final long requestID, final Serializable key) {
+        super(requestID);
         m_Key = key;
     }
 }
@@ -1,11 +1,14 @@
 package com.gesoftware.venta.structures.map.protocol.remove;
 
+import com.gesoftware.venta.structures.map.protocol.common.Response;
+
 import java.io.Serializable;
 
-public final class ResponseRemove implements Serializable {
+public final class ResponseRemove extends Response {
     public final Serializable m_Value;
 
-    public ResponseRemove(final Serializable value) {
+    public ResponseRemove(final long requestID, final Serializable value) {
+        super(requestID);
         m_Value = value;
     }
 }
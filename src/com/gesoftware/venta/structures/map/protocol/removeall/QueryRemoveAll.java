@@ -0,0 +1,15 @@
+package com.gesoftware.venta.structures.map.protocol.removeall;
+
+import com.gesoftware.venta.structures.map.protocol.common.Query;
+
+import java.io.Serializable;
+import java.util.Collection;
+
+public final class QueryRemoveAll extends Query {
+    public final Collection<? extends Serializable> m_Keys;
+
+    public QueryRemoveAll(final long requestID, final Collection<? extends Serializable> keys) {
+        super(requestID);
+        m_Keys = keys;
+    }
+}
@@ -0,0 +1,15 @@
+package com.gesoftware.venta.structures.map.protocol.removeall;
+
+import com.gesoftware.venta.structures.map.protocol.common.Response;
+
+import java.io.Serializable;
+import java.util.Map;
+
+public final class ResponseRemoveAll extends Response {
+    public final Map<? extends Serializable, ? extends Serializable> m_Removed;
+
+    public ResponseRemoveAll(final long requestID, final Map<? extends Serializable, ? extends Serializable> removed) {
+        super(requestID);
+        m_Removed = removed;
+    }
+}
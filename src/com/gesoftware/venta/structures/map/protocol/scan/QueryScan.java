@@ -0,0 +1,19 @@
+package com.gesoftware.venta.structures.map.protocol.scan;
+
+import com.gesoftware.venta.structures.map.protocol.common.Query;
+
+public final class QueryScan extends Query {
+    public final static long c_CursorStart   = 0;
+    public final static long c_CursorExpired = -1;
+
+    public final long    m_Cursor;
+    public final int     m_Limit;
+    public final boolean m_IsKeysOnly;
+
+    public QueryScan(final long requestID, final long cursor, final int limit, final boolean isKeysOnly) {
+        super(requestID);
+        m_IsKeysOnly = isKeysOnly;
+        m_Cursor     = cursor;
+        m_Limit      = limit;
+    }
+}
@@ -0,0 +1,19 @@
+package com.gesoftware.venta.structures.map.protocol.scan;
+
+import com.gesoftware.venta.structures.map.protocol.common.Response;
+
+import java.io.Serializable;
+import java.util.List;
+
+public final class ResponseScan extends Response {
+    public final long m_Cursor;
+    public final List<? extends Serializable> m_Keys;
+    public final List<? extends Serializable> m_Values;
+
+    public ResponseScan(final long requestID, final long cursor, final List<? extends Serializable> keys, final List<? extends Serializable> values) {
+        super(requestID);
+        m_Values = values;
+        m_Cursor = cursor;
+        m_Keys   = keys;
+    }
+}
@@ -1,6 +1,9 @@
 package com.gesoftware.venta.structures.map.protocol.size;
 
-import java.io.Serializable;
+import com.gesoftware.venta.structures.map.protocol.common.Query;
 
-public final class QuerySize implements Serializable {
+public final class QuerySize extends Query {
+    public QuerySize(final long requestID) {
+        super(requestID);
+    }
 }
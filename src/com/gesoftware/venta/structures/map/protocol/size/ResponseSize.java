@@ -1,11 +1,12 @@
 package com.gesoftware.venta.structures.map.protocol.size;
 
-import java.io.Serializable;
+import com.gesoftware.venta.structures.map.protocol.common.Response;
 
-public final class ResponseSize implements Serializable {
+public final class ResponseSize extends Response {
     public final int m_Size;
 
-    public ResponseSize(final int size) {
+    public ResponseSize(final long requestID, final int size) {
+        super(requestID);
         m_Size = size;
     }
 }
@@ -0,0 +1,9 @@
+package com.gesoftware.venta.structures.map.protocol.subscribe;
+
+import com.gesoftware.venta.structures.map.protocol.common.Query;
+
+public final class QuerySubscribe extends Query {
+    public QuerySubscribe(final long requestID) {
+        super(requestID);
+    }
+}
@@ -1,6 +1,9 @@
 package com.gesoftware.venta.structures.map.protocol.values;
 
-import java.io.Serializable;
+import com.gesoftware.venta.structures.map.protocol.common.Query;
 
-public final class QueryValues implements Serializable {
+public final class QueryValues extends Query {
+    public QueryValues(final long requestID) {
+        super(requestID);
+    }
 }
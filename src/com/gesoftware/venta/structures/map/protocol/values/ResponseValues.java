@@ -1,12 +1,15 @@
 package com.gesoftware.venta.structures.map.protocol.values;
 
+import com.gesoftware.venta.structures.map.protocol.common.Response;
+
 import java.io.Serializable;
 import java.util.Collection;
 
-public final class ResponseValues implements Serializable {
+public final class ResponseValues extends Response {
     public final Collection<? extends Serializable> m_Values;
 
-    public ResponseValues(final Collection<? extends Serializable> values) {
+    public ResponseValues(final long requestID, final Collection<? extends Serializable> values) {
+        super(requestID);
         m_Values = values;
     }
 }
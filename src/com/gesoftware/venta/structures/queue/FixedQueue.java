@@ -1,68 +1,199 @@
 package com.gesoftware.venta.structures.queue;
 
+import com.gesoftware.venta.processing.IWalker;
+
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
- * Fixed queue class
+ * Fixed queue class (circular buffer of the latest pushed items; readers don't lock and skip items, overwritten
+ * while reading; pushes are locked, or lock-free if queue has single writer)
  **/
-public final class FixedQueue<T> implements Serializable {
-    private final ArrayList<T> m_Items;
+public final class FixedQueue<T> implements Iterable<T>, Serializable {
+    private final AtomicReferenceArray<T> m_Items;
     private final int m_Size;
 
+    /* Single writer mode flag (pushes and clears are not locked) */
+    private final boolean m_IsSingleWriter;
+
+    /* The number of claimed (being written) and published pushes; item at position p is kept in slot p % size,
+     * and is overwritten when position p + size is claimed */
+    private volatile long m_Claimed;
+    private volatile long m_Published;
+
+    /* The first position after the last clear */
+    private volatile long m_Cleared;
+
     /* *
      * METHOD: Class constructor
      *  PARAM: [IN] size - queue size
      * AUTHOR: Dmitry Eliseev
      * */
     public FixedQueue(final int size) {
+        this(size, false);
+    } /* End of 'FixedQueue::FixedQueue' method */
+
+    /* *
+     * METHOD: Class constructor
+     *  PARAM: [IN] size           - queue size
+     *  PARAM: [IN] isSingleWriter - True if items are pushed by one thread only (pushes are not locked)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public FixedQueue(final int size, final boolean isSingleWriter) {
         if (size <= 0)
             throw new NegativeArraySizeException();
 
-        m_Items = new ArrayList<T>(size);
-        m_Size  = size;
+        m_Items          = new AtomicReferenceArray<T>(size);
+        m_Size           = size;
+        m_IsSingleWriter = isSingleWriter;
     } /* End of 'FixedQueue::FixedQueue' method */
 
     /* *
-     * METHOD: Removes unnecessary items from queue
+     * METHOD: Gets position of the oldest item
+     * RETURN: Window start position
+     *  PARAM: [IN] published - the number of published pushes
      * AUTHOR: Dmitry Eliseev
      * */
-    private void balance() {
-        if (m_Items.size() > m_Size)
-            m_Items.remove(0);
-    } /* End of 'FixedQueue::balance' method */
+    private long getStart(final long published) {
+        return Math.max(published - m_Size, m_Cleared);
+    } /* End of 'FixedQueue::getStart' method */
 
     /* *
-     * METHOD: Adds an item to queue
+     * METHOD: Determines if item, read at position, wasn't overwritten (should be called after reading)
+     * RETURN: True if item is valid, False otherwise
+     *  PARAM: [IN] position - item position
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private boolean isValid(final long position) {
+        return m_Claimed - m_Size <= position;
+    } /* End of 'FixedQueue::isValid' method */
+
+    /* *
+     * METHOD: Adds an item to queue (should be called by single writer or under lock)
+     *  PARAM: [IN] item - item to add
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private void write(final T item) {
+        final long position = m_Published;
+
+        /* Readers see claim before slot is overwritten */
+        m_Claimed = position + 1;
+        m_Items.set((int) (position % m_Size), item);
+        m_Published = position + 1;
+    } /* End of 'FixedQueue::write' method */
+
+    /* *
+     * METHOD: Adds an item to queue (the oldest item is overwritten if queue is full)
      *  PARAM: [IN] item - item to add
      * AUTHOR: Dmitry Eliseev
      * */
     public final void push(final T item) {
+        if (m_IsSingleWriter) {
+            write(item);
+            return;
+        }
+
         synchronized (m_Items) {
-            m_Items.add(item);
-            balance();
+            write(item);
         }
     } /* End of 'FixedQueue::push' method */
 
+    /* *
+     * METHOD: Walks by items from the oldest to the latest without copying (items, overwritten while walking,
+     *         are skipped)
+     *  PARAM: [IN] walker - items walker
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final void foreach(final IWalker<T> walker) {
+        final long published = m_Published;
+
+        for (long position = getStart(published); position < published; position++) {
+            final T item = m_Items.get((int) (position % m_Size));
+            if (isValid(position))
+                walker.walk(item);
+        }
+    } /* End of 'FixedQueue::foreach' method */
+
+    @Override
+    public final Iterator<T> iterator() {
+        final long published = m_Published;
+
+        return new Iterator<T>() {
+            private long m_Position = getStart(published);
+
+            /* Next valid item (items may be null) */
+            private T m_Next;
+            private boolean m_HasNext;
+
+            private boolean advance() {
+                while (!m_HasNext && (m_Position < published)) {
+                    m_Next    = m_Items.get((int) (m_Position % m_Size));
+                    m_HasNext = isValid(m_Position++);
+                }
+
+                return m_HasNext;
+            }
+
+            @Override
+            public final boolean hasNext() {
+                return advance();
+            }
+
+            @Override
+            public final T next() {
+                if (!advance())
+                    throw new NoSuchElementException();
+
+                m_HasNext = false;
+                return m_Next;
+            }
+
+            @Override
+            public final void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    } /* End of 'FixedQueue::iterator' method */
+
     /* *
      * METHOD: Obtain items collection
-     * RETURN: Items collection
+     * RETURN: Items collection (from the oldest to the latest)
      * AUTHOR: Dmitry Eliseev
      * */
     public final Collection<T> values() {
-        synchronized (m_Items) {
-            return new ArrayList<T>(m_Items);
-        }
+        final Collection<T> values = new ArrayList<T>(size());
+        for (final T item : this)
+            values.add(item);
+
+        return values;
     } /* End of 'FixedQueue::values' method */
 
     /* *
-     * METHOD: Clears queue
+     * METHOD: Gets the number of items in queue
+     * RETURN: Items count
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final int size() {
+        final long published = m_Published;
+        return (int) (published - getStart(published));
+    } /* End of 'FixedQueue::size' method */
+
+    /* *
+     * METHOD: Clears queue (items stay referenced until they are overwritten)
      * AUTHOR: Dmitry Eliseev
      * */
     public final void clear() {
+        if (m_IsSingleWriter) {
+            m_Cleared = m_Published;
+            return;
+        }
+
         synchronized (m_Items) {
-            m_Items.clear();
+            m_Cleared = m_Published;
         }
     } /* End of 'FixedQueue::clear' method */
 } /* End of 'FixedQueue' class */
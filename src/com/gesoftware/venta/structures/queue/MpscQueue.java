@@ -0,0 +1,297 @@
+package com.gesoftware.venta.structures.queue;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Multi-producer single-consumer queue class definition (bounded ring of slots with sequence numbers, null items
+ * are not allowed). Producers claim slots by CAS. Items are also taken by CAS, so poll, drain and peek are safe in
+ * any number of threads (e.g. producers poll to drop oldest items, while consumer drains queue). Single consumer
+ * is required for waiting only: await may be called by one thread at a time, it's unparked by producers and signal
+ **/
+public final class MpscQueue<T> extends AbstractQueue<T> {
+    /* Queue items and slots sequences (slot is ready for reading when sequence is position + 1) */
+    private final Object[] m_Items;
+    private final AtomicLongArray m_Sequences;
+    private final int m_Mask;
+
+    /* Next position to write (shared by producers) */
+    private final AtomicLong m_Tail = new AtomicLong();
+
+    /* Next position to read (moved by consumer, or by producer, which drops items) */
+    private final AtomicLong m_Head = new AtomicLong();
+
+    /* Parked consumer and signal flag (wakes consumer up without items) */
+    private volatile Thread m_Consumer;
+    private volatile boolean m_IsSignalled;
+
+    /* Producers, parked while queue is full */
+    private final Queue<Thread> m_Producers = new ConcurrentLinkedQueue<Thread>();
+
+    /* *
+     * METHOD: Class constructor
+     *  PARAM: [IN] capacity - queue capacity (rounded up to power of two)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public MpscQueue(final int capacity) {
+        if (capacity <= 0)
+            throw new NegativeArraySizeException();
+
+        final int size = (capacity == 1)?1:Integer.highestOneBit(capacity - 1) << 1;
+
+        m_Items     = new Object[size];
+        m_Sequences = new AtomicLongArray(size);
+        m_Mask      = size - 1;
+
+        for (int slot = 0; slot < size; slot++)
+            m_Sequences.set(slot, slot);
+    } /* End of 'MpscQueue::MpscQueue' method */
+
+    /* *
+     * METHOD: Unparks waiting consumer
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private void wakeConsumer() {
+        final Thread consumer = m_Consumer;
+        if (consumer != null)
+            LockSupport.unpark(consumer);
+    } /* End of 'MpscQueue::wakeConsumer' method */
+
+    /* *
+     * METHOD: Unparks all waiting producers (they will try again; it's called after items are taken, and may be
+     *         called by owner after it releases it's own resources, checked by producers)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final void signalProducers() {
+        if (m_Producers.isEmpty())
+            return;
+
+        for (final Thread producer : m_Producers)
+            LockSupport.unpark(producer);
+    } /* End of 'MpscQueue::signalProducers' method */
+
+    /* *
+     * METHOD: Parks producer until items are taken (queue is checked after registration, so wakeup isn't lost)
+     *  PARAM: [IN] timeout - maximal waiting time (ns, 0 - not limited)
+     *  PARAM: [IN] isFull  - True if producer waits for free slot, False if it waits for any taken item
+     * AUTHOR: Dmitry Eliseev
+     * */
+    private void parkProducer(final long timeout, final boolean isFull) throws InterruptedException {
+        final Thread producer = Thread.currentThread();
+
+        m_Producers.add(producer);
+        try {
+            if (isFull?(size() >= m_Items.length):!isEmpty()) {
+                if (timeout > 0)
+                    LockSupport.parkNanos(this, timeout);
+                else
+                    LockSupport.park(this);
+            }
+        } finally {
+            m_Producers.remove(producer);
+        }
+
+        if (Thread.interrupted())
+            throw new InterruptedException();
+    } /* End of 'MpscQueue::parkProducer' method */
+
+    /* *
+     * METHOD: Gets queue capacity
+     * RETURN: Maximal number of items
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final int capacity() {
+        return m_Items.length;
+    } /* End of 'MpscQueue::capacity' method */
+
+    @Override
+    public final int size() {
+        final long size = m_Tail.get() - m_Head.get();
+        return (int) Math.max(0, Math.min(size, m_Items.length));
+    } /* End of 'MpscQueue::size' method */
+
+    @Override
+    public final boolean isEmpty() {
+        return m_Tail.get() == m_Head.get();
+    } /* End of 'MpscQueue::isEmpty' method */
+
+    @Override
+    public final boolean offer(final T item) {
+        if (item == null)
+            throw new NullPointerException();
+
+        while (true) {
+            final long tail = m_Tail.get();
+            final int  slot = (int) tail & m_Mask;
+
+            final long difference = m_Sequences.get(slot) - tail;
+            if (difference < 0)
+                return false;
+
+            if ((difference == 0) && m_Tail.compareAndSet(tail, tail + 1)) {
+                m_Items[slot] = item;
+                m_Sequences.lazySet(slot, tail + 1);
+
+                wakeConsumer();
+                return true;
+            }
+        }
+    } /* End of 'MpscQueue::offer' method */
+
+    /* *
+     * METHOD: Adds an item, waiting while queue is full
+     *  PARAM: [IN] item - item to add
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final void put(final T item) throws InterruptedException {
+        offer(item, 0);
+    } /* End of 'MpscQueue::put' method */
+
+    /* *
+     * METHOD: Adds an item, waiting while queue is full
+     * RETURN: True if item was added, False if timeout elapsed
+     *  PARAM: [IN] item    - item to add
+     *  PARAM: [IN] timeout - maximal waiting time (ms, 0 - not limited)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final boolean offer(final T item, final long timeout) throws InterruptedException {
+        final long deadline = System.nanoTime() + timeout * 1000000L;
+
+        while (!offer(item)) {
+            final long remaining = deadline - System.nanoTime();
+            if ((timeout > 0) && (remaining <= 0))
+                return false;
+
+            parkProducer((timeout > 0)?remaining:0, true);
+        }
+
+        return true;
+    } /* End of 'MpscQueue::offer' method */
+
+    /* *
+     * METHOD: Parks producer until any item is taken (returns at once if queue is empty, spurious returns are
+     *         possible), it's used by producers, which wait for their own limits
+     *  PARAM: [IN] timeout - maximal waiting time (ms, 0 - not limited)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final void awaitSpace(final long timeout) throws InterruptedException {
+        parkProducer(timeout * 1000000L, false);
+    } /* End of 'MpscQueue::awaitSpace' method */
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public final T poll() {
+        while (true) {
+            final long head = m_Head.get();
+            final int  slot = (int) head & m_Mask;
+
+            if (m_Sequences.get(slot) != head + 1)
+                return null;
+
+            /* Slot stays published until it's released, so it can't be overwritten after claiming */
+            if (m_Head.compareAndSet(head, head + 1)) {
+                final T item = (T) m_Items[slot];
+                m_Items[slot] = null;
+                m_Sequences.lazySet(slot, head + m_Items.length);
+
+                signalProducers();
+                return item;
+            }
+        }
+    } /* End of 'MpscQueue::poll' method */
+
+    /* *
+     * METHOD: Moves available items to collection (slots are released at once)
+     * RETURN: The number of moved items
+     *  PARAM: [OUT] items - collection to fill
+     *  PARAM: [IN]  limit - maximal number of items to move
+     * AUTHOR: Dmitry Eliseev
+     * */
+    @SuppressWarnings("unchecked")
+    public final int drain(final Collection<? super T> items, final int limit) {
+        while (true) {
+            final long head = m_Head.get();
+
+            /* Count published items, then claim them at once */
+            int count = 0;
+            while ((count < limit) && (m_Sequences.get((int) (head + count) & m_Mask) == head + count + 1))
+                count++;
+
+            if (count == 0)
+                return 0;
+
+            if (!m_Head.compareAndSet(head, head + count))
+                continue;
+
+            for (int item = 0; item < count; item++) {
+                final int slot = (int) (head + item) & m_Mask;
+
+                items.add((T) m_Items[slot]);
+                m_Items[slot] = null;
+                m_Sequences.lazySet(slot, head + item + m_Items.length);
+            }
+
+            signalProducers();
+            return count;
+        }
+    } /* End of 'MpscQueue::drain' method */
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public final T peek() {
+        final long head = m_Head.get();
+        final int  slot = (int) head & m_Mask;
+
+        return (m_Sequences.get(slot) == head + 1)?(T) m_Items[slot]:null;
+    } /* End of 'MpscQueue::peek' method */
+
+    /* *
+     * METHOD: Parks consumer while queue is empty (returns earlier if signalled, spurious returns are possible)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final void await() throws InterruptedException {
+        m_Consumer = Thread.currentThread();
+        try {
+            /* Producer reads consumer after claiming slot, so one of them sees the other */
+            while (isEmpty() && !m_IsSignalled) {
+                LockSupport.park(this);
+
+                if (Thread.interrupted())
+                    throw new InterruptedException();
+            }
+        } finally {
+            m_Consumer    = null;
+            m_IsSignalled = false;
+        }
+    } /* End of 'MpscQueue::await' method */
+
+    /* *
+     * METHOD: Wakes waiting consumer up (e.g. to check stop flag)
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final void signal() {
+        m_IsSignalled = true;
+        wakeConsumer();
+    } /* End of 'MpscQueue::signal' method */
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public final Iterator<T> iterator() {
+        /* Snapshot of published items */
+        final List<T> items = new ArrayList<T>();
+
+        final long tail = m_Tail.get();
+        for (long position = m_Head.get(); position < tail; position++) {
+            final int slot = (int) position & m_Mask;
+            final Object item = m_Items[slot];
+
+            if ((m_Sequences.get(slot) == position + 1) && (item != null))
+                items.add((T) item);
+        }
+
+        return Collections.unmodifiableList(items).iterator();
+    } /* End of 'MpscQueue::iterator' method */
+} /* End of 'MpscQueue' class */
@@ -1,5 +1,7 @@
 package com.gesoftware.venta.structures.set;
 
+import com.gesoftware.venta.processing.IWalker;
+
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.HashSet;
@@ -48,6 +50,18 @@ public final class SynchronizedSet<E> implements Set<E>, Serializable {
         }
     } /* End of 'SynchronizedSet::iterator' method */
 
+    /* *
+     * METHOD: Walks by all items under lock, without copying (walker shouldn't change set)
+     *  PARAM: [IN] walker - items walker
+     * AUTHOR: Dmitry Eliseev
+     * */
+    public final void foreach(final IWalker<E> walker) {
+        synchronized (m_Set) {
+            for (final E item : m_Set)
+                walker.walk(item);
+        }
+    } /* End of 'SynchronizedSet::foreach' method */
+
     @Override
     public final Object[] toArray() {
         synchronized (m_Set) {
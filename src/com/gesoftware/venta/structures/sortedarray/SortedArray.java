@@ -1,93 +1,335 @@
 package com.gesoftware.venta.structures.sortedarray;
 
-import java.util.Collection;
-import java.util.Comparator;
-import java.util.Iterator;
+import java.util.*;
 
+/**
+ * Sorted array class definition (gap buffer: items are kept in array with a gap at the last change position,
+ * so search is binary and clustered inserts move only a few items; equal items keep insertion order)
+ **/
+@SuppressWarnings("unchecked")
 public final class SortedArray<E extends Comparable<E>> implements Collection<E> {
-    private final SortedList<E> items;
+    /* Minimal array capacity */
+    private final static int c_MinCapacity = 16;
+
+    /* Items are kept in [0, gap start) and [gap end, capacity), gap slots are null */
+    private Object[] m_Items = new Object[c_MinCapacity];
+    private int m_GapStart = 0;
+    private int m_GapEnd   = c_MinCapacity;
+
+    /* Items comparator (null for natural order) */
+    private final Comparator<E> m_Comparator;
 
     public SortedArray() {
         this(null);
     }
 
     public SortedArray(final Comparator<E> comparator) {
-        items = new SortedList<E>(comparator);
+        m_Comparator = comparator;
+    }
+
+    private int compare(final E a, final E b) {
+        return (m_Comparator != null)?m_Comparator.compare(a, b):a.compareTo(b);
+    }
+
+    private E get(final int index) {
+        return (E) m_Items[(index < m_GapStart)?index:index + m_GapEnd - m_GapStart];
+    }
+
+    /* Index of the first item, which is not less (if isUpper - greater) than given one */
+    private int search(final E item, final boolean isUpper) {
+        int low = 0, high = size();
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            final int result = compare(get(middle), item);
+
+            if ((result < 0) || (isUpper && (result == 0)))
+                low = middle + 1;
+            else
+                high = middle;
+        }
+
+        return low;
+    }
+
+    /* Index of item, equal to given object, -1 if there is no such item */
+    private int indexOf(final Object o) {
+        try {
+            final E item = (E) o;
+            for (int index = search(item, false); (index < size()) && (compare(get(index), item) == 0); index++)
+                if (get(index).equals(o))
+                    return index;
+        } catch (final ClassCastException ignored) {
+        } catch (final NullPointerException ignored) {}
+
+        return -1;
+    }
+
+    /* Moves gap to index (only items between old and new gap position are moved) */
+    private void moveGap(final int index) {
+        if (index < m_GapStart) {
+            final int count = m_GapStart - index;
+            System.arraycopy(m_Items, index, m_Items, m_GapEnd - count, count);
+            Arrays.fill(m_Items, index, Math.min(m_GapStart, m_GapEnd - count), null);
+
+            m_GapStart  = index;
+            m_GapEnd   -= count;
+        } else if (index > m_GapStart) {
+            final int count = index - m_GapStart;
+            System.arraycopy(m_Items, m_GapEnd, m_Items, m_GapStart, count);
+            Arrays.fill(m_Items, Math.max(m_GapEnd, index), m_GapEnd + count, null);
+
+            m_GapStart  = index;
+            m_GapEnd   += count;
+        }
+    }
+
+    /* Replaces array with a new one, gap is placed at the end */
+    private void reallocate(final int capacity) {
+        final Object[] items = new Object[Math.max(capacity, c_MinCapacity)];
+        final int size = size();
+
+        System.arraycopy(m_Items, 0, items, 0, m_GapStart);
+        System.arraycopy(m_Items, m_GapEnd, items, m_GapStart, size - m_GapStart);
+
+        m_Items    = items;
+        m_GapStart = size;
+        m_GapEnd   = items.length;
+    }
+
+    private void insert(final int index, final E item) {
+        if (m_GapStart == m_GapEnd)
+            reallocate(m_Items.length * 2);
+
+        moveGap(index);
+        m_Items[m_GapStart++] = item;
+    }
+
+    private void removeAt(final int index) {
+        moveGap(index);
+        m_Items[m_GapEnd++] = null;
+    }
+
+    /* Merges sorted items with array content (items go after equal array items) */
+    private void merge(final Object[] items) {
+        final int size = size();
+        final Object[] merged = new Object[Math.max((size + items.length) * 3 / 2, c_MinCapacity)];
+
+        int left = 0, right = 0, count = 0;
+        while ((left < size) && (right < items.length))
+            merged[count++] = (compare(get(left), (E) items[right]) <= 0)?get(left++):items[right++];
+
+        while (left < size)
+            merged[count++] = get(left++);
+
+        while (right < items.length)
+            merged[count++] = items[right++];
+
+        m_Items    = merged;
+        m_GapStart = count;
+        m_GapEnd   = merged.length;
+    }
+
+    /* Keeps only items, which are (or are not) contained in collection */
+    private boolean filter(final Collection<?> c, final boolean isContained) {
+        final int size = size();
+        moveGap(size);
+
+        int count = 0;
+        for (int index = 0; index < size; index++)
+            if (c.contains(m_Items[index]) == isContained)
+                m_Items[count++] = m_Items[index];
+
+        Arrays.fill(m_Items, count, size, null);
+        m_GapStart = count;
+
+        return count != size;
+    }
+
+    /* The greatest item, which is less or equal to given one, null if there is no such item */
+    public final E floor(final E item) {
+        final int index = search(item, true) - 1;
+        return (index >= 0)?get(index):null;
+    }
+
+    /* The least item, which is greater or equal to given one, null if there is no such item */
+    public final E ceiling(final E item) {
+        final int index = search(item, false);
+        return (index < size())?get(index):null;
+    }
+
+    /* Items from 'from' (inclusive) to 'to' (exclusive) */
+    public final List<E> subRange(final E from, final E to) {
+        final int start = search(from, false);
+        final int end   = Math.max(start, search(to, false));
+
+        final List<E> range = new ArrayList<E>(end - start);
+        for (int index = start; index < end; index++)
+            range.add(get(index));
+
+        return range;
     }
 
     @Override
     public final int size() {
-        return items.size();
+        return m_Items.length - (m_GapEnd - m_GapStart);
     }
 
     @Override
     public final boolean isEmpty() {
-        return items.isEmpty();
+        return size() == 0;
     }
 
     @Override
     public final boolean contains(final Object o) {
-        return items.contains(o);
+        return indexOf(o) >= 0;
     }
 
     @Override
     public final Iterator<E> iterator() {
-        return items.iterator();
+        return new Iterator<E>() {
+            private int m_Index = 0;
+            private boolean m_CanRemove = false;
+
+            @Override
+            public final boolean hasNext() {
+                return m_Index < size();
+            }
+
+            @Override
+            public final E next() {
+                if (m_Index >= size())
+                    throw new NoSuchElementException();
+
+                m_CanRemove = true;
+                return get(m_Index++);
+            }
+
+            @Override
+            public final void remove() {
+                if (!m_CanRemove)
+                    throw new IllegalStateException();
+
+                removeAt(--m_Index);
+                m_CanRemove = false;
+            }
+        };
     }
 
     @Override
     public final Object[] toArray() {
-        return items.toArray();
+        final Object[] items = new Object[size()];
+
+        System.arraycopy(m_Items, 0, items, 0, m_GapStart);
+        System.arraycopy(m_Items, m_GapEnd, items, m_GapStart, items.length - m_GapStart);
+        return items;
     }
 
     @Override
     @SuppressWarnings("all")
     public final <T> T[] toArray(final T[] a) {
-        return items.toArray(a);
+        final Object[] items = toArray();
+        if (a.length < items.length)
+            return (T[]) Arrays.copyOf(items, items.length, a.getClass());
+
+        System.arraycopy(items, 0, a, 0, items.length);
+        if (a.length > items.length)
+            a[items.length] = null;
+
+        return a;
     }
 
     @Override
     public final boolean add(final E e) {
-        return items.add(e);
+        insert(search(e, true), e);
+        return true;
     }
 
     @Override
     public final boolean remove(final Object o) {
-        return items.remove(o);
+        final int index = indexOf(o);
+        if (index < 0)
+            return false;
+
+        removeAt(index);
+        return true;
     }
 
     @Override
     public final boolean containsAll(final Collection<?> c) {
-        return items.containsAll(c);
+        for (final Object item : c)
+            if (!contains(item))
+                return false;
+
+        return true;
     }
 
     @Override
     public final boolean addAll(final Collection<? extends E> c) {
-        return items.addAll(c);
+        if (c.isEmpty())
+            return false;
+
+        /* A few items are inserted one by one, many items are sorted and merged */
+        if (c.size() <= 4) {
+            for (final E item : c)
+                add(item);
+
+            return true;
+        }
+
+        final Object[] items = c.toArray();
+        if (m_Comparator != null)
+            Arrays.sort(items, (Comparator<Object>) (Comparator<?>) m_Comparator);
+        else
+            Arrays.sort(items);
+
+        merge(items);
+        return true;
     }
 
     @Override
     public final boolean removeAll(final Collection<?> c) {
-        return items.removeAll(c);
+        return filter(c, false);
     }
 
     @Override
     public final boolean retainAll(final Collection<?> c) {
-        return items.retainAll(c);
+        return filter(c, true);
     }
 
     @Override
     public final void clear() {
-        items.clear();
+        m_Items    = new Object[c_MinCapacity];
+        m_GapStart = 0;
+        m_GapEnd   = c_MinCapacity;
     }
 
     @Override
     public final boolean equals(final Object o) {
-        return o instanceof SortedArray && items.equals(o);
+        if (!(o instanceof SortedArray))
+            return false;
+
+        final SortedArray<?> array = (SortedArray<?>) o;
+        if (array.size() != size())
+            return false;
+
+        for (int index = 0; index < size(); index++)
+            if (!get(index).equals(array.get(index)))
+                return false;
+
+        return true;
     }
 
     @Override
     public final int hashCode() {
-        return items.hashCode();
+        int hash = 1;
+        for (int index = 0; index < size(); index++)
+            hash = 31 * hash + get(index).hashCode();
+
+        return hash;
+    }
+
+    @Override
+    public final String toString() {
+        return Arrays.toString(toArray());
     }
 }
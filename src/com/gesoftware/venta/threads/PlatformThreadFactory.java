@@ -0,0 +1,13 @@
+package com.gesoftware.venta.threads;
+
+import java.util.concurrent.ThreadFactory;
+
+/* *
+ * Platform thread factory class definition (plain operating system threads)
+ * */
+public final class PlatformThreadFactory implements ThreadFactory {
+    @Override
+    public final Thread newThread(final Runnable task) {
+        return new Thread(task);
+    } /* End of 'PlatformThreadFactory::newThread' method */
+} /* End of 'PlatformThreadFactory' class */
@@ -0,0 +1,49 @@
+package com.gesoftware.venta.threads;
+
+import com.gesoftware.venta.logging.LoggingUtility;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/* *
+ * Virtual thread factory class definition (JDK 21+, falls back to platform threads on older runtimes)
+ * */
+public final class VirtualThreadFactory implements ThreadFactory {
+    /* Runtime virtual threads factory (null if runtime has no virtual threads) */
+    private final static ThreadFactory c_VirtualFactory = createVirtualFactory();
+
+    /* Factory for runtimes without virtual threads */
+    private final ThreadFactory m_FallbackFactory = new PlatformThreadFactory();
+
+    /* *
+     * METHOD: Creates runtime virtual threads factory (Thread.ofVirtual().factory())
+     * RETURN: Virtual threads factory if runtime supports them, null otherwise
+     * AUTHOR: Eliseev Dmitry
+     * */
+    private static ThreadFactory createVirtualFactory() {
+        try {
+            final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            final Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (final Exception e) {
+            LoggingUtility.core("Virtual threads are not supported, platform threads will be used");
+        }
+
+        return null;
+    } /* End of 'VirtualThreadFactory::createVirtualFactory' method */
+
+    /* *
+     * METHOD: Determines if runtime supports virtual threads
+     * RETURN: True if virtual threads are available, False otherwise
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public static boolean isSupported() {
+        return c_VirtualFactory != null;
+    } /* End of 'VirtualThreadFactory::isSupported' method */
+
+    @Override
+    public final Thread newThread(final Runnable task) {
+        return isSupported()?c_VirtualFactory.newThread(task):m_FallbackFactory.newThread(task);
+    } /* End of 'VirtualThreadFactory::newThread' method */
+} /* End of 'VirtualThreadFactory' class */
@@ -1,39 +1,528 @@
 package com.gesoftware.venta.utility;
 
-import java.io.ByteArrayOutputStream;
+import com.gesoftware.venta.logging.LoggingUtility;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
 import java.util.zip.Inflater;
 
 /**
- * Compression utility class definition
+ * Compression utility class definition (codecs registry; default codec is serialization with the best deflate,
+ * which is understood by legacy peers; zlib streams and scratch buffers are pooled)
  **/
 public final class CompressionUtility {
     private static final int c_BufferSize = 4096;
 
+    /* Serialization with the best deflate (legacy format, default codec) */
+    public final static byte c_CodecBest = 0;
+
+    /* Serialization with the fastest deflate (decoded as legacy format) */
+    public final static byte c_CodecFast = 1;
+
+    /* Serialization without compression */
+    public final static byte c_CodecRaw = 2;
+
+    /* Hand-written map protocol codec (registered by map package) */
+    public final static byte c_CodecCompact = 3;
+
+    /* Serialized objects, smaller than threshold, are deflated without compression (bytes) */
+    public final static int c_CompressionThreshold = 256;
+
+    /* Registered codecs by identifiers */
+    private final static ICodec[] c_Codecs = new ICodec[128];
+
+    /* Registered codecs, checked for automatic selection */
+    private final static List<ICodec> c_Selectable = new CopyOnWriteArrayList<ICodec>();
+
+    /* Maximal number of pooled workspaces (extra ones are released at once) */
+    private final static int c_PoolCapacity = 2 * Runtime.getRuntime().availableProcessors();
+
+    /* Maximal size of scratch buffer, kept by pooled workspace (bytes) */
+    private final static int c_MaxRetainedSize = 1024 * 1024;
+
+    /**
+     * Scratch byte stream class definition (it's buffer is reused)
+     **/
+    private final static class ScratchStream extends ByteArrayOutputStream {
+        /* *
+         * METHOD: Class constructor
+         * AUTHOR: Eliseev Dmitry
+         * */
+        public ScratchStream() {
+            super(c_BufferSize);
+        } /* End of 'ScratchStream::ScratchStream' method */
+
+        /* *
+         * METHOD: Gets internal buffer (valid bytes are [0, size))
+         * RETURN: Stream buffer
+         * AUTHOR: Eliseev Dmitry
+         * */
+        public final byte[] getBuffer() {
+            return buf;
+        } /* End of 'ScratchStream::getBuffer' method */
+
+        /* *
+         * METHOD: Clears stream, too large buffer is dropped
+         * AUTHOR: Eliseev Dmitry
+         * */
+        public final void clear() {
+            reset();
+            if (buf.length > c_MaxRetainedSize)
+                buf = new byte[c_BufferSize];
+        } /* End of 'ScratchStream::clear' method */
+    } /* End of 'CompressionUtility::ScratchStream' class */
+
+    /**
+     * Workspace class definition (zlib streams and scratch buffers of one operation, pooled between calls)
+     **/
+    private final static class Workspace {
+        /* Deflaters by level (created on demand) */
+        private final Deflater[] m_Deflaters = new Deflater[Deflater.BEST_COMPRESSION + 1];
+        private Inflater m_Inflater;
+
+        /* Serialized object */
+        private final ScratchStream m_Serialized = new ScratchStream();
+
+        /* Deflate or inflate output */
+        private byte[] m_Output = new byte[c_BufferSize];
+
+        /* Streams input/output chunk */
+        private final byte[] m_Chunk = new byte[c_BufferSize];
+
+        /* *
+         * METHOD: Gets deflater
+         * RETURN: Deflater, ready for new input
+         *  PARAM: [IN] level - deflate level
+         * AUTHOR: Eliseev Dmitry
+         * */
+        public final Deflater getDeflater(final int level) {
+            if (m_Deflaters[level] == null)
+                m_Deflaters[level] = new Deflater(level);
+
+            return m_Deflaters[level];
+        } /* End of 'Workspace::getDeflater' method */
+
+        /* *
+         * METHOD: Gets inflater
+         * RETURN: Inflater, ready for new input
+         * AUTHOR: Eliseev Dmitry
+         * */
+        public final Inflater getInflater() {
+            if (m_Inflater == null)
+                m_Inflater = new Inflater();
+
+            return m_Inflater;
+        } /* End of 'Workspace::getInflater' method */
+
+        /* *
+         * METHOD: Doubles output buffer (content is kept)
+         * RETURN: New output buffer
+         * AUTHOR: Eliseev Dmitry
+         * */
+        public final byte[] grow() {
+            m_Output = Arrays.copyOf(m_Output, m_Output.length * 2);
+            return m_Output;
+        } /* End of 'Workspace::grow' method */
+
+        /* *
+         * METHOD: Prepares workspace for the next operation
+         * AUTHOR: Eliseev Dmitry
+         * */
+        public final void reset() {
+            for (final Deflater deflater : m_Deflaters)
+                if (deflater != null)
+                    deflater.reset();
+
+            if (m_Inflater != null)
+                m_Inflater.reset();
+
+            m_Serialized.clear();
+            if (m_Output.length > c_MaxRetainedSize)
+                m_Output = new byte[c_BufferSize];
+        } /* End of 'Workspace::reset' method */
+
+        /* *
+         * METHOD: Releases native zlib memory
+         * AUTHOR: Eliseev Dmitry
+         * */
+        public final void end() {
+            for (final Deflater deflater : m_Deflaters)
+                if (deflater != null)
+                    deflater.end();
+
+            if (m_Inflater != null)
+                m_Inflater.end();
+        } /* End of 'Workspace::end' method */
+    } /* End of 'CompressionUtility::Workspace' class */
+
+    /* Free workspaces and their count */
+    private final static Queue<Workspace> c_Pool = new ConcurrentLinkedQueue<Workspace>();
+    private final static AtomicInteger c_PoolSize = new AtomicInteger();
+
+    /**
+     * Deflating stream class definition (writes deflated bytes to target stream, target isn't closed)
+     **/
+    private final static class DeflatingStream extends OutputStream {
+        private final OutputStream m_Target;
+        private final Deflater m_Deflater;
+        private final byte[] m_Chunk;
+        private final byte[] m_Byte = new byte[1];
+
+        /* *
+         * METHOD: Class constructor
+         *  PARAM: [IN] target    - stream to write deflated bytes to
+         *  PARAM: [IN] workspace - workspace to use
+         *  PARAM: [IN] level     - deflate level
+         * AUTHOR: Eliseev Dmitry
+         * */
+        public DeflatingStream(final OutputStream target, final Workspace workspace, final int level) {
+            m_Target   = target;
+            m_Deflater = workspace.getDeflater(level);
+            m_Chunk    = workspace.m_Chunk;
+        } /* End of 'DeflatingStream::DeflatingStream' method */
+
+        /* *
+         * METHOD: Writes available deflated bytes to target
+         * AUTHOR: Eliseev Dmitry
+         * */
+        private void drain() throws IOException {
+            final int size = m_Deflater.deflate(m_Chunk);
+            if (size > 0)
+                m_Target.write(m_Chunk, 0, size);
+        } /* End of 'DeflatingStream::drain' method */
+
+        @Override
+        public final void write(final int b) throws IOException {
+            m_Byte[0] = (byte) b;
+            write(m_Byte, 0, 1);
+        } /* End of 'DeflatingStream::write' method */
+
+        @Override
+        public final void write(final byte[] bytes, final int offset, final int length) throws IOException {
+            m_Deflater.setInput(bytes, offset, length);
+            while (!m_Deflater.needsInput())
+                drain();
+        } /* End of 'DeflatingStream::write' method */
+
+        /* *
+         * METHOD: Finishes deflate stream and flushes target
+         * AUTHOR: Eliseev Dmitry
+         * */
+        public final void finish() throws IOException {
+            m_Deflater.finish();
+            while (!m_Deflater.finished())
+                drain();
+
+            m_Target.flush();
+        } /* End of 'DeflatingStream::finish' method */
+    } /* End of 'CompressionUtility::DeflatingStream' class */
+
+    /**
+     * Inflating stream class definition (reads deflated bytes from source stream by chunks, so bytes after
+     * deflate stream end may be consumed; inflated bytes are buffered, so object stream's small reads are cheap)
+     **/
+    private final static class InflatingStream extends InputStream {
+        private final InputStream m_Source;
+        private final Inflater m_Inflater;
+        private final byte[] m_Chunk;
+
+        /* Inflated bytes, which are not read yet, are kept in [position, limit) */
+        private final byte[] m_Buffer;
+        private int m_Position = 0;
+        private int m_Limit    = 0;
+
+        /* *
+         * METHOD: Class constructor
+         *  PARAM: [IN] source    - stream to read deflated bytes from
+         *  PARAM: [IN] workspace - workspace to use
+         * AUTHOR: Eliseev Dmitry
+         * */
+        public InflatingStream(final InputStream source, final Workspace workspace) {
+            m_Source   = source;
+            m_Inflater = workspace.getInflater();
+            m_Chunk    = workspace.m_Chunk;
+            m_Buffer   = workspace.m_Output;
+        } /* End of 'InflatingStream::InflatingStream' method */
+
+        /* *
+         * METHOD: Inflates next bytes to buffer
+         * RETURN: True if bytes are available, False if deflate stream is finished
+         * AUTHOR: Eliseev Dmitry
+         * */
+        private boolean fill() throws IOException {
+            while (!m_Inflater.finished()) {
+                final int size;
+                try {
+                    size = m_Inflater.inflate(m_Buffer);
+                } catch (final DataFormatException e) {
+                    throw new IOException("Wrong deflate stream: " + e.getMessage());
+                }
+
+                if (size > 0) {
+                    m_Position = 0;
+                    m_Limit    = size;
+                    return true;
+                }
+
+                if (!m_Inflater.needsInput())
+                    throw new IOException("Wrong deflate stream");
+
+                final int read = m_Source.read(m_Chunk);
+                if (read < 0)
+                    throw new EOFException("Unexpected end of deflate stream");
+
+                m_Inflater.setInput(m_Chunk, 0, read);
+            }
+
+            return false;
+        } /* End of 'InflatingStream::fill' method */
+
+        @Override
+        public final int read() throws IOException {
+            if ((m_Position == m_Limit) && !fill())
+                return -1;
+
+            return m_Buffer[m_Position++] & 0xFF;
+        } /* End of 'InflatingStream::read' method */
+
+        @Override
+        public final int read(final byte[] bytes, final int offset, final int length) throws IOException {
+            if (length == 0)
+                return 0;
+
+            if ((m_Position == m_Limit) && !fill())
+                return -1;
+
+            final int size = Math.min(length, m_Limit - m_Position);
+            System.arraycopy(m_Buffer, m_Position, bytes, offset, size);
+            m_Position += size;
+
+            return size;
+        } /* End of 'InflatingStream::read' method */
+
+        @Override
+        public final int available() {
+            return m_Limit - m_Position;
+        } /* End of 'InflatingStream::available' method */
+    } /* End of 'CompressionUtility::InflatingStream' class */
+
+    /**
+     * Deflate codec class definition (serialized object is deflated with selected level)
+     **/
+    private final static class DeflateCodec implements ICodec {
+        private final byte m_ID;
+        private final int m_Level;
+
+        /* *
+         * METHOD: Class constructor
+         *  PARAM: [IN] id    - codec identifier
+         *  PARAM: [IN] level - deflate level
+         * AUTHOR: Eliseev Dmitry
+         * */
+        public DeflateCodec(final byte id, final int level) {
+            m_ID    = id;
+            m_Level = level;
+        } /* End of 'DeflateCodec::DeflateCodec' method */
+
+        @Override
+        public final byte getID() {
+            return m_ID;
+        } /* End of 'DeflateCodec::getID' method */
+
+        @Override
+        public final boolean isApplicable(final Object object) {
+            return false;
+        } /* End of 'DeflateCodec::isApplicable' method */
+
+        @Override
+        public final byte[] encode(final Object object) {
+            final Workspace workspace = acquire();
+            try {
+                /* Object is serialized to reused buffer and deflated right from it */
+                final ScratchStream serialized = workspace.m_Serialized;
+                if (!SerializationUtility.pack(object, serialized))
+                    return null;
+
+                return deflate(workspace, serialized.getBuffer(), 0, serialized.size(), m_Level);
+            } finally {
+                release(workspace);
+            }
+        } /* End of 'DeflateCodec::encode' method */
+
+        @Override
+        public final Object decode(final byte[] data, final int offset, final int length) {
+            final Workspace workspace = acquire();
+            try {
+                final int size = inflate(workspace, data, offset, length);
+                if (size < 0)
+                    return null;
+
+                return SerializationUtility.unpack(new ByteArrayInputStream(workspace.m_Output, 0, size));
+            } finally {
+                release(workspace);
+            }
+        } /* End of 'DeflateCodec::decode' method */
+    } /* End of 'CompressionUtility::DeflateCodec' class */
+
+    /**
+     * Raw codec class definition (serialization only)
+     **/
+    private final static class RawCodec implements ICodec {
+        @Override
+        public final byte getID() {
+            return c_CodecRaw;
+        } /* End of 'RawCodec::getID' method */
+
+        @Override
+        public final boolean isApplicable(final Object object) {
+            return false;
+        } /* End of 'RawCodec::isApplicable' method */
+
+        @Override
+        public final byte[] encode(final Object object) {
+            return SerializationUtility.pack(object);
+        } /* End of 'RawCodec::encode' method */
+
+        @Override
+        public final Object decode(final byte[] data, final int offset, final int length) {
+            return SerializationUtility.unpack(new ByteArrayInputStream(data, offset, length));
+        } /* End of 'RawCodec::decode' method */
+    } /* End of 'CompressionUtility::RawCodec' class */
+
+    static {
+        register(new DeflateCodec(c_CodecBest, Deflater.BEST_COMPRESSION));
+        register(new DeflateCodec(c_CodecFast, Deflater.BEST_SPEED));
+        register(new RawCodec());
+    }
+
     /* *
-     * METHOD: Compress byte array to another byte array
-     * RETURN: Compressed byte array
-     *  PARAM: [IN] bytes - byte array to compress
+     * METHOD: Takes workspace from pool (creates new one if pool is empty)
+     * RETURN: Workspace
      * AUTHOR: Eliseev Dmitry
      * */
-    private static byte[] compressByteArray(final byte[] bytes) {
-        ByteArrayOutputStream byteArrayOutputStream= new ByteArrayOutputStream();
-        final Deflater deflater = new Deflater();
-        deflater.setLevel(Deflater.BEST_COMPRESSION);
-        deflater.setInput(bytes);
+    private static Workspace acquire() {
+        final Workspace workspace = c_Pool.poll();
+        if (workspace == null)
+            return new Workspace();
+
+        c_PoolSize.decrementAndGet();
+        return workspace;
+    } /* End of 'CompressionUtility::acquire' method */
+
+    /* *
+     * METHOD: Returns workspace to pool (native memory is released if pool is full)
+     *  PARAM: [IN] workspace - workspace to return
+     * AUTHOR: Eliseev Dmitry
+     * */
+    private static void release(final Workspace workspace) {
+        if (c_PoolSize.incrementAndGet() > c_PoolCapacity) {
+            c_PoolSize.decrementAndGet();
+            workspace.end();
+            return;
+        }
+
+        workspace.reset();
+        c_Pool.add(workspace);
+    } /* End of 'CompressionUtility::release' method */
+
+    /* *
+     * METHOD: Deflates bytes to workspace output
+     * RETURN: Compressed byte array (the only copy of output)
+     *  PARAM: [IN] workspace - workspace to use
+     *  PARAM: [IN] bytes     - bytes to compress
+     *  PARAM: [IN] offset    - the first byte offset
+     *  PARAM: [IN] length    - the number of bytes
+     *  PARAM: [IN] level     - deflate level (small arrays are not compressed)
+     * AUTHOR: Eliseev Dmitry
+     * */
+    private static byte[] deflate(final Workspace workspace, final byte[] bytes, final int offset, final int length, final int level) {
+        final Deflater deflater = workspace.getDeflater((length < c_CompressionThreshold)?Deflater.NO_COMPRESSION:level);
+        deflater.setInput(bytes, offset, length);
         deflater.finish();
 
-        final byte[] tempBuffer = new byte[c_BufferSize];
+        byte[] output = workspace.m_Output;
+        int size = 0;
+        while (!deflater.finished()) {
+            if (size == output.length)
+                output = workspace.grow();
+
+            size += deflater.deflate(output, size, output.length - size);
+        }
+
+        return Arrays.copyOf(output, size);
+    } /* End of 'CompressionUtility::deflate' method */
+
+    /* *
+     * METHOD: Inflates bytes to workspace output
+     * RETURN: The number of inflated bytes, -1 if bytes are not a valid deflate stream
+     *  PARAM: [IN] workspace - workspace to use
+     *  PARAM: [IN] bytes     - bytes to decompress
+     *  PARAM: [IN] offset    - the first byte offset
+     *  PARAM: [IN] length    - the number of bytes
+     * AUTHOR: Eliseev Dmitry
+     * */
+    private static int inflate(final Workspace workspace, final byte[] bytes, final int offset, final int length) {
+        final Inflater inflater = workspace.getInflater();
+        inflater.setInput(bytes, offset, length);
+
+        byte[] output = workspace.m_Output;
+        int size = 0;
         try {
-            while (!deflater.finished())
-                byteArrayOutputStream.write(tempBuffer, 0, deflater.deflate(tempBuffer));
-        } catch (final Exception ignored) {}
+            while (!inflater.finished()) {
+                if (size == output.length)
+                    output = workspace.grow();
+
+                final int inflated = inflater.inflate(output, size, output.length - size);
+                if ((inflated == 0) && (inflater.needsInput() || inflater.needsDictionary())) {
+                    LoggingUtility.error("Unexpected end of deflate stream");
+                    return -1;
+                }
+
+                size += inflated;
+            }
+        } catch (final DataFormatException e) {
+            LoggingUtility.error("Wrong deflate stream: " + e.getMessage());
+            return -1;
+        }
 
+        return size;
+    } /* End of 'CompressionUtility::inflate' method */
+
+    /* *
+     * METHOD: Compress byte array to another byte array
+     * RETURN: Compressed byte array
+     *  PARAM: [IN] bytes  - byte array to compress
+     *  PARAM: [IN] offset - the first byte offset
+     *  PARAM: [IN] length - the number of bytes
+     *  PARAM: [IN] level  - deflate level (small arrays are not compressed)
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public static byte[] compressByteArray(final byte[] bytes, final int offset, final int length, final int level) {
+        final Workspace workspace = acquire();
         try {
-            byteArrayOutputStream.close();
-        } catch(final Exception ignored){}
+            return deflate(workspace, bytes, offset, length, level);
+        } finally {
+            release(workspace);
+        }
+    } /* End of 'CompressionUtility::compressByteArray' method */
 
-        return byteArrayOutputStream.toByteArray();
+    /* *
+     * METHOD: Compress byte array to another byte array
+     * RETURN: Compressed byte array
+     *  PARAM: [IN] bytes - byte array to compress
+     *  PARAM: [IN] level - deflate level (small arrays are not compressed)
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public static byte[] compressByteArray(final byte[] bytes, final int level) {
+        return compressByteArray(bytes, 0, bytes.length, level);
     } /* End of 'CompressionUtility::compressByteArray' method */
 
     /* *
@@ -43,32 +532,59 @@ public final class CompressionUtility {
      * AUTHOR: Eliseev Dmitry
      * */
     public static byte[] compress(final Object object) {
-        return compressByteArray(SerializationUtility.pack(object));
+        return encode(object, c_CodecBest);
     } /* End of 'CompressionUtility::compress' method */
 
     /* *
-     * METHOD: Decompress byte array to another byte array
-     * RETURN: Decompressed byte array
-     *  PARAM: [IN] bytes - byte array to decompress
+     * METHOD: Writes compressed object to a stream (the same format as compressed byte array, stream isn't closed)
+     * RETURN: True if success, False otherwise
+     *  PARAM: [IN] object - object for compression
+     *  PARAM: [IN] stream - output stream
      * AUTHOR: Eliseev Dmitry
      * */
-    private static byte[] decompressByteArray(final byte[] bytes){
-        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        final Inflater inflater = new Inflater();
-        inflater.setInput(bytes);
-
-        final byte[] tempBuffer = new byte[c_BufferSize];
-        try{
-            while (!inflater.finished())
-                byteArrayOutputStream.write(tempBuffer, 0, inflater.inflate(tempBuffer));
+    public static boolean compress(final Object object, final OutputStream stream) {
+        final Workspace workspace = acquire();
+        try {
+            final DeflatingStream deflating = new DeflatingStream(stream, workspace, Deflater.BEST_COMPRESSION);
+            if (!SerializationUtility.pack(object, deflating))
+                return false;
 
-        } catch (final Exception ignored) {}
+            deflating.finish();
+            return true;
+        } catch (final IOException e) {
+            LoggingUtility.exception(e);
+            return false;
+        } finally {
+            release(workspace);
+        }
+    } /* End of 'CompressionUtility::compress' method */
 
+    /* *
+     * METHOD: Decompress byte array to another byte array
+     * RETURN: Decompressed byte array, null if bytes are not a valid deflate stream
+     *  PARAM: [IN] bytes  - byte array to decompress
+     *  PARAM: [IN] offset - the first byte offset
+     *  PARAM: [IN] length - the number of bytes
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public static byte[] decompressByteArray(final byte[] bytes, final int offset, final int length) {
+        final Workspace workspace = acquire();
         try {
-            byteArrayOutputStream.close();
-        } catch(final Exception ignored){}
+            final int size = inflate(workspace, bytes, offset, length);
+            return (size >= 0)?Arrays.copyOf(workspace.m_Output, size):null;
+        } finally {
+            release(workspace);
+        }
+    } /* End of 'CompressionUtility::decompressByteArray' method */
 
-        return byteArrayOutputStream.toByteArray();
+    /* *
+     * METHOD: Decompress byte array to another byte array
+     * RETURN: Decompressed byte array, null if bytes are not a valid deflate stream
+     *  PARAM: [IN] bytes - byte array to decompress
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public static byte[] decompressByteArray(final byte[] bytes) {
+        return decompressByteArray(bytes, 0, bytes.length);
     } /* End of 'CompressionUtility::decompressByteArray' method */
 
     /* *
@@ -78,6 +594,129 @@ public final class CompressionUtility {
      * AUTHOR: Eliseev Dmitry
      * */
     public static Object decompress(final byte[] compressedObject) {
-        return SerializationUtility.unpack(decompressByteArray(compressedObject));
+        return decode(compressedObject, c_CodecBest);
+    } /* End of 'CompressionUtility::decompress' method */
+
+    /* *
+     * METHOD: Reads compressed object from a stream (stream is read by chunks, so it should contain nothing after
+     *         compressed object; stream isn't closed)
+     * RETURN: Decompressed object if success, null otherwise
+     *  PARAM: [IN] stream - input stream
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public static Object decompress(final InputStream stream) {
+        final Workspace workspace = acquire();
+        try {
+            return SerializationUtility.unpack(new InflatingStream(stream, workspace));
+        } finally {
+            release(workspace);
+        }
     } /* End of 'CompressionUtility::decompress' method */
+
+    /* *
+     * METHOD: Registers codec (codec with the same identifier is replaced)
+     *  PARAM: [IN] codec - codec to register
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public static void register(final ICodec codec) {
+        final ICodec previous = c_Codecs[codec.getID()];
+        if (previous == codec)
+            return;
+
+        if (previous != null)
+            c_Selectable.remove(previous);
+
+        c_Codecs[codec.getID()] = codec;
+        c_Selectable.add(codec);
+    } /* End of 'CompressionUtility::register' method */
+
+    /* *
+     * METHOD: Gets registered codec
+     * RETURN: Codec, null if there is no codec with such identifier
+     *  PARAM: [IN] id - codec identifier
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public static ICodec getCodec(final byte id) {
+        return ((id >= 0) && (id < c_Codecs.length))?c_Codecs[id]:null;
+    } /* End of 'CompressionUtility::getCodec' method */
+
+    /* *
+     * METHOD: Selects codec for object (the first applicable registered codec, default codec otherwise)
+     * RETURN: Codec identifier
+     *  PARAM: [IN] object - object to encode
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public static byte selectCodec(final Object object) {
+        for (final ICodec codec : c_Selectable)
+            if (codec.isApplicable(object))
+                return codec.getID();
+
+        return c_CodecBest;
+    } /* End of 'CompressionUtility::selectCodec' method */
+
+    /* *
+     * METHOD: Determines if legacy peers (which always inflate and deserialize) can decode codec's bytes
+     * RETURN: True if codec's bytes are in legacy format, False otherwise
+     *  PARAM: [IN] id - codec identifier
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public static boolean isLegacy(final byte id) {
+        return (id == c_CodecBest) || (id == c_CodecFast);
+    } /* End of 'CompressionUtility::isLegacy' method */
+
+    /* *
+     * METHOD: Encodes object with selected codec
+     * RETURN: Object bytes, null if codec isn't registered or object can't be encoded
+     *  PARAM: [IN] object - object to encode
+     *  PARAM: [IN] id     - codec identifier
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public static byte[] encode(final Object object, final byte id) {
+        final ICodec codec = getCodec(id);
+        if (codec == null) {
+            LoggingUtility.error("Unknown codec: " + id);
+            return null;
+        }
+
+        return codec.encode(object);
+    } /* End of 'CompressionUtility::encode' method */
+
+    /* *
+     * METHOD: Decodes object with selected codec
+     * RETURN: Decoded object, null if codec isn't registered or bytes can't be decoded
+     *  PARAM: [IN] data - object bytes
+     *  PARAM: [IN] id   - codec identifier
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public static Object decode(final byte[] data, final byte id) {
+        final ICodec codec = getCodec(id);
+        if (codec == null) {
+            LoggingUtility.error("Unknown codec: " + id);
+            return null;
+        }
+
+        return codec.decode(data, 0, data.length);
+    } /* End of 'CompressionUtility::decode' method */
+
+    /* *
+     * METHOD: Decodes object from buffer with selected codec (heap buffer's bytes are not copied)
+     * RETURN: Decoded object, null if codec isn't registered or bytes can't be decoded
+     *  PARAM: [IN] data - buffer, which remaining bytes are object bytes
+     *  PARAM: [IN] id   - codec identifier
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public static Object decode(final ByteBuffer data, final byte id) {
+        final ICodec codec = getCodec(id);
+        if (codec == null) {
+            LoggingUtility.error("Unknown codec: " + id);
+            return null;
+        }
+
+        if (data.hasArray())
+            return codec.decode(data.array(), data.arrayOffset() + data.position(), data.remaining());
+
+        final byte[] bytes = new byte[data.remaining()];
+        data.duplicate().get(bytes);
+        return codec.decode(bytes, 0, bytes.length);
+    } /* End of 'CompressionUtility::decode' method */
 } /* End of 'CompressionUtility' class */
@@ -0,0 +1,40 @@
+package com.gesoftware.venta.utility;
+
+/**
+ * Codec interface definition (converts message objects to bytes; codec identifier is sent with message, so
+ * receiver should have the same codec registered)
+ **/
+public interface ICodec {
+    /* *
+     * METHOD: Gets codec identifier
+     * RETURN: Codec identifier (0..127)
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public byte getID();
+
+    /* *
+     * METHOD: Determines if codec is intended for object (registered codecs are selected automatically)
+     * RETURN: True if codec should be used for object, False otherwise
+     *  PARAM: [IN] object - object to encode
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public boolean isApplicable(final Object object);
+
+    /* *
+     * METHOD: Encodes object
+     * RETURN: Object bytes, null if object can't be encoded
+     *  PARAM: [IN] object - object to encode
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public byte[] encode(final Object object);
+
+    /* *
+     * METHOD: Decodes object
+     * RETURN: Decoded object, null if bytes can't be decoded
+     *  PARAM: [IN] data   - array with object bytes
+     *  PARAM: [IN] offset - the first object byte offset
+     *  PARAM: [IN] length - the number of object bytes
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public Object decode(final byte[] data, final int offset, final int length);
+} /* End of 'ICodec' interface */
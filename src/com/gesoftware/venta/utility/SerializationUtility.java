@@ -90,4 +90,42 @@ public final class SerializationUtility {
 
         return object;
     } /* End of 'SerializationUtility::pack' method */
+
+    /* *
+     * METHOD: Writes object to a stream (stream is flushed, but not closed)
+     * RETURN: True if success, False otherwise
+     *  PARAM: [IN] object - object for serialization
+     *  PARAM: [IN] stream - output stream
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public static boolean pack(final Object object, final OutputStream stream) {
+        try {
+            final ObjectOutputStream objectOutput = new ObjectOutputStream(stream);
+            objectOutput.writeObject(object);
+            objectOutput.flush();
+
+            return true;
+        } catch (final IOException e) {
+            LoggingUtility.exception(e);
+            return false;
+        }
+    } /* End of 'SerializationUtility::pack' method */
+
+    /* *
+     * METHOD: Reads object from a stream (stream is not closed)
+     * RETURN: Object if success, null otherwise
+     *  PARAM: [IN] stream - input stream
+     * AUTHOR: Eliseev Dmitry
+     * */
+    public static Object unpack(final InputStream stream) {
+        try {
+            return new ObjectInputStream(stream).readObject();
+        } catch (final ClassNotFoundException e) {
+            LoggingUtility.error("Class not found: " + e.getMessage());
+        } catch (final IOException e) {
+            LoggingUtility.exception(e);
+        }
+
+        return null;
+    } /* End of 'SerializationUtility::unpack' method */
 } /* End of 'SerializationUtility' class */
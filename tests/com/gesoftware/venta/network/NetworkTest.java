@@ -8,9 +8,13 @@ import com.gesoftware.venta.network.model.ServerResponse;
 
 import java.net.InetAddress;
 import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 public final class NetworkTest {
     private final static int c_Port = 5502;
+    private final static int c_BackpressurePort = 5505;
+    private final static int c_BackpressureMessages = 3000;
 
     private static void startServer() {
         final Server server = new Server(c_Port, new IServerHandler() {
@@ -65,7 +69,77 @@ public final class NetworkTest {
         (new java.util.Timer("Client")).schedule(new Task(connection), 0, 1000);
     }
 
-    public static void main(final String args[]) {
+    private static void testBackpressure(final int port, final Server.BackpressurePolicy policy, final long blockTimeout)
+            throws InterruptedException {
+        final AtomicReference<String> connectedID = new AtomicReference<String>();
+        final Server server = new Server(port, new IServerHandler() {
+            @Override
+            public boolean onConnect(final String clientID, final InetAddress clientAddress) {
+                connectedID.set(clientID);
+                return true;
+            }
+
+            @Override
+            public ServerResponse onReceive(final String clientID, final Message message) {
+                return new ServerResponse(message);
+            }
+
+            @Override
+            public void onDisconnect(final String clientID) {}
+        });
+
+        server.setSendLimits(100, 256 * 1024, policy);
+        server.setBlockTimeout(blockTimeout, Server.BackpressurePolicy.DROP_NEWEST);
+        (new Thread(server)).start();
+        Thread.sleep(300);
+
+        final AtomicInteger received = new AtomicInteger();
+        final Connection connection = new Connection("localhost", port, new IClientHandler() {
+            @Override
+            public void onReceive(final Message message) {
+                received.incrementAndGet();
+                try {
+                    Thread.sleep(2);
+                } catch (final InterruptedException ignored) {}
+            }
+
+            @Override
+            public void onConnectionLost(final String message) {}
+        });
+        connection.connect();
+
+        SenderStatistics statistics = null;
+        while (statistics == null) {
+            Thread.sleep(10);
+            if (connectedID.get() != null)
+                statistics = server.getStatistics(connectedID.get());
+        }
+
+        final byte[] payload = new byte[10000];
+        final long start = System.currentTimeMillis();
+
+        int accepted = 0;
+        for (int message = 0; message < c_BackpressureMessages; message++)
+            if (server.send(connectedID.get(), new Message(payload)))
+                accepted++;
+
+        LoggingUtility.info(policy + " (block timeout " + blockTimeout + " ms): " + accepted + " of " + c_BackpressureMessages +
+                " accepted in " + (System.currentTimeMillis() - start) + " ms, connected: " +
+                (server.getStatistics(connectedID.get()) != null) + ", " + statistics);
+
+        connection.disconnect();
+        server.stop();
+    }
+
+    public static void main(final String args[]) throws InterruptedException {
+        LoggingUtility.setLoggingLevel(LoggingUtility.LoggingLevel.LEVEL_CORE);
+
+        testBackpressure(c_BackpressurePort, Server.BackpressurePolicy.BLOCK, 5000);
+        testBackpressure(c_BackpressurePort + 1, Server.BackpressurePolicy.BLOCK, 1);
+        testBackpressure(c_BackpressurePort + 2, Server.BackpressurePolicy.DROP_OLDEST, 5000);
+        testBackpressure(c_BackpressurePort + 3, Server.BackpressurePolicy.DROP_NEWEST, 5000);
+        testBackpressure(c_BackpressurePort + 4, Server.BackpressurePolicy.DISCONNECT, 5000);
+
         LoggingUtility.setLoggingLevel(LoggingUtility.LoggingLevel.LEVEL_DEBUG);
 
         startServer();
@@ -0,0 +1,186 @@
+package com.gesoftware.venta.network;
+
+import com.gesoftware.venta.logging.LoggingUtility;
+import com.gesoftware.venta.network.handlers.IClientHandler;
+import com.gesoftware.venta.network.handlers.IServerHandler;
+import com.gesoftware.venta.network.model.Message;
+import com.gesoftware.venta.network.model.ServerResponse;
+
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimerTask;
+
+public final class NioNetworkTest {
+    private final static int c_Port = 5504;
+    private final static int c_KeepingPort = 5510;
+    private final static int c_KeptMessages = 1000;
+
+    private static void startServer() {
+        final NioServer server = new NioServer(c_Port, new IServerHandler() {
+            @Override
+            public boolean onConnect(final String clientID, final InetAddress clientAddress) {
+                LoggingUtility.info("Client connected: " + clientID);
+                return true;
+            }
+
+            @Override
+            public ServerResponse onReceive(final String clientID, final Message message) {
+                LoggingUtility.info("Client send message: " + message.toString());
+                return new ServerResponse(message);
+            }
+
+            @Override
+            public void onDisconnect(final String clientID) {
+                LoggingUtility.info("Client disconnected: " + clientID);
+            }
+        });
+
+        (new Thread(server)).start();
+    }
+
+    private static class Task extends TimerTask {
+        private final Connection m_Connection;
+
+        public Task(final Connection connection) {
+            m_Connection = connection;
+        }
+
+        @Override
+        public void run() {
+            m_Connection.send(new Message("Hello, current time is: " + System.currentTimeMillis()));
+        }
+    }
+
+    private static void startClient() {
+        final Connection connection = new Connection("localhost", c_Port, new IClientHandler() {
+            @Override
+            public void onReceive(final Message message) {
+                LoggingUtility.info("Server answer: " + message.toString());
+            }
+
+            @Override
+            public void onConnectionLost(final String message) {
+                LoggingUtility.info("Connection lost: " + message);
+            }
+        });
+
+        connection.connect();
+        (new java.util.Timer("Client")).schedule(new Task(connection), 0, 1000);
+    }
+
+    private static boolean isReleased(final Message message) {
+        try {
+            message.getData();
+        } catch (final IllegalStateException e) {
+            return true;
+        }
+
+        return false;
+    }
+
+    private static void testBufferPool() {
+        final BufferPool pool = new BufferPool();
+
+        final ByteBuffer small = pool.acquire(100);
+        small.put((byte) 1);
+        pool.release(small);
+
+        final ByteBuffer reused = pool.acquire(8192);
+        final ByteBuffer large = pool.acquire(10000);
+        final ByteBuffer huge = pool.acquire(5 * 1024 * 1024);
+        pool.release(huge);
+
+        LoggingUtility.info("Buffer pool: small capacity " + small.capacity() + ", reused: " + (reused == small) +
+                ", cleared: " + (reused.position() == 0) + ", large capacity " + large.capacity() + ", huge pooled: " +
+                (pool.acquire(huge.capacity()) == huge));
+    }
+
+    private static void testDetach() {
+        final ByteBuffer buffer = ByteBuffer.wrap("first".getBytes());
+        final Message kept = new Message(buffer, 0, (byte) 0).detach();
+        final Message lost = new Message(buffer, 0, (byte) 0);
+
+        kept.release();
+        lost.release();
+        buffer.clear();
+        buffer.put("reuse".getBytes());
+
+        LoggingUtility.info("Detach: kept " + kept + ", lost released: " + isReleased(lost));
+    }
+
+    private static void testKeptMessages() throws InterruptedException {
+        final List<Message> kept = new ArrayList<Message>();
+
+        final NioServer server = new NioServer(c_KeepingPort, new IServerHandler() {
+            @Override
+            public boolean onConnect(final String clientID, final InetAddress clientAddress) {
+                return true;
+            }
+
+            @Override
+            public ServerResponse onReceive(final String clientID, final Message message) {
+                synchronized (kept) {
+                    kept.add((kept.size() % 2 == 0)?message.detach():message);
+                }
+                return new ServerResponse(null);
+            }
+
+            @Override
+            public void onDisconnect(final String clientID) {}
+        });
+        (new Thread(server)).start();
+        Thread.sleep(300);
+
+        final Connection connection = new Connection("localhost", c_KeepingPort, new IClientHandler() {
+            @Override
+            public void onReceive(final Message message) {}
+
+            @Override
+            public void onConnectionLost(final String message) {}
+        });
+        connection.connect();
+
+        for (int message = 0; message < c_KeptMessages; message++)
+            connection.send(new Message("Kept message #" + message));
+
+        for (int wait = 0; wait < 100; wait++) {
+            synchronized (kept) {
+                if (kept.size() == c_KeptMessages)
+                    break;
+            }
+            Thread.sleep(50);
+        }
+
+        int intact = 0, released = 0;
+        synchronized (kept) {
+            for (int message = 0; message < kept.size(); message++) {
+                if (isReleased(kept.get(message)))
+                    released++;
+                else if (kept.get(message).equals(new Message("Kept message #" + message)))
+                    intact++;
+            }
+        }
+
+        LoggingUtility.info("Kept messages: " + intact + " detached are intact, " + released + " undetached are released, " +
+                c_KeptMessages + " sent");
+
+        connection.disconnect();
+        server.stop();
+    }
+
+    public static void main(final String args[]) throws InterruptedException {
+        LoggingUtility.setLoggingLevel(LoggingUtility.LoggingLevel.LEVEL_CORE);
+
+        testBufferPool();
+        testDetach();
+        testKeptMessages();
+
+        LoggingUtility.setLoggingLevel(LoggingUtility.LoggingLevel.LEVEL_DEBUG);
+
+        startServer();
+        Thread.sleep(300);
+        startClient();
+    }
+}
@@ -5,11 +5,98 @@ import com.gesoftware.venta.logging.LoggingUtility;
 import com.gesoftware.venta.utility.SerializationUtility;
 
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public final class SecurityTest {
     private final static String c_OriginalMessage = "The quick brown fox jumps over the lazy dog";
+    private final static int c_Sizes[] = {1024, 64 * 1024, 256 * 1024};
 
-    public static void main(final String args[]) {
+    private static byte[] roundTripBlocks(final KeyPair keyPair, final byte[] data) {
+        final int blockSize = 2048 / 8 - 11;
+        final List<byte[]> blocks = new ArrayList<byte[]>();
+        for (int position = 0; position < data.length; position += blockSize)
+            blocks.add(RSA.encrypt(keyPair.getPublic(), Arrays.copyOfRange(data, position, Math.min(position + blockSize, data.length))));
+
+        final byte[] result = new byte[data.length];
+        int position = 0;
+        for (final byte[] block : blocks) {
+            final byte[] decrypted = RSA.decrypt(keyPair.getPrivate(), block);
+            System.arraycopy(decrypted, 0, result, position, decrypted.length);
+            position += decrypted.length;
+        }
+
+        return result;
+    }
+
+    private static void testThroughput(final KeyPair keyPair) {
+        final byte[] sessionKey = AES.generateKey(128);
+        final byte[] receivedKey = RSA.decryptKey(keyPair.getPrivate(), RSA.encryptKey(keyPair.getPublic(), sessionKey));
+        LoggingUtility.info("Session key agreed: " + Arrays.equals(sessionKey, receivedKey));
+
+        final Random random = new Random(42);
+        for (final int size : c_Sizes) {
+            final byte[] data = new byte[size];
+            random.nextBytes(data);
+
+            long start = System.nanoTime();
+            final boolean isBlocksValid = Arrays.equals(data, roundTripBlocks(keyPair, data));
+            final double blocksTime = (System.nanoTime() - start) / 1e9;
+
+            final int iterations = 100;
+            boolean isSessionValid = true;
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++)
+                isSessionValid &= Arrays.equals(data, AES.decrypt(receivedKey, AES.encrypt(sessionKey, data)));
+            final double sessionTime = (System.nanoTime() - start) / 1e9 / iterations;
+
+            LoggingUtility.info(size + " bytes: blocks " + String.format("%.2f", size / blocksTime / 1024 / 1024) + " MB/s (" + isBlocksValid + "), session " + String.format("%.2f", size / sessionTime / 1024 / 1024) + " MB/s (" + isSessionValid + ")");
+        }
+
+        final byte[] sealed = AES.encrypt(sessionKey, c_OriginalMessage.getBytes());
+        sealed[sealed.length - 1] ^= 1;
+        LoggingUtility.info("Tampered data rejected: " + (AES.decrypt(sessionKey, sealed) == null));
+
+        final byte[] associated = AES.encrypt(sessionKey, ByteBuffer.wrap(c_OriginalMessage.getBytes()), new byte[] {1});
+        LoggingUtility.info("Tampered associated data rejected: " + (AES.decrypt(sessionKey, associated, new byte[] {2}) == null) + ", original accepted: " + (AES.decrypt(sessionKey, associated, new byte[] {1}) != null));
+        LoggingUtility.info("PKCS #1 v1.5 key rejected: " + (RSA.decryptKey(keyPair.getPrivate(), RSA.encrypt(keyPair.getPublic(), sessionKey)) == null));
+    }
+
+    private static void testParallel(final KeyPair keyPair) throws InterruptedException {
+        final byte[] data = new byte[16 * 1024];
+        new Random(7).nextBytes(data);
+
+        final int threadsCount = Math.max(4, Runtime.getRuntime().availableProcessors());
+        final AtomicInteger failures = new AtomicInteger(0);
+        final Thread[] threads = new Thread[threadsCount];
+        for (int i = 0; i < threadsCount; i++)
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    if (!Arrays.equals(data, roundTripBlocks(keyPair, data)))
+                        failures.incrementAndGet();
+                }
+            });
+
+        long start = System.nanoTime();
+        roundTripBlocks(keyPair, data);
+        final double singleTime = (System.nanoTime() - start) / 1e9;
+
+        start = System.nanoTime();
+        for (final Thread thread : threads)
+            thread.start();
+        for (final Thread thread : threads)
+            thread.join();
+        final double parallelTime = (System.nanoTime() - start) / 1e9;
+
+        LoggingUtility.info(threadsCount + " threads: " + String.format("%.2f", threadsCount * singleTime / parallelTime) + "x single thread throughput, failures: " + failures.get());
+    }
+
+    public static void main(final String args[]) throws InterruptedException {
         LoggingUtility.setLoggingLevel(LoggingUtility.LoggingLevel.LEVEL_DEBUG);
 
         /* Generate key pair */
@@ -25,5 +112,8 @@ public final class SecurityTest {
         } catch (UnsupportedEncodingException e) {
             LoggingUtility.error("Exception: " + e.getMessage());
         }
+
+        testThroughput(keyPair);
+        testParallel(keyPair);
     }
 }
@@ -0,0 +1,196 @@
+package com.gesoftware.venta.structures.cache;
+
+import com.gesoftware.venta.logging.LoggingUtility;
+import com.gesoftware.venta.utility.SerializationUtility;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class CacheTest {
+    private final static int c_Threads = 8;
+
+    private static final class SlowCache extends Cache<Integer, String> {
+        private final AtomicInteger m_Loads = new AtomicInteger();
+
+        public SlowCache(final long maximalWeight, final long expireAfterWrite, final long refreshAfterWrite) {
+            super(maximalWeight, expireAfterWrite, 0, refreshAfterWrite);
+        }
+
+        public SlowCache(final long maximalWeight, final long offHeapCapacity) {
+            super(maximalWeight, offHeapCapacity, null);
+        }
+
+        public SlowCache(final long maximalWeight, final long offHeapCapacity, final IValueCodec<String> codec) {
+            super(maximalWeight, offHeapCapacity, codec);
+        }
+
+        @Override
+        protected final String cacheItem(final Integer key) {
+            m_Loads.incrementAndGet();
+            sleep(20);
+
+            if (key < 0)
+                throw new IllegalArgumentException("Negative key " + key);
+
+            return "value #" + key;
+        }
+
+        public final int getLoadsCount() {
+            return m_Loads.get();
+        }
+    }
+
+    private static void sleep(final long time) {
+        try {
+            Thread.sleep(time);
+        } catch (final InterruptedException ignored) {}
+    }
+
+    private static void testCoalescing() throws InterruptedException {
+        final SlowCache cache = new SlowCache(0, 0, 0);
+
+        final Thread[] readers = new Thread[c_Threads];
+        for (int reader = 0; reader < c_Threads; reader++) {
+            readers[reader] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int key = 0; key < 10; key++)
+                        cache.get(key);
+                }
+            });
+            readers[reader].start();
+        }
+
+        for (final Thread reader : readers)
+            reader.join();
+
+        LoggingUtility.info("Coalescing: " + cache.getLoadsCount() + " loads for 10 keys and " + c_Threads + " threads");
+        LoggingUtility.info("Statistics: " + cache.getStatistics());
+    }
+
+    private static void testLoadingFailure() throws InterruptedException {
+        final SlowCache cache = new SlowCache(0, 0, 0);
+        final AtomicInteger failures = new AtomicInteger();
+
+        final Thread[] readers = new Thread[c_Threads];
+        for (int reader = 0; reader < c_Threads; reader++) {
+            readers[reader] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        cache.get(-1);
+                    } catch (final IllegalArgumentException e) {
+                        failures.incrementAndGet();
+                    }
+                }
+            });
+            readers[reader].start();
+        }
+
+        for (final Thread reader : readers)
+            reader.join();
+
+        LoggingUtility.info("Loading failure: " + failures.get() + " of " + c_Threads + " threads failed, " + cache.getLoadsCount() + " loads, cached: " + cache.getIfPresent(-1));
+    }
+
+    private static void testEviction() {
+        final SlowCache cache = new SlowCache(5, 0, 0);
+        for (int key = 0; key < 10; key++) {
+            cache.get(key);
+            cache.get(0);
+        }
+
+        LoggingUtility.info("Eviction: size " + cache.size() + ", weight " + cache.getWeight() + ", key 0 kept: " + (cache.getIfPresent(0) != null));
+        LoggingUtility.info("Statistics: " + cache.getStatistics());
+    }
+
+    private static void testExpiration() {
+        final SlowCache expiring = new SlowCache(0, 100, 0);
+        expiring.get(1);
+        sleep(150);
+        LoggingUtility.info("Expiration: cached " + (expiring.getIfPresent(1) != null) + ", reloaded " + expiring.get(1) + ", loads " + expiring.getLoadsCount());
+
+        final SlowCache refreshing = new SlowCache(0, 0, 100);
+        refreshing.get(1);
+        sleep(150);
+        refreshing.get(1);
+        sleep(100);
+        LoggingUtility.info("Refresh: loads " + refreshing.getLoadsCount() + ", statistics: " + refreshing.getStatistics());
+    }
+
+    private static void testOffHeap() {
+        final SlowCache cache = new SlowCache(5, 1024);
+        for (int key = 0; key < 10; key++)
+            cache.get(key);
+
+        LoggingUtility.info("Off-heap: size " + cache.size() + ", off-heap " + cache.getOffHeapSize() + ", key 0 promoted: " + cache.get(0) + ", loads " + cache.getLoadsCount());
+
+        for (int key = 10; key < 200; key++)
+            cache.get(key);
+
+        LoggingUtility.info("Off-heap recycled: size " + cache.size() + ", off-heap " + cache.getOffHeapSize() + ", statistics: " + cache.getStatistics());
+    }
+
+    private static void testSerialization() {
+        final SlowCache plain = new SlowCache(0, 0, 0);
+        plain.get(1);
+
+        final SlowCache offHeap = new SlowCache(5, 1024);
+        offHeap.get(1);
+
+        final SlowCache restoredPlain   = (SlowCache) SerializationUtility.unpack(SerializationUtility.pack(plain));
+        final SlowCache restoredOffHeap = (SlowCache) SerializationUtility.unpack(SerializationUtility.pack(offHeap));
+        LoggingUtility.info("Serialization: plain " + ((restoredPlain != null)?restoredPlain.get(2):null) + ", off-heap " + ((restoredOffHeap != null)?restoredOffHeap.get(2):null));
+    }
+
+    private static void testInvalidationWhileDemoting() throws InterruptedException {
+        final CountDownLatch encoding = new CountDownLatch(1);
+        final CountDownLatch invalidated = new CountDownLatch(1);
+        final SerializationCodec<String> serialization = new SerializationCodec<String>();
+
+        final SlowCache cache = new SlowCache(1, 1024, new IValueCodec<String>() {
+            @Override
+            public byte[] encode(final String value) {
+                encoding.countDown();
+                try {
+                    invalidated.await();
+                } catch (final InterruptedException ignored) {}
+
+                return serialization.encode(value);
+            }
+
+            @Override
+            public String decode(final byte[] data) {
+                return serialization.decode(data);
+            }
+        });
+
+        cache.get(0);
+        final Thread evictor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                cache.get(1);
+            }
+        });
+        evictor.start();
+
+        encoding.await();
+        cache.invalidate(0);
+        invalidated.countDown();
+        evictor.join();
+
+        LoggingUtility.info("Invalidation while demoting: off-heap " + cache.getOffHeapSize() + ", invalidated value: " + cache.getIfPresent(0));
+    }
+
+    public static void main(final String args[]) throws InterruptedException {
+        LoggingUtility.setLoggingLevel(LoggingUtility.LoggingLevel.LEVEL_CORE);
+
+        testCoalescing();
+        testLoadingFailure();
+        testEviction();
+        testExpiration();
+        testOffHeap();
+        testSerialization();
+        testInvalidationWhileDemoting();
+    }
+}
@@ -0,0 +1,165 @@
+package com.gesoftware.venta.structures.map;
+
+import com.gesoftware.venta.logging.LoggingUtility;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+public final class DurableMapTest {
+    private final static int c_Threads = 8;
+    private final static int c_Puts    = 5000;
+
+    private final static int c_CompactionThreshold = 5000;
+
+    private static void clean(final File directory) {
+        final File[] files = directory.listFiles();
+        if (files != null)
+            for (final File file : files) {
+                if (file.isDirectory())
+                    clean(file);
+
+                if (!file.delete())
+                    LoggingUtility.error("Can't delete " + file);
+            }
+    }
+
+    private static void writeConcurrently(final SharedMap<String, String> sharedMap, final String prefix) throws InterruptedException {
+        final Thread[] writers = new Thread[c_Threads];
+        for (int writer = 0; writer < c_Threads; writer++) {
+            final int id = writer;
+            writers[writer] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int put = 0; put < c_Puts; put++)
+                        sharedMap.put(prefix + id + "_" + put, "value #" + put);
+                }
+            });
+        }
+
+        for (final Thread writer : writers)
+            writer.start();
+
+        for (final Thread writer : writers)
+            writer.join();
+    }
+
+    private static void testCompaction(final File directory) throws InterruptedException {
+        clean(directory);
+
+        final SharedMap<String, String> sharedMap = new SharedMap<String, String>(5573, directory.getPath(), c_CompactionThreshold);
+        writeConcurrently(sharedMap, "key");
+        for (int put = 0; put < c_Puts; put += 2)
+            sharedMap.remove("key1_" + put);
+
+        final Map<String, String> expected = new HashMap<String, String>(sharedMap);
+        sharedMap.close();
+
+        final String[] files = directory.list();
+        LoggingUtility.info("Files after compaction: " + ((files != null)?Arrays.toString(files):"none") + ", snapshot exists: " + new File(directory, "snapshot.dat").isFile());
+
+        final SharedMap<String, String> recoveredMap = new SharedMap<String, String>(5574, directory.getPath(), c_CompactionThreshold);
+        LoggingUtility.info("Recovered after compaction: " + recoveredMap.size() + " of " + expected.size() + " entries, equal: " + expected.equals(new HashMap<String, String>(recoveredMap)));
+        recoveredMap.close();
+    }
+
+    private static void testBrokenJournal(final File directory) {
+        clean(directory);
+        for (int generation = 0; generation < 2; generation++)
+            if (!new File(directory, "journal." + generation + ".log").mkdirs())
+                LoggingUtility.error("Can't block journal file");
+
+        final SharedMap<String, String> sharedMap = new SharedMap<String, String>(5575, directory.getPath());
+        try {
+            sharedMap.put("key", "value");
+            LoggingUtility.info("Broken journal: put was acknowledged");
+        } catch (final IllegalStateException e) {
+            LoggingUtility.info("Broken journal: put failed: " + e.getMessage());
+        }
+
+        sharedMap.close();
+    }
+
+    private static void testRemoteBrokenJournal(final File directory) {
+        clean(directory);
+        for (int generation = 0; generation < 2; generation++)
+            if (!new File(directory, "journal." + generation + ".log").mkdirs())
+                LoggingUtility.error("Can't block journal file");
+
+        final SharedMap<String, String> sharedMap = new SharedMap<String, String>(5577, directory.getPath());
+        final RemoteMap<String, String> remoteMap = new RemoteMap<String, String>("localhost", 5577);
+
+        String failure = "none";
+        try {
+            remoteMap.putAsync("key", "value").get();
+        } catch (final ExecutionException e) {
+            failure = e.getCause().getMessage();
+        } catch (final InterruptedException e) {
+            failure = "interrupted";
+        }
+
+        LoggingUtility.info("Remote broken journal: put failed: " + failure + ", value after failure: " + remoteMap.get("key") +
+                ", size: " + remoteMap.size());
+
+        remoteMap.close();
+        sharedMap.close();
+    }
+
+    private static void testUnencodableValue(final File directory) {
+        clean(directory);
+
+        final ArrayList<Object> value = new ArrayList<Object>();
+        value.add(new Object());
+
+        final SharedMap<String, ArrayList<Object>> sharedMap = new SharedMap<String, ArrayList<Object>>(5576, directory.getPath());
+        try {
+            sharedMap.put("key", value);
+            LoggingUtility.info("Unencodable value: put was acknowledged");
+        } catch (final IllegalStateException e) {
+            LoggingUtility.info("Unencodable value: put failed: " + e.getMessage() + ", key is in map: " + sharedMap.containsKey("key"));
+        }
+
+        sharedMap.close();
+    }
+
+    private static void testWriteThroughput(final SharedMap<String, String> sharedMap) throws InterruptedException {
+        final long start = System.nanoTime();
+        writeConcurrently(sharedMap, "key");
+
+        final long time = (System.nanoTime() - start) / 1000000;
+        LoggingUtility.info("Durable puts: " + c_Threads * c_Puts + " in " + time + " ms (" + c_Threads * c_Puts * 1000L / Math.max(1, time) + " puts/s)");
+
+        final Map<String, String> values = new HashMap<String, String>();
+        for (int put = 0; put < c_Puts; put++)
+            values.put("bulk" + put, "bulk value #" + put);
+
+        sharedMap.putAll(values);
+        sharedMap.remove("key0_0");
+        LoggingUtility.info("Map size before restart: " + sharedMap.size());
+    }
+
+    public static void main(final String args[]) throws InterruptedException {
+        LoggingUtility.setLoggingLevel(LoggingUtility.LoggingLevel.LEVEL_CORE);
+
+        final File directory = new File(System.getProperty("java.io.tmpdir"), "venta-journal");
+        clean(directory);
+
+        final SharedMap<String, String> sharedMap = new SharedMap<String, String>(5571, directory.getPath());
+        testWriteThroughput(sharedMap);
+        sharedMap.close();
+
+        final long start = System.nanoTime();
+        final SharedMap<String, String> recoveredMap = new SharedMap<String, String>(5572, directory.getPath());
+        LoggingUtility.info("Recovered " + recoveredMap.size() + " entries in " + (System.nanoTime() - start) / 1000000 + " ms");
+        LoggingUtility.info("Recovered value: " + recoveredMap.get("key3_42") + ", removed value: " + recoveredMap.get("key0_0"));
+        recoveredMap.close();
+
+        testCompaction(new File(System.getProperty("java.io.tmpdir"), "venta-journal-compaction"));
+        testBrokenJournal(new File(System.getProperty("java.io.tmpdir"), "venta-journal-broken"));
+        testRemoteBrokenJournal(new File(System.getProperty("java.io.tmpdir"), "venta-journal-remote"));
+        testUnencodableValue(new File(System.getProperty("java.io.tmpdir"), "venta-journal-unencodable"));
+    }
+}
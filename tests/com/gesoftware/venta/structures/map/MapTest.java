@@ -21,7 +21,41 @@ public final class MapTest {
             LoggingUtility.info("Query [" + query + "]: " + remoteMap.get("test" + query));
     }
 
-    public static void main(final String args[]) {
+    private static void testNearCache() throws InterruptedException {
+        final RemoteMap<String, String> reader = new RemoteMap<String, String>("localhost", 5555, 100);
+        final RemoteMap<String, String> writer = new RemoteMap<String, String>("localhost", 5555);
+
+        writer.put("near", "first");
+        final String cached = reader.get("near");
+
+        writer.put("near", "second");
+        final long start = System.currentTimeMillis();
+
+        String value = reader.get("near");
+        while (!"second".equals(value) && (System.currentTimeMillis() - start < 5000)) {
+            Thread.sleep(10);
+            value = reader.get("near");
+        }
+
+        LoggingUtility.info("Near cache: cached " + cached + ", after other client's put " + value + " in " +
+                (System.currentTimeMillis() - start) + " ms");
+
+        final NearCache<Integer, Integer> cache = new NearCache<Integer, Integer>(100);
+        for (int key = 0; key < 200; key++) {
+            cache.put(key, key, cache.getEpoch());
+            cache.get(0);
+        }
+
+        int cachedKeys = 0;
+        for (int key = 0; key < 200; key++)
+            if (cache.get(key) != null)
+                cachedKeys++;
+
+        LoggingUtility.info("Near cache capacity: " + cachedKeys + " of 200 keys cached, recently used key kept: " +
+                (cache.get(0) != null));
+    }
+
+    public static void main(final String args[]) throws InterruptedException {
         LoggingUtility.setLoggingLevel(LoggingUtility.LoggingLevel.LEVEL_CORE);
 
         final SharedMap<String, String> sharedMap = new SharedMap<String, String>(5555);
@@ -31,5 +65,6 @@ public final class MapTest {
         LoggingUtility.info("Shared map size: " + sharedMap.size());
 
         testRemoteMap2();
+        testNearCache();
     }
 }
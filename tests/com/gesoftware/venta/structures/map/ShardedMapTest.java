@@ -0,0 +1,53 @@
+package com.gesoftware.venta.structures.map;
+
+import com.gesoftware.venta.logging.LoggingUtility;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class ShardedMapTest {
+    private final static int[] c_Ports = {5561, 5562, 5563};
+
+    private static void testSingleKeys(final ShardedRemoteMap<String, String> shardedMap) {
+        LoggingUtility.info("Adding 300 values");
+        for (int query = 0; query < 300; query++)
+            shardedMap.put("test" + query, "hello #" + query * query);
+
+        LoggingUtility.info("Sharded map size: " + shardedMap.size());
+        LoggingUtility.info("Query [17]: " + shardedMap.get("test17"));
+    }
+
+    private static void testBulk(final ShardedRemoteMap<String, String> shardedMap) {
+        final Map<String, String> values = new HashMap<String, String>();
+        for (int query = 300; query < 1300; query++)
+            values.put("test" + query, "bulk #" + query);
+
+        shardedMap.putAll(values);
+        LoggingUtility.info("Sharded map size after bulk put: " + shardedMap.size());
+
+        final List<String> keys = new ArrayList<String>();
+        for (int query = 250; query < 350; query++)
+            keys.add("test" + query);
+
+        LoggingUtility.info("Bulk get: " + shardedMap.getAll(keys).size() + " of " + keys.size() + " keys found");
+        LoggingUtility.info("Bulk remove: " + shardedMap.removeAll(keys).size() + " keys removed");
+        LoggingUtility.info("Iterated keys: " + new ArrayList<String>(shardedMap.keySet()).size());
+    }
+
+    public static void main(final String args[]) {
+        LoggingUtility.setLoggingLevel(LoggingUtility.LoggingLevel.LEVEL_CORE);
+
+        final List<SharedMap<String, String>> nodes = new ArrayList<SharedMap<String, String>>();
+        for (final int port : c_Ports)
+            nodes.add(new SharedMap<String, String>(port));
+
+        final ShardedRemoteMap<String, String> shardedMap = new ShardedRemoteMap<String, String>("localhost", c_Ports);
+        testSingleKeys(shardedMap);
+        testBulk(shardedMap);
+
+        for (int node = 0; node < nodes.size(); node++)
+            LoggingUtility.info("Node [" + c_Ports[node] + "] size: " + nodes.get(node).size());
+    }
+}
@@ -0,0 +1,153 @@
+package com.gesoftware.venta.structures.queue;
+
+import com.gesoftware.venta.logging.LoggingUtility;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class QueueTest {
+    private final static int c_Producers = 4;
+    private final static int c_Items     = 1000000;
+
+    private static void testMpsc() throws InterruptedException {
+        final MpscQueue<Integer> queue = new MpscQueue<Integer>(1024);
+
+        final Thread[] producers = new Thread[c_Producers];
+        for (int p = 0; p < c_Producers; p++) {
+            final int producer = p;
+            producers[p] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int item = 0; item < c_Items; item++)
+                            queue.put(producer * c_Items + item);
+                    } catch (final InterruptedException ignored) {}
+                }
+            });
+            producers[p].start();
+        }
+
+        final long start = System.currentTimeMillis();
+        final int[] last = new int[c_Producers];
+        final List<Integer> batch = new ArrayList<Integer>();
+
+        int received = 0, misordered = 0, batches = 0;
+        while (received < c_Producers * c_Items) {
+            if (queue.drain(batch, 256) == 0) {
+                queue.await();
+                continue;
+            }
+
+            for (final Integer item : batch) {
+                final int producer = item / c_Items;
+                if (item % c_Items < last[producer])
+                    misordered++;
+
+                last[producer] = item % c_Items;
+            }
+
+            received += batch.size();
+            batches++;
+            batch.clear();
+        }
+
+        for (final Thread producer : producers)
+            producer.join();
+
+        LoggingUtility.info("MPSC: " + received + " items in " + batches + " batches, " + misordered + " misordered, " +
+                (System.currentTimeMillis() - start) + " ms, empty: " + queue.isEmpty());
+    }
+
+    private static void testDropOldest() throws InterruptedException {
+        final MpscQueue<Integer> queue = new MpscQueue<Integer>(64);
+        final AtomicLong dropped = new AtomicLong();
+
+        final Thread[] producers = new Thread[c_Producers];
+        for (int p = 0; p < c_Producers; p++) {
+            final int producer = p;
+            producers[p] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int item = 0; item < c_Items; item++)
+                        while (!queue.offer(producer * c_Items + item))
+                            if (queue.poll() != null)
+                                dropped.incrementAndGet();
+                }
+            });
+            producers[p].start();
+        }
+
+        final long start = System.currentTimeMillis();
+        final List<Integer> batch = new ArrayList<Integer>();
+
+        long received = 0;
+        boolean isRunning = true;
+        while (isRunning || !queue.isEmpty()) {
+            isRunning = false;
+            for (final Thread producer : producers)
+                isRunning |= producer.isAlive();
+
+            received += queue.drain(batch, 256);
+            batch.clear();
+        }
+
+        LoggingUtility.info("Drop oldest: " + received + " received, " + dropped.get() + " dropped, " +
+                (received + dropped.get()) + " of " + c_Producers * c_Items + " items, " +
+                (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private static void testBounds() throws InterruptedException {
+        final MpscQueue<String> queue = new MpscQueue<String>(3);
+        for (int item = 0; item < 5; item++)
+            queue.offer("item #" + item);
+
+        LoggingUtility.info("Bounds: capacity " + queue.capacity() + ", size " + queue.size() + ", items " + queue +
+                ", timed offer: " + queue.offer("extra", 50) + ", poll: " + queue.poll() + ", peek: " + queue.peek());
+    }
+
+    private static void testFixed() throws InterruptedException {
+        final FixedQueue<Integer> window = new FixedQueue<Integer>(3);
+        for (int item = 0; item < 10; item++)
+            window.push(item);
+
+        LoggingUtility.info("Fixed: size " + window.size() + ", values " + window.values());
+
+        final FixedQueue<Integer> history = new FixedQueue<Integer>(5000, true);
+        final Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int item = 0; item < c_Items * 10; item++)
+                    history.push(item);
+            }
+        });
+
+        final long start = System.currentTimeMillis();
+        writer.start();
+
+        int walks = 0, misordered = 0;
+        while (writer.isAlive()) {
+            int last = -1;
+            for (final Integer item : history) {
+                if (item <= last)
+                    misordered++;
+
+                last = item;
+            }
+            walks++;
+        }
+        writer.join();
+
+        LoggingUtility.info("Fixed single writer: " + c_Items * 10 + " pushes, " + walks + " concurrent walks, " + misordered +
+                " misordered, " + (System.currentTimeMillis() - start) + " ms, last window " + history.size());
+    }
+
+    public static void main(final String args[]) throws InterruptedException {
+        LoggingUtility.setLoggingLevel(LoggingUtility.LoggingLevel.LEVEL_CORE);
+
+        testBounds();
+        testMpsc();
+        testDropOldest();
+        testFixed();
+    }
+}
@@ -0,0 +1,69 @@
+package com.gesoftware.venta.structures.sortedarray;
+
+import com.gesoftware.venta.logging.LoggingUtility;
+
+import java.util.*;
+
+public final class SortedArrayTest {
+    private final static int c_Items = 200000;
+
+    private static boolean isSame(final SortedArray<Integer> array, final List<Integer> expected) {
+        Collections.sort(expected);
+        return Arrays.equals(array.toArray(), expected.toArray());
+    }
+
+    private static void testOperations() {
+        final Random random = new Random(42);
+        final SortedArray<Integer> array = new SortedArray<Integer>();
+        final List<Integer> expected = new ArrayList<Integer>();
+
+        for (int step = 0; step < 20000; step++) {
+            final int item = random.nextInt(1000);
+            if (random.nextInt(3) == 0) {
+                array.remove(item);
+                expected.remove((Integer) item);
+            } else {
+                array.add(item);
+                expected.add(item);
+            }
+        }
+
+        final List<Integer> bulk = new ArrayList<Integer>();
+        for (int item = 0; item < 1000; item++)
+            bulk.add(random.nextInt(2000));
+
+        array.addAll(bulk);
+        expected.addAll(bulk);
+
+        LoggingUtility.info("Operations: size " + array.size() + ", same as list: " + isSame(array, expected) +
+                ", contains 500: " + (array.contains(500) == expected.contains(500)));
+        LoggingUtility.info("Ranges: floor(1500) " + array.floor(1500) + ", ceiling(1500) " + array.ceiling(1500) +
+                ", subRange(10, 13) " + array.subRange(10, 13) + ", floor(-1) " + array.floor(-1));
+    }
+
+    private static void testPerformance() {
+        final Random random = new Random(42);
+        final SortedArray<Integer> array = new SortedArray<Integer>();
+
+        long start = System.currentTimeMillis();
+        for (int item = 0; item < c_Items; item++)
+            array.add(random.nextInt());
+
+        LoggingUtility.info("Performance: " + c_Items + " random adds in " + (System.currentTimeMillis() - start) + " ms");
+
+        final List<Integer> bulk = new ArrayList<Integer>();
+        for (int item = 0; item < c_Items; item++)
+            bulk.add(random.nextInt());
+
+        start = System.currentTimeMillis();
+        array.addAll(bulk);
+        LoggingUtility.info("Performance: merge of " + c_Items + " items in " + (System.currentTimeMillis() - start) + " ms, size " + array.size());
+    }
+
+    public static void main(final String args[]) {
+        LoggingUtility.setLoggingLevel(LoggingUtility.LoggingLevel.LEVEL_CORE);
+
+        testOperations();
+        testPerformance();
+    }
+}
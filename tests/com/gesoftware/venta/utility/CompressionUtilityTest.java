@@ -0,0 +1,163 @@
+package com.gesoftware.venta.utility;
+
+import com.gesoftware.venta.logging.LoggingUtility;
+import com.gesoftware.venta.network.model.Message;
+import com.gesoftware.venta.structures.map.protocol.common.ProtocolCodec;
+import com.gesoftware.venta.structures.map.protocol.get.ResponseGet;
+import com.gesoftware.venta.structures.map.protocol.put.QueryPut;
+import com.gesoftware.venta.structures.map.protocol.putall.QueryPutAll;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+public final class CompressionUtilityTest {
+    private final static int c_Iterations = 20000;
+
+    private final static byte c_Codecs[] = {CompressionUtility.c_CodecBest, CompressionUtility.c_CodecFast, CompressionUtility.c_CodecRaw, CompressionUtility.c_CodecCompact};
+
+    private static Serializable[] createObjects() {
+        final Map<String, Serializable> map = new HashMap<String, Serializable>();
+        for (int i = 0; i < 100; i++)
+            map.put("key" + i, "value" + i);
+
+        return new Serializable[] {
+            new QueryPut(1, "key", 42),
+            new ResponseGet(2, "Some value"),
+            new QueryPutAll(3, map),
+            new ArrayList<String>(Collections.nCopies(100, "text"))
+        };
+    }
+
+    private static void testCodecs(final Serializable object) {
+        for (final byte codec : c_Codecs) {
+            final Message message = new Message(object, codec);
+
+            final long start = System.nanoTime();
+            for (int i = 0; i < c_Iterations; i++)
+                new Message(object, codec).getObject();
+
+            final long time = (System.nanoTime() - start) / c_Iterations;
+            LoggingUtility.info(object.getClass().getSimpleName() + " codec " + codec + " -> " + message.getCodec() + ": " + message.getSize() + " bytes, " + time + " ns per round-trip, legacy: " + CompressionUtility.decompress(message.toLegacy().getData()).getClass().getSimpleName());
+        }
+    }
+
+    private static byte[] compressUnpooled(final Object object) {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final Deflater deflater = new Deflater();
+        deflater.setLevel(Deflater.BEST_COMPRESSION);
+        deflater.setInput(SerializationUtility.pack(object));
+        deflater.finish();
+
+        final byte[] buffer = new byte[4096];
+        while (!deflater.finished())
+            output.write(buffer, 0, deflater.deflate(buffer));
+
+        return output.toByteArray();
+    }
+
+    private static Object decompressUnpooled(final byte[] data) {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final Inflater inflater = new Inflater();
+        inflater.setInput(data);
+
+        final byte[] buffer = new byte[4096];
+        try {
+            while (!inflater.finished())
+                output.write(buffer, 0, inflater.inflate(buffer));
+        } catch (final DataFormatException e) {
+            return null;
+        }
+
+        return SerializationUtility.unpack(output.toByteArray());
+    }
+
+    private static long getAllocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void testAllocation(final Serializable object) {
+        for (int pass = 0; pass < 2; pass++) {
+            long bytes = getAllocatedBytes();
+            long start = System.nanoTime();
+            for (int i = 0; i < c_Iterations; i++)
+                decompressUnpooled(compressUnpooled(object));
+
+            LoggingUtility.info("Unpooled: " + (getAllocatedBytes() - bytes) / c_Iterations + " bytes, " + (System.nanoTime() - start) / c_Iterations + " ns per round-trip");
+
+            bytes = getAllocatedBytes();
+            start = System.nanoTime();
+            for (int i = 0; i < c_Iterations; i++)
+                CompressionUtility.decompress(CompressionUtility.compress(object));
+
+            LoggingUtility.info("Pooled: " + (getAllocatedBytes() - bytes) / c_Iterations + " bytes, " + (System.nanoTime() - start) / c_Iterations + " ns per round-trip");
+
+            final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            bytes = getAllocatedBytes();
+            start = System.nanoTime();
+            for (int i = 0; i < c_Iterations; i++) {
+                stream.reset();
+                CompressionUtility.compress(object, stream);
+                CompressionUtility.decompress(new ByteArrayInputStream(stream.toByteArray()));
+            }
+
+            LoggingUtility.info("Streaming: " + (getAllocatedBytes() - bytes) / c_Iterations + " bytes, " + (System.nanoTime() - start) / c_Iterations + " ns per round-trip");
+        }
+    }
+
+    private static void testStreaming(final Serializable object) {
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        CompressionUtility.compress(object, stream);
+
+        final byte[] data = stream.toByteArray();
+        LoggingUtility.info("Streamed " + data.length + " bytes, equal to array: " + object.equals(CompressionUtility.decompress(data)) + ", equal from stream: " + object.equals(CompressionUtility.decompress(new ByteArrayInputStream(data))));
+    }
+
+    private static void testRoundTrip() {
+        final Message put = new Message(new QueryPut(7, "key", 42L));
+        final QueryPut query = (QueryPut) put.getObject();
+        LoggingUtility.info("Auto codec: " + put.getCodec() + ", request: " + query.m_RequestID + ", key: " + query.m_Key + ", value: " + query.m_Value);
+
+        final Message text = new Message((Object) "Plain text");
+        LoggingUtility.info("Default codec: " + text.getCodec() + ", object: " + text.getObject());
+    }
+
+    private static void testCorruptedCount() {
+        final ProtocolCodec codec = new ProtocolCodec();
+        final byte[] data = codec.encode(new QueryPutAll(9, Collections.<Serializable, Serializable>singletonMap("key", 42)));
+
+        final StringBuilder results = new StringBuilder();
+        for (final int count : new int[] {1, 2, 0x40000000, 0x7FFFFFFF}) {
+            data[10] = (byte) (count >>> 24);
+            data[11] = (byte) (count >>> 16);
+            data[12] = (byte) (count >>> 8);
+            data[13] = (byte) count;
+
+            results.append(" ").append(count).append(" -> ").append(codec.decode(data, 0, data.length) != null);
+        }
+
+        LoggingUtility.info("Corrupted collection size decoded:" + results);
+    }
+
+    public static void main(final String args[]) {
+        LoggingUtility.setLoggingLevel(LoggingUtility.LoggingLevel.LEVEL_CORE);
+        CompressionUtility.register(new ProtocolCodec());
+
+        testRoundTrip();
+        testCorruptedCount();
+        for (final Serializable object : createObjects())
+            testCodecs(object);
+
+        final ArrayList<String> list = new ArrayList<String>();
+        for (int i = 0; i < 1000; i++)
+            list.add("item" + i);
+
+        testStreaming(list);
+        testAllocation(list);
+    }
+}